@@ -76,6 +76,7 @@ import com.rapidminer.tools.cipher.KeyGeneratorTool;
 import com.rapidminer.tools.config.ConfigurationManager;
 import com.rapidminer.tools.jdbc.DatabaseService;
 import com.rapidminer.tools.jdbc.connection.DatabaseConnectionService;
+import com.rapidminer.tools.math.kernels.KernelRowCache;
 import com.rapidminer.tools.plugin.Plugin;
 import com.rapidminer.tools.usagestats.UsageStatistics;
 
@@ -272,6 +273,18 @@ public class RapidMiner {
 	/** The maximum number of working threads that should be used by processes. */
 	public static final String PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS = "rapidminer.general.number_of_threads";
 
+	/** The name of the property indicating whether independent operators of a subprocess should be executed concurrently. */
+	public static final String PROPERTY_RAPIDMINER_GENERAL_PARALLEL_SUBPROCESS_EXECUTION = "rapidminer.general.parallel_subprocess_execution";
+
+	/** The name of the property indicating whether example sets should be stored column wise and memory mapped in local repositories. */
+	public static final String PROPERTY_RAPIDMINER_GENERAL_COLUMNAR_REPOSITORY_STORAGE = "rapidminer.general.columnar_repository_storage";
+
+	/** The name of the property indicating the size of the kernel matrix cache in MB used by kernel based learners without an own cache size parameter. */
+	public static final String PROPERTY_RAPIDMINER_GENERAL_KERNEL_CACHE_SIZE = "rapidminer.general.kernel_cache_size";
+
+	/** The name of the property indicating whether cached kernel values should be stored with single precision. */
+	public static final String PROPERTY_RAPIDMINER_GENERAL_KERNEL_CACHE_SINGLE_PRECISION = "rapidminer.general.kernel_cache_single_precision";
+
 	// ---  INIT PROPERTIES  ---
 	
 	public static final String PROPERTY_RAPIDMINER_MAX_MEMORY = " maxMemory";
@@ -385,6 +398,14 @@ public class RapidMiner {
 
 		ParameterService.registerParameter(new ParameterTypeInt(PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS,
 				"The maximum number of threads that a RapidMiner process is allowed to use.", 0, Integer.MAX_VALUE, 0), "general");
+		ParameterService.registerParameter(new ParameterTypeBoolean(PROPERTY_RAPIDMINER_GENERAL_PARALLEL_SUBPROCESS_EXECUTION,
+				"If checked, operators of a subprocess which do not depend on each other are executed concurrently.", false), "general");
+		ParameterService.registerParameter(new ParameterTypeBoolean(PROPERTY_RAPIDMINER_GENERAL_COLUMNAR_REPOSITORY_STORAGE,
+				"If checked, example sets are stored column wise in local repositories and memory mapped instead of being read into memory when retrieved.", false), "general");
+		ParameterService.registerParameter(new ParameterTypeInt(PROPERTY_RAPIDMINER_GENERAL_KERNEL_CACHE_SIZE,
+				"The size of the kernel matrix cache in MB used by kernel based learners which do not define an own cache size.", 0, Integer.MAX_VALUE, KernelRowCache.DEFAULT_CACHE_SIZE), "general");
+		ParameterService.registerParameter(new ParameterTypeBoolean(PROPERTY_RAPIDMINER_GENERAL_KERNEL_CACHE_SINGLE_PRECISION,
+				"If checked, cached kernel values are stored with single precision so that twice as many values fit into the kernel cache.", false), "general");
 
 		// INIT
 		//		ParameterService.registerParameter(new ParameterTypeBoolean(PROPERTY_RAPIDMINER_INIT_JDBC_LIB, "Load JDBC drivers from lib dir?", true));
@@ -0,0 +1,39 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example;
+
+/** 
+ * Statistics which can be counted independently on disjoint parts of an example set and 
+ * combined afterwards. This allows the concurrent calculation of attribute statistics.
+ * 
+ * @author agent
+ */
+public interface MergeableStatistics extends Statistics {
+
+	/** 
+	 * Adds the counts of the given statistics to this one. The given statistics must be of 
+	 * the same class and must have been counted for the same attribute. It is not changed.
+	 */
+	public void merge(Statistics other);
+
+}
@@ -27,11 +27,13 @@ import java.util.logging.Level;
 
 import com.rapidminer.tools.LogService;
 
-/** Attribute statistics object for nominal attributes. 
+/** Attribute statistics object for nominal attributes. If several values occur most often, the
+ *  value with the lowest index is the mode, so that the mode does not depend on the order in which
+ *  the values were counted or merged.
  * 
  *  @author Ingo Mierswa
  */
-public class NominalStatistics implements Statistics {
+public class NominalStatistics implements MergeableStatistics {
 
     private static final long serialVersionUID = -7644523717916796701L;
 
@@ -77,7 +79,7 @@ public class NominalStatistics implements Statistics {
             		scores = newScores;
             	}
             	scores[index]++;
-            	if (scores[index] > maxCounter) {
+            	if (scores[index] > maxCounter || (scores[index] == maxCounter && index < mode)) {
             		maxCounter = scores[index];
             		mode = index;
             	}
@@ -85,6 +87,39 @@ public class NominalStatistics implements Statistics {
         }
     }
     
+    /** Adds the counts of the other statistics. */
+    public void merge(Statistics other) {
+        NominalStatistics statistics = (NominalStatistics) other;
+        if (statistics.scores == null) {
+            return;
+        }
+        if (scores == null || scores.length < statistics.scores.length) {
+            long[] newScores = new long[statistics.scores.length];
+            if (scores != null)
+                System.arraycopy(scores, 0, newScores, 0, scores.length);
+            scores = newScores;
+        }
+        for (int i = 0; i < statistics.scores.length; i++) {
+            scores[i] += statistics.scores[i];
+        }
+
+        long newMaxCounter = 0;
+        for (long score : scores) {
+            newMaxCounter = Math.max(newMaxCounter, score);
+        }
+        long newMode = -1;
+        if (newMaxCounter > 0) {
+            for (int i = 0; i < scores.length; i++) {
+                if (scores[i] == newMaxCounter) {
+                    newMode = i;
+                    break;
+                }
+            }
+        }
+        this.mode = newMode;
+        this.maxCounter = newMaxCounter;
+    }
+
     public boolean handleStatistics(String name) {
         return 
             MODE.equals(name) ||
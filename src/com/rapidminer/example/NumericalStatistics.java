@@ -30,7 +30,7 @@ import com.rapidminer.tools.LogService;
  * 
  *  @author Ingo Mierswa
  */
-public class NumericalStatistics implements Statistics {
+public class NumericalStatistics implements MergeableStatistics {
 
     private static final long serialVersionUID = -6283236022093847887L;
 
@@ -68,6 +68,13 @@ public class NumericalStatistics implements Statistics {
         }
     }
 
+    public void merge(Statistics other) {
+        NumericalStatistics statistics = (NumericalStatistics) other;
+        this.sum += statistics.sum;
+        this.squaredSum += statistics.squaredSum;
+        this.valueCounter += statistics.valueCounter;
+    }
+
     public boolean handleStatistics(String name) {
         return 
             AVERAGE.equals(name) ||
@@ -31,7 +31,9 @@ import java.util.Random;
 
 import com.rapidminer.example.set.AttributeWeightedExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.ColumnarExampleTable;
 import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.example.table.NominalMapping;
 import com.rapidminer.generator.FeatureGenerator;
@@ -489,6 +491,16 @@ public class Tools {
 			throw new UserError(null, 117);
 	}
 
+	/**
+	 * Returns true if the examples of the given set might be read by several threads concurrently
+	 * via {@link ExampleSet#getExample(int)}. This is the case for sets backed by a memory or a
+	 * columnar example table, but not for database tables which share one result set.
+	 */
+	public static boolean isConcurrentlyReadable(ExampleSet exampleSet) {
+		ExampleTable table = exampleSet.getExampleTable();
+		return table instanceof MemoryExampleTable || table instanceof ColumnarExampleTable;
+	}
+
 	/** Returns a new example set based on a fresh memory example table sampled from the
 	 *  given set. */
 	public static ExampleSet getLinearSubsetCopy(ExampleSet exampleSet, int size, int offset) {
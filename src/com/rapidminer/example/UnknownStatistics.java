@@ -30,7 +30,7 @@ import com.rapidminer.tools.LogService;
  * 
  *  @author Ingo Mierswa
  */
-public class UnknownStatistics implements Statistics {
+public class UnknownStatistics implements MergeableStatistics {
     
     private static final long serialVersionUID = 217609774484151520L;
     
@@ -57,6 +57,10 @@ public class UnknownStatistics implements Statistics {
             unknownCounter++;
     }
 
+    public void merge(Statistics other) {
+        this.unknownCounter += ((UnknownStatistics) other).unknownCounter;
+    }
+
     public double getStatistics(Attribute attribute, String statisticsName, String parameter) {
         if (UNKNOWN.equals(statisticsName)) {
             return unknownCounter;
@@ -30,7 +30,7 @@ import com.rapidminer.tools.LogService;
  * 
  *  @author Ingo Mierswa, Tobias Malbrecht
  */
-public class WeightedNumericalStatistics implements Statistics {
+public class WeightedNumericalStatistics implements MergeableStatistics {
 
     private static final long serialVersionUID = -6283236022093847887L;
 
@@ -75,6 +75,14 @@ public class WeightedNumericalStatistics implements Statistics {
       	}
     }
 
+    public void merge(Statistics other) {
+        WeightedNumericalStatistics statistics = (WeightedNumericalStatistics) other;
+        this.sum += statistics.sum;
+        this.squaredSum += statistics.squaredSum;
+        this.totalWeight += statistics.totalWeight;
+        this.count += statistics.count;
+    }
+
     public boolean handleStatistics(String name) {
         return 
             AVERAGE_WEIGHTED.equals(name) ||
@@ -35,6 +35,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.zip.GZIPOutputStream;
 
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -47,18 +48,26 @@ import com.rapidminer.datatable.DataTable;
 import com.rapidminer.datatable.DataTableExampleSetAdapter;
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.AttributeRole;
+import com.rapidminer.example.AttributeTransformation;
 import com.rapidminer.example.AttributeWeights;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.MergeableStatistics;
 import com.rapidminer.example.Statistics;
+import com.rapidminer.example.table.AbstractExampleTable;
+import com.rapidminer.example.table.ColumnarExampleTable;
+import com.rapidminer.example.table.ExampleTable;
+import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.example.table.SparseFormatDataRowReader;
 import com.rapidminer.io.process.XMLTools;
 import com.rapidminer.operator.IOContainer;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.MissingIOObjectException;
+import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.ResultObjectAdapter;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.Tools;
 import com.rapidminer.tools.XMLException;
 
@@ -77,9 +86,15 @@ public abstract class AbstractExampleSet extends ResultObjectAdapter implements
 
 	private static final long serialVersionUID = 8596141056047402798L;
 
+	/** The minimal number of values counted by one thread during the statistics calculation. */
+	private static final int MINIMAL_STATISTICS_BLOCK_SIZE = 100000;
+
 	/** Maps attribute names to list of statistics objects. */
 	private final Map<String, List<Statistics>> statisticsMap = new HashMap<String, List<Statistics>>();
 
+	/** Maps attribute names to the state of the data for which the statistics in {@link #statisticsMap} were calculated. */
+	private transient Map<String, StatisticsState> statisticsStates;
+
 	/** Maps the id values on the line index in the example table. */
 	private Map<Double, int[]> idMap = new HashMap<Double, int[]>();
 
@@ -433,62 +448,257 @@ public abstract class AbstractExampleSet extends ResultObjectAdapter implements
 
 	/**
 	 * Here the Example Set is parsed only once, all the information is retained
-	 * for each example set.
+	 * for each example set. If all statistics are {@link MergeableStatistics}, large
+	 * example sets are counted concurrently in blocks of examples and the results are 
+	 * merged. Statistics which are still valid since the data did not change after their
+	 * calculation are not counted again if {@link #isStatisticsCachingSupported()}.
 	 */
 	private void recalculateAttributeStatistics(List<Attribute> attributeList) {
 		// do nothing if not desired
 		if (attributeList.size() == 0) {
 			return;
-		} else {
-			// init statistics
-			for (Attribute attribute : attributeList) {
+		}
+
+		// must be retrieved before counting, so that every modification afterwards is noticed
+		long modificationStamp = AbstractExampleTable.getDataModificationStamp();
+		if (statisticsStates == null) {
+			statisticsStates = new HashMap<String, StatisticsState>();
+		}
+
+		// remove attributes with valid statistics
+		boolean mergeable = true;
+		List<Attribute> outdatedAttributes = new ArrayList<Attribute>(attributeList.size());
+		for (Attribute attribute : attributeList) {
+			StatisticsState state = statisticsStates.get(attribute.getName());
+			if (isStatisticsCachingSupported() && state != null && state.isValid(attribute, getAttributes().getWeight(), size(), modificationStamp)) {
+				// keep the statistics of the attribute itself in sync, they are used by deprecated methods
 				Iterator<Statistics> stats = attribute.getAllStatistics();
-				while (stats.hasNext()) {
+				for (Statistics cachedStatistics : statisticsMap.get(attribute.getName())) {
 					Statistics statistics = stats.next();
 					statistics.startCounting(attribute);
+					((MergeableStatistics) statistics).merge(cachedStatistics);
+				}
+			} else {
+				outdatedAttributes.add(attribute);
+				Iterator<Statistics> stats = attribute.getAllStatistics();
+				while (stats.hasNext()) {
+					mergeable &= stats.next() instanceof MergeableStatistics;
 				}
 			}
+		}
+		if (outdatedAttributes.isEmpty()) {
+			return;
+		}
 
-			// calculate statistics
-			Attribute weightAttribute = getAttributes().getWeight();
-			if ((weightAttribute != null) && (!weightAttribute.isNumerical())) // use only numerical weights
-				weightAttribute = null;
-			for (Example example : this) {
-				for (Attribute attribute : attributeList) {
-					double value = example.getValue(attribute);
-					double weight = 1.0d;
-					if (weightAttribute != null) {
-						weight = example.getValue(weightAttribute);
-					}
-					Iterator<Statistics> stats = attribute.getAllStatistics();
-					while (stats.hasNext()) {
-						Statistics statistics = stats.next();
-						statistics.count(value, weight);
+		if (mergeable) {
+			countMergeableStatistics(outdatedAttributes);
+		} else {
+			countStatistics(outdatedAttributes);
+		}
+
+		// store cloned statistics
+		for (Attribute attribute : outdatedAttributes) {
+			List<Statistics> statisticsList = statisticsMap.get(attribute.getName());
+			// no stats known for this attribute at all --> new list
+			if (statisticsList == null) {
+				statisticsList = new LinkedList<Statistics>();
+				statisticsMap.put(attribute.getName(), statisticsList);
+			}            
+
+			// in all cases: clear the list before adding new stats (clone of the calculations)
+			statisticsList.clear();
+
+			Iterator<Statistics> stats = attribute.getAllStatistics();
+			while (stats.hasNext()) {
+				Statistics statistics = (Statistics)stats.next().clone();
+				statisticsList.add(statistics);
+			}
+			if (mergeable) {
+				statisticsStates.put(attribute.getName(), new StatisticsState(attribute, getAttributes().getWeight(), size(), modificationStamp));
+			} else {
+				statisticsStates.remove(attribute.getName());
+			}
+		}
+	}
+
+	/** Counts the statistics of the given attributes directly in the statistics objects of the attributes. */
+	private void countStatistics(List<Attribute> attributeList) {
+		Statistics[][] statistics = new Statistics[attributeList.size()][];
+		int a = 0;
+		for (Attribute attribute : attributeList) {
+			statistics[a] = getAttributeStatistics(attribute, false);
+			a++;
+		}
+		countStatistics(this.iterator(), attributeList, statistics);
+	}
+
+	/** 
+	 * Counts the statistics of the given attributes in blocks, which are processed concurrently if
+	 * the example table allows random access. The merged result is stored in the statistics objects
+	 * of the attributes.
+	 */
+	private void countMergeableStatistics(final List<Attribute> attributeList) {
+		ExampleTable table = getExampleTable();
+		int numberOfBlocks = 1;
+		if (table instanceof MemoryExampleTable || table instanceof ColumnarExampleTable) {
+			numberOfBlocks = ParallelExecutionService.getNumberOfBlocks(size(), Math.max(1, MINIMAL_STATISTICS_BLOCK_SIZE / attributeList.size()));
+		}
+
+		final Statistics[][] result = new Statistics[attributeList.size()][];
+		int a = 0;
+		for (Attribute attribute : attributeList) {
+			result[a] = getAttributeStatistics(attribute, false);
+			a++;
+		}
+
+		if (numberOfBlocks <= 1) {
+			countStatistics(this.iterator(), attributeList, result);
+			return;
+		}
+
+		final int[] boundaries = ParallelExecutionService.getBlockBoundaries(size(), numberOfBlocks);
+		List<Callable<Statistics[][]>> tasks = new ArrayList<Callable<Statistics[][]>>(numberOfBlocks);
+		for (int block = 0; block < numberOfBlocks; block++) {
+			final int from = boundaries[block];
+			final int to = boundaries[block + 1];
+			tasks.add(new Callable<Statistics[][]>() {
+				@Override
+				public Statistics[][] call() {
+					Statistics[][] statistics = new Statistics[attributeList.size()][];
+					int a = 0;
+					for (Attribute attribute : attributeList) {
+						statistics[a] = getAttributeStatistics(attribute, true);
+						a++;
 					}
+					countStatistics(new Iterator<Example>() {
+						private int index = from;
+
+						public boolean hasNext() {
+							return index < to;
+						}
+
+						public Example next() {
+							return getExample(index++);
+						}
+
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					}, attributeList, statistics);
+					return statistics;
 				}
-			}
+			});
+		}
+		List<Statistics[][]> blockResults;
+		try {
+			blockResults = ParallelExecutionService.invokeAll(tasks);
+		} catch (OperatorException e) {
+			// counting does not throw checked exceptions
+			throw new RuntimeException(e.getMessage(), e);
+		}
 
-			// store cloned statistics
-			for (Attribute attribute : attributeList) {
-				List<Statistics> statisticsList = statisticsMap.get(attribute.getName());
-				// no stats known for this attribute at all --> new list
-				if (statisticsList == null) {
-					statisticsList = new LinkedList<Statistics>();
-					statisticsMap.put(attribute.getName(), statisticsList);
-				}            
+		// merging in the order of the blocks
+		for (Statistics[][] blockResult : blockResults) {
+			for (a = 0; a < result.length; a++) {
+				for (int s = 0; s < result[a].length; s++) {
+					((MergeableStatistics) result[a][s]).merge(blockResult[a][s]);
+				}
+			}
+		}
+	}
 
-				// in all cases: clear the list before adding new stats (clone of the calculations)
-				statisticsList.clear();
+	/** 
+	 * Returns the statistics objects of the given attribute after calling 
+	 * {@link Statistics#startCounting(Attribute)}. If copy is true, clones are returned. 
+	 */
+	private Statistics[] getAttributeStatistics(Attribute attribute, boolean copy) {
+		List<Statistics> statisticsList = new ArrayList<Statistics>();
+		Iterator<Statistics> stats = attribute.getAllStatistics();
+		while (stats.hasNext()) {
+			Statistics statistics = stats.next();
+			if (copy) {
+				statistics = (Statistics) statistics.clone();
+			}
+			statistics.startCounting(attribute);
+			statisticsList.add(statistics);
+		}
+		return statisticsList.toArray(new Statistics[statisticsList.size()]);
+	}
 
-				Iterator<Statistics> stats = attribute.getAllStatistics();
-				while (stats.hasNext()) {
-					Statistics statistics = (Statistics)stats.next().clone();
-					statisticsList.add(statistics);
+	/** Counts the values of the given examples in the given statistics, the i-th array belongs to the i-th attribute. */
+	private void countStatistics(Iterator<Example> examples, List<Attribute> attributeList, Statistics[][] statistics) {
+		Attribute[] attributes = attributeList.toArray(new Attribute[attributeList.size()]);
+		Attribute weightAttribute = getAttributes().getWeight();
+		if ((weightAttribute != null) && (!weightAttribute.isNumerical())) // use only numerical weights
+			weightAttribute = null;
+		while (examples.hasNext()) {
+			Example example = examples.next();
+			double weight = 1.0d;
+			if (weightAttribute != null) {
+				weight = example.getValue(weightAttribute);
+			}
+			for (int a = 0; a < attributes.length; a++) {
+				double value = example.getValue(attributes[a]);
+				for (Statistics attributeStatistics : statistics[a]) {
+					attributeStatistics.count(value, weight);
 				}
 			}
 		}
 	}
 
+	/**
+	 * Indicates if calculated statistics may be reused as long as the attribute, the weight attribute,
+	 * the size and the data of the underlying table did not change. Views changing the selection of examples without 
+	 * changing their size must return false.
+	 */
+	protected boolean isStatisticsCachingSupported() {
+		return false;
+	}
+
+	/** The state of the data for which attribute statistics were calculated. */
+	private static class StatisticsState {
+
+		private final Attribute attribute;
+
+		private final AttributeTransformation lastTransformation;
+
+		private final Attribute weight;
+
+		private final AttributeTransformation lastWeightTransformation;
+
+		private final int numberOfStatistics;
+
+		private final int size;
+
+		private final long modificationStamp;
+
+		private StatisticsState(Attribute attribute, Attribute weight, int size, long modificationStamp) {
+			this.attribute = attribute;
+			this.lastTransformation = attribute.getLastTransformation();
+			this.weight = weight;
+			this.lastWeightTransformation = weight != null ? weight.getLastTransformation() : null;
+			this.numberOfStatistics = getNumberOfStatistics(attribute);
+			this.size = size;
+			this.modificationStamp = modificationStamp;
+		}
+
+		private boolean isValid(Attribute attribute, Attribute weight, int size, long modificationStamp) {
+			return this.attribute == attribute && this.lastTransformation == attribute.getLastTransformation() &&
+				this.weight == weight && (weight == null || this.lastWeightTransformation == weight.getLastTransformation()) &&
+				this.numberOfStatistics == getNumberOfStatistics(attribute) && this.size == size && this.modificationStamp == modificationStamp;
+		}
+
+		private static int getNumberOfStatistics(Attribute attribute) {
+			int number = 0;
+			Iterator<Statistics> stats = attribute.getAllStatistics();
+			while (stats.hasNext()) {
+				stats.next();
+				number++;
+			}
+			return number;
+		}
+	}
+
 	/** Returns the desired statistic for the given attribute. This method should be 
 	 *  preferred over the deprecated method Attribute#getStatistics(String)
 	 *  since it correctly calculates and keep the statistics for the current example
@@ -99,7 +99,7 @@ public class ConditionedExampleSet extends AbstractExampleSet {
 	 * condition.
 	 */
 	public ConditionedExampleSet(ExampleSet parent, Condition condition, boolean inverted) {
-		this.parent = (ExampleSet)parent.clone();
+		this.parent = ExampleSetFlattener.cloneAndFlatten(parent);
 		this.mapping = calculateMapping(condition, inverted);
 	}
 
@@ -172,6 +172,15 @@ public class ConditionedExampleSet extends AbstractExampleSet {
 		return mapping.length;
 	}
 
+	/** Returns the index of the example in the parent example set. */
+	/* pp */ int getParentIndex(int index) {
+		return this.mapping[index];
+	}
+
+	/* pp */ ExampleSet getParent() {
+		return this.parent;
+	}
+
     public Attributes getAttributes() {
     	return parent.getAttributes();
     }
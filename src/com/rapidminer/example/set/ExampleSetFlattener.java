@@ -0,0 +1,123 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.set;
+
+import com.rapidminer.example.ExampleSet;
+
+
+/**
+ * <p>Collapses chains of stacked row views into a single {@link MappedExampleSet}. Row views
+ * are the {@link MappedExampleSet}, the {@link ConditionedExampleSet}, the {@link SortedExampleSet}
+ * and the {@link SplittedExampleSet}: they only select and reorder the examples of their parent and
+ * delegate {@link ExampleSet#getAttributes()} and {@link ExampleSet#getAnnotations()} to it, so that
+ * annotations set on any view of the chain are stored below the chain. A chain of such views can therefore be replaced
+ * by one mapping which directly refers to the example set below the chain. The flattened view
+ * delivers the same examples, but each access passes a single level of indirection instead of one
+ * level per view.</p>
+ * 
+ * <p>Row views flatten their parent automatically when it already is a chain of at least
+ * {@link #MAXIMAL_VIEW_DEPTH} row views. Subclasses of the row views are never flattened since they
+ * might deliver their examples differently.</p>
+ * 
+ * @author agent
+ */
+public class ExampleSetFlattener {
+
+	/** Chains of at least this number of row views are flattened when another row view is created on top of them. */
+	public static final int MAXIMAL_VIEW_DEPTH = 3;
+
+	/** Returns the number of directly stacked row views on top of the given example set. */
+	public static int getViewDepth(ExampleSet exampleSet) {
+		int depth = 0;
+		ExampleSet current = exampleSet;
+		while (isRowView(current)) {
+			depth++;
+			current = getParent(current);
+		}
+		return depth;
+	}
+
+	/**
+	 * Returns a view delivering the same examples as the given example set in which all
+	 * directly stacked row views are collapsed into one {@link MappedExampleSet}. If there is
+	 * nothing to collapse, a clone of the given example set is returned.
+	 */
+	public static ExampleSet flatten(ExampleSet exampleSet) {
+		if (getViewDepth(exampleSet) < 2) {
+			return (ExampleSet) exampleSet.clone();
+		}
+		int[] mapping = new int[exampleSet.size()];
+		for (int i = 0; i < mapping.length; i++) {
+			mapping[i] = i;
+		}
+		ExampleSet current = exampleSet;
+		while (isRowView(current)) {
+			for (int i = 0; i < mapping.length; i++) {
+				mapping[i] = getParentIndex(current, mapping[i]);
+			}
+			current = getParent(current);
+		}
+		return new MappedExampleSet(current, mapping, true, false);
+	}
+
+	/**
+	 * Returns a clone of the given example set which can be used as parent of a new row view.
+	 * The example set is flattened if it is a chain of at least {@link #MAXIMAL_VIEW_DEPTH} row views.
+	 */
+	public static ExampleSet cloneAndFlatten(ExampleSet exampleSet) {
+		if (getViewDepth(exampleSet) >= MAXIMAL_VIEW_DEPTH) {
+			return flatten(exampleSet);
+		} else {
+			return (ExampleSet) exampleSet.clone();
+		}
+	}
+
+	private static boolean isRowView(ExampleSet exampleSet) {
+		Class<?> clazz = exampleSet.getClass();
+		return clazz == MappedExampleSet.class || clazz == ConditionedExampleSet.class || clazz == SortedExampleSet.class || clazz == SplittedExampleSet.class;
+	}
+
+	private static ExampleSet getParent(ExampleSet exampleSet) {
+		if (exampleSet instanceof MappedExampleSet) {
+			return ((MappedExampleSet) exampleSet).getParent();
+		} else if (exampleSet instanceof ConditionedExampleSet) {
+			return ((ConditionedExampleSet) exampleSet).getParent();
+		} else if (exampleSet instanceof SortedExampleSet) {
+			return ((SortedExampleSet) exampleSet).getParent();
+		} else {
+			return ((SplittedExampleSet) exampleSet).getParent();
+		}
+	}
+
+	private static int getParentIndex(ExampleSet exampleSet, int index) {
+		if (exampleSet instanceof MappedExampleSet) {
+			return ((MappedExampleSet) exampleSet).getParentIndex(index);
+		} else if (exampleSet instanceof ConditionedExampleSet) {
+			return ((ConditionedExampleSet) exampleSet).getParentIndex(index);
+		} else if (exampleSet instanceof SortedExampleSet) {
+			return ((SortedExampleSet) exampleSet).getParentIndex(index);
+		} else {
+			return ((SplittedExampleSet) exampleSet).getActualParentIndex(index);
+		}
+	}
+}
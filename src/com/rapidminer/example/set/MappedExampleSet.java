@@ -60,6 +60,9 @@ public class MappedExampleSet extends AbstractExampleSet {
 	
     /** The used mapping. */
     private int[] mapping;
+
+    /** Indicates if the mapping is sorted and the examples can be read sequentially from the parent. */
+    private boolean sorted;
     
     /** Constructs an example set based on the given mapping. */
     public MappedExampleSet(ExampleSet parent, int[] mapping) {
@@ -77,9 +80,10 @@ public class MappedExampleSet extends AbstractExampleSet {
      *  useMappedExamples is false only examples which are not part of the original 
      *  mapping are used. If the boolean flag sort is false the mapping is used as is.*/
     public MappedExampleSet(ExampleSet parent, int[] mapping, boolean useMappedExamples, boolean sort) {
-    	this.parent = (ExampleSet)parent.clone();
+    	this.parent = ExampleSetFlattener.cloneAndFlatten(parent);
         this.mapping = mapping; 
         if(sort) Arrays.sort(this.mapping);
+        this.sorted = sort || isSorted(this.mapping);
         
         if (!useMappedExamples) {
             List<Integer> inverseIndexList = new ArrayList<Integer>();
@@ -97,6 +101,7 @@ public class MappedExampleSet extends AbstractExampleSet {
             int index = 0;
             while (i.hasNext())
                 this.mapping[index++] = i.next();
+            this.sorted = true;
         }
     }
 
@@ -104,6 +109,7 @@ public class MappedExampleSet extends AbstractExampleSet {
     public MappedExampleSet(MappedExampleSet exampleSet) {
     	this.parent = (ExampleSet)exampleSet.parent.clone();
         this.mapping = exampleSet.mapping;
+        this.sorted = exampleSet.sorted;
     }
 
     @Override
@@ -127,9 +133,14 @@ public class MappedExampleSet extends AbstractExampleSet {
         return super.hashCode() ^ Arrays.hashCode(this.mapping);
     }
     
-    /** Returns a {@link MappedExampleReader}. */
+    /** Returns a {@link MappedExampleReader} if the mapping is sorted. Otherwise the examples
+     *  are accessed by their index. */
     public Iterator<Example> iterator() {
-        return new MappedExampleReader(parent.iterator(), this.mapping);
+        if (sorted) {
+            return new MappedExampleReader(parent.iterator(), this.mapping);
+        } else {
+            return new IndexBasedExampleSetReader(this);
+        }
     }
 
     /** Returns the i-th example in the mapping. */
@@ -145,6 +156,15 @@ public class MappedExampleSet extends AbstractExampleSet {
     public int size() {
         return mapping.length;
     }
+
+    /** Returns the index of the example in the parent example set. */
+    /* pp */ int getParentIndex(int index) {
+        return this.mapping[index];
+    }
+
+    /* pp */ ExampleSet getParent() {
+        return this.parent;
+    }
     
     public Attributes getAttributes() {
     	return parent.getAttributes();
@@ -154,6 +174,14 @@ public class MappedExampleSet extends AbstractExampleSet {
 		return parent.getExampleTable();
 	}
 	
+    private static boolean isSorted(int[] mapping) {
+        for (int i = 1; i < mapping.length; i++) {
+            if (mapping[i] < mapping[i - 1])
+                return false;
+        }
+        return true;
+    }
+
     /** Creates a new mapping for the given example set by sampling with replacement. */
     public static int[] createBootstrappingMapping(ExampleSet exampleSet, int size, Random random) {
         int[] mapping = new int[size];
@@ -151,6 +151,12 @@ public class SimpleExampleSet extends AbstractExampleSet {
 	
 	// --- examples ---
 
+	/** The statistics may be reused since the examples of this set only change with the table. */
+	@Override
+	protected boolean isStatisticsCachingSupported() {
+		return true;
+	}
+
 	public ExampleTable getExampleTable() {
 		return exampleTable;
 	}
@@ -96,7 +96,7 @@ public class SortedExampleSet extends AbstractExampleSet {
 	private int[] mapping;
 
 	public SortedExampleSet(ExampleSet parent, final Attribute sortingAttribute, int sortingDirection) {
-		this.parent = (ExampleSet) parent.clone();
+		this.parent = ExampleSetFlattener.cloneAndFlatten(parent);
 		List<SortingIndex> sortingIndex = new ArrayList<SortingIndex>(parent.size());
 
 		// create sort index
@@ -172,7 +172,7 @@ public class SortedExampleSet extends AbstractExampleSet {
 
 	/** Constructs an example set based on the given sort mapping. */
 	public SortedExampleSet(ExampleSet parent, int[] mapping) {
-		this.parent = (ExampleSet) parent.clone();
+		this.parent = ExampleSetFlattener.cloneAndFlatten(parent);
 		this.mapping = mapping;
 	}
 
@@ -226,6 +226,15 @@ public class SortedExampleSet extends AbstractExampleSet {
 		return mapping.length;
 	}
 
+	/** Returns the index of the example in the parent example set. */
+	/* pp */ int getParentIndex(int index) {
+		return this.mapping[index];
+	}
+
+	/* pp */ ExampleSet getParent() {
+		return this.parent;
+	}
+
 	@Override
 	public Attributes getAttributes() {
 		return this.parent.getAttributes();
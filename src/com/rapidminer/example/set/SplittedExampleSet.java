@@ -68,7 +68,7 @@ public class SplittedExampleSet extends AbstractExampleSet {
 
     /** Constructs a SplittedExampleSet with the given partition. */
     public SplittedExampleSet(ExampleSet exampleSet, Partition partition) {
-        this.parent = (ExampleSet) exampleSet.clone();
+        this.parent = ExampleSetFlattener.cloneAndFlatten(exampleSet);
         this.partition = partition;
     }
 
@@ -148,6 +148,11 @@ public class SplittedExampleSet extends AbstractExampleSet {
         this.partition = (Partition) exampleSet.partition.clone();
     }
 
+    /** Returns the partition of this example set. Changes of its selection also change this example set. */
+    public Partition getPartition() {
+        return partition;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!super.equals(o))
@@ -272,6 +277,10 @@ public class SplittedExampleSet extends AbstractExampleSet {
         return partition.mapIndex(index);
     }
 
+    /* pp */ ExampleSet getParent() {
+        return this.parent;
+    }
+
     @Override
     public ExampleTable getExampleTable() {
         return parent.getExampleTable();
@@ -182,6 +182,7 @@ public abstract class AbstractAttribute implements Attribute {
 			}
 		}
 		row.set(getTableIndex(), newValue, getDefault());
+		AbstractExampleTable.notifyDataModification();
 	}
 	
 	/** Returns the name of the attribute. */
@@ -73,6 +73,12 @@ public abstract class AbstractExampleTable implements ExampleTable {
 	 */
 	private List<Integer> unusedColumnList = new LinkedList<Integer>();
 
+	/** The current data modification stamp, see {@link #getDataModificationStamp()}. */
+	private static volatile long dataModificationStamp = 0;
+
+	/** Indicates if the current stamp was handed out and must be changed on the next modification. */
+	private static volatile boolean dataModificationStampUsed = false;
+
 	/**
 	 * Creates a new ExampleTable.
 	 * 
@@ -86,6 +92,28 @@ public abstract class AbstractExampleTable implements ExampleTable {
 
 	// ------------------------------------------------------------
 
+	/**
+	 * Returns a stamp which changes as soon as a value is set via an attribute or rows are removed
+	 * from an example table after this method was called. It is used to check whether data derived 
+	 * from example sets, e.g. cached attribute statistics, is still up to date. Data rows which are
+	 * created directly from arrays are not tracked but change the size of the table.
+	 */
+	public static long getDataModificationStamp() {
+		dataModificationStampUsed = true;
+		return dataModificationStamp;
+	}
+
+	/** 
+	 * Must be invoked whenever data of an example table was changed without using 
+	 * {@link Attribute#setValue(DataRow, double)}. 
+	 */
+	public static void notifyDataModification() {
+		if (dataModificationStampUsed) {
+			dataModificationStampUsed = false;
+			dataModificationStamp++;
+		}
+	}
+
 	/** Returns a new array containing all {@link Attribute}s. */
 	public Attribute[] getAttributes() {
 		Attribute[] attribute = new Attribute[attributes.size()];
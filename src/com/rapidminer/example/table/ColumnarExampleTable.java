@@ -0,0 +1,712 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * This class is a column oriented alternative to the {@link MemoryExampleTable}. Instead
+ * of holding one {@link DataRow} object per example, the data of each attribute is stored
+ * in a single primitive array whose type is chosen according to the value type of the
+ * attribute: binominal attributes are stored as bytes, all other nominal attributes as
+ * int indices of the nominal mapping and numerical attributes as doubles (or as floats
+ * if a reduced precision is requested). Missing values are encoded as -1 for nominal
+ * columns and as NaN for numerical columns.
+ * 
+ * The {@link DataRow}s delivered by {@link #getDataRow(int)} and by the data row reader
+ * are lightweight views onto the columns, hence all example sets built upon this table
+ * read and write the column arrays directly. Operators scanning a single attribute over
+ * all examples therefore perform a sequential pass over one primitive array, and only a
+ * constant number of objects is allocated per attribute regardless of the number of
+ * examples.
+ * 
+ * Tables created by {@link #createMappedTable(List, int, File, long)} read their columns from
+ * memory mapped files, so their data does not need to fit on the heap. A mapped column is copied 
+ * onto the heap as soon as it is changed or {@link #releaseMappedTables(File)} is called for its file.
+ * 
+ * Readers and most operators still create {@link MemoryExampleTable}s. Columnar tables are
+ * only created by the Materialize Data and Read Database operators if their parameter
+ * <code>column_oriented</code> is set, and by retrieving repository entries which were stored
+ * in the columnar format.
+ * 
+ * @author agent
+ */
+public class ColumnarExampleTable extends AbstractExampleTable {
+
+	private static final long serialVersionUID = 4307213858212373580L;
+
+	/** The initial capacity of all columns if no size is specified. */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** The tables created by {@link #createMappedTable(List, int, File, long)} for each mapped file. */
+	private static final Map<File, List<WeakReference<ColumnarExampleTable>>> MAPPED_TABLES = new HashMap<File, List<WeakReference<ColumnarExampleTable>>>();
+
+	/** 
+	 * The data columns. The <i>i</i>-th entry belongs to the attribute with table index <i>i</i>
+	 * and is null if the attribute was removed. Please note that this field must not have an 
+	 * initializer since it is already filled by the super constructor. 
+	 */
+	private List<Column> columns;
+
+	/** The number of rows of this table. */
+	private int size;
+
+	/** The number of rows which can be stored in the columns without resizing. */
+	private int capacity;
+
+	/** Indicates if numerical columns should be stored with float precision only. */
+	private boolean floatPrecision;
+
+	/**
+	 * Creates a new empty columnar example table.
+	 * 
+	 * @param attributes
+	 *            Array of {@link Attribute} containing the attributes of the
+	 *            columns. None of these must be null.
+	 */
+	public ColumnarExampleTable(Attribute... attributes) {
+		this(Arrays.asList(attributes));
+	}
+
+	/**
+	 * Creates a new empty columnar example table storing numerical values as doubles.
+	 * 
+	 * @param attributes
+	 *            List of {@link Attribute} containing the attributes of the
+	 *            columns. None of these must be null.
+	 */
+	public ColumnarExampleTable(List<Attribute> attributes) {
+		this(attributes, 0, false);
+	}
+
+	/**
+	 * Creates a new columnar example table with the given number of rows. All values will be
+	 * missing. 
+	 * 
+	 * @param attributes
+	 *            List of {@link Attribute} containing the attributes of the
+	 *            columns. None of these must be null.
+	 * @param size
+	 *            initial size of this example table.
+	 * @param floatPrecision
+	 *            if true, numerical columns are stored as floats instead of doubles
+	 */
+	public ColumnarExampleTable(List<Attribute> attributes, int size, boolean floatPrecision) {
+		super(new ArrayList<Attribute>());
+		this.floatPrecision = floatPrecision;
+		this.capacity = Math.max(size, DEFAULT_CAPACITY);
+		this.size = size;
+		this.columns = new ArrayList<Column>(attributes.size());
+		addAttributes(attributes);
+	}
+
+	/**
+	 * Creates a new columnar example table and fills it with the data rows
+	 * read from the given reader.
+	 */
+	public ColumnarExampleTable(List<Attribute> attributes, DataRowReader reader, boolean floatPrecision) {
+		this(attributes, 0, floatPrecision);
+		readExamples(reader);
+	}
+
+	/**
+	 * Reads the examples into the columns in the order they are delivered by the
+	 * given reader. Removes all old data first.
+	 */
+	public void readExamples(DataRowReader reader) {
+		clear();
+		while (reader.hasNext()) {
+			addDataRow(reader.next());
+		}
+	}
+
+	/** Returns a new data row reader delivering views on the rows of this table. */
+	public DataRowReader getDataRowReader() {
+		return new ColumnarDataRowReader();
+	}
+
+	/** 
+	 * Returns a view on the row with the given index. Changes of the data row are directly written
+	 * into the columns of this table.
+	 */
+	public DataRow getDataRow(int index) {
+		if (index < 0 || index >= size) {
+			throw new ArrayIndexOutOfBoundsException("ColumnarExampleTable: row index " + index + " is out of bounds (size " + size + ").");
+		}
+		return new ColumnarDataRow(this, index);
+	}
+
+	/** Returns the size of this example table, i.e. the number of rows. */
+	public int size() {
+		return size;
+	}
+
+	/** Returns true if numerical values are stored with float precision only. */
+	public boolean isFloatPrecision() {
+		return floatPrecision;
+	}
+
+	/** 
+	 * Returns the value of the given row in the column with the given table index. This is the fastest
+	 * way to scan a column without creating data row views. 
+	 */
+	public double getValue(int row, int tableIndex) {
+		return columns.get(tableIndex).get(row);
+	}
+
+	/** Sets the value of the given row in the column with the given table index. */
+	public void setValue(int row, int tableIndex, double value) {
+		columns.get(tableIndex).set(row, value);
+		notifyDataModification();
+	}
+
+	/**
+	 * Appends a new row to this table. In contrast to the {@link MemoryExampleTable} the values of the
+	 * given data row are copied into the columns, later changes of the data row are therefore not 
+	 * reflected by this table.
+	 */
+	public void addDataRow(DataRow dataRow) {
+		// this has to be called in order to make sure, the row matches the current column count.
+		dataRow.ensureNumberOfColumns(columns.size());
+		int row = addEmptyRow();
+		for (int i = 0; i < columns.size(); i++) {
+			Attribute attribute = getAttribute(i);
+			if (attribute != null) {
+				columns.get(i).set(row, dataRow.get(attribute));
+			}
+		}
+	}
+
+	/** 
+	 * Appends a new row with only missing values to this table and returns its index. The values might 
+	 * be set afterwards by {@link #setValue(int, int, double)} or a data row view. 
+	 */
+	public int addEmptyRow() {
+		ensureCapacity(size + 1);
+		return size++;
+	}
+
+	/** Clears the table. */
+	public void clear() {
+		notifyDataModification();
+		for (Column column : columns) {
+			if (column != null) {
+				column.clear(0, size);
+			}
+		}
+		size = 0;
+	}
+
+	/** Trims the capacity of all columns to the current number of rows to save memory. */
+	public void trim() {
+		capacity = size;
+		for (Column column : columns) {
+			if (column != null) {
+				column.resize(capacity);
+			}
+		}
+	}
+
+	/** Ensures that all columns are able to store at least the given number of rows. */
+	public void ensureCapacity(int minCapacity) {
+		if (minCapacity <= capacity) {
+			return;
+		}
+		int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1) + 1);
+		for (Column column : columns) {
+			if (column != null) {
+				column.resize(newCapacity);
+			}
+		}
+		capacity = newCapacity;
+	}
+
+	/**
+	 * Adds the attribute by invoking the super method and creates a new column for it. If the attribute
+	 * reuses the index of a removed column, the old column is replaced.
+	 */
+	@Override
+	public synchronized int addAttribute(Attribute attribute) {
+		int index = super.addAttribute(attribute);
+		if (columns == null) {
+			// called by the super constructor: columns are added afterwards
+			return index;
+		}
+		Column column = createColumn(attribute.getValueType(), capacity, floatPrecision);
+		while (columns.size() <= index) {
+			columns.add(null);
+		}
+		columns.set(index, column);
+		return index;
+	}
+
+	/** Removes the attribute by invoking the super method and frees the memory of its column. */
+	@Override
+	public synchronized void removeAttribute(int index) {
+		super.removeAttribute(index);
+		if (index < columns.size()) {
+			columns.set(index, null);
+		}
+	}
+
+	/** 
+	 * Creates a completely materialized columnar copy of the given table.
+	 */
+	public static ColumnarExampleTable createCompleteCopy(ExampleTable oldTable, boolean floatPrecision) {
+		ColumnarExampleTable table = new ColumnarExampleTable(Arrays.asList(oldTable.getAttributes()), oldTable.size(), floatPrecision);
+		DataRowReader reader = oldTable.getDataRowReader();
+		int row = 0;
+		while (reader.hasNext()) {
+			DataRow dataRow = reader.next();
+			for (int a = 0; a < oldTable.getNumberOfAttributes(); a++) {
+				Attribute attribute = oldTable.getAttribute(a);
+				if (attribute != null) {
+					table.setValue(row, a, dataRow.get(attribute));
+				}
+			}
+			row++;
+		}
+		return table;
+	}
+
+	/**
+	 * Creates a table whose columns are memory mapped from the given file. The column of the
+	 * <i>i</i>-th attribute must consist of size little endian doubles starting at offset + i * size * 8.
+	 * The file is only read, changes of the data are not written back. 
+	 */
+	public static ColumnarExampleTable createMappedTable(List<Attribute> attributes, int size, File file, long offset) throws IOException {
+		ColumnarExampleTable table = new ColumnarExampleTable(attributes, 0, false);
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			// mapped buffers stay valid after closing the channel
+			FileChannel channel = randomAccessFile.getChannel();
+			long position = offset;
+			for (int i = 0; i < table.columns.size(); i++) {
+				table.columns.set(i, new MappedColumn(channel, position, size));
+				position += (long) size * 8;
+			}
+		} finally {
+			randomAccessFile.close();
+		}
+		table.size = size;
+		table.capacity = size;
+		synchronized (MAPPED_TABLES) {
+			List<WeakReference<ColumnarExampleTable>> tables = MAPPED_TABLES.get(file.getAbsoluteFile());
+			if (tables == null) {
+				tables = new LinkedList<WeakReference<ColumnarExampleTable>>();
+				MAPPED_TABLES.put(file.getAbsoluteFile(), tables);
+			}
+			Iterator<WeakReference<ColumnarExampleTable>> i = tables.iterator();
+			while (i.hasNext()) {
+				if (i.next().get() == null) {
+					i.remove();
+				}
+			}
+			tables.add(new WeakReference<ColumnarExampleTable>(table));
+		}
+		return table;
+	}
+
+	/**
+	 * Copies the mapped columns of all tables created from the given file by 
+	 * {@link #createMappedTable(List, int, File, long)} onto the heap, so that these tables do not 
+	 * read the file any longer. Must be called before the file is replaced or deleted. Returns true 
+	 * if any of these tables was still in use. Please note that the file might stay mapped until 
+	 * the released buffers are garbage collected.
+	 */
+	public static boolean releaseMappedTables(File file) {
+		List<WeakReference<ColumnarExampleTable>> tables;
+		synchronized (MAPPED_TABLES) {
+			tables = MAPPED_TABLES.remove(file.getAbsoluteFile());
+		}
+		boolean released = false;
+		if (tables != null) {
+			for (WeakReference<ColumnarExampleTable> reference : tables) {
+				ColumnarExampleTable table = reference.get();
+				if (table != null) {
+					for (Column column : table.columns) {
+						if (column instanceof MappedColumn) {
+							((MappedColumn) column).materialize();
+						}
+					}
+					released = true;
+				}
+			}
+		}
+		return released;
+	}
+
+	private static Column createColumn(int valueType, int capacity, boolean floatPrecision) {
+		if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(valueType, Ontology.BINOMINAL)) {
+			return new ByteColumn(capacity);
+		} else if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(valueType, Ontology.NOMINAL)) {
+			return new IntColumn(capacity);
+		} else if (floatPrecision && !Ontology.ATTRIBUTE_VALUE_TYPE.isA(valueType, Ontology.DATE_TIME)) {
+			// dates would lose their milliseconds with float precision
+			return new FloatColumn(capacity);
+		} else {
+			return new DoubleColumn(capacity);
+		}
+	}
+
+	/** Iterates over all rows of this table. */
+	private class ColumnarDataRowReader implements DataRowReader {
+
+		private int current = 0;
+
+		public boolean hasNext() {
+			return current < size;
+		}
+
+		public DataRow next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return new ColumnarDataRow(ColumnarExampleTable.this, current++);
+		}
+
+		/** Will throw a new {@link UnsupportedOperationException} since {@link DataRowReader} does not have
+		 *  to implement remove. */
+		public void remove() {
+			throw new UnsupportedOperationException("The method 'remove' is not supported by DataRowReaders!");
+		}
+	}
+
+	/** A data row which is only a view on a single row of the columns of a {@link ColumnarExampleTable}. */
+	private static class ColumnarDataRow extends DataRow {
+
+		private static final long serialVersionUID = -1733785306591340727L;
+
+		private final ColumnarExampleTable table;
+
+		private final int row;
+
+		private ColumnarDataRow(ColumnarExampleTable table, int row) {
+			this.table = table;
+			this.row = row;
+		}
+
+		@Override
+		protected double get(int index, double defaultValue) {
+			return table.columns.get(index).get(row);
+		}
+
+		@Override
+		protected void set(int index, double value, double defaultValue) {
+			table.columns.get(index).set(row, value);
+		}
+
+		/** Does nothing since the columns are managed by the table. */
+		@Override
+		protected void ensureNumberOfColumns(int numberOfColumns) {}
+
+		/** Does nothing. */
+		@Override
+		public void trim() {}
+
+		@Override
+		public int getType() {
+			return DataRowFactory.TYPE_SPECIAL;
+		}
+
+		@Override
+		public String toString() {
+			StringBuffer result = new StringBuffer();
+			for (int i = 0; i < table.columns.size(); i++) {
+				Column column = table.columns.get(i);
+				result.append((i == 0 ? "" : ",") + (column == null ? Double.NaN : column.get(row)));
+			}
+			return result.toString();
+		}
+	}
+
+	/** A single data column backed by a primitive array. */
+	private static abstract class Column implements Serializable {
+
+		private static final long serialVersionUID = 2361405766612218478L;
+
+		/** Returns the value of the given row. */
+		abstract double get(int row);
+
+		/** Sets the value of the given row. */
+		abstract void set(int row, double value);
+
+		/** Changes the length of the underlying array. New entries are filled with missing values. */
+		abstract void resize(int newCapacity);
+
+		/** Sets all values between from (inclusive) and to (exclusive) to missing. */
+		abstract void clear(int from, int to);
+	}
+
+	private static class DoubleColumn extends Column {
+
+		private static final long serialVersionUID = -4469834431962125370L;
+
+		private double[] data;
+
+		private DoubleColumn(int capacity) {
+			data = new double[capacity];
+			Arrays.fill(data, Double.NaN);
+		}
+
+		@Override
+		double get(int row) {
+			return data[row];
+		}
+
+		@Override
+		void set(int row, double value) {
+			data[row] = value;
+		}
+
+		@Override
+		void resize(int newCapacity) {
+			int oldLength = data.length;
+			data = Arrays.copyOf(data, newCapacity);
+			if (newCapacity > oldLength) {
+				Arrays.fill(data, oldLength, newCapacity, Double.NaN);
+			}
+		}
+
+		@Override
+		void clear(int from, int to) {
+			Arrays.fill(data, from, to, Double.NaN);
+		}
+	}
+
+	private static class FloatColumn extends Column {
+
+		private static final long serialVersionUID = 6402906416566318587L;
+
+		private float[] data;
+
+		private FloatColumn(int capacity) {
+			data = new float[capacity];
+			Arrays.fill(data, Float.NaN);
+		}
+
+		@Override
+		double get(int row) {
+			return data[row];
+		}
+
+		@Override
+		void set(int row, double value) {
+			data[row] = (float) value;
+		}
+
+		@Override
+		void resize(int newCapacity) {
+			int oldLength = data.length;
+			data = Arrays.copyOf(data, newCapacity);
+			if (newCapacity > oldLength) {
+				Arrays.fill(data, oldLength, newCapacity, Float.NaN);
+			}
+		}
+
+		@Override
+		void clear(int from, int to) {
+			Arrays.fill(data, from, to, Float.NaN);
+		}
+	}
+
+	/** Stores the indices of nominal values. Missing values are encoded as -1. */
+	private static class IntColumn extends Column {
+
+		private static final long serialVersionUID = 8871364125466052380L;
+
+		private int[] data;
+
+		private IntColumn(int capacity) {
+			data = new int[capacity];
+			Arrays.fill(data, -1);
+		}
+
+		@Override
+		double get(int row) {
+			int value = data[row];
+			return value < 0 ? Double.NaN : value;
+		}
+
+		@Override
+		void set(int row, double value) {
+			data[row] = Double.isNaN(value) ? -1 : (int) value;
+		}
+
+		@Override
+		void resize(int newCapacity) {
+			int oldLength = data.length;
+			data = Arrays.copyOf(data, newCapacity);
+			if (newCapacity > oldLength) {
+				Arrays.fill(data, oldLength, newCapacity, -1);
+			}
+		}
+
+		@Override
+		void clear(int from, int to) {
+			Arrays.fill(data, from, to, -1);
+		}
+	}
+
+	/** Stores the indices of binominal values. Missing values are encoded as -1. */
+	private static class ByteColumn extends Column {
+
+		private static final long serialVersionUID = -5140531392387757208L;
+
+		private byte[] data;
+
+		private ByteColumn(int capacity) {
+			data = new byte[capacity];
+			Arrays.fill(data, (byte) -1);
+		}
+
+		@Override
+		double get(int row) {
+			byte value = data[row];
+			return value < 0 ? Double.NaN : value;
+		}
+
+		@Override
+		void set(int row, double value) {
+			data[row] = Double.isNaN(value) ? (byte) -1 : (byte) value;
+		}
+
+		@Override
+		void resize(int newCapacity) {
+			int oldLength = data.length;
+			data = Arrays.copyOf(data, newCapacity);
+			if (newCapacity > oldLength) {
+				Arrays.fill(data, oldLength, newCapacity, (byte) -1);
+			}
+		}
+
+		@Override
+		void clear(int from, int to) {
+			Arrays.fill(data, from, to, (byte) -1);
+		}
+	}
+
+	/** 
+	 * Reads doubles from a memory mapped file region which is split into chunks since a single buffer 
+	 * is limited to 2GB. On the first change, all values are copied into a {@link DoubleColumn}. 
+	 * Serialized as such a heap column.
+	 */
+	private static class MappedColumn extends Column {
+
+		private static final long serialVersionUID = 8043256931784306574L;
+
+		private static final int CHUNK_BITS = 27;
+
+		private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+		/** The mapped buffers or null after the values were copied onto the heap. */
+		private transient volatile DoubleBuffer[] chunks;
+
+		private final int mappedSize;
+
+		private DoubleColumn heapColumn;
+
+		private MappedColumn(FileChannel channel, long position, int size) throws IOException {
+			this.mappedSize = size;
+			int numberOfChunks = (int) (((long) size + CHUNK_MASK) >>> CHUNK_BITS);
+			DoubleBuffer[] chunks = new DoubleBuffer[numberOfChunks];
+			for (int i = 0; i < numberOfChunks; i++) {
+				int chunkSize = Math.min(CHUNK_MASK + 1, size - (i << CHUNK_BITS));
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + ((long) i << CHUNK_BITS) * 8, (long) chunkSize * 8).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			}
+			this.chunks = chunks;
+		}
+
+		@Override
+		double get(int row) {
+			// the heap column is assigned before the chunks are cleared
+			DoubleBuffer[] mapped = chunks;
+			if (mapped == null) {
+				return heapColumn.get(row);
+			}
+			return mapped[row >>> CHUNK_BITS].get(row & CHUNK_MASK);
+		}
+
+		@Override
+		void set(int row, double value) {
+			materialize().set(row, value);
+		}
+
+		@Override
+		void resize(int newCapacity) {
+			if (chunks == null || newCapacity > mappedSize) {
+				materialize().resize(newCapacity);
+			}
+		}
+
+		@Override
+		void clear(int from, int to) {
+			materialize().clear(from, to);
+		}
+
+		/** 
+		 * Copies the mapped values onto the heap if not yet done and returns the heap column. Afterwards
+		 * this column does not reference the mapped buffers any longer.
+		 */
+		private synchronized DoubleColumn materialize() {
+			DoubleBuffer[] mapped = chunks;
+			if (mapped != null) {
+				heapColumn = copyToHeap(mapped);
+				chunks = null;
+			}
+			return heapColumn;
+		}
+
+		private DoubleColumn copyToHeap(DoubleBuffer[] mapped) {
+			DoubleColumn heap = new DoubleColumn(mappedSize);
+			for (int row = 0; row < mappedSize; row++) {
+				heap.set(row, mapped[row >>> CHUNK_BITS].get(row & CHUNK_MASK));
+			}
+			return heap;
+		}
+
+		private Object writeReplace() {
+			DoubleBuffer[] mapped = chunks;
+			return mapped != null ? copyToHeap(mapped) : materialize();
+		}
+	}
+}
@@ -180,16 +180,19 @@ public class MemoryExampleTable extends AbstractExampleTable {
 
 	/** Convenience method for removing data rows. */
 	public boolean removeDataRow(DataRow dataRow) {
+		notifyDataModification();
 		return dataList.remove(dataRow);
 	}
 	
 	/** Convenience method for removing data rows. */
 	public DataRow removeDataRow(int index) {
+		notifyDataModification();
 		return dataList.remove(index);
 	}
 	
 	/** Clears the table. */
 	public void clear() {
+		notifyDataModification();
 		dataList.clear();
 	}
 	
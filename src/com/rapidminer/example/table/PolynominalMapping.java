@@ -22,6 +22,11 @@
  */
 package com.rapidminer.example.table;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -29,6 +34,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 import com.rapidminer.example.AttributeTypeException;
 import com.rapidminer.example.Example;
@@ -40,42 +46,94 @@ import com.rapidminer.tools.Tools;
  * be used for nominal attributes with an arbitrary number of 
  * different values.
  * 
+ * The indices of the values are kept in an open addressing hash table
+ * of primitive integers, so that neither lookups nor new values box
+ * integers or create map entries. Clones share the values and the table
+ * with the original mapping. Both are copied as soon as one of the mappings
+ * is modified, also via the list returned by {@link #getValues()}, so
+ * that mappings which are copied across views and models but only read
+ * are never duplicated. Reading and cloning never modify the data, so a
+ * mapping can be read and cloned by several threads at the same time.
+ * 
  * @author Ingo Mierswa
  */
 public class PolynominalMapping implements NominalMapping {
 
 	private static final long serialVersionUID = 5021638750496191771L;
 
-	/** The map between symbolic values and their indices. */
-	private final Map<String, Integer> symbolToIndexMap = new HashMap<String, Integer>();
+	/** Keeps the serialized form compatible with the former implementation based on a hash map. */
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("symbolToIndexMap", Map.class),
+		new ObjectStreamField("indexToSymbolMap", List.class)
+	};
+
+	private static final int MINIMAL_TABLE_SIZE = 16;
+
+	/** Marks a slot of the table which was never used. */
+	private static final long EMPTY_SLOT = 0L;
+
+	/** Marks a slot of the table whose value was removed. */
+	private static final long REMOVED_SLOT = Long.MIN_VALUE;
 
 	/** The map between indices of nominal values and the actual nominal value. */
-	private final List<String> indexToSymbolMap = new ArrayList<String>();
-	
-	public PolynominalMapping() {}
+	private ArrayList<String> indexToSymbolMap;
+
+	/** The open addressing table between symbolic values and their indices. Each used
+	 *  slot stores the hash of the value in the upper and the index plus one in the lower
+	 *  half, so that most of the collisions are resolved without comparing strings. */
+	private long[] symbolToIndexTable;
+
+	/** The number of values stored in the table. */
+	private int numberOfMappedValues;
+
+	/** The number of slots which are not empty, including removed ones. */
+	private int numberOfUsedSlots;
+
+	/** Indicates that the value list and the table might be referenced by another mapping
+	 *  and must be copied before they are modified. Volatile since it is set by the threads
+	 *  cloning this mapping. */
+	private volatile boolean shared = false;
+
+	public PolynominalMapping() {
+		this.indexToSymbolMap = new ArrayList<String>();
+		this.symbolToIndexTable = new long[MINIMAL_TABLE_SIZE];
+	}
 	
 	public PolynominalMapping(Map<Integer,String> map) {
-		this.symbolToIndexMap.clear();
-		this.indexToSymbolMap.clear();
+		this.indexToSymbolMap = new ArrayList<String>(map.size());
+		this.symbolToIndexTable = new long[getTableSize(map.size())];
 		for (Map.Entry<Integer,String> entry : map.entrySet()) {
 			int index = entry.getKey();
 			String value = entry.getValue();
-			this.symbolToIndexMap.put(value, index);
 			while (this.indexToSymbolMap.size() <= index) {
 				this.indexToSymbolMap.add(null);
 			}
 			this.indexToSymbolMap.set(index, value);	
+			put(value, index);
 		}
 	}
 	
 	/* pp */ PolynominalMapping(NominalMapping mapping) {
-		this.symbolToIndexMap.clear();
-		this.indexToSymbolMap.clear();
-		for (int i = 0; i < mapping.size(); i++) {
-			int index = i;
-			String value = mapping.mapIndex(index);
-			this.symbolToIndexMap.put(value, index);
-			this.indexToSymbolMap.add(value);
+		// the data can only be shared if each index is mapped exactly once, otherwise the copy
+		// is rebuilt from the values just like the map of the original mapping
+		if (mapping instanceof PolynominalMapping && ((PolynominalMapping) mapping).isRegular()) {
+			PolynominalMapping other = (PolynominalMapping) mapping;
+			// the only write to the original, which is idempotent and published by the volatile flag
+			other.shared = true;
+			this.shared = true;
+			this.indexToSymbolMap = other.indexToSymbolMap;
+			this.symbolToIndexTable = other.symbolToIndexTable;
+			this.numberOfMappedValues = other.numberOfMappedValues;
+			this.numberOfUsedSlots = other.numberOfUsedSlots;
+		} else {
+			this.indexToSymbolMap = new ArrayList<String>(mapping.size());
+			this.symbolToIndexTable = new long[getTableSize(mapping.size())];
+			for (int i = 0; i < mapping.size(); i++) {
+				int index = i;
+				String value = mapping.mapIndex(index);
+				this.indexToSymbolMap.add(value);
+				put(value, index);
+			}
 		}
 	}
 	
@@ -88,8 +146,9 @@ public class PolynominalMapping implements NominalMapping {
 	public boolean equals(NominalMapping mapping) {
 		if (mapping.size() != size())
 			return false;
-		for(String value: mapping.getValues()) {
-			if (!symbolToIndexMap.containsKey(value))
+		List<String> values = (mapping instanceof PolynominalMapping) ? ((PolynominalMapping) mapping).indexToSymbolMap : mapping.getValues();
+		for(String value: values) {
+			if (findSlot(value) < 0)
 				return false;
 		}
 		return true;
@@ -108,10 +167,11 @@ public class PolynominalMapping implements NominalMapping {
 		// if string is not yet in the map, add it
 		if (index < 0) {
 			// new string -> insert
+			ensureExclusiveData();
 			str = new String(str);  // we copy the name if the underlying char array value is larger than needed
 			indexToSymbolMap.add(str);
 			index = indexToSymbolMap.size() - 1;
-			symbolToIndexMap.put(str, index);
+			put(str, index);
 		}
 		return index;
 	}
@@ -121,11 +181,11 @@ public class PolynominalMapping implements NominalMapping {
 	 * mapped before by invoking the method {@link #mapIndex(int)}.
 	 */
 	public int getIndex(String str) {
-		Integer index = symbolToIndexMap.get(str);
-		if (index == null)
+		int slot = findSlot(str);
+		if (slot < 0)
 			return -1;
 		else
-			return index.intValue();
+			return toIndex(symbolToIndexTable[slot]);
 	}
 
 	/**
@@ -142,10 +202,11 @@ public class PolynominalMapping implements NominalMapping {
 	/** Sets the given mapping. Please note that this will overwrite existing mappings and might
 	 *  cause data changes in this way. */
 	public void setMapping(String nominalValue, int index) {
+		ensureExclusiveData();
 		String oldValue = indexToSymbolMap.get(index);
+		remove(oldValue);
 		indexToSymbolMap.set(index, nominalValue);
-		symbolToIndexMap.remove(oldValue);
-		symbolToIndexMap.put(nominalValue, index);
+		put(nominalValue, index);
 	}
 	
 	/**
@@ -167,11 +228,12 @@ public class PolynominalMapping implements NominalMapping {
 		ensureClassification();
 		if (mapIndex(0) == null)
 			throw new AttributeTypeException("Attribute: Cannot use FIRST_CLASS_INDEX for negative class!");
-		Iterator<Integer> i = symbolToIndexMap.values().iterator();
-		while (i.hasNext()) {
-			int index = i.next();
-			if (index != 0)
-				return index;
+		for (long entry : symbolToIndexTable) {
+			if (isMapped(entry)) {
+				int index = toIndex(entry);
+				if (index != 0)
+					return index;
+			}
 		}
 		throw new AttributeTypeException("Attribute: No other class than FIRST_CLASS_INDEX found!");
 	}
@@ -184,9 +246,10 @@ public class PolynominalMapping implements NominalMapping {
 		return mapIndex(getPositiveIndex());
 	}
 	
-	/** Returns the values of the attribute as an enumeration of strings. */
+	/** Returns the values of the attribute as an enumeration of strings. The returned list is a view
+	 *  of the values of this mapping, modifications are written through to this mapping only. */
 	public List<String> getValues() {
-		return indexToSymbolMap;
+		return new ValueList();
 	}
 
 	/** Returns the number of different nominal values. */
@@ -203,10 +266,14 @@ public class PolynominalMapping implements NominalMapping {
 	 * indices will not be replaced in the data table.
 	 */
 	public void sortMappings() {
-		List<String> allStrings = new LinkedList<String>(symbolToIndexMap.keySet());
+		List<String> allStrings = new LinkedList<String>();
+		for (long entry : symbolToIndexTable) {
+			if (isMapped(entry)) {
+				allStrings.add(indexToSymbolMap.get(toIndex(entry)));
+			}
+		}
 		Collections.sort(allStrings);
-		symbolToIndexMap.clear();
-		indexToSymbolMap.clear();
+		clear();
 		Iterator<String> i = allStrings.iterator();
 		while (i.hasNext()) {
 			mapString(i.next());
@@ -215,8 +282,15 @@ public class PolynominalMapping implements NominalMapping {
 	
 	/** Clears all mappings for nominal values. */
 	public void clear() {
-		symbolToIndexMap.clear();
-		indexToSymbolMap.clear();
+		if (shared) {
+			indexToSymbolMap = new ArrayList<String>();
+			shared = false;
+		} else {
+			indexToSymbolMap.clear();
+		}
+		symbolToIndexTable = new long[MINIMAL_TABLE_SIZE];
+		numberOfMappedValues = 0;
+		numberOfUsedSlots = 0;
 	}
 	
 	/**
@@ -227,9 +301,205 @@ public class PolynominalMapping implements NominalMapping {
 		if (size() != 2)
 			throw new AttributeTypeException("Attribute " + this.toString() + " is not a classification attribute!");
 	}
+
+	/** Copies the value list and the table if they might be referenced by another mapping. */
+	private void ensureExclusiveData() {
+		if (shared) {
+			indexToSymbolMap = new ArrayList<String>(indexToSymbolMap);
+			symbolToIndexTable = symbolToIndexTable.clone();
+			shared = false;
+		}
+	}
+
+	/** Returns true if every value of the list is mapped to its index. This is the case unless
+	 *  values were mapped more than once by {@link #setMapping(String, int)}. */
+	private boolean isRegular() {
+		return numberOfMappedValues == indexToSymbolMap.size();
+	}
+
+	/** Returns the slot of the table holding the given value or -1 if it is not mapped. */
+	private int findSlot(String value) {
+		int hash = hash(value);
+		int mask = symbolToIndexTable.length - 1;
+		int slot = hash & mask;
+		while (true) {
+			long entry = symbolToIndexTable[slot];
+			if (entry == EMPTY_SLOT) {
+				return -1;
+			}
+			if ((int) (entry >>> 32) == hash && isMapped(entry)) {
+				String mappedValue = indexToSymbolMap.get(toIndex(entry));
+				if (value == null ? mappedValue == null : value.equals(mappedValue)) {
+					return slot;
+				}
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/** Maps the given value to the given index, replacing an existing mapping of the value. The value
+	 *  must already be stored at this index. */
+	private void put(String value, int index) {
+		int slot = findSlot(value);
+		long entry = createEntry(value, index);
+		if (slot >= 0) {
+			symbolToIndexTable[slot] = entry;
+			return;
+		}
+		if ((numberOfUsedSlots + 1) * 2 > symbolToIndexTable.length) {
+			rehash(getTableSize(numberOfMappedValues + 1));
+		}
+		int mask = symbolToIndexTable.length - 1;
+		slot = (int) (entry >>> 32) & mask;
+		while (symbolToIndexTable[slot] != EMPTY_SLOT && symbolToIndexTable[slot] != REMOVED_SLOT) {
+			slot = (slot + 1) & mask;
+		}
+		if (symbolToIndexTable[slot] == EMPTY_SLOT) {
+			numberOfUsedSlots++;
+		}
+		symbolToIndexTable[slot] = entry;
+		numberOfMappedValues++;
+	}
+
+	/** Removes the mapping of the given value. The value must still be stored at its index. */
+	private void remove(String value) {
+		int slot = findSlot(value);
+		if (slot >= 0) {
+			symbolToIndexTable[slot] = REMOVED_SLOT;
+			numberOfMappedValues--;
+		}
+	}
+
+	/** Inserts all mapped values into a new table of the given size, dropping removed slots. */
+	private void rehash(int tableSize) {
+		long[] oldTable = symbolToIndexTable;
+		symbolToIndexTable = new long[tableSize];
+		int mask = tableSize - 1;
+		numberOfMappedValues = 0;
+		for (long entry : oldTable) {
+			if (isMapped(entry)) {
+				int slot = (int) (entry >>> 32) & mask;
+				while (symbolToIndexTable[slot] != EMPTY_SLOT) {
+					slot = (slot + 1) & mask;
+				}
+				symbolToIndexTable[slot] = entry;
+				numberOfMappedValues++;
+			}
+		}
+		numberOfUsedSlots = numberOfMappedValues;
+	}
+
+	/** Returns true if the given table entry refers to a value of the value list. Entries might
+	 *  refer to values beyond the end of the list if values were removed via {@link #getValues()}. */
+	private boolean isMapped(long entry) {
+		int index = toIndex(entry);
+		return index >= 0 && index < indexToSymbolMap.size();
+	}
+
+	/** Returns the index stored in the given table entry, -1 for empty and removed slots. */
+	private static int toIndex(long entry) {
+		return (int) entry - 1;
+	}
+
+	private static long createEntry(String value, int index) {
+		return ((long) hash(value) << 32) | (index + 1);
+	}
+
+	/** Returns a power of two which keeps the load of a table with the given number of values below one half. */
+	private static int getTableSize(int numberOfValues) {
+		int tableSize = MINIMAL_TABLE_SIZE;
+		while (tableSize < numberOfValues * 2 + 2) {
+			tableSize <<= 1;
+		}
+		return tableSize;
+	}
+
+	private static int hash(String value) {
+		if (value == null)
+			return 0;
+		int hash = value.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		Map<String, Integer> symbolToIndexMap = new HashMap<String, Integer>();
+		for (long entry : symbolToIndexTable) {
+			if (isMapped(entry)) {
+				symbolToIndexMap.put(indexToSymbolMap.get(toIndex(entry)), toIndex(entry));
+			}
+		}
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("symbolToIndexMap", symbolToIndexMap);
+		// a shared list must not end up in several mappings when reading the stream
+		fields.put("indexToSymbolMap", shared ? new ArrayList<String>(indexToSymbolMap) : indexToSymbolMap);
+		out.writeFields();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		Map<String, Integer> symbolToIndexMap = (Map<String, Integer>) fields.get("symbolToIndexMap", null);
+		List<String> values = (List<String>) fields.get("indexToSymbolMap", null);
+		// always copied since other mappings in the same stream may refer to the same list
+		this.indexToSymbolMap = new ArrayList<String>(values);
+		this.symbolToIndexTable = new long[getTableSize(symbolToIndexMap.size())];
+		for (Map.Entry<String, Integer> entry : symbolToIndexMap.entrySet()) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
 	
+	/** A view of the value list which copies shared data before it is modified. */
+	private class ValueList extends AbstractList<String> implements RandomAccess {
+
+		@Override
+		public String get(int index) {
+			return indexToSymbolMap.get(index);
+		}
+
+		@Override
+		public int size() {
+			return indexToSymbolMap.size();
+		}
+
+		@Override
+		public String set(int index, String value) {
+			ensureExclusiveData();
+			return indexToSymbolMap.set(index, value);
+		}
+
+		@Override
+		public void add(int index, String value) {
+			ensureExclusiveData();
+			indexToSymbolMap.add(index, value);
+			modCount++;
+		}
+
+		@Override
+		public String remove(int index) {
+			ensureExclusiveData();
+			modCount++;
+			return indexToSymbolMap.remove(index);
+		}
+
+		@Override
+		public void clear() {
+			ensureExclusiveData();
+			indexToSymbolMap.clear();
+			modCount++;
+		}
+	}
+
 	@Override
 	public String toString() {
-		return indexToSymbolMap.toString() + Tools.getLineSeparator() + symbolToIndexMap.toString();
+		StringBuilder map = new StringBuilder("{");
+		for (long entry : symbolToIndexTable) {
+			if (isMapped(entry)) {
+				if (map.length() > 1)
+					map.append(", ");
+				map.append(indexToSymbolMap.get(toIndex(entry)) + "=" + toIndex(entry));
+			}
+		}
+		map.append("}");
+		return indexToSymbolMap.toString() + Tools.getLineSeparator() + map.toString();
 	}
 }
@@ -23,6 +23,7 @@
 package com.rapidminer.operator;
 
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.ColumnarExampleTable;
 import com.rapidminer.example.table.DataRowFactory;
 import com.rapidminer.example.table.DataRowReader;
 import com.rapidminer.example.table.ExampleTable;
@@ -97,7 +98,13 @@ public abstract class AbstractExampleSetProcessing extends Operator {
 		// check for needed copy of original exampleset
 		if (originalOutput.isConnected() && writesIntoExistingData()) {
 			int type = DataRowFactory.TYPE_DOUBLE_ARRAY;
-			if (inputExampleSet.getExampleTable() instanceof MemoryExampleTable) {
+			boolean columnOriented = false;
+			if (inputExampleSet.getExampleTable() instanceof ColumnarExampleTable) {
+				columnOriented = true;
+				if (((ColumnarExampleTable) inputExampleSet.getExampleTable()).isFloatPrecision()) {
+					type = DataRowFactory.TYPE_FLOAT_ARRAY;
+				}
+			} else if (inputExampleSet.getExampleTable() instanceof MemoryExampleTable) {
 				DataRowReader dataRowReader = inputExampleSet.getExampleTable().getDataRowReader();
 				if (dataRowReader.hasNext()) {
 					type = dataRowReader.next().getType();
@@ -105,7 +112,7 @@ public abstract class AbstractExampleSetProcessing extends Operator {
 			}
 			// check if type is supported to be copied
 			if (type >= 0) {
-				applySet = MaterializeDataInMemory.materializeExampleSet(inputExampleSet, type);
+				applySet = MaterializeDataInMemory.materializeExampleSet(inputExampleSet, type, columnOriented);
 			}
 		}
 		
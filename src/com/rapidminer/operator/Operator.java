@@ -587,6 +587,21 @@ public abstract class Operator extends AbstractObservable<Operator> implements C
 		return clone;
 	}
 
+	/**
+	 * Returns a copy of this operator which can be executed concurrently to this operator and
+	 * to other copies, e.g. from worker threads of the {@link com.rapidminer.tools.ParallelExecutionService}. The copy
+	 * is not part of the process but has access to it through the execution unit of this operator.
+	 */
+	protected Operator cloneForParallelExecution() {
+		Operator copy;
+		// cloning temporarily locks and unlocks the port extenders of the original
+		synchronized (this) {
+			copy = cloneOperator(getName(), true);
+		}
+		copy.setEnclosingProcess(getExecutionUnit());
+		return copy;
+	}
+
 	// --------------------- Apply ---------------------
 
 	/** Implement this method in subclasses.
@@ -936,6 +951,18 @@ public abstract class Operator extends AbstractObservable<Operator> implements C
 			checkForStop(getProcess());
 	}
 
+	/**
+	 * Does the same as {@link #checkForStop()} but never pauses the process and can therefore be called
+	 * from any thread, e.g. from the worker threads of a concurrent computation performed by this operator.
+	 * Breakpoints can only be processed by the thread executing the operator.
+	 */
+	public final void checkForStopConcurrently() throws ProcessStoppedException {
+		Process process = getParent() != null ? getParent().getProcess() : getProcess();
+		if ((process != null && process.shouldStop()) || (process == null && shouldStopStandaloneExecution)) {
+			stop();
+		}
+	}
+
 	private final void checkForStop(Process process) throws ProcessStoppedException {
 		if (process != null && process.shouldStop()) {
 			stop();
@@ -63,6 +63,14 @@ public class Centroid implements Serializable {
 			centroidSum[i] += exampleValues[i];
 		}
 	}
+
+	/** Assigns several examples at once, given by the sum of their values and their number. */
+	public void assignExamples(double[] exampleValuesSum, int numberOfExamples) {
+		numberOfAssigned += numberOfExamples;
+		for (int i = 0; i < exampleValuesSum.length; i++) {
+			centroidSum[i] += exampleValuesSum[i];
+		}
+	}
 	
 
 	public boolean finishAssign() {
@@ -22,8 +22,14 @@
  */
 package com.rapidminer.operator.clustering.clusterer;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.ProcessStoppedException;
 import com.rapidminer.operator.clustering.HierarchicalClusterNode;
 
 /**
@@ -31,6 +37,11 @@ import com.rapidminer.operator.clustering.HierarchicalClusterNode;
  * It stores a distance matrix between all clusters and returns the next agglomeration as the minimum of all
  * distances. To save time needed to copy the matrix if two clusters are joined, it is not resized, instead one 
  * row and column is not used anymore. The other row and column are updated by the agglomeration methods.
+ * 
+ * Alternatively, all agglomerations can be computed at once by the nearest neighbour chain algorithm, which 
+ * avoids searching the whole matrix for each agglomeration. This is only valid for linkage methods which never
+ * decrease the distance of a joined cluster to the other clusters below the distance of the joined clusters, as 
+ * single, complete and average linkage.
  * @author Sebastian Land
  */
 public abstract class AbstractLinkageMethod {
@@ -40,11 +51,15 @@ public abstract class AbstractLinkageMethod {
 	private boolean[] isDeletedData;
 	
 	private int[] clusterIds;
+
+	private int[] clusterSizes;
 	
 	public AbstractLinkageMethod(DistanceMatrix matrix, int[] clusterIds) {
 		this.matrix = matrix;
 		this.clusterIds = clusterIds;
 		this.isDeletedData = new boolean[matrix.getHeight()];
+		this.clusterSizes = new int[matrix.getHeight()];
+		Arrays.fill(clusterSizes, 1);
 	}
 
 	public Agglomeration getNextAgglomeration(int nextClusterId, Map<Integer, HierarchicalClusterNode> clusterMap) {
@@ -71,11 +86,121 @@ public abstract class AbstractLinkageMethod {
 		Agglomeration agglomeration = new Agglomeration(clusterIds[minimalX], clusterIds[minimalY], minimalDistance);
 
 		// deleting y row, updating the other and rename with new cluster id
-		updateDistances(matrix, minimalX, minimalY, clusterMap);
-		isDeletedData[minimalY] = true;
+		join(minimalX, minimalY, clusterMap);
 		clusterIds[minimalX] = nextClusterId;
 		return agglomeration;
 	}
+
+	/**
+	 * Returns all agglomerations ordered by ascending distance, using the nearest neighbour chain algorithm. 
+	 * The new clusters get consecutive ids starting with the given one.
+	 */
+	public List<Agglomeration> getAgglomerations(int nextClusterId, Operator operator) throws ProcessStoppedException {
+		int size = matrix.getHeight();
+		final int[] firstRows = new int[Math.max(0, size - 1)];
+		final int[] secondRows = new int[firstRows.length];
+		final double[] distances = new double[firstRows.length];
+		int numberOfAgglomerations = 0;
+
+		int[] chain = new int[size];
+		int chainLength = 0;
+		int firstActive = 0;
+		while (numberOfAgglomerations < firstRows.length) {
+			if (chainLength == 0) {
+				while (isDeletedData[firstActive]) {
+					firstActive++;
+				}
+				chain[chainLength++] = firstActive;
+			}
+			int current = chain[chainLength - 1];
+			int previous = chainLength > 1 ? chain[chainLength - 2] : -1;
+
+			// the nearest neighbour of the current cluster, preferring the previous one to avoid cycles
+			int nearest = previous;
+			double nearestDistance = previous >= 0 ? matrix.get(current, previous) : Double.POSITIVE_INFINITY;
+			for (int y = 0; y < size; y++) {
+				if (y != current && !isDeletedData[y]) {
+					double distance = matrix.get(current, y);
+					if (distance < nearestDistance || nearest < 0) {
+						nearest = y;
+						nearestDistance = distance;
+					}
+				}
+			}
+
+			if (nearest == previous) {
+				// reciprocal nearest neighbours are joined, the remaining chain stays valid
+				chainLength -= 2;
+				firstRows[numberOfAgglomerations] = Math.min(current, previous);
+				secondRows[numberOfAgglomerations] = Math.max(current, previous);
+				distances[numberOfAgglomerations] = nearestDistance;
+				join(Math.min(current, previous), Math.max(current, previous), null);
+				numberOfAgglomerations++;
+				if (operator != null) {
+					operator.checkForStop();
+				}
+			} else {
+				chain[chainLength++] = nearest;
+			}
+		}
+
+		// ordering the agglomerations by distance and replaying them to get the joined clusters
+		Integer[] order = new Integer[numberOfAgglomerations];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Double.compare(distances[o1], distances[o2]);
+			}
+		});
+		int[] parents = new int[size];
+		int[] currentIds = new int[size];
+		for (int i = 0; i < size; i++) {
+			parents[i] = i;
+			currentIds[i] = clusterIds[i];
+		}
+		List<Agglomeration> agglomerations = new ArrayList<Agglomeration>(numberOfAgglomerations);
+		for (int index : order) {
+			int first = find(parents, firstRows[index]);
+			int second = find(parents, secondRows[index]);
+			agglomerations.add(new Agglomeration(currentIds[first], currentIds[second], distances[index]));
+			parents[second] = first;
+			currentIds[first] = nextClusterId++;
+		}
+		return agglomerations;
+	}
+
+	private static int find(int[] parents, int row) {
+		int root = row;
+		while (parents[root] != root) {
+			root = parents[root];
+		}
+		// compressing path
+		while (parents[row] != root) {
+			int next = parents[row];
+			parents[row] = root;
+			row = next;
+		}
+		return root;
+	}
+
+	private void join(int updatedRow, int unionedRow, Map<Integer, HierarchicalClusterNode> clusterMap) {
+		updateDistances(matrix, updatedRow, unionedRow, clusterMap);
+		isDeletedData[unionedRow] = true;
+		clusterSizes[updatedRow] += clusterSizes[unionedRow];
+	}
+
+	/** Returns the number of examples in the cluster of the given row. */
+	protected int getClusterSize(int row) {
+		return clusterSizes[row];
+	}
 	
+	/**
+	 * Updates the distances of the updated row, which becomes the union of both rows. The cluster map
+	 * is null if the agglomerations are computed by {@link #getAgglomerations(int, Operator)}.
+	 */
 	public abstract void updateDistances(DistanceMatrix matrix, int updatedRow, int unionedRow, Map<Integer, HierarchicalClusterNode> clusterMap);
 }
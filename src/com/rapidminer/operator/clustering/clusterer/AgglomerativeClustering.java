@@ -22,9 +22,11 @@
  */
 package com.rapidminer.operator.clustering.clusterer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
@@ -52,6 +54,7 @@ import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeStringCategory;
 import com.rapidminer.tools.ObjectVisualizerService;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasureHelper;
 import com.rapidminer.tools.math.similarity.DistanceMeasures;
@@ -60,6 +63,9 @@ import com.rapidminer.tools.math.similarity.DistanceMeasures;
  * SingleLink, CompleteLink and AverageLink. The last is also called UPGMA. The result will be a
  * hierarchical cluster model, providing distance information to plot as a dendogram. 
  * 
+ * The distances are computed concurrently and stored with single precision. The clusters are joined
+ * by the nearest neighbour chain algorithm.
+ * 
  * @author Sebastian Land
  */
 public class AgglomerativeClustering extends Operator {
@@ -71,6 +77,9 @@ public class AgglomerativeClustering extends Operator {
 
 	public static final String PARAMETER_MODE = "mode";
 
+	/** The minimal number of rows of the distance matrix computed by one thread. */
+	private static final int MINIMAL_BLOCK_SIZE = 100;
+
 	public static final String[] modes = new String[] {
 		"SingleLink",
 		"CompleteLink",
@@ -102,28 +111,55 @@ public class AgglomerativeClustering extends Operator {
 
 		Attribute idAttribute = exampleSet.getAttributes().getId();
 		boolean idAttributeIsNominal = idAttribute.isNominal();
-		DistanceMatrix matrix = new DistanceMatrix(exampleSet.size());
+		final DistanceMatrix matrix = new DistanceMatrix(exampleSet.size(), true);
 		Map<Integer, HierarchicalClusterNode> clusterMap = new HashMap<Integer, HierarchicalClusterNode>(exampleSet.size());
 		int[] clusterIds = new int[exampleSet.size()];
-		// filling the distance matrix
+
+		// the measure's array based calculation is the same as the example based one
+		final Attribute[] regularAttributes = exampleSet.getAttributes().createRegularAttributeArray();
+		final double[][] points = new double[exampleSet.size()][];
 		int nextClusterId = 0;
-		for (Example example1: exampleSet) {
-			checkForStop();
+		for (Example example: exampleSet) {
 			clusterIds[nextClusterId] = nextClusterId;
-			int y = 0;
-			for (Example example2: exampleSet) {
-				if (y > nextClusterId)
-					matrix.set(nextClusterId, y, measure.calculateDistance(example1, example2));
-				y++;
+			double[] values = new double[regularAttributes.length];
+			for (int i = 0; i < regularAttributes.length; i++) {
+				values[i] = example.getValue(regularAttributes[i]);
 			}
+			points[nextClusterId] = values;
 			if (idAttributeIsNominal) {
-				clusterMap.put(nextClusterId, new HierarchicalClusterLeafNode(nextClusterId, example1.getValueAsString(idAttribute)));
+				clusterMap.put(nextClusterId, new HierarchicalClusterLeafNode(nextClusterId, example.getValueAsString(idAttribute)));
 			} else {
-				clusterMap.put(nextClusterId, new HierarchicalClusterLeafNode(nextClusterId, example1.getValue(idAttribute)));
+				clusterMap.put(nextClusterId, new HierarchicalClusterLeafNode(nextClusterId, example.getValue(idAttribute)));
 			}
 			nextClusterId++;
 		}
 
+		// filling the distance matrix concurrently, each task computes rows with about the same number of distances
+		final DistanceMeasure distanceMeasure = measure;
+		int numberOfBlocks = ParallelExecutionService.getNumberOfBlocks(points.length, MINIMAL_BLOCK_SIZE);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numberOfBlocks);
+		for (int block = 0; block < numberOfBlocks; block++) {
+			// row x has n - x - 1 entries, so the rows are taken from both ends of the matrix
+			final int currentBlock = block;
+			final int blocks = numberOfBlocks;
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() throws OperatorException {
+					for (int pair = currentBlock; pair < (points.length + 1) / 2; pair += blocks) {
+						checkForStopConcurrently();
+						fillRow(matrix, points, pair, distanceMeasure);
+						if (points.length - 1 - pair != pair) {
+							fillRow(matrix, points, points.length - 1 - pair, distanceMeasure);
+						}
+					}
+					return null;
+				}
+			});
+		}
+		ParallelExecutionService.invokeAll(tasks);
+		checkForStop();
+
 		// creating linkage method
 		AbstractLinkageMethod linkage = new SingleLinkageMethod(matrix, clusterIds);
 		if (getParameterAsString(PARAMETER_MODE).equals(modes[1])) 
@@ -133,8 +169,7 @@ public class AgglomerativeClustering extends Operator {
 
 
 		// now building agglomerative tree bottom up
-		while (clusterMap.size() > 1) {
-			Agglomeration agglomeration = linkage.getNextAgglomeration(nextClusterId, clusterMap);
+		for (Agglomeration agglomeration : linkage.getAgglomerations(nextClusterId, this)) {
 			HierarchicalClusterNode newNode = new HierarchicalClusterNode(nextClusterId, agglomeration.getDistance());
 			newNode.addSubNode(clusterMap.get(agglomeration.getClusterId1()));
 			newNode.addSubNode(clusterMap.get(agglomeration.getClusterId2()));
@@ -154,6 +189,12 @@ public class AgglomerativeClustering extends Operator {
 		exampleSetOutput.deliver(exampleSet);
 	}
 
+	private static void fillRow(DistanceMatrix matrix, double[][] points, int x, DistanceMeasure measure) {
+		for (int y = x + 1; y < points.length; y++) {
+			matrix.set(x, y, measure.calculateDistance(points[x], points[y]));
+		}
+	}
+
 	@Override
 	public boolean shouldAutoConnect(OutputPort port) {
 		if (port == exampleSetOutput) {
@@ -33,17 +33,14 @@ import com.rapidminer.operator.clustering.HierarchicalClusterNode;
  */
 public class AverageLinkageMethod extends AbstractLinkageMethod {
 
-	private int[] clusterIds;
-	
 	public AverageLinkageMethod(DistanceMatrix matrix, int[] clusterIds) {
 		super(matrix, clusterIds);
-		this.clusterIds = clusterIds;
 	}
 
 	@Override
 	public void updateDistances(DistanceMatrix matrix, int updatedRow, int unionedRow, Map<Integer, HierarchicalClusterNode> clusterMap) {
-		double weightUpdatedRow = clusterMap.get(clusterIds[updatedRow]).getNumberOfExamplesInSubtree();
-		double weightUnionedRow = clusterMap.get(clusterIds[unionedRow]).getNumberOfExamplesInSubtree();
+		double weightUpdatedRow = getClusterSize(updatedRow);
+		double weightUnionedRow = getClusterSize(unionedRow);
 		double totalWeight = weightUnionedRow + weightUpdatedRow;
 		weightUnionedRow /= totalWeight;
 		weightUpdatedRow /= totalWeight;
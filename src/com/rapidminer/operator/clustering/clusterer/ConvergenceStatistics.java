@@ -0,0 +1,119 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.clustering.clusterer;
+
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.ValueDouble;
+
+/**
+ * Collects statistics about the convergence of iterative clustering algorithms like k-means and
+ * provides them as operator values, so that they can be logged. Since several runs might be
+ * performed concurrently, the values always refer to the most recently finished iteration.
+ * 
+ * @author agent
+ */
+public class ConvergenceStatistics {
+
+	private double run = Double.NaN;
+
+	private double iteration = Double.NaN;
+
+	private double changedAssignments = Double.NaN;
+
+	private double centroidShift = Double.NaN;
+
+	private double bestDistanceSum = Double.NaN;
+
+	/** Creates the statistics and registers them as values of the given operator. */
+	public ConvergenceStatistics(Operator operator) {
+		operator.addValue(new ValueDouble("run", "The number of the run of the last finished iteration.") {
+
+			@Override
+			public double getDoubleValue() {
+				synchronized (ConvergenceStatistics.this) {
+					return run;
+				}
+			}
+		});
+		operator.addValue(new ValueDouble("iteration", "The number of the last finished iteration within its run.") {
+
+			@Override
+			public double getDoubleValue() {
+				synchronized (ConvergenceStatistics.this) {
+					return iteration;
+				}
+			}
+		});
+		operator.addValue(new ValueDouble("changed_assignments", "The number of examples assigned to another cluster in the last finished iteration.") {
+
+			@Override
+			public double getDoubleValue() {
+				synchronized (ConvergenceStatistics.this) {
+					return changedAssignments;
+				}
+			}
+		});
+		operator.addValue(new ValueDouble("centroid_shift", "The sum of the distances the centroids moved in the last finished iteration.") {
+
+			@Override
+			public double getDoubleValue() {
+				synchronized (ConvergenceStatistics.this) {
+					return centroidShift;
+				}
+			}
+		});
+		operator.addValue(new ValueDouble("distance_sum", "The sum of the squared distances of the examples to their centroids of the best run.") {
+
+			@Override
+			public double getDoubleValue() {
+				synchronized (ConvergenceStatistics.this) {
+					return bestDistanceSum;
+				}
+			}
+		});
+	}
+
+	/** Resets all statistics before a new clustering is performed. */
+	public synchronized void reset() {
+		run = Double.NaN;
+		iteration = Double.NaN;
+		changedAssignments = Double.NaN;
+		centroidShift = Double.NaN;
+		bestDistanceSum = Double.NaN;
+	}
+
+	/** Notifies about a finished iteration. Runs and iterations are counted from 1. */
+	public synchronized void iterationFinished(int run, int iteration, double changedAssignments, double centroidShift) {
+		this.run = run;
+		this.iteration = iteration;
+		this.changedAssignments = changedAssignments;
+		this.centroidShift = centroidShift;
+	}
+
+	/** Notifies about a finished run with the given sum of squared distances. */
+	public synchronized void runFinished(double distanceSum) {
+		if (Double.isNaN(bestDistanceSum) || distanceSum < bestDistanceSum) {
+			bestDistanceSum = distanceSum;
+		}
+	}
+}
@@ -23,9 +23,10 @@
 package com.rapidminer.operator.clustering.clusterer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
@@ -40,15 +41,24 @@ import com.rapidminer.operator.clustering.ClusterModel;
 import com.rapidminer.operator.learner.CapabilityProvider;
 import com.rapidminer.operator.ports.metadata.DistanceMeasurePrecondition;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasureHelper;
 import com.rapidminer.tools.math.similarity.DistanceMeasures;
+import com.rapidminer.tools.math.similarity.mixed.MixedEuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ChebychevNumericalDistance;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
 
 /**
  * This operator provides the DBScan cluster algorithm. If no id attribute is present, the operator will create one.
+ * 
+ * The neighbourhoods are found by a kd-tree if the distance measure allows it. Otherwise all points are
+ * searched. The core points are determined concurrently before the clusters are expanded.
  * @author Sebastian Land
  */
 public class DBScan extends RMAbstractClusterer implements CapabilityProvider {
@@ -57,6 +67,25 @@ public class DBScan extends RMAbstractClusterer implements CapabilityProvider {
 
 	private static final String PARAMETER_MIN_POINTS= "min_points";
 
+	public static final String PARAMETER_SEARCH_STRUCTURE = "search_structure";
+
+	public static final String[] SEARCH_STRUCTURES = new String[] { "automatic", "linear search", "kd-tree" };
+
+	public static final int SEARCH_STRUCTURE_AUTOMATIC = 0;
+
+	public static final int SEARCH_STRUCTURE_LINEAR = 1;
+
+	public static final int SEARCH_STRUCTURE_KD_TREE = 2;
+
+	/** The automatic search structure only uses a kd-tree up to this number of dimensions. */
+	private static final int MAXIMAL_AUTOMATIC_KD_TREE_DIMENSIONS = 16;
+
+	/** The automatic search structure only uses a kd-tree from this number of examples on. */
+	private static final int MINIMAL_AUTOMATIC_TREE_SIZE = 1000;
+
+	/** The minimal number of points whose neighbourhood is queried by one thread. */
+	private static final int MINIMAL_BLOCK_SIZE = 1000;
+
 	private DistanceMeasureHelper measureHelper = new DistanceMeasureHelper(this);
 
 	public DBScan(OperatorDescription description) {
@@ -95,9 +124,9 @@ public class DBScan extends RMAbstractClusterer implements CapabilityProvider {
 
 	@Override
 	public ClusterModel generateClusterModel(ExampleSet exampleSet) throws OperatorException {		
-		DistanceMeasure measure = measureHelper.getInitializedMeasure(exampleSet);	
-		double epsilon = getParameterAsDouble(PARAMETER_EPSILON);
-		int minPoints = getParameterAsInt(PARAMETER_MIN_POINTS);
+		final DistanceMeasure measure = measureHelper.getInitializedMeasure(exampleSet);	
+		final double epsilon = getParameterAsDouble(PARAMETER_EPSILON);
+		final int minPoints = getParameterAsInt(PARAMETER_MIN_POINTS);
 
 		// checking and creating ids if necessary
 		Tools.checkAndCreateIds(exampleSet);
@@ -111,35 +140,78 @@ public class DBScan extends RMAbstractClusterer implements CapabilityProvider {
 		for (Attribute attribute: attributes)
 			attributeNames.add(attribute.getName());
 
+		// extracting the points once, the measure's array based calculation is the same as the example based one
+		final Attribute[] regularAttributes = attributes.createRegularAttributeArray();
+		final double[][] points = new double[exampleSet.size()][];
+		int i = 0;
+		for (Example example: exampleSet) {
+			double[] values = new double[regularAttributes.length];
+			for (int j = 0; j < regularAttributes.length; j++) {
+				values[j] = example.getValue(regularAttributes[j]);
+			}
+			points[i] = values;
+			i++;
+		}
+		final IndexTree tree = createSearchTree(measure, regularAttributes, points);
+
+		// detecting all core points concurrently
+		final boolean[] core = new boolean[points.length];
+		int[] boundaries = ParallelExecutionService.getBlockBoundaries(points.length, ParallelExecutionService.getNumberOfBlocks(points.length, MINIMAL_BLOCK_SIZE));
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(boundaries.length - 1);
+		for (int block = 0; block < boundaries.length - 1; block++) {
+			final int from = boundaries[block];
+			final int to = boundaries[block + 1];
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() throws OperatorException {
+					Neighbourhood neighbourhood = new Neighbourhood();
+					for (int index = from; index < to; index++) {
+						if ((index - from) % 1000 == 0) {
+							checkForStopConcurrently();
+						}
+						getNeighbourhood(index, points, tree, measure, epsilon, neighbourhood);
+						core[index] = neighbourhood.size >= minPoints;
+					}
+					return null;
+				}
+			});
+		}
+		ParallelExecutionService.invokeAll(tasks);
+
 		boolean[] visited = new boolean[exampleSet.size()];
 		boolean[] noised = new boolean[exampleSet.size()];
 		int[] clusterAssignments = new int[exampleSet.size()];
 
-		int i = 0;
+		// expanding the clusters from the core points. Only core points need their neighbourhood 
+		Neighbourhood centerNeighbourhood = new Neighbourhood();
+		Neighbourhood neighbourhood = new Neighbourhood();
 		int clusterIndex = 1;
-		for (Example example: exampleSet) {
+		for (i = 0; i < points.length; i++) {
 			checkForStop();
 			if (!visited[i]) {
-				Queue<Integer> centerNeighbourhood = getNeighbourhood(example, exampleSet, measure, epsilon);
-				if (centerNeighbourhood.size() < minPoints) {
+				if (!core[i]) {
 					noised[i] = true;
 				} else {
 					// then its center point of a cluster. Assign example to new cluster
 					clusterAssignments[i] = clusterIndex;
+					getNeighbourhood(i, points, tree, measure, epsilon, centerNeighbourhood);
+					// the initial neighbours are already queued, so they must not be queued again
+					for (int j = 0; j < centerNeighbourhood.size; j++) {
+						visited[centerNeighbourhood.indices[j]] = true;
+					}
 					// expanding cluster within density borders
-					while (centerNeighbourhood.size() > 0) {
-						int currentIndex = centerNeighbourhood.poll().intValue();
-						Example currentExample = exampleSet.getExample(currentIndex);
+					for (int position = 0; position < centerNeighbourhood.size; position++) {
+						int currentIndex = centerNeighbourhood.indices[position];
 						// assigning example to current cluster
 						clusterAssignments[currentIndex] = clusterIndex;
 						visited[currentIndex] = true;
 
-						// appending own neighbourhood to queue
-						Queue<Integer> neighbourhood = getNeighbourhood(currentExample, exampleSet, measure, epsilon);
-						if (neighbourhood.size() >= minPoints) {
-							// then this neighbor of center is also a center of the cluster
-							while (neighbourhood.size() > 0) {
-								int neighbourIndex = neighbourhood.poll().intValue();
+						if (core[currentIndex]) {
+							// then this neighbor of center is also a center of the cluster: appending own neighbourhood to queue
+							getNeighbourhood(currentIndex, points, tree, measure, epsilon, neighbourhood);
+							for (int j = 0; j < neighbourhood.size; j++) {
+								int neighbourIndex = neighbourhood.indices[j];
 								if (!visited[neighbourIndex]) {
 									if (!noised[neighbourIndex]) {
 										// if its not noised, then it might be center of cluster! So append to queue
@@ -155,7 +227,6 @@ public class DBScan extends RMAbstractClusterer implements CapabilityProvider {
 					clusterIndex++;
 				}
 			}
-			i++;
 		}
 
 		ClusterModel model = new ClusterModel(exampleSet, Math.max(clusterIndex, 1), getParameterAsBoolean(RMAbstractClusterer.PARAMETER_ADD_AS_LABEL), getParameterAsBoolean(RMAbstractClusterer.PARAMETER_REMOVE_UNLABELED));
@@ -174,16 +245,158 @@ public class DBScan extends RMAbstractClusterer implements CapabilityProvider {
 		return model;
 	}
 
-	private LinkedList<Integer> getNeighbourhood(Example centerExample, ExampleSet exampleSet, DistanceMeasure measure, double epsilon) {
-		LinkedList<Integer> neighbourhood = new LinkedList<Integer>();
-		int i = 0;
-		for (Example example: exampleSet) {
-			double distance = measure.calculateDistance(centerExample, example);
-			if (distance < epsilon) 
-				neighbourhood.add(i);
-			i++;
+	/** Returns a kd-tree over the point indices if applicable for the measure, the points and the selected search structure, null otherwise. */
+	private IndexTree createSearchTree(DistanceMeasure measure, Attribute[] regularAttributes, double[][] points) throws OperatorException {
+		int numberOfDimensions = regularAttributes.length;
+		boolean onlyNumerical = true;
+		for (Attribute attribute : regularAttributes) {
+			onlyNumerical &= attribute.isNumerical();
+		}
+		boolean treeApplicable = numberOfDimensions > 0 && 
+			(measure instanceof EuclideanDistance || measure instanceof ManhattanDistance || measure instanceof ChebychevNumericalDistance ||
+			(measure instanceof MixedEuclideanDistance && onlyNumerical));
+		// the tree cannot prune by unknown or infinite coordinates
+		for (int i = 0; i < points.length && treeApplicable; i++) {
+			for (double value : points[i]) {
+				if (Double.isNaN(value) || Double.isInfinite(value)) {
+					treeApplicable = false;
+					break;
+				}
+			}
+		}
+		switch (getParameterAsInt(PARAMETER_SEARCH_STRUCTURE)) {
+		case SEARCH_STRUCTURE_AUTOMATIC:
+			if (!treeApplicable || numberOfDimensions > MAXIMAL_AUTOMATIC_KD_TREE_DIMENSIONS || points.length < MINIMAL_AUTOMATIC_TREE_SIZE) {
+				return null;
+			}
+			break;
+		case SEARCH_STRUCTURE_KD_TREE:
+			if (!treeApplicable) {
+				logWarning("The kd-tree is only applicable for the euclidean, manhattan or chebychev distance or the mixed euclidean distance on numerical attributes without infinite values. Using linear search instead.");
+				return null;
+			}
+			break;
+		default:
+			return null;
+		}
+		return new IndexTree(points, numberOfDimensions);
+	}
+
+	/** Replaces the content of the given neighbourhood by the indices of all points closer than epsilon to the point with the given index. */
+	private void getNeighbourhood(int centerIndex, double[][] points, IndexTree tree, DistanceMeasure measure, double epsilon, Neighbourhood neighbourhood) {
+		neighbourhood.size = 0;
+		double[] center = points[centerIndex];
+		if (tree != null) {
+			tree.search(0, points.length, 0, center, epsilon, measure, neighbourhood);
+		} else {
+			for (int i = 0; i < points.length; i++) {
+				if (measure.calculateDistance(center, points[i]) < epsilon) 
+					neighbourhood.add(i);
+			}
+		}
+	}
+
+	/** A growing list of example indices, which is reused for all neighbourhood queries of one thread. */
+	private static class Neighbourhood {
+
+		private int[] indices = new int[16];
+
+		private int size = 0;
+
+		private void add(int index) {
+			if (size == indices.length) {
+				indices = Arrays.copyOf(indices, indices.length * 2);
+			}
+			indices[size++] = index;
+		}
+	}
+
+	/** 
+	 * A kd-tree over the point indices which is stored in a single array. Each range of the array is split
+	 * by the point in its middle: the points before it are not greater, the points after it not smaller in 
+	 * the dimension belonging to the depth of the range. The search is correct for all measures whose
+	 * distance is never smaller than the difference in a single dimension.
+	 */
+	private static class IndexTree {
+
+		private final double[][] points;
+
+		private final int[] order;
+
+		private final int numberOfDimensions;
+
+		private IndexTree(double[][] points, int numberOfDimensions) {
+			this.points = points;
+			this.numberOfDimensions = numberOfDimensions;
+			this.order = new int[points.length];
+			for (int i = 0; i < order.length; i++) {
+				order[i] = i;
+			}
+			build(0, order.length, 0);
+		}
+
+		private void build(int from, int to, int dimension) {
+			if (to - from < 2) {
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			select(from, to - 1, middle, dimension);
+			int nextDimension = (dimension + 1) % numberOfDimensions;
+			build(from, middle, nextDimension);
+			build(middle + 1, to, nextDimension);
+		}
+
+		/** Reorders the range from left to right (inclusive) so that the given position splits it in the given dimension. */
+		private void select(int left, int right, int position, int dimension) {
+			while (left < right) {
+				double pivot = points[order[(left + right) >>> 1]][dimension];
+				int i = left;
+				int j = right;
+				while (i <= j) {
+					while (points[order[i]][dimension] < pivot) {
+						i++;
+					}
+					while (points[order[j]][dimension] > pivot) {
+						j--;
+					}
+					if (i <= j) {
+						int swap = order[i];
+						order[i] = order[j];
+						order[j] = swap;
+						i++;
+						j--;
+					}
+				}
+				if (position <= j) {
+					right = j;
+				} else if (position >= i) {
+					left = i;
+				} else {
+					return;
+				}
+			}
+		}
+
+		/** Adds the indices of all points of the given range closer than epsilon to the center to the given neighbourhood. */
+		private void search(int from, int to, int dimension, double[] center, double epsilon, DistanceMeasure measure, Neighbourhood neighbourhood) {
+			if (from >= to) {
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			int index = order[middle];
+			double[] point = points[index];
+			if (measure.calculateDistance(center, point) < epsilon) {
+				neighbourhood.add(index);
+			}
+			double difference = center[dimension] - point[dimension];
+			int nextDimension = (dimension + 1) % numberOfDimensions;
+			if (difference < epsilon) {
+				search(from, middle, nextDimension, center, epsilon, measure, neighbourhood);
+			}
+			if (-difference < epsilon) {
+				search(middle + 1, to, nextDimension, center, epsilon, measure, neighbourhood);
+			}
 		}
-		return neighbourhood;
 	}
 
 	@Override
@@ -191,6 +404,7 @@ public class DBScan extends RMAbstractClusterer implements CapabilityProvider {
 		List<ParameterType> types = new LinkedList<ParameterType>();
 		types.add(new ParameterTypeDouble(PARAMETER_EPSILON, "Specifies the size of neighbourhood.", 0, Double.POSITIVE_INFINITY, 1, false));
 		types.add(new ParameterTypeInt(PARAMETER_MIN_POINTS, "The minimal number of points forming a cluster.", 1, Integer.MAX_VALUE, 5, false));
+		types.add(new ParameterTypeCategory(PARAMETER_SEARCH_STRUCTURE, "The data structure used for finding the neighbourhood of a point. The kd-tree is only used for the euclidean, manhattan or chebychev distance or the mixed euclidean distance on numerical attributes.", SEARCH_STRUCTURES, SEARCH_STRUCTURE_AUTOMATIC, true));
 
 		types.addAll(super.getParameterTypes());
 
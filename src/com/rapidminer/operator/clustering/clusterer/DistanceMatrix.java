@@ -24,30 +24,63 @@ package com.rapidminer.operator.clustering.clusterer;
 
 /**
  * This class implements an symmetrical matrix for distances, thus saving half the memory
- * by saving only the upper right triangle
+ * by saving only the upper right triangle. In single precision mode, the distances are 
+ * stored as floats in packed chunks, halving the memory again and allowing more than 
+ * 2^31 entries.
  * @author Sebastian Land
  */
 public class DistanceMatrix {
 
+	/** The number of bits of the index within a chunk of the single precision store. */
+	private static final int CHUNK_BITS = 27;
+
+	private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
 	private double[][] matrix;
+
+	private float[][] chunks;
+
 	private int size;
 	
 	public DistanceMatrix(int size) {
+		this(size, false);
+	}
+
+	public DistanceMatrix(int size, boolean singlePrecision) {
 		this.size = size;
-		matrix = new double[size][];
-		for (int i = 0; i < size; i++) {
-			for (int j = i + 1; j < size; j++) {
-				matrix[i] = new double[j];
+		if (singlePrecision) {
+			long entries = (long) size * (size - 1) / 2;
+			chunks = new float[(int) ((entries + CHUNK_MASK) >>> CHUNK_BITS)][];
+			for (int i = 0; i < chunks.length; i++) {
+				chunks[i] = new float[(int) Math.min(CHUNK_MASK + 1, entries - ((long) i << CHUNK_BITS))];
+			}
+		} else {
+			matrix = new double[size][];
+			for (int i = 0; i < size; i++) {
+				matrix[i] = new double[size - i - 1];
 			}
-			
 		}
 	}
 
+	/** Returns the position of the entry for x < y in the packed upper right triangle. */
+	private long getIndex(int x, int y) {
+		return (long) x * (2L * size - x - 1) / 2 + (y - x - 1);
+	}
+
 	public void set(int x, int y, double d) {
-		if (x < y)
+		if (x == y)
+			return;
+		if (x > y) {
+			int swap = x;
+			x = y;
+			y = swap;
+		}
+		if (chunks != null) {
+			long index = getIndex(x, y);
+			chunks[(int) (index >>> CHUNK_BITS)][(int) (index & CHUNK_MASK)] = (float) d;
+		} else {
 			matrix[x][y - x - 1] = d;
-		if (x > y)
-			matrix[y][x - y - 1] = d;
+		}
 	}
 
 	public int getWidth() {
@@ -59,10 +92,18 @@ public class DistanceMatrix {
 	}
 
 	public double get(int x, int y) {
-		if (x < y)
+		if (x == y)
+			return 0;
+		if (x > y) {
+			int swap = x;
+			x = y;
+			y = swap;
+		}
+		if (chunks != null) {
+			long index = getIndex(x, y);
+			return chunks[(int) (index >>> CHUNK_BITS)][(int) (index & CHUNK_MASK)];
+		} else {
 			return matrix[x][y - x - 1];
-		if (x > y)
-			return matrix[y][x - y - 1];
-		return 0;
+		}
 	}
 }
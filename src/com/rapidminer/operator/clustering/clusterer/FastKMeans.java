@@ -24,6 +24,7 @@ package com.rapidminer.operator.clustering.clusterer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
@@ -43,6 +44,7 @@ import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasureHelper;
@@ -59,6 +61,11 @@ import de.dfki.madm.operator.KMeanspp;
  * - Using the Triangle Inequality to Accelerate k-Means -
  * Proceedings of the Twentieth International Conference on Machine Learning (ICML-2003), Washington DC, 2003
  * 
+ * The examples are processed concurrently in blocks of fixed size. If the example set is too small to keep all
+ * threads busy, the runs are performed concurrently instead. The convergence of the iterations is provided by
+ * operator values. Example sets which cannot be read concurrently, e.g. those backed by a database, are processed
+ * by a single thread.
+ * 
  * @author Alexander Arimond
  */
 
@@ -74,11 +81,15 @@ public class FastKMeans extends RMAbstractClusterer implements CapabilityProvide
 	 * performed&quot;
 	 */
 	public static final String PARAMETER_MAX_RUNS = "max_runs";
-	boolean kpp = getParameterAsBoolean(KMeanspp.PARAMETER_USE_KPP);
 
 	/** The parameter name for &quot;the maximal number of iterations performed for one run of the k method&quot; */
 	public static final String PARAMETER_MAX_OPTIMIZATION_STEPS = "max_optimization_steps";
 
+	/** The number of examples processed by one thread. Fixed, so that the results do not depend on the number of threads. */
+	private static final int BLOCK_SIZE = 10000;
+
+	private final ConvergenceStatistics statistics;
+
 	/** Overrides the measure specified by the operator parameters. If set to null, parameters will be used again
 	 *  to determine the measure. */
 	public void setPresetMeasure(DistanceMeasure me) {
@@ -89,6 +100,7 @@ public class FastKMeans extends RMAbstractClusterer implements CapabilityProvide
 		super(description);
 		
 		getExampleSetInputPort().addPrecondition(new CapabilityPrecondition(this, getExampleSetInputPort()));
+		statistics = new ConvergenceStatistics(this);
 	}
 
 	@Override
@@ -125,10 +137,11 @@ public class FastKMeans extends RMAbstractClusterer implements CapabilityProvide
 			attributeNames.add(attribute.getName());
 		
 		RandomGenerator generator = RandomGenerator.getRandomGenerator(this);
-		double minimalIntraClusterDistance = Double.POSITIVE_INFINITY;
-		CentroidClusterModel bestModel = null;
-		int[] bestAssignments = null;
+		boolean kpp = getParameterAsBoolean(KMeanspp.PARAMETER_USE_KPP);
+		statistics.reset();
 
+		// initializing all runs in advance, so that the results do not depend on the execution order
+		List<Callable<Run>> runs = new ArrayList<Callable<Run>>(maxRuns);
 		for (int iter = 0; iter < maxRuns; iter++) {
 
 			checkForStop();
@@ -155,94 +168,231 @@ public class FastKMeans extends RMAbstractClusterer implements CapabilityProvide
 				}
 			}
 			model.finishAssign();
-			
+			runs.add(new Run(iter + 1, model, exampleSet, measure, maxOptimizationSteps));
+		}
+
+		// running concurrently if the examples are not sufficient to use all threads
+		List<Run> results;
+		if (maxRuns > 1 && getNumberOfBlocks(exampleSet.size()) < ParallelExecutionService.getNumberOfThreads() && Tools.isConcurrentlyReadable(exampleSet)) {
+			results = ParallelExecutionService.invokeAll(runs);
+		} else {
+			results = new ArrayList<Run>(maxRuns);
+			for (Callable<Run> run : runs) {
+				results.add(((Run) run).call());
+			}
+		}
+
+		double minimalIntraClusterDistance = Double.POSITIVE_INFINITY;
+		CentroidClusterModel bestModel = null;
+		int[] bestAssignments = null;
+		for (Run run : results) {
+			if (run.distanceSum < minimalIntraClusterDistance) {
+				bestModel = run.model;
+				minimalIntraClusterDistance = run.distanceSum;
+				bestAssignments = run.centroidAssignments;
+			}
+		}
+		bestModel.setClusterAssignments(bestAssignments, exampleSet);
+
+		if (addsClusterAttribute()) {
+			Attribute cluster = AttributeFactory.createAttribute("cluster", Ontology.NOMINAL);
+			exampleSet.getExampleTable().addAttribute(cluster);
+			exampleSet.getAttributes().setCluster(cluster);
+			int i = 0;
+			for (Example example : exampleSet) {
+				example.setValue(cluster, "cluster_" + bestAssignments[i]);
+				i++;
+			}
+		}
+
+		return bestModel;
+	}
+
+	/** Returns the number of blocks of examples, which depends only on the number of examples. */
+	private static int getNumberOfBlocks(int size) {
+		return Math.max(1, (size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+	}
+
+	/** 
+	 * A single run starting from the initial centroids of its model. The examples are processed 
+	 * concurrently in blocks, whose centroid sums are merged in the order of the blocks. 
+	 */
+	private class Run implements Callable<Run> {
+
+		private final int number;
+
+		private final CentroidClusterModel model;
+
+		private final ExampleSet exampleSet;
+
+		private final Attribute[] regularAttributes;
+
+		private final DistanceMeasure measure;
+
+		private final int maxOptimizationSteps;
+
+		/** The number of threads processing the blocks, 1 if the example set cannot be read concurrently. */
+		private final int maxParallelism;
+
+		private final int[] boundaries;
+
+		private int[] centroidAssignments;
+
+		private double distanceSum;
+
+		private Run(int number, CentroidClusterModel model, ExampleSet exampleSet, DistanceMeasure measure, int maxOptimizationSteps) {
+			this.number = number;
+			this.model = model;
+			this.exampleSet = exampleSet;
+			this.regularAttributes = exampleSet.getAttributes().createRegularAttributeArray();
+			this.measure = measure;
+			this.maxOptimizationSteps = maxOptimizationSteps;
+			this.maxParallelism = Tools.isConcurrentlyReadable(exampleSet) ? ParallelExecutionService.getNumberOfThreads() : 1;
+			this.boundaries = ParallelExecutionService.getBlockBoundaries(exampleSet.size(), getNumberOfBlocks(exampleSet.size()));
+		}
+
+		@Override
+		public Run call() throws OperatorException {
+			final int k = model.getNumberOfClusters();
+			final int numberOfBlocks = boundaries.length - 1;
+
 			// auxiliary data structures according to paper
 			final double [][] l = new double 	[exampleSet.size()][k];
 			final double []   u = new double 	[exampleSet.size()];
 			final boolean []  r = new boolean	[exampleSet.size()];
 			
-			final double [][] m_old = new double [k][attributes.size()]; // needed for step 4
+			double [][] m_old = new double [k][regularAttributes.length]; // needed for step 4
 			final double []	s = new double [k];
 			
-			final int[] centroidAssignments = new int[exampleSet.size()];
+			centroidAssignments = new int[exampleSet.size()];
 
 			final DistanceMatrix centroidDistances = new DistanceMatrix(k);
 			computeClusterDistances(centroidDistances, s, model,  measure);
 
 			// initialization step (has many distance calculations)
-			int x = 0;
-			for (Example example : exampleSet) {
-				double[] exampleValues = getAsDoubleArray(example, attributes);
-				double nearestDistance = measure.calculateDistance(model.getCentroidCoordinates(0), exampleValues);
-				l[x][0] = nearestDistance;
-				int nearestIndex = 0;
-				for (int centroidIndex = 1; centroidIndex < k; centroidIndex++) {
-					if (centroidDistances.get(nearestIndex, centroidIndex) >= 2 * nearestDistance) continue;
-					final double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidIndex), exampleValues);
-					l[x][centroidIndex] = distance;
-					if (distance < nearestDistance) {
-						nearestDistance = distance;
-						nearestIndex = centroidIndex;
+			List<Callable<Void>> initializationTasks = new ArrayList<Callable<Void>>(numberOfBlocks);
+			for (int block = 0; block < numberOfBlocks; block++) {
+				final int from = boundaries[block];
+				final int to = boundaries[block + 1];
+				initializationTasks.add(new Callable<Void>() {
+
+					@Override
+					public Void call() {
+						double[] exampleValues = new double[regularAttributes.length];
+						for (int x = from; x < to; x++) {
+							getValues(x, exampleValues);
+							double nearestDistance = measure.calculateDistance(model.getCentroidCoordinates(0), exampleValues);
+							l[x][0] = nearestDistance;
+							int nearestIndex = 0;
+							for (int centroidIndex = 1; centroidIndex < k; centroidIndex++) {
+								if (centroidDistances.get(nearestIndex, centroidIndex) >= 2 * nearestDistance) continue;
+								final double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidIndex), exampleValues);
+								l[x][centroidIndex] = distance;
+								if (distance < nearestDistance) {
+									nearestDistance = distance;
+									nearestIndex = centroidIndex;
+								}
+							}
+							centroidAssignments[x] = nearestIndex;
+							u[x] = nearestDistance;
+							r[x] = false;
+						}
+						return null;
 					}
-				}
-				centroidAssignments[x] = nearestIndex;
-				u[x] = nearestDistance;
-				r[x] = false;
-				x++;
+				});
 			}
+			ParallelExecutionService.invokeAll(initializationTasks, maxParallelism);
 
 			// optimization steps (repeat until convergence)
 			boolean stable = false;
 			for (int step = 0; (step < maxOptimizationSteps) && !stable; step++) {
+				checkForStopConcurrently();
 				
 				// step 1.
 				computeClusterDistances(centroidDistances, s, model, measure);
 
-				int avoidedSamples = 0;
-				x = 0;
-				for (Example example : exampleSet) {
-					final double [] exampleValue = getAsDoubleArray(example, attributes);
-
-					// step 2.
-					if ( u[x] <= s[centroidAssignments[x]]){
-						// nothing
-						avoidedSamples ++;
-					} else {
-						// step 3.
-						for (int c = 0; c < k; c ++){
-							if (c != centroidAssignments[x]  // (i)
-							    && u[x] > l[x][c] 			// (ii)
-							    && u[x] > 0.5 * centroidDistances.get(centroidAssignments[x], c) // (iii)
-							    ){
-								//step 3a.
-								final double d_x_c;   // d(x,c(x))
-								if (r[x]){
-									d_x_c = measure.calculateDistance(exampleValue, model.getCentroidCoordinates(centroidAssignments[x]));
-									l[x][centroidAssignments[x]] = d_x_c;
-									u[x] = d_x_c;
-									r[x] = false;
+				final double[][][] blockSums = new double[numberOfBlocks][][];
+				final int[][] blockCounts = new int[numberOfBlocks][];
+				List<Callable<Integer>> assignmentTasks = new ArrayList<Callable<Integer>>(numberOfBlocks);
+				for (int block = 0; block < numberOfBlocks; block++) {
+					final int currentBlock = block;
+					final int from = boundaries[block];
+					final int to = boundaries[block + 1];
+					assignmentTasks.add(new Callable<Integer>() {
+
+						@Override
+						public Integer call() {
+							final double [] exampleValue = new double[regularAttributes.length];
+							double[][] sums = new double[k][regularAttributes.length];
+							int[] counts = new int[k];
+							int changed = 0;
+							for (int x = from; x < to; x++) {
+								getValues(x, exampleValue);
+								int oldAssignment = centroidAssignments[x];
+
+								// step 2.
+								if ( u[x] <= s[centroidAssignments[x]]){
+									// nothing
 								} else {
-									d_x_c = u[x];
-								}
-								// step 3b.
-								if (d_x_c > l[x][c] && d_x_c > 0.5 * centroidDistances.get(centroidAssignments[x], c)){
-									final double d_x_c_new = measure.calculateDistance(exampleValue, model.getCentroidCoordinates(c)); // d(x,c)
-									l[x][c] = d_x_c_new;
-									if (d_x_c_new < d_x_c) {
-										centroidAssignments[x] = c;
-										u[x] = d_x_c_new;
+									// step 3.
+									for (int c = 0; c < k; c ++){
+										if (c != centroidAssignments[x]  // (i)
+										    && u[x] > l[x][c] 			// (ii)
+										    && u[x] > 0.5 * centroidDistances.get(centroidAssignments[x], c) // (iii)
+										    ){
+											//step 3a.
+											final double d_x_c;   // d(x,c(x))
+											if (r[x]){
+												d_x_c = measure.calculateDistance(exampleValue, model.getCentroidCoordinates(centroidAssignments[x]));
+												l[x][centroidAssignments[x]] = d_x_c;
+												u[x] = d_x_c;
+												r[x] = false;
+											} else {
+												d_x_c = u[x];
+											}
+											// step 3b.
+											if (d_x_c > l[x][c] && d_x_c > 0.5 * centroidDistances.get(centroidAssignments[x], c)){
+												final double d_x_c_new = measure.calculateDistance(exampleValue, model.getCentroidCoordinates(c)); // d(x,c)
+												l[x][c] = d_x_c_new;
+												if (d_x_c_new < d_x_c) {
+													centroidAssignments[x] = c;
+													u[x] = d_x_c_new;
+												}
+											}
+										}
 									}
+
+								}
+								if (centroidAssignments[x] != oldAssignment) {
+									changed++;
+								}
+								counts[centroidAssignments[x]]++;
+								double[] sum = sums[centroidAssignments[x]];
+								for (int d = 0; d < exampleValue.length; d++) {
+									sum[d] += exampleValue[d];
 								}
 							}
+							blockSums[currentBlock] = sums;
+							blockCounts[currentBlock] = counts;
+							return changed;
+						}
+					});
+				}
+				int changedAssignments = 0;
+				for (int changed : ParallelExecutionService.invokeAll(assignmentTasks, maxParallelism)) {
+					changedAssignments += changed;
+				}
+				for (int block = 0; block < numberOfBlocks; block++) {
+					for (int c = 0; c < k; c++) {
+						if (blockCounts[block][c] > 0) {
+							model.getCentroid(c).assignExamples(blockSums[block][c], blockCounts[block][c]);
 						}
-
 					}
-					model.assignExample(centroidAssignments[x], exampleValue);
-					x++;
 				}
 				
 				// step 4
 				// first store old c
+				m_old = new double[k][];
 				for (int c=0; c <k ; c++){
 					m_old[c] = model.getCentroidCoordinates(c);
 				}
@@ -251,54 +401,76 @@ public class FastKMeans extends RMAbstractClusterer implements CapabilityProvide
 				
 				// compute all d(c,m(c))
 				final double [] mean_distances = new double [k];
+				double centroidShift = 0;
 				for (int c = 0; c < k; c++){
 					mean_distances [c] = measure.calculateDistance(m_old[c], model.getCentroidCoordinates(c));
+					centroidShift += mean_distances[c];
 				}
 				
 				// step 5 & 6
-				for (x=0; x < exampleSet.size(); x++){
-					// step 5
-					for (int c = 0; c < k; c++){
-						final double d = l[x][c] - mean_distances[c]; 
-						if (d > 0)
-							l[x][c] = d;
-						else
-							l[x][c] = 0;
-					}
-					// step 6
-					u[x] = u[x] + mean_distances[centroidAssignments[x]];
-					r[x] = true;
-				}
+				List<Callable<Void>> boundTasks = new ArrayList<Callable<Void>>(numberOfBlocks);
+				for (int block = 0; block < numberOfBlocks; block++) {
+					final int from = boundaries[block];
+					final int to = boundaries[block + 1];
+					boundTasks.add(new Callable<Void>() {
 
+						@Override
+						public Void call() {
+							for (int x = from; x < to; x++) {
+								// step 5
+								for (int c = 0; c < k; c++){
+									final double d = l[x][c] - mean_distances[c]; 
+									if (d > 0)
+										l[x][c] = d;
+									else
+										l[x][c] = 0;
+								}
+								// step 6
+								u[x] = u[x] + mean_distances[centroidAssignments[x]];
+								r[x] = true;
+							}
+							return null;
+						}
+					});
+				}
+				ParallelExecutionService.invokeAll(boundTasks, maxParallelism);
+				statistics.iterationFinished(number, step + 1, changedAssignments, centroidShift);
 			}
+
 			// assessing quality of this model
-			double distanceSum = 0;
-			i = 0;
-			for (Example example : exampleSet) {
-				double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidAssignments[i]), getAsDoubleArray(example, attributes));
-				distanceSum += distance * distance;
-				i++;
+			List<Callable<Double>> distanceTasks = new ArrayList<Callable<Double>>(numberOfBlocks);
+			for (int block = 0; block < numberOfBlocks; block++) {
+				final int from = boundaries[block];
+				final int to = boundaries[block + 1];
+				distanceTasks.add(new Callable<Double>() {
+
+					@Override
+					public Double call() {
+						double[] values = new double[regularAttributes.length];
+						double blockSum = 0;
+						for (int x = from; x < to; x++) {
+							double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidAssignments[x]), getValues(x, values));
+							blockSum += distance * distance;
+						}
+						return blockSum;
+					}
+				});
 			}
-			if (distanceSum < minimalIntraClusterDistance) {
-				bestModel = model;
-				minimalIntraClusterDistance = distanceSum;
-				bestAssignments = centroidAssignments;
+			distanceSum = 0;
+			for (double blockSum : ParallelExecutionService.invokeAll(distanceTasks, maxParallelism)) {
+				distanceSum += blockSum;
 			}
+			statistics.runFinished(distanceSum);
+			return this;
 		}
-		bestModel.setClusterAssignments(bestAssignments, exampleSet);
 
-		if (addsClusterAttribute()) {
-			Attribute cluster = AttributeFactory.createAttribute("cluster", Ontology.NOMINAL);
-			exampleSet.getExampleTable().addAttribute(cluster);
-			exampleSet.getAttributes().setCluster(cluster);
-			int i = 0;
-			for (Example example : exampleSet) {
-				example.setValue(cluster, "cluster_" + bestAssignments[i]);
-				i++;
+		private double[] getValues(int index, double[] values) {
+			Example example = exampleSet.getExample(index);
+			for (int i = 0; i < regularAttributes.length; i++) {
+				values[i] = example.getValue(regularAttributes[i]);
 			}
+			return values;
 		}
-
-		return bestModel;
 	}
 
 	// this is for step 1 of the paper algorithm
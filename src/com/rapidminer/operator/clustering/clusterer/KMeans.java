@@ -23,7 +23,9 @@
 package com.rapidminer.operator.clustering.clusterer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
@@ -43,7 +45,9 @@ import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.UndefinedParameterError;
+import com.rapidminer.parameter.conditions.BooleanParameterCondition;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasureHelper;
@@ -55,6 +59,11 @@ import de.dfki.madm.operator.KMeanspp;
  * This operator represents an implementation of k-means. This operator will create a cluster attribute if not present
  * yet.
  * 
+ * The examples are assigned concurrently in blocks of fixed size. If the example set is too small to keep all threads
+ * busy, the runs are performed concurrently instead. For very large example sets, the centroids can be updated from
+ * random mini batches. The convergence of the iterations is provided by operator values. Example sets which cannot be
+ * read concurrently, e.g. those backed by a database, are processed by a single thread.
+ * 
  * @author Sebastian Land
  */
 public class KMeans extends RMAbstractClusterer implements CapabilityProvider {
@@ -74,9 +83,21 @@ public class KMeans extends RMAbstractClusterer implements CapabilityProvider {
 	/** The parameter name for &quot;the maximal number of iterations performed for one run of the k method&quot; */
 	public static final String PARAMETER_MAX_OPTIMIZATION_STEPS = "max_optimization_steps";
 
+	/** The parameter name for &quot;Indicates if the centroids should be updated using random mini batches of examples.&quot; */
+	public static final String PARAMETER_USE_MINI_BATCHES = "use_mini_batches";
+
+	/** The parameter name for &quot;The number of examples drawn for each mini batch.&quot; */
+	public static final String PARAMETER_MINI_BATCH_SIZE = "mini_batch_size";
+
+	/** The number of examples assigned by one thread. Fixed, so that the results do not depend on the number of threads. */
+	private static final int BLOCK_SIZE = 10000;
+
+	private final ConvergenceStatistics statistics;
+
 	public KMeans(OperatorDescription description) {
 		super(description);
 		getExampleSetInputPort().addPrecondition(new CapabilityPrecondition(this, getExampleSetInputPort()));
+		statistics = new ConvergenceStatistics(this);
 	}
 
 	
@@ -92,6 +113,8 @@ public class KMeans extends RMAbstractClusterer implements CapabilityProvider {
 		int maxOptimizationSteps = getParameterAsInt(PARAMETER_MAX_OPTIMIZATION_STEPS);
 		int maxRuns = getParameterAsInt(PARAMETER_MAX_RUNS);
 		boolean kpp = getParameterAsBoolean(KMeanspp.PARAMETER_USE_KPP);
+		boolean useMiniBatches = getParameterAsBoolean(PARAMETER_USE_MINI_BATCHES);
+		int miniBatchSize = getParameterAsInt(PARAMETER_MINI_BATCH_SIZE);
 
 		DistanceMeasure measure;
 		if (presetMeasure != null) {
@@ -121,11 +144,11 @@ public class KMeans extends RMAbstractClusterer implements CapabilityProvider {
 			attributeNames.add(attribute.getName());
 
 		RandomGenerator generator = RandomGenerator.getRandomGenerator(this);
-		double minimalIntraClusterDistance = Double.POSITIVE_INFINITY;
-		CentroidClusterModel bestModel = null;
-		int[] bestAssignments = null;
 		double[] values = new double[attributes.size()];
-		
+		statistics.reset();
+
+		// initializing all runs in advance, so that the results do not depend on the execution order
+		List<Callable<Run>> runs = new ArrayList<Callable<Run>>(maxRuns);
 		for (int iter = 0; iter < maxRuns; iter++) {
 			checkForStop();
 			CentroidClusterModel model = new CentroidClusterModel(exampleSet, k, attributeNames, measure, getParameterAsBoolean(RMAbstractClusterer.PARAMETER_ADD_AS_LABEL), getParameterAsBoolean(RMAbstractClusterer.PARAMETER_REMOVE_UNLABELED));
@@ -150,46 +173,29 @@ public class KMeans extends RMAbstractClusterer implements CapabilityProvider {
 				}
 			}
 			model.finishAssign();
+			runs.add(new Run(iter + 1, model, exampleSet, measure, maxOptimizationSteps, useMiniBatches ? new RandomGenerator(generator.nextLong()) : null, miniBatchSize));
+		}
 
-			// run optimization steps
-			int[] centroidAssignments = new int[exampleSet.size()];
-			boolean stable = false;
-			for (int step = 0; (step < maxOptimizationSteps) && !stable; step++) {
-				checkForStop();
-				
-				// assign examles to new centroids
-				i = 0;
-				for (Example example : exampleSet) {
-					double[] exampleValues = getAsDoubleArray(example, attributes, values);
-					double nearestDistance = measure.calculateDistance(model.getCentroidCoordinates(0), exampleValues);
-					int nearestIndex = 0;
-					for (int centroidIndex = 1; centroidIndex < k; centroidIndex++) {
-						double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidIndex), exampleValues);
-						if (distance < nearestDistance) {
-							nearestDistance = distance;
-							nearestIndex = centroidIndex;
-						}
-					}
-					centroidAssignments[i] = nearestIndex;
-					model.getCentroid(nearestIndex).assignExample(exampleValues);
-					i++;
-				}
-
-				// finishing assignment
-				stable = model.finishAssign();
-			}
-			// assessing quality of this model
-			double distanceSum = 0;
-			i = 0;
-			for (Example example : exampleSet) {
-				double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidAssignments[i]), getAsDoubleArray(example, attributes, values));
-				distanceSum += distance * distance;
-				i++;
+		// running concurrently if the examples are not sufficient to use all threads
+		List<Run> results;
+		int numberOfBlocks = getNumberOfBlocks(exampleSet.size());
+		if (maxRuns > 1 && numberOfBlocks < ParallelExecutionService.getNumberOfThreads() && Tools.isConcurrentlyReadable(exampleSet)) {
+			results = ParallelExecutionService.invokeAll(runs);
+		} else {
+			results = new ArrayList<Run>(maxRuns);
+			for (Callable<Run> run : runs) {
+				results.add(((Run) run).call());
 			}
-			if (distanceSum < minimalIntraClusterDistance) {
-				bestModel = model;
-				minimalIntraClusterDistance = distanceSum;
-				bestAssignments = centroidAssignments;
+		}
+
+		double minimalIntraClusterDistance = Double.POSITIVE_INFINITY;
+		CentroidClusterModel bestModel = null;
+		int[] bestAssignments = null;
+		for (Run run : results) {
+			if (run.distanceSum < minimalIntraClusterDistance) {
+				bestModel = run.model;
+				minimalIntraClusterDistance = run.distanceSum;
+				bestAssignments = run.assignments;
 			}
 		}
 		bestModel.setClusterAssignments(bestAssignments, exampleSet);
@@ -216,6 +222,267 @@ public class KMeans extends RMAbstractClusterer implements CapabilityProvider {
 		return bestModel;
 	}
 
+	/** Returns the number of blocks of examples, which depends only on the number of examples. */
+	private static int getNumberOfBlocks(int size) {
+		return Math.max(1, (size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+	}
+
+	/**
+	 * A single run of k-means starting from the initial centroids of its model. The examples are 
+	 * processed concurrently in blocks, whose centroid sums are merged in the order of the blocks.
+	 * If a random generator is given, mini batches of randomly drawn examples are used to
+	 * update the centroids instead of all examples.
+	 */
+	private class Run implements Callable<Run> {
+
+		private final int number;
+
+		private final CentroidClusterModel model;
+
+		private final ExampleSet exampleSet;
+
+		private final Attribute[] regularAttributes;
+
+		private final DistanceMeasure measure;
+
+		private final int maxOptimizationSteps;
+
+		/** The number of threads processing the blocks, 1 if the example set cannot be read concurrently. */
+		private final int maxParallelism;
+
+		private final RandomGenerator miniBatchRandom;
+
+		private final int miniBatchSize;
+
+		private int[] assignments;
+
+		private double distanceSum;
+
+		private Run(int number, CentroidClusterModel model, ExampleSet exampleSet, DistanceMeasure measure, int maxOptimizationSteps, RandomGenerator miniBatchRandom, int miniBatchSize) {
+			this.number = number;
+			this.model = model;
+			this.exampleSet = exampleSet;
+			this.regularAttributes = exampleSet.getAttributes().createRegularAttributeArray();
+			this.measure = measure;
+			this.maxOptimizationSteps = maxOptimizationSteps;
+			this.maxParallelism = Tools.isConcurrentlyReadable(exampleSet) ? ParallelExecutionService.getNumberOfThreads() : 1;
+			this.miniBatchRandom = miniBatchRandom;
+			this.miniBatchSize = miniBatchSize;
+		}
+
+		@Override
+		public Run call() throws OperatorException {
+			if (miniBatchRandom != null) {
+				optimizeWithMiniBatches();
+				assignments = new int[exampleSet.size()];
+				assign(true);
+			} else {
+				optimize();
+			}
+
+			// assessing quality of this model
+			int[] boundaries = ParallelExecutionService.getBlockBoundaries(exampleSet.size(), getNumberOfBlocks(exampleSet.size()));
+			List<Callable<Double>> tasks = new ArrayList<Callable<Double>>(boundaries.length - 1);
+			for (int block = 0; block < boundaries.length - 1; block++) {
+				final int from = boundaries[block];
+				final int to = boundaries[block + 1];
+				tasks.add(new Callable<Double>() {
+
+					@Override
+					public Double call() {
+						double[] values = new double[regularAttributes.length];
+						double distanceSum = 0;
+						for (int i = from; i < to; i++) {
+							double distance = measure.calculateDistance(model.getCentroidCoordinates(assignments[i]), getValues(i, values));
+							distanceSum += distance * distance;
+						}
+						return distanceSum;
+					}
+				});
+			}
+			distanceSum = 0;
+			for (double blockSum : ParallelExecutionService.invokeAll(tasks, maxParallelism)) {
+				distanceSum += blockSum;
+			}
+			statistics.runFinished(distanceSum);
+			return this;
+		}
+
+		private void optimize() throws OperatorException {
+			assignments = new int[exampleSet.size()];
+			Arrays.fill(assignments, -1);
+			boolean stable = false;
+			for (int step = 0; (step < maxOptimizationSteps) && !stable; step++) {
+				checkForStopConcurrently();
+				double[][] oldCentroids = getCentroidCoordinates();
+				int changedAssignments = assign(false);
+
+				// finishing assignment
+				stable = model.finishAssign();
+				statistics.iterationFinished(number, step + 1, changedAssignments, getCentroidShift(oldCentroids));
+			}
+		}
+
+		private void optimizeWithMiniBatches() throws OperatorException {
+			int k = model.getNumberOfClusters();
+			int size = exampleSet.size();
+			int batchSize = Math.min(miniBatchSize, size);
+			int[] clusterSizes = new int[k];
+			int[] batch = new int[batchSize];
+			double[] values = new double[regularAttributes.length];
+			boolean stable = false;
+			for (int step = 0; (step < maxOptimizationSteps) && !stable; step++) {
+				checkForStopConcurrently();
+				double[][] oldCentroids = getCentroidCoordinates();
+				for (int i = 0; i < batchSize; i++) {
+					batch[i] = miniBatchRandom.nextInt(size);
+				}
+				int[] nearest = getNearestCentroids(batch);
+
+				// moving each centroid towards its examples with a decreasing learning rate
+				for (int i = 0; i < batchSize; i++) {
+					int cluster = nearest[i];
+					clusterSizes[cluster]++;
+					double learningRate = 1.0d / clusterSizes[cluster];
+					double[] centroid = model.getCentroidCoordinates(cluster);
+					double[] movedCentroid = new double[centroid.length];
+					getValues(batch[i], values);
+					for (int d = 0; d < centroid.length; d++) {
+						movedCentroid[d] = (1.0d - learningRate) * centroid[d] + learningRate * values[d];
+					}
+					model.getCentroid(cluster).setCentroid(movedCentroid);
+				}
+
+				stable = true;
+				for (int cluster = 0; cluster < k; cluster++) {
+					stable &= Arrays.equals(oldCentroids[cluster], model.getCentroidCoordinates(cluster));
+				}
+				statistics.iterationFinished(number, step + 1, Double.NaN, getCentroidShift(oldCentroids));
+			}
+		}
+
+		/** Returns the index of the nearest centroid of each of the given examples. */
+		private int[] getNearestCentroids(final int[] indices) throws OperatorException {
+			final int[] nearest = new int[indices.length];
+			int[] boundaries = ParallelExecutionService.getBlockBoundaries(indices.length, getNumberOfBlocks(indices.length));
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(boundaries.length - 1);
+			for (int block = 0; block < boundaries.length - 1; block++) {
+				final int from = boundaries[block];
+				final int to = boundaries[block + 1];
+				tasks.add(new Callable<Void>() {
+
+					@Override
+					public Void call() {
+						double[] values = new double[regularAttributes.length];
+						for (int i = from; i < to; i++) {
+							nearest[i] = getNearestCentroid(getValues(indices[i], values));
+						}
+						return null;
+					}
+				});
+			}
+			ParallelExecutionService.invokeAll(tasks, maxParallelism);
+			return nearest;
+		}
+
+		/**
+		 * Assigns all examples to their nearest centroids and returns the number of changed assignments.
+		 * If onlyAssignments is false, the examples are also assigned to the centroids of the model.
+		 */
+		private int assign(final boolean onlyAssignments) throws OperatorException {
+			final int k = model.getNumberOfClusters();
+			int[] boundaries = ParallelExecutionService.getBlockBoundaries(exampleSet.size(), getNumberOfBlocks(exampleSet.size()));
+			int numberOfBlocks = boundaries.length - 1;
+			final double[][][] blockSums = new double[numberOfBlocks][][];
+			final int[][] blockCounts = new int[numberOfBlocks][];
+			List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(numberOfBlocks);
+			for (int block = 0; block < numberOfBlocks; block++) {
+				final int currentBlock = block;
+				final int from = boundaries[block];
+				final int to = boundaries[block + 1];
+				tasks.add(new Callable<Integer>() {
+
+					@Override
+					public Integer call() {
+						double[] values = new double[regularAttributes.length];
+						double[][] sums = onlyAssignments ? null : new double[k][regularAttributes.length];
+						int[] counts = new int[k];
+						int changed = 0;
+						for (int i = from; i < to; i++) {
+							getValues(i, values);
+							int nearestIndex = getNearestCentroid(values);
+							if (assignments[i] != nearestIndex) {
+								changed++;
+							}
+							assignments[i] = nearestIndex;
+							if (!onlyAssignments) {
+								counts[nearestIndex]++;
+								double[] sum = sums[nearestIndex];
+								for (int d = 0; d < values.length; d++) {
+									sum[d] += values[d];
+								}
+							}
+						}
+						blockSums[currentBlock] = sums;
+						blockCounts[currentBlock] = counts;
+						return changed;
+					}
+				});
+			}
+			int changed = 0;
+			for (int blockChanged : ParallelExecutionService.invokeAll(tasks, maxParallelism)) {
+				changed += blockChanged;
+			}
+			if (!onlyAssignments) {
+				for (int block = 0; block < numberOfBlocks; block++) {
+					for (int cluster = 0; cluster < k; cluster++) {
+						if (blockCounts[block][cluster] > 0) {
+							model.getCentroid(cluster).assignExamples(blockSums[block][cluster], blockCounts[block][cluster]);
+						}
+					}
+				}
+			}
+			return changed;
+		}
+
+		private int getNearestCentroid(double[] exampleValues) {
+			double nearestDistance = measure.calculateDistance(model.getCentroidCoordinates(0), exampleValues);
+			int nearestIndex = 0;
+			for (int centroidIndex = 1; centroidIndex < model.getNumberOfClusters(); centroidIndex++) {
+				double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidIndex), exampleValues);
+				if (distance < nearestDistance) {
+					nearestDistance = distance;
+					nearestIndex = centroidIndex;
+				}
+			}
+			return nearestIndex;
+		}
+
+		private double[][] getCentroidCoordinates() {
+			double[][] coordinates = new double[model.getNumberOfClusters()][];
+			for (int cluster = 0; cluster < coordinates.length; cluster++) {
+				coordinates[cluster] = model.getCentroidCoordinates(cluster).clone();
+			}
+			return coordinates;
+		}
+
+		private double getCentroidShift(double[][] oldCentroids) {
+			double shift = 0;
+			for (int cluster = 0; cluster < oldCentroids.length; cluster++) {
+				shift += measure.calculateDistance(oldCentroids[cluster], model.getCentroidCoordinates(cluster));
+			}
+			return shift;
+		}
+
+		private double[] getValues(int index, double[] values) {
+			Example example = exampleSet.getExample(index);
+			for (int i = 0; i < regularAttributes.length; i++) {
+				values[i] = example.getValue(regularAttributes[i]);
+			}
+			return values;
+		}
+	}
+
 	private double[] getAsDoubleArray(Example example, Attributes attributes, double[] values) {
 		int i = 0;
 		for (Attribute attribute : attributes) {
@@ -274,6 +541,10 @@ public class KMeans extends RMAbstractClusterer implements CapabilityProvider {
 		}
 
 		types.add(new ParameterTypeInt(PARAMETER_MAX_OPTIMIZATION_STEPS, "The maximal number of iterations performed for one run of k-Means.", 1, Integer.MAX_VALUE, 100, false));
+		types.add(new ParameterTypeBoolean(PARAMETER_USE_MINI_BATCHES, "Indicates if the centroids should be updated using random mini batches of examples instead of all examples in each iteration. This is faster on very large example sets but only approximates the result.", false));
+		type = new ParameterTypeInt(PARAMETER_MINI_BATCH_SIZE, "The number of examples drawn for each mini batch.", 1, Integer.MAX_VALUE, 1000);
+		type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_USE_MINI_BATCHES, true, true));
+		types.add(type);
 		types.addAll(RandomGenerator.getRandomGeneratorParameters(this));
 		return types;
 	}
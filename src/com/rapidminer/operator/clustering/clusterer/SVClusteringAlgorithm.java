@@ -49,6 +49,9 @@ public class SVClusteringAlgorithm implements SVMInterface {
 
 	protected Kernel kernel;
 
+	/** Receives the kernel rows, reused to avoid allocating a row per request */
+	private double[] kernel_row_buffer;
+
 	protected SVCExampleSet examples;
 
 	double[] alphas;
@@ -393,7 +396,7 @@ public class SVClusteringAlgorithm implements SVMInterface {
 		for (i = 0; i < examples_total; i++) {
 			alpha = alphas[i];
 			if (alpha != 0) {
-				kernel_row = kernel.get_row(i);
+				kernel_row = kernel_row_buffer = kernel.get_row(i, kernel_row_buffer);
 				for (j = old_ex_tot; j < examples_total; j++) {
 					sum[j] += alpha * kernel_row[j];
 				};
@@ -431,7 +434,7 @@ public class SVClusteringAlgorithm implements SVMInterface {
 					alpha = alphas[i];
 					if ((alpha > 0) && (alpha < C)) {
 						alphas[i] -= alpha_delta;
-						kernel_row = kernel.get_row(i);
+						kernel_row = kernel_row_buffer = kernel.get_row(i, kernel_row_buffer);
 						for (int j = 0; j < examples_total; j++) {
 							sum[j] -= alpha_delta * kernel_row[j];
 						};
@@ -649,7 +652,7 @@ public class SVClusteringAlgorithm implements SVMInterface {
 		for (pos_i = 0; pos_i < working_set_size; pos_i++) {
 			i = working_set[pos_i];
 			// put row sort_i in hessian
-			kernel_row = kernel.get_row(i);
+			kernel_row = kernel_row_buffer = kernel.get_row(i, kernel_row_buffer);
 			sum_WS = 0;
 			for (pos_j = 0; pos_j < pos_i; pos_j++) {
 				j = working_set[pos_j];
@@ -691,7 +694,7 @@ public class SVClusteringAlgorithm implements SVMInterface {
 		for (i = 0; i < examples_total; i++) {
 			alpha = alphas[i];
 			if (alpha != 0.0d) {
-				kernel_row = kernel.get_row(i);
+				kernel_row = kernel_row_buffer = kernel.get_row(i, kernel_row_buffer);
 				for (j = 0; j < examples_total; j++) {
 					sum[j] += alpha * kernel_row[j];
 				};
@@ -870,7 +873,7 @@ public class SVClusteringAlgorithm implements SVMInterface {
 			alphas[i] = the_new_alpha;
 			if (alpha_diff != 0) {
 				// update sum ( => nabla)
-				kernel_row = kernel.get_row(i);
+				kernel_row = kernel_row_buffer = kernel.get_row(i, kernel_row_buffer);
 				for (j = examples_total - 1; j >= 0; j--) {
 					my_sum[j] += alpha_diff * kernel_row[j];
 				};
@@ -0,0 +1,51 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.execution;
+
+import com.rapidminer.RapidMiner;
+import com.rapidminer.operator.ExecutionUnit;
+import com.rapidminer.tools.ParameterService;
+
+/** Returns a shared instance of a {@link ParallelUnitExecutor} if the property
+ *  {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_PARALLEL_SUBPROCESS_EXECUTION} is enabled
+ *  and a shared instance of a {@link SimpleUnitExecutor} otherwise.
+ * 
+ * @author agent
+ *
+ */
+public class ParallelUnitExecutionFactory extends UnitExecutionFactory {
+
+	private final SimpleUnitExecutor simpleExecutor = new SimpleUnitExecutor();
+
+	private final ParallelUnitExecutor parallelExecutor = new ParallelUnitExecutor();
+
+	@Override
+	public UnitExecutor getExecutor(ExecutionUnit unit) {
+		if ("true".equals(ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_PARALLEL_SUBPROCESS_EXECUTION))) {
+			return parallelExecutor;
+		} else {
+			return simpleExecutor;
+		}
+	}
+
+}
@@ -0,0 +1,355 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.execution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.ExampleTable;
+import com.rapidminer.operator.DataMacroDefinitionOperator;
+import com.rapidminer.operator.ExecutionUnit;
+import com.rapidminer.operator.IOObject;
+import com.rapidminer.operator.IOObjectCollection;
+import com.rapidminer.operator.IORetrievalOperator;
+import com.rapidminer.operator.IOStorageOperator;
+import com.rapidminer.operator.MacroConstructionOperator;
+import com.rapidminer.operator.MacroDefinitionOperator;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorChain;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ScriptingOperator;
+import com.rapidminer.operator.SingleMacroDefinitionOperator;
+import com.rapidminer.operator.io.AbstractWriter;
+import com.rapidminer.operator.io.DatabaseExampleSetWriter;
+import com.rapidminer.operator.macros.UnsetMacroOperator;
+import com.rapidminer.operator.meta.ParameterSetter;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.operator.util.annotations.ExtractAnnotation;
+import com.rapidminer.tools.ParallelExecutionService;
+
+/** Executes an {@link ExecutionUnit} by running operators concurrently whenever they do not depend 
+ *  on each other. The dependencies are derived from the port connections of the operators, so an
+ *  operator is started as soon as all operators delivering its inputs have finished. Operators which
+ *  communicate with others by side effects, like macro definitions, parameter setters, scripts or
+ *  writers of files, repository entries and databases, are treated as barriers: they are started only
+ *  after all operators preceding them in the execution order have finished and all succeeding operators
+ *  wait for them. The same holds for operator chains containing such an operator at any depth.
+ *  
+ *  Example sets delivered by copies of the same object share their example table and operators
+ *  might add columns to it. Therefore operators receiving example sets backed by the same table
+ *  are never executed at the same time.
+ *  
+ *  The threads are obtained from the {@link ParallelExecutionService}, the calling thread executes
+ *  operators itself if no further worker is available. If any of the operators has a breakpoint,
+ *  the unit is executed sequentially like by the {@link SimpleUnitExecutor}. If an operator fails, no 
+ *  further operators are started and the first error in execution order is thrown once all running 
+ *  operators have finished.
+ *  
+ *  Instances of this class can be shared.
+ * 
+ * @author agent
+ *
+ */
+public class ParallelUnitExecutor implements UnitExecutor {
+
+	/** Operators communicating with other operators by other means than ports. */
+	private static final Class<?>[] BARRIER_OPERATORS = new Class<?>[] {
+		MacroDefinitionOperator.class,
+		SingleMacroDefinitionOperator.class,
+		DataMacroDefinitionOperator.class,
+		MacroConstructionOperator.class,
+		UnsetMacroOperator.class,
+		ExtractAnnotation.class,
+		IOStorageOperator.class,
+		IORetrievalOperator.class,
+		ParameterSetter.class,
+		ScriptingOperator.class,
+		AbstractWriter.class,
+		DatabaseExampleSetWriter.class
+	};
+
+	private final SimpleUnitExecutor sequentialExecutor = new SimpleUnitExecutor();
+
+	@Override
+	public void execute(ExecutionUnit unit) throws OperatorException {
+		List<Operator> operators = unit.getOperators();
+		if (operators.size() < 2 || ParallelExecutionService.getNumberOfThreads() < 2) {
+			sequentialExecutor.execute(unit);
+			return;
+		}
+		for (Operator operator : operators) {
+			if (operator.hasBreakpoint()) {
+				sequentialExecutor.execute(unit);
+				return;
+			}
+		}
+
+		Logger logger = unit.getEnclosingOperator().getLogger();
+		if (logger.isLoggable(Level.FINE)) {
+			logger.fine("Executing subprocess "+unit.getEnclosingOperator().getName()+"."+unit.getName()+" in parallel. Execution order is: "+unit.getOperators());
+		}
+		new Execution(operators).run();
+	}
+
+	/** 
+	 * Returns true if the given operator must not run concurrently to any other operator of its unit. 
+	 * This is the case if the operator or, for operator chains, any of its inner operators causes side effects.
+	 */
+	protected boolean isBarrier(Operator operator) {
+		if (hasSideEffects(operator)) {
+			return true;
+		}
+		if (operator instanceof OperatorChain) {
+			for (Operator innerOperator : ((OperatorChain) operator).getAllInnerOperators()) {
+				if (hasSideEffects(innerOperator)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/** Returns true if the given operator itself communicates with other operators by other means than ports. */
+	private static boolean hasSideEffects(Operator operator) {
+		for (Class<?> barrierClass : BARRIER_OPERATORS) {
+			if (barrierClass.isInstance(operator)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** The state of a single execution of an execution unit. */
+	private class Execution {
+
+		private final List<Operator> operators;
+
+		/** The successors of the operator with the respective index in the execution order. */
+		private final List<List<Integer>> successors;
+
+		/** The number of unfinished predecessors of the operator with the respective index. */
+		private final int[] numberOfPredecessors;
+
+		/** The operators whose predecessors have finished, ordered by their index in the execution order. */
+		private final TreeSet<Integer> ready = new TreeSet<Integer>();
+
+		/** The example tables of the input of the operator with the respective index, known once it is ready. */
+		private final List<List<ExampleTable>> inputTables;
+
+		/** The example tables used by the running operators. */
+		private final Set<ExampleTable> usedTables = Collections.newSetFromMap(new IdentityHashMap<ExampleTable, Boolean>());
+
+		private final Throwable[] errors;
+
+		private int running = 0;
+
+		private boolean failed = false;
+
+		private boolean interrupted = false;
+
+		private Execution(List<Operator> operators) {
+			this.operators = operators;
+			int n = operators.size();
+			this.errors = new Throwable[n];
+			this.numberOfPredecessors = new int[n];
+			this.successors = new ArrayList<List<Integer>>(n);
+			this.inputTables = new ArrayList<List<ExampleTable>>(Collections.<List<ExampleTable>>nCopies(n, null));
+
+			Map<Operator, Integer> indices = new HashMap<Operator, Integer>();
+			for (int i = 0; i < n; i++) {
+				indices.put(operators.get(i), i);
+				successors.add(new ArrayList<Integer>());
+			}
+
+			// port connections
+			for (int i = 0; i < n; i++) {
+				for (OutputPort out : operators.get(i).getOutputPorts().getAllPorts()) {
+					InputPort dest = out.getDestination();
+					if (dest != null) {
+						// connections to the inner sinks of the enclosing operator are not mapped
+						Integer destIndex = indices.get(dest.getPorts().getOwner().getOperator());
+						if (destIndex != null && destIndex != i) {
+							addDependency(i, destIndex);
+						}
+					}
+				}
+			}
+
+			// barriers
+			int lastBarrier = -1;
+			for (int i = 0; i < n; i++) {
+				if (isBarrier(operators.get(i))) {
+					for (int j = lastBarrier + 1; j < i; j++) {
+						addDependency(j, i);
+					}
+					lastBarrier = i;
+				} else if (lastBarrier >= 0) {
+					addDependency(lastBarrier, i);
+				}
+			}
+
+			for (int i = 0; i < n; i++) {
+				if (numberOfPredecessors[i] == 0) {
+					ready.add(i);
+				}
+			}
+		}
+
+		private void addDependency(int from, int to) {
+			if (!successors.get(from).contains(to)) {
+				successors.get(from).add(to);
+				numberOfPredecessors[to]++;
+			}
+		}
+
+		private void run() throws OperatorException {
+			while (true) {
+				final int next;
+				synchronized (this) {
+					Integer startable = getNextStartable();
+					while (startable == null && running > 0 && !failed) {
+						try {
+							wait();
+						} catch (InterruptedException e) {
+							interrupted = true;
+							failed = true;
+						}
+						startable = getNextStartable();
+					}
+					if (failed || startable == null) {
+						break;
+					}
+					next = startable;
+					ready.remove(startable);
+					usedTables.addAll(inputTables.get(next));
+					running++;
+				}
+				Runnable task = new Runnable() {
+					@Override
+					public void run() {
+						executeOperator(next);
+					}
+				};
+				if (!ParallelExecutionService.executeIfWorkerAvailable(task)) {
+					task.run();
+				}
+			}
+
+			// wait for all running operators before reporting errors
+			synchronized (this) {
+				while (running > 0) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						// we must not return while operators of this unit are still running
+						interrupted = true;
+					}
+				}
+			}
+			for (Throwable error : errors) {
+				if (error != null) {
+					ParallelExecutionService.rethrow(error);
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+				throw new OperatorException("Execution of subprocess was interrupted.");
+			}
+		}
+
+		/** Returns the first ready operator which does not use the example table of a running operator or null. */
+		private Integer getNextStartable() {
+			for (Integer index : ready) {
+				List<ExampleTable> tables = inputTables.get(index);
+				if (tables == null) {
+					tables = new ArrayList<ExampleTable>();
+					for (InputPort port : operators.get(index).getInputPorts().getAllPorts()) {
+						collectExampleTables(port.getAnyDataOrNull(), tables);
+					}
+					inputTables.set(index, tables);
+				}
+				boolean conflict = false;
+				for (ExampleTable table : tables) {
+					if (usedTables.contains(table)) {
+						conflict = true;
+						break;
+					}
+				}
+				if (!conflict) {
+					return index;
+				}
+			}
+			return null;
+		}
+
+		private void collectExampleTables(IOObject object, List<ExampleTable> tables) {
+			if (object instanceof ExampleSet) {
+				ExampleTable table = ((ExampleSet) object).getExampleTable();
+				if (table != null) {
+					tables.add(table);
+				}
+			} else if (object instanceof IOObjectCollection) {
+				for (IOObject element : ((IOObjectCollection<?>) object).getObjects()) {
+					collectExampleTables(element, tables);
+				}
+			}
+		}
+
+		private void executeOperator(int index) {
+			Operator operator = operators.get(index);
+			Throwable error = null;
+			try {
+				operator.execute();
+				operator.freeMemory();
+			} catch (Throwable e) {
+				error = e;
+			}
+			synchronized (this) {
+				running--;
+				usedTables.removeAll(inputTables.get(index));
+				if (error != null) {
+					errors[index] = error;
+					failed = true;
+				} else {
+					for (int successor : successors.get(index)) {
+						numberOfPredecessors[successor]--;
+						if (numberOfPredecessors[successor] == 0) {
+							ready.add(successor);
+						}
+					}
+				}
+				notifyAll();
+			}
+		}
+	}
+}
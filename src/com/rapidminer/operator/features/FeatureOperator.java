@@ -26,6 +26,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -37,6 +38,7 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.set.AttributeWeightedExampleSet;
 import com.rapidminer.gui.dialog.IndividualSelector;
 import com.rapidminer.gui.dialog.StopDialog;
+import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.OperatorChain;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
@@ -44,6 +46,7 @@ import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.ValueDouble;
 import com.rapidminer.operator.ValueString;
 import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.operator.preprocessing.MaterializeDataInMemory;
 import com.rapidminer.operator.ports.InputPort;
 import com.rapidminer.operator.ports.OutputPort;
 import com.rapidminer.operator.ports.PortPairExtender;
@@ -61,6 +64,7 @@ import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.ParameterTypeFile;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.conditions.BooleanParameterCondition;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.Tools;
 
@@ -97,6 +101,15 @@ public abstract class FeatureOperator extends OperatorChain {
 
 	public static final String PARAMETER_MAXIMAL_FITNESS = "maximal_fitness";
 
+	/** The parameter name for &quot;Indicates if several individuals should be evaluated concurrently on copies of the subprocess.&quot; */
+	public static final String PARAMETER_PARALLELIZE_EVALUATION = "parallelize_evaluation";
+
+	/** The parameter name for &quot;The maximal number of individuals evaluated at the same time (0: number of threads of the process).&quot; */
+	public static final String PARAMETER_NUMBER_OF_PARALLEL_EVALUATIONS = "number_of_parallel_evaluations";
+
+	/** The parameter name for &quot;Indicates if the performance of each evaluated weight vector should be remembered and reused for identical individuals.&quot; */
+	public static final String PARAMETER_USE_FITNESS_CACHE = "use_fitness_cache";
+
 	private final InputPort exampleSetInput = getInputPorts().createPort("example set in");
 	private final OutputPort exampleSetOutput = getOutputPorts().createPort("example set out");
 	private final OutputPort attributeWeightsOutput = getOutputPorts().createPort("weights");
@@ -478,6 +491,38 @@ public abstract class FeatureOperator extends OperatorChain {
 		return subprocessPerformanceInput.getData(PerformanceVector.class);
 	}
 
+	/** Returns the data at the through ports. Must be called in the thread executing this operator
+	 *  before {@link #executeEvaluationProcessOnCopy(ExampleSet, List)} is used. */
+	public final List<IOObject> getThroughData() {
+		return throughExtender.getInputDataOrNull();
+	}
+
+	/**
+	 * Does the same as {@link #executeEvaluationProcess(ExampleSet)} but uses a copy of this operator
+	 * and might therefore be called concurrently. The copy works on materialized copies of the example
+	 * set and of the given through data, since the inner operators might write into the underlying
+	 * example tables.
+	 */
+	public final PerformanceVector executeEvaluationProcessOnCopy(ExampleSet exampleSet, List<IOObject> throughData) throws OperatorException {
+		checkForStopConcurrently();
+		FeatureOperator copy = (FeatureOperator) cloneForParallelExecution();
+
+		List<IOObject> copiedThroughData = new ArrayList<IOObject>(throughData.size());
+		for (IOObject object : throughData) {
+			if (object instanceof ExampleSet) {
+				copiedThroughData.add(MaterializeDataInMemory.materializeIndependentCopy((ExampleSet) object));
+			} else {
+				copiedThroughData.add(object == null ? null : object.copy());
+			}
+		}
+		copy.subprocessExampleOutput.deliver(MaterializeDataInMemory.materializeIndependentCopy(exampleSet));
+		copy.throughExtender.passDataThrough(copiedThroughData);
+
+		copy.runEvaluationProcess();
+
+		return copy.subprocessPerformanceInput.getData(PerformanceVector.class);
+	}
+
 	protected void runEvaluationProcess() throws OperatorException {
 		getSubprocess(0).execute();
 	}
@@ -551,10 +596,23 @@ public abstract class FeatureOperator extends OperatorChain {
 
 		types.add(new ParameterTypeFile(PARAMETER_POPULATION_CRITERIA_DATA_FILE, "The path to the file in which the criteria data of the final population should be saved.", "cri", true));
 		types.add(new ParameterTypeDouble(PARAMETER_MAXIMAL_FITNESS, "The optimization will stop if the fitness reaches the defined maximum.", 0.0d, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY));
+
+		types.add(new ParameterTypeBoolean(PARAMETER_USE_FITNESS_CACHE, "Indicates if the performance of each evaluated weight vector should be remembered and reused for identical individuals. Should not be used if the evaluation process is not deterministic.", false, true));
+		types.add(new ParameterTypeBoolean(PARAMETER_PARALLELIZE_EVALUATION, "Indicates if several individuals should be evaluated concurrently on copies of the subprocess.", false, true));
+		type = new ParameterTypeInt(PARAMETER_NUMBER_OF_PARALLEL_EVALUATIONS, "The maximal number of individuals evaluated at the same time (0: number of threads of the process).", 0, Integer.MAX_VALUE, 0, true);
+		type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_PARALLELIZE_EVALUATION, true, true));
+		types.add(type);
 		return types;
 	}
 
 	protected PopulationEvaluator getPopulationEvaluator(ExampleSet exampleSet) throws OperatorException {
-		return new SimplePopulationEvaluator(this, exampleSet);
+		int numberOfParallelEvaluations = 1;
+		if (getParameterAsBoolean(PARAMETER_PARALLELIZE_EVALUATION)) {
+			numberOfParallelEvaluations = getParameterAsInt(PARAMETER_NUMBER_OF_PARALLEL_EVALUATIONS);
+			if (numberOfParallelEvaluations <= 0) {
+				numberOfParallelEvaluations = ParallelExecutionService.getNumberOfThreads();
+			}
+		}
+		return new SimplePopulationEvaluator(this, exampleSet, numberOfParallelEvaluations, getParameterAsBoolean(PARAMETER_USE_FITNESS_CACHE));
 	}
 }
@@ -22,24 +22,51 @@
  */
 package com.rapidminer.operator.features;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.tools.ParallelExecutionService;
 
 /**
  * This is the basic population operator for feature set
  * evaluation schemes.
  * 
+ * If more than one parallel evaluation is allowed, the unevaluated individuals of a population
+ * are evaluated concurrently, each on a copy of the evaluation subprocess of the operator. If the
+ * fitness cache is used, the performance of each evaluated weight vector is remembered, so identical
+ * individuals, also of later generations, are evaluated only once.
+ * 
  * @author Sebastian Land, Ingo Mierswa
  */
 public class SimplePopulationEvaluator implements PopulationEvaluator {
 
 	private ExampleSet originalSet;
 	private FeatureOperator operator;
+
+	private int numberOfParallelEvaluations;
+
+	/** The performances of all evaluated weight vectors or null if no cache is used. */
+	private Map<WeightVector, PerformanceVector> fitnessCache;
 	
 	public SimplePopulationEvaluator(FeatureOperator operator, ExampleSet originalSet) {
+		this(operator, originalSet, 1, false);
+	}
+
+	public SimplePopulationEvaluator(FeatureOperator operator, ExampleSet originalSet, int numberOfParallelEvaluations, boolean useFitnessCache) {
 		this.originalSet = originalSet;
 		this.operator = operator;
+		this.numberOfParallelEvaluations = numberOfParallelEvaluations;
+		if (useFitnessCache) {
+			this.fitnessCache = new HashMap<WeightVector, PerformanceVector>();
+		}
 	}
 	
 	/**
@@ -48,22 +75,133 @@ public class SimplePopulationEvaluator implements PopulationEvaluator {
 	 */
 	private final void evaluate(Individual individual) throws OperatorException {
 		if (individual.getPerformance() == null) {
+			WeightVector key = null;
+			if (fitnessCache != null) {
+				key = new WeightVector(individual.getWeights());
+				PerformanceVector cached = fitnessCache.get(key);
+				if (cached != null) {
+					individual.setPerformance(copy(cached));
+					return;
+				}
+			}
 			
 			double[] weights = individual.getWeights();
 			ExampleSet clone = FeatureOperator.createCleanClone(originalSet, weights);
 						
 			PerformanceVector performanceVector = operator.executeEvaluationProcess(clone);
 			individual.setPerformance(performanceVector);
+			if (fitnessCache != null) {
+				fitnessCache.put(key, copy(performanceVector));
+			}
 		}
 	}
 
 	
 	
 	public void evaluate(Population population) throws OperatorException {
+		if (numberOfParallelEvaluations > 1) {
+			evaluateInParallel(population);
+		} else {
+			for (int i = 0; i < population.getNumberOfIndividuals(); i++) {
+				evaluate(population.get(i));
+				population.updateEvaluation();
+			}
+		}
+	}
+
+	/**
+	 * Evaluates all unevaluated individuals concurrently. Individuals with identical weights are
+	 * evaluated only once within a population if the fitness cache is used. Otherwise each individual
+	 * is evaluated separately, just like by the sequential evaluation.
+	 */
+	private void evaluateInParallel(Population population) throws OperatorException {
+		// grouping the unevaluated individuals by their weights if the fitness cache is used
+		List<WeightVector> weightVectors = new ArrayList<WeightVector>();
+		List<List<Individual>> unevaluated = new ArrayList<List<Individual>>();
+		Map<WeightVector, List<Individual>> groups = fitnessCache != null ? new HashMap<WeightVector, List<Individual>>() : null;
 		for (int i = 0; i < population.getNumberOfIndividuals(); i++) {
-			evaluate(population.get(i));
-			population.updateEvaluation();
+			Individual individual = population.get(i);
+			if (individual.getPerformance() == null) {
+				WeightVector key = new WeightVector(individual.getWeights());
+				if (fitnessCache != null) {
+					PerformanceVector cached = fitnessCache.get(key);
+					if (cached != null) {
+						individual.setPerformance(copy(cached));
+						continue;
+					}
+					List<Individual> group = groups.get(key);
+					if (group != null) {
+						group.add(individual);
+						continue;
+					}
+				}
+				List<Individual> group = new ArrayList<Individual>(1);
+				group.add(individual);
+				weightVectors.add(key);
+				unevaluated.add(group);
+				if (groups != null) {
+					groups.put(key, group);
+				}
+			}
+		}
+
+		if (!unevaluated.isEmpty()) {
+			final List<IOObject> throughData = operator.getThroughData();
+			List<Callable<PerformanceVector>> tasks = new ArrayList<Callable<PerformanceVector>>(weightVectors.size());
+			for (final WeightVector weights : weightVectors) {
+				tasks.add(new Callable<PerformanceVector>() {
+					@Override
+					public PerformanceVector call() throws OperatorException {
+						ExampleSet clone = FeatureOperator.createCleanClone(originalSet, weights.weights);
+						return operator.executeEvaluationProcessOnCopy(clone, throughData);
+					}
+				});
+			}
+			List<PerformanceVector> performances = ParallelExecutionService.invokeAll(tasks, numberOfParallelEvaluations);
+
+			for (int i = 0; i < unevaluated.size(); i++) {
+				PerformanceVector performanceVector = performances.get(i);
+				boolean first = true;
+				for (Individual individual : unevaluated.get(i)) {
+					individual.setPerformance(first ? performanceVector : copy(performanceVector));
+					first = false;
+				}
+				if (fitnessCache != null) {
+					fitnessCache.put(weightVectors.get(i), copy(performanceVector));
+				}
+			}
+		}
+		population.updateEvaluation();
+	}
+
+	private static PerformanceVector copy(PerformanceVector performanceVector) throws OperatorException {
+		try {
+			return (PerformanceVector) performanceVector.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new OperatorException("Cannot copy performance vector: " + e.getMessage(), e);
 		}
 	}
 
+	/** A copy of the weights of an individual which is used as key for the evaluated weight vectors. */
+	private static class WeightVector {
+
+		private final double[] weights;
+
+		private final int hashCode;
+
+		private WeightVector(double[] weights) {
+			this.weights = weights.clone();
+			this.hashCode = Arrays.hashCode(this.weights);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return (o instanceof WeightVector) && Arrays.equals(weights, ((WeightVector) o).weights);
+		}
+	}
 }
@@ -43,8 +43,10 @@ import java.util.logging.Logger;
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.ColumnarExampleTable;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.operator.Annotations;
 import com.rapidminer.operator.OperatorDescription;
@@ -54,7 +56,9 @@ import com.rapidminer.operator.ports.metadata.AttributeMetaData;
 import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
 import com.rapidminer.operator.ports.metadata.MetaData;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeCategory;
+import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.tools.I18N;
 import com.rapidminer.tools.LogService;
 import com.rapidminer.tools.Ontology;
@@ -76,6 +80,11 @@ import com.rapidminer.tools.jdbc.connection.ConnectionProvider;
  * fail on some systems but which enables us to retrieve the structure of the table without performing the entire query
  * itself.
  * 
+ * The result set is traversed by a forward only cursor fetching a limited number of rows at once, so the
+ * complete result does not need to be buffered by the driver. The way the values of each column are
+ * extracted is determined once from the column types, and the values might be written directly into the
+ * primitive columns of a {@link ColumnarExampleTable}.
+ * 
  * @author Simon Fischer
  * 
  */
@@ -84,12 +93,24 @@ public class DatabaseDataReader extends AbstractExampleSource implements Connect
 	/** System property to decide whether meta data should be fetched from DB for database queries. */
 	public static final String PROPERTY_EVALUATE_MD_FOR_SQL_QUERIES = "rapidminer.gui.evaluate_meta_data_for_sql_queries";
 
+	public static final String PARAMETER_COLUMN_ORIENTED = "column_oriented";
+
+	/** Indicates how the values of a column are extracted from the result set. */
+	private static final int EXTRACT_DATE = 0;
+	private static final int EXTRACT_NUMBER = 1;
+	private static final int EXTRACT_STRING = 2;
+	private static final int EXTRACT_CLOB = 3;
+	private static final int EXTRACT_NONE = 4;
+
 	public DatabaseDataReader(OperatorDescription description) {
 		super(description);
 	}
 
 	private DatabaseHandler databaseHandler;
 
+	/** Indicates if auto commit was disabled for the current connection in order to enable cursors. */
+	private boolean restoreAutoCommit = false;
+
 	@Override
 	public ExampleSet read() throws OperatorException {
 		try {
@@ -113,19 +134,46 @@ public class DatabaseDataReader extends AbstractExampleSource implements Connect
 			if (query == null) {
 				throw new UserError(this, 202, new Object[] { "query", "query_file", "table_name" });
 			}
-			return databaseHandler.executeStatement(query, true, this, getLogger());
+			int fetchSize = getParameterAsInt(DatabaseHandler.PARAMETER_FETCH_SIZE);
+			if (fetchSize > 0 && databaseHandler.getConnection().getAutoCommit()) {
+				// many drivers only fetch rows blockwise within a transaction
+				databaseHandler.getConnection().setAutoCommit(false);
+				restoreAutoCommit = true;
+			}
+			boolean executed = false;
+			try {
+				ResultSet resultSet = databaseHandler.executeStatement(query, true, this, getLogger(), fetchSize);
+				executed = true;
+				return resultSet;
+			} finally {
+				if (!executed) {
+					restoreAutoCommit();
+				}
+			}
 		} catch (SQLException sqle) {
 			throw new UserError(this, sqle, 304, sqle.getMessage());
 		}
 	}
 
+	/** Switches auto commit on again if it was switched off for fetching the result set. */
+	private void restoreAutoCommit() {
+		if (restoreAutoCommit) {
+			restoreAutoCommit = false;
+			try {
+				databaseHandler.getConnection().setAutoCommit(true);
+			} catch (SQLException e) {
+				getLogger().log(Level.WARNING, "DB error restoring auto commit: " + e, e);
+			}
+		}
+	}
+
 	@Override
 	public ExampleSet createExampleSet() throws OperatorException {
 		ResultSet resultSet = getResultSet();
-		MemoryExampleTable table;
+		ExampleTable table;
 		try {
 			List<Attribute> attributes = getAttributes(resultSet);
-			table = createExampleTable(resultSet, attributes, getParameterAsInt(ExampleSource.PARAMETER_DATAMANAGEMENT), getLogger());
+			table = createExampleTable(resultSet, attributes, getParameterAsInt(ExampleSource.PARAMETER_DATAMANAGEMENT), getParameterAsBoolean(PARAMETER_COLUMN_ORIENTED), getLogger());
 		} catch (SQLException e) {
 			throw new UserError(this, e, 304, e.getMessage());
 		} finally {
@@ -134,6 +182,7 @@ public class DatabaseDataReader extends AbstractExampleSource implements Connect
 			} catch (SQLException e) {
 				getLogger().log(Level.WARNING, "DB error closing result set: " + e, e);
 			}
+			restoreAutoCommit();
 		}
 		return table.createExampleSet();
 	}
@@ -188,77 +237,123 @@ public class DatabaseDataReader extends AbstractExampleSource implements Connect
 	}
 
 	public static MemoryExampleTable createExampleTable(ResultSet resultSet, List<Attribute> attributes, int dataManagementType, Logger logger) throws SQLException, OperatorException {
+		return (MemoryExampleTable) createExampleTable(resultSet, attributes, dataManagementType, false, logger);
+	}
+
+	/**
+	 * Reads all rows of the result set into a new example table. If columnOriented is true, the values are written
+	 * into a {@link ColumnarExampleTable} which uses float precision if the data management is one of the float
+	 * types. Otherwise a {@link MemoryExampleTable} with data rows of the given data management type is created.
+	 */
+	public static ExampleTable createExampleTable(ResultSet resultSet, List<Attribute> attributes, int dataManagementType, boolean columnOriented, Logger logger) throws SQLException, OperatorException {
 		ResultSetMetaData metaData = resultSet.getMetaData();
 		Attribute[] attributeArray = attributes.toArray(new Attribute[attributes.size()]);
-		MemoryExampleTable table = new MemoryExampleTable(attributes);
-		DataRowFactory factory = new DataRowFactory(dataManagementType, '.');
-		while (resultSet.next()) {
-			DataRow dataRow = factory.create(attributeArray.length);
-			// double[] data = new double[attributeArray.length];
-			for (int i = 1; i <= metaData.getColumnCount(); i++) {
-				Attribute attribute = attributeArray[i - 1];
-				int valueType = attribute.getValueType();
-				double value;
-				if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(valueType, Ontology.DATE_TIME)) {
-					Timestamp timestamp = resultSet.getTimestamp(i);
-					if (resultSet.wasNull()) {
-						value = Double.NaN;
-					} else {
-						value = timestamp.getTime();
-					}
-				} else if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(valueType, Ontology.NUMERICAL)) {
-					value = resultSet.getDouble(i);
-					if (resultSet.wasNull()) {
-						value = Double.NaN;
-					}
+		int numberOfColumns = metaData.getColumnCount();
+		int[] extractionTypes = new int[numberOfColumns];
+		for (int i = 0; i < numberOfColumns; i++) {
+			extractionTypes[i] = getExtractionType(attributeArray[i].getValueType(), metaData.getColumnType(i + 1));
+			if (extractionTypes[i] == EXTRACT_NONE && logger != null) {
+				logger.warning("Unknown column type: " + attributeArray[i]);
+			}
+		}
+
+		if (columnOriented) {
+			boolean floatPrecision = dataManagementType == DataRowFactory.TYPE_FLOAT_ARRAY || dataManagementType == DataRowFactory.TYPE_FLOAT_SPARSE_ARRAY;
+			ColumnarExampleTable table = new ColumnarExampleTable(attributes, 0, floatPrecision);
+			int[] tableIndices = new int[numberOfColumns];
+			for (int i = 0; i < numberOfColumns; i++) {
+				tableIndices[i] = attributeArray[i].getTableIndex();
+			}
+			while (resultSet.next()) {
+				int row = table.addEmptyRow();
+				for (int i = 0; i < numberOfColumns; i++) {
+					table.setValue(row, tableIndices[i], getValue(resultSet, i + 1, extractionTypes[i], attributeArray[i]));
+				}
+			}
+			table.trim();
+			return table;
+		} else {
+			MemoryExampleTable table = new MemoryExampleTable(attributes);
+			DataRowFactory factory = new DataRowFactory(dataManagementType, '.');
+			while (resultSet.next()) {
+				DataRow dataRow = factory.create(attributeArray.length);
+				for (int i = 0; i < numberOfColumns; i++) {
+					dataRow.set(attributeArray[i], getValue(resultSet, i + 1, extractionTypes[i], attributeArray[i]));
+				}
+				table.addDataRow(dataRow);
+			}
+			return table;
+		}
+	}
+
+	/** Returns how the values of a column with the given value type and SQL type are extracted. */
+	private static int getExtractionType(int valueType, int sqlType) {
+		if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(valueType, Ontology.DATE_TIME)) {
+			return EXTRACT_DATE;
+		} else if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(valueType, Ontology.NUMERICAL)) {
+			return EXTRACT_NUMBER;
+		} else if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(valueType, Ontology.NOMINAL)) {
+			return sqlType == Types.CLOB ? EXTRACT_CLOB : EXTRACT_STRING;
+		} else {
+			return EXTRACT_NONE;
+		}
+	}
+
+	/** Returns the value of the given column of the current row. Nominal values are mapped by the attribute. */
+	private static double getValue(ResultSet resultSet, int column, int extractionType, Attribute attribute) throws SQLException, OperatorException {
+		switch (extractionType) {
+			case EXTRACT_DATE:
+				Timestamp timestamp = resultSet.getTimestamp(column);
+				if (resultSet.wasNull()) {
+					return Double.NaN;
 				} else {
-					if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(valueType, Ontology.NOMINAL)) {
-						String valueString;
-						if (metaData.getColumnType(i) == Types.CLOB) {
-							Clob clob = resultSet.getClob(i);
-							if (clob != null) {
-								BufferedReader in = null;
-								try {
-									in = new BufferedReader(clob.getCharacterStream());
-									String line = null;
-									try {
-										StringBuffer buffer = new StringBuffer();
-										while ((line = in.readLine()) != null) {
-											buffer.append(line + "\n");
-										}
-										valueString = buffer.toString();
-									} catch (IOException e) {
-										throw new OperatorException("Database error occurred: " + e, e);
-									}
-								} finally {
-									try {
-										in.close();
-									} catch (IOException e) {}
-								}
-							} else {
-								valueString = null;
-							}
-						} else {
-							valueString = resultSet.getString(i);
-						}
-						if (resultSet.wasNull() || valueString == null) {
-							value = Double.NaN;
-						} else {
-							value = attribute.getMapping().mapString(valueString);
-						}
-					} else {
-						if (logger != null) {
-							logger.warning("Unknown column type: " + attribute);
-						}
-						value = Double.NaN;
-					}
+					return timestamp.getTime();
+				}
+			case EXTRACT_NUMBER:
+				double value = resultSet.getDouble(column);
+				if (resultSet.wasNull()) {
+					return Double.NaN;
+				} else {
+					return value;
+				}
+			case EXTRACT_STRING:
+				String valueString = resultSet.getString(column);
+				if (resultSet.wasNull() || valueString == null) {
+					return Double.NaN;
+				} else {
+					return attribute.getMapping().mapString(valueString);
 				}
-				dataRow.set(attribute, value);
-				// data[i-1] = value;
+			case EXTRACT_CLOB:
+				Clob clob = resultSet.getClob(column);
+				if (resultSet.wasNull() || clob == null) {
+					return Double.NaN;
+				} else {
+					return attribute.getMapping().mapString(readClob(clob));
+				}
+			default:
+				return Double.NaN;
+		}
+	}
+
+	private static String readClob(Clob clob) throws SQLException, OperatorException {
+		BufferedReader in = null;
+		try {
+			in = new BufferedReader(clob.getCharacterStream());
+			String line = null;
+			StringBuffer buffer = new StringBuffer();
+			while ((line = in.readLine()) != null) {
+				buffer.append(line + "\n");
+			}
+			return buffer.toString();
+		} catch (IOException e) {
+			throw new OperatorException("Database error occurred: " + e, e);
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {}
 			}
-			table.addDataRow(dataRow); // new DoubleArrayDataRow(data));
 		}
-		return table;
 	}
 
 	public static List<Attribute> getAttributes(ResultSet resultSet) throws SQLException {
@@ -375,6 +470,8 @@ public class DatabaseDataReader extends AbstractExampleSource implements Connect
 		list.addAll(DatabaseHandler.getStatementPreparationParamterTypes(this));
 
 		list.add(new ParameterTypeCategory(ExampleSource.PARAMETER_DATAMANAGEMENT, "Determines, how the data is represented internally.", DataRowFactory.TYPE_NAMES, DataRowFactory.TYPE_DOUBLE_ARRAY, false));
+		list.add(new ParameterTypeBoolean(PARAMETER_COLUMN_ORIENTED, "Indicates if the data should be stored column-wise in one primitive array per attribute. Numerical columns use float precision if the data management is float_array.", false, true));
+		list.add(new ParameterTypeInt(DatabaseHandler.PARAMETER_FETCH_SIZE, "The number of rows which are fetched from the database at once. If 0, the default of the JDBC driver is used, which might buffer the complete result.", 0, Integer.MAX_VALUE, DatabaseHandler.DEFAULT_FETCH_SIZE, true));
 		return list;
 	}
 
@@ -23,9 +23,12 @@
 package com.rapidminer.operator.io;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.Tools;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.UserError;
@@ -35,7 +38,9 @@ import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.ParameterTypeString;
 import com.rapidminer.parameter.conditions.BooleanParameterCondition;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.jdbc.DatabaseHandler;
+import com.rapidminer.tools.jdbc.TableName;
 import com.rapidminer.tools.jdbc.connection.ConnectionEntry;
 import com.rapidminer.tools.jdbc.connection.ConnectionProvider;
 
@@ -61,6 +66,12 @@ import com.rapidminer.tools.jdbc.connection.ConnectionProvider;
  * filter before applying this operator.
  * </p>
  * 
+ * <p>
+ * For large example sets, several rows might be inserted by a single statement if the database
+ * supports this, and the examples might be split into partitions which are written concurrently
+ * through several connections. In the latter case, each connection commits its own transactions.
+ * </p>
+ * 
  * @author Ingo Mierswa, Tobias Malbrecht
  */
 public class DatabaseExampleSetWriter extends AbstractExampleSetWriter implements ConnectionProvider {
@@ -92,6 +103,15 @@ public class DatabaseExampleSetWriter extends AbstractExampleSetWriter implement
 
 	public static final String PARAMETER_BATCH_SIZE = "batch_size";
 
+	public static final String PARAMETER_COMMIT_INTERVAL = "commit_interval";
+
+	public static final String PARAMETER_USE_MULTI_ROW_INSERTS = "use_multi_row_inserts";
+
+	public static final String PARAMETER_PARALLELIZE_WRITING = "parallelize_writing";
+
+	/** The minimal number of examples written by each connection if writing is parallelized. */
+	private static final int MINIMAL_BLOCK_SIZE = 10000;
+
 	public DatabaseExampleSetWriter(OperatorDescription description) {
 		super(description);
 	}
@@ -105,13 +125,21 @@ public class DatabaseExampleSetWriter extends AbstractExampleSetWriter implement
 				exampleSet  = (ExampleSet)exampleSet.clone();
 			}
 			try {
-				databaseHandler.createTable(exampleSet, DatabaseHandler.getSelectedTableName(this),
-						getParameterAsInt(PARAMETER_OVERWRITE_MODE), getApplyCount() == 1,
-						getParameterAsBoolean(PARAMETER_SET_DEFAULT_VARCHAR_LENGTH) ? getParameterAsInt(PARAMETER_DEFAULT_VARCHAR_LENGTH) : -1,
-						getParameterAsBoolean(PARAMETER_GET_GENERATED_PRIMARY_KEYS),
-						getParameterAsString(PARAMETER_GENERATED_KEYS_ATTRIBUTE_NAME),
-						getParameterAsInt(PARAMETER_BATCH_SIZE),
-						this);
+				if (getParameterAsBoolean(PARAMETER_GET_GENERATED_PRIMARY_KEYS)) {
+					databaseHandler.createTable(exampleSet, DatabaseHandler.getSelectedTableName(this),
+							getParameterAsInt(PARAMETER_OVERWRITE_MODE), getApplyCount() == 1,
+							getParameterAsBoolean(PARAMETER_SET_DEFAULT_VARCHAR_LENGTH) ? getParameterAsInt(PARAMETER_DEFAULT_VARCHAR_LENGTH) : -1,
+							true,
+							getParameterAsString(PARAMETER_GENERATED_KEYS_ATTRIBUTE_NAME),
+							getParameterAsInt(PARAMETER_BATCH_SIZE),
+							this);
+				} else {
+					TableName tableName = DatabaseHandler.getSelectedTableName(this);
+					databaseHandler.prepareTable(exampleSet, tableName,
+							getParameterAsInt(PARAMETER_OVERWRITE_MODE), getApplyCount() == 1,
+							getParameterAsBoolean(PARAMETER_SET_DEFAULT_VARCHAR_LENGTH) ? getParameterAsInt(PARAMETER_DEFAULT_VARCHAR_LENGTH) : -1);
+					insertExamples(databaseHandler, exampleSet, tableName);
+				}
 			} finally  {
 				databaseHandler.disconnect();
 			}
@@ -121,6 +149,64 @@ public class DatabaseExampleSetWriter extends AbstractExampleSetWriter implement
 		return exampleSet;
 	}
 
+	/**
+	 * Inserts the examples into the prepared table. If writing is parallelized, the example set is split into
+	 * consecutive partitions, each of which is written through an additional connection.
+	 */
+	private void insertExamples(DatabaseHandler databaseHandler, final ExampleSet exampleSet, final TableName tableName) throws OperatorException, SQLException {
+		final int batchSize = getParameterAsInt(PARAMETER_BATCH_SIZE);
+		final int commitInterval = getParameterAsInt(PARAMETER_COMMIT_INTERVAL);
+		int rowsPerStatement = 1;
+		if (getParameterAsBoolean(PARAMETER_USE_MULTI_ROW_INSERTS)) {
+			rowsPerStatement = Math.min(batchSize, databaseHandler.getStatementCreator().getMaximumRowsPerInsert(exampleSet.getAttributes().allSize()));
+		}
+		int numberOfBlocks = 1;
+		if (getParameterAsBoolean(PARAMETER_PARALLELIZE_WRITING) && Tools.isConcurrentlyReadable(exampleSet)) {
+			numberOfBlocks = ParallelExecutionService.getNumberOfBlocks(exampleSet.size(), MINIMAL_BLOCK_SIZE);
+		}
+		if (numberOfBlocks == 1) {
+			databaseHandler.insertExamples(exampleSet, 0, exampleSet.size(), tableName, batchSize, rowsPerStatement, commitInterval, this);
+			return;
+		}
+
+		int[] boundaries = ParallelExecutionService.getBlockBoundaries(exampleSet.size(), numberOfBlocks);
+		List<DatabaseHandler> handlers = new ArrayList<DatabaseHandler>(boundaries.length - 1);
+		try {
+			// the connections are opened here since the parameters must not be read by the worker threads
+			for (int i = 0; i < boundaries.length - 1; i++) {
+				handlers.add(DatabaseHandler.getConnectedDatabaseHandler(this));
+			}
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(handlers.size());
+			for (int i = 0; i < handlers.size(); i++) {
+				final DatabaseHandler handler = handlers.get(i);
+				final int start = boundaries[i];
+				final int end = boundaries[i + 1];
+				final int statementRows = rowsPerStatement;
+				tasks.add(new Callable<Void>() {
+
+					@Override
+					public Void call() throws OperatorException {
+						try {
+							handler.insertExamples(exampleSet, start, end, tableName, batchSize, statementRows, commitInterval, DatabaseExampleSetWriter.this);
+						} catch (SQLException e) {
+							throw new UserError(DatabaseExampleSetWriter.this, e, 304, e.getMessage());
+						}
+						return null;
+					}
+				});
+			}
+			ParallelExecutionService.invokeAll(tasks);
+		} finally {
+			for (DatabaseHandler handler : handlers) {
+				try {
+					handler.disconnect();
+				} catch (SQLException e) {
+					getLogger().warning("Error closing database connection: " + e);
+				}
+			}
+		}
+	}
+
 	@Override
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
@@ -150,6 +236,19 @@ public class DatabaseExampleSetWriter extends AbstractExampleSetWriter implement
 				1, Integer.MAX_VALUE, 1, true);
 		type.setExpert(true);
 		types.add(type);
+
+		type = new ParameterTypeInt(PARAMETER_COMMIT_INTERVAL, "The number of examples after which the transaction is committed. If 0, all examples are committed at once in the end.",
+				0, Integer.MAX_VALUE, 0, true);
+		type.setExpert(true);
+		types.add(type);
+
+		type = new ParameterTypeBoolean(PARAMETER_USE_MULTI_ROW_INSERTS, "Indicates if up to batch_size examples are inserted by a single statement listing the values of several rows. Only used if the database is known to support this syntax and no generated primary keys are requested.", false);
+		type.setExpert(true);
+		types.add(type);
+
+		type = new ParameterTypeBoolean(PARAMETER_PARALLELIZE_WRITING, "Indicates if partitions of the example set should be written concurrently through several connections. Each connection commits its own transactions, so a failure might leave a partially written table. Not used if generated primary keys are requested.", false);
+		type.setExpert(true);
+		types.add(type);
 		return types;
 	}
 
@@ -0,0 +1,242 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.learner.associations.fpgrowth;
+
+import java.util.Arrays;
+
+/**
+ * An FPTree whose nodes are stored in primitive arrays instead of node objects. Items are
+ * identified by their index in the order of decreasing frequency, which is the order in which
+ * the items of a transaction must be added. The nodes of each item are linked so that
+ * conditional trees can be derived from their prefix paths. Conditional trees number their
+ * items consecutively, {@link #getItem(int)} returns the index of an item in the original tree.
+ * After construction the tree is only read and hence might be mined by several threads.
+ * 
+ * @author agent
+ */
+public class CompactFPTree {
+
+	private static final int ROOT = 0;
+
+	private static final int NONE = -1;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private int size = 1;
+
+	private int[] parents;
+
+	private int[] nodeItems;
+
+	private int[] frequencies;
+
+	/** The next node of the same item. */
+	private int[] siblings;
+
+	/** The first node of each item. */
+	private final int[] firstNodes;
+
+	private final int[] supports;
+
+	/** The items of the original tree or null if this is the original tree. */
+	private final int[] originalItems;
+
+	/** Open addressing table mapping (parent, item) to the child node. Only used during construction. */
+	private long[] childKeys;
+
+	private int[] childNodes;
+
+	public CompactFPTree(int numberOfItems) {
+		this(numberOfItems, null, INITIAL_CAPACITY);
+	}
+
+	private CompactFPTree(int numberOfItems, int[] originalItems, int expectedSize) {
+		this.originalItems = originalItems;
+		int capacity = Math.max(2, expectedSize);
+		parents = new int[capacity];
+		nodeItems = new int[capacity];
+		frequencies = new int[capacity];
+		siblings = new int[capacity];
+		firstNodes = new int[numberOfItems];
+		Arrays.fill(firstNodes, NONE);
+		supports = new int[numberOfItems];
+		childKeys = new long[Integer.highestOneBit(capacity) * 4];
+		Arrays.fill(childKeys, NONE);
+		childNodes = new int[childKeys.length];
+	}
+
+	/**
+	 * Adds the first length items of the given set with the given weight. The items must be
+	 * sorted in ascending order.
+	 */
+	public void addItemSet(int[] itemSet, int length, int weight) {
+		int node = ROOT;
+		for (int i = 0; i < length; i++) {
+			int item = itemSet[i];
+			node = getOrCreateChild(node, item);
+			frequencies[node] += weight;
+			supports[item] += weight;
+		}
+	}
+
+	/** Releases the memory only needed for adding item sets. No item sets may be added afterwards. */
+	public void finishConstruction() {
+		childKeys = null;
+		childNodes = null;
+	}
+
+	/** Returns the number of items of this tree. */
+	public int getNumberOfItems() {
+		return supports.length;
+	}
+
+	/** Returns the index of the given item in the original tree. */
+	public int getItem(int item) {
+		return originalItems == null ? item : originalItems[item];
+	}
+
+	/** Returns the total frequency of the given item. */
+	public int getSupport(int item) {
+		return supports[item];
+	}
+
+	/** Returns true if no item set with at least one item was added. */
+	public boolean isEmpty() {
+		return size == 1;
+	}
+
+	/** Returns the number of nodes without the root. */
+	public int getNumberOfNodes() {
+		return size - 1;
+	}
+
+	/**
+	 * Builds the tree of the prefix paths of all nodes of the given item, weighted with the
+	 * frequencies of these nodes. Items whose support in these paths is lower than minSupport
+	 * are omitted.
+	 */
+	public CompactFPTree createConditionalTree(int item, int minSupport) {
+		// prefix paths only contain items preceding the given one
+		int[] pathSupports = new int[item];
+		int pathNodes = 0;
+		for (int node = firstNodes[item]; node != NONE; node = siblings[node]) {
+			int frequency = frequencies[node];
+			for (int ancestor = parents[node]; ancestor != ROOT; ancestor = parents[ancestor]) {
+				pathSupports[nodeItems[ancestor]] += frequency;
+				pathNodes++;
+			}
+		}
+
+		// renumbering the remaining items in the same order
+		int[] conditionalItems = new int[item];
+		int numberOfConditionalItems = 0;
+		for (int i = 0; i < item; i++) {
+			if (pathSupports[i] >= minSupport && pathSupports[i] > 0) {
+				pathSupports[i] = numberOfConditionalItems;
+				conditionalItems[numberOfConditionalItems++] = getItem(i);
+			} else {
+				pathSupports[i] = NONE;
+			}
+		}
+		int[] conditionalIndices = pathSupports;
+
+		CompactFPTree conditionalTree = new CompactFPTree(numberOfConditionalItems, Arrays.copyOf(conditionalItems, numberOfConditionalItems), Math.min(pathNodes + 1, INITIAL_CAPACITY));
+		int[] path = conditionalItems;
+		for (int node = firstNodes[item]; node != NONE; node = siblings[node]) {
+			int length = 0;
+			for (int ancestor = parents[node]; ancestor != ROOT; ancestor = parents[ancestor]) {
+				int conditionalIndex = conditionalIndices[nodeItems[ancestor]];
+				if (conditionalIndex != NONE) {
+					path[length++] = conditionalIndex;
+				}
+			}
+			if (length > 0) {
+				// ancestors were collected in descending order
+				for (int i = 0, j = length - 1; i < j; i++, j--) {
+					int dummy = path[i];
+					path[i] = path[j];
+					path[j] = dummy;
+				}
+				conditionalTree.addItemSet(path, length, frequencies[node]);
+			}
+		}
+		conditionalTree.finishConstruction();
+		return conditionalTree;
+	}
+
+	private int getOrCreateChild(int parent, int item) {
+		long key = ((long) parent << 32) | item;
+		int mask = childKeys.length - 1;
+		int position = hash(key) & mask;
+		while (childKeys[position] != NONE) {
+			if (childKeys[position] == key) {
+				return childNodes[position];
+			}
+			position = (position + 1) & mask;
+		}
+
+		int node = size++;
+		if (node == parents.length) {
+			int capacity = parents.length * 2;
+			parents = Arrays.copyOf(parents, capacity);
+			nodeItems = Arrays.copyOf(nodeItems, capacity);
+			frequencies = Arrays.copyOf(frequencies, capacity);
+			siblings = Arrays.copyOf(siblings, capacity);
+		}
+		parents[node] = parent;
+		nodeItems[node] = item;
+		siblings[node] = firstNodes[item];
+		firstNodes[item] = node;
+
+		childKeys[position] = key;
+		childNodes[position] = node;
+		if (size * 2 > childKeys.length) {
+			growChildTable();
+		}
+		return node;
+	}
+
+	private void growChildTable() {
+		long[] oldKeys = childKeys;
+		int[] oldNodes = childNodes;
+		childKeys = new long[oldKeys.length * 2];
+		Arrays.fill(childKeys, NONE);
+		childNodes = new int[childKeys.length];
+		int mask = childKeys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != NONE) {
+				int position = hash(oldKeys[i]) & mask;
+				while (childKeys[position] != NONE) {
+					position = (position + 1) & mask;
+				}
+				childKeys[position] = oldKeys[i];
+				childNodes[position] = oldNodes[i];
+			}
+		}
+	}
+
+	private static int hash(long key) {
+		key *= 0x9E3779B97F4A7C15L;
+		return (int) (key ^ (key >>> 32));
+	}
+}
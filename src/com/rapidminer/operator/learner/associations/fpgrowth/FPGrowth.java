@@ -23,14 +23,15 @@
 package com.rapidminer.operator.learner.associations.fpgrowth;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.regex.Matcher;
+import java.util.concurrent.Callable;
 import java.util.regex.Pattern;
 
 import com.rapidminer.example.Attribute;
@@ -57,6 +58,7 @@ import com.rapidminer.parameter.ParameterTypeString;
 import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.parameter.conditions.BooleanParameterCondition;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
 
 /**
  * <p>
@@ -187,91 +189,29 @@ public class FPGrowth extends Operator {
 
 			// map attributes to items
 			Map<Attribute, Item> itemMapping = getAttributeMapping(workingSet);
+			Item[] items = new Item[attributes.length];
+			for (i = 0; i < attributes.length; i++) {
+				items[i] = itemMapping.get(attributes[i]);
+			}
 			// computing frequency of 1-Item Sets
-			getItemFrequency(workingSet, attributes, positiveIndices, itemMapping);
+			getItemFrequency(workingSet, attributes, positiveIndices, items);
 			// eliminating non frequent items
 			removeNonFrequentItems(itemMapping, currentMinTotalSupport, workingSet);
 
-			// generating FP Tree
-			FPTree tree = getFPTree(workingSet, attributes, positiveIndices, itemMapping);
-
-			// mine tree
-			sets = new FrequentItemSets(workingSet.size());
+			// determining mandatory items
+			boolean[] mandatory = new boolean[attributes.length];
 			String mustContainItems = getParameterAsString(PARAMETER_MUST_CONTAIN);
-			if (mustContainItems == null || mustContainItems.isEmpty()) {
-				mineTree(tree, sets, 0, currentMinTotalSupport, maxItems);
-			} else {
-				FrequentItemSet conditionalItems = new FrequentItemSet();
+			if (mustContainItems != null && !mustContainItems.isEmpty()) {
 				Pattern pattern = Pattern.compile(mustContainItems);
-				Map<Item, Header> headerTable = tree.getHeaderTable();
-				int depth = 0;
-				boolean supportOfMandatoryItemsTooLow = false;
-				for (Entry<Attribute, Item> attributeEntry : itemMapping.entrySet()) {
-					Matcher matcher = pattern.matcher(attributeEntry.getKey().getName());
-					Item targetItem = attributeEntry.getValue();
-
-					Header targetItemHeader = headerTable.get(targetItem);
-					int itemFrequency = 0;
-					if (targetItemHeader != null) {
-						itemFrequency = targetItemHeader.getFrequencies().getFrequency(depth);
-					}
-
-					if (matcher.matches()) {
-						if (itemFrequency >= currentMinTotalSupport) {
-							// building conditional items
-							// run over sibling chain
-							for (FPTreeNode node : targetItemHeader.getSiblingChain()) {
-								// and propagate frequency to root
-								int frequency = node.getFrequency(depth);
-								// if frequency is positive
-								if (frequency > 0) {
-									FPTreeNode currentNode = node.getFather();
-									while (currentNode != tree) {
-										// increase node frequency
-										currentNode.increaseFrequency(depth + 1, frequency);
-										// increase item frequency in
-										// headerTable
-										headerTable.get(currentNode.getNodeItem()).getFrequencies().increaseFrequency(depth + 1, frequency);
-										// go up in tree
-										currentNode = currentNode.getFather();
-									}
-
-									// also descend into subpaths and increase
-									// frequencies (see function comment)
-									recursivelyIncreaseFrequencyOfNextDepth(headerTable, node, depth);
-								}
-							}
-							// add item to conditional items
-							int itemSupport = targetItemHeader.getFrequencies().getFrequency(depth);
-							conditionalItems.addItem(targetItem, itemSupport);
-
-							depth++;
-						} else {
-							// at least one of the mandatory items does not have sufficient support -> break and return empty itemset list.
-							supportOfMandatoryItemsTooLow = true;
-							break;
-						}
-					}
-				}
-				
-				// don't do anything if the mandatory items have too low support
-				if (!supportOfMandatoryItemsTooLow) {
-					if (!conditionalItems.getItems().isEmpty()) {
-						if (conditionalItems.getFrequency() >= currentMinTotalSupport) {
-							// add this conditional items to frequentSets
-							sets.addFrequentSet(conditionalItems);
-						} else {
-							supportOfMandatoryItemsTooLow = true;
-						}
-					}
-				}
-				
-				// only mine tree if the mandatory attributes have sufficient support
-				if (!supportOfMandatoryItemsTooLow) {
-					mineTree(tree, sets, depth, conditionalItems, currentMinTotalSupport, maxItems);
+				for (i = 0; i < attributes.length; i++) {
+					mandatory[i] = pattern.matcher(attributes[i].getName()).matches();
 				}
 			}
 
+			// generating FP Tree and mining it
+			sets = new FrequentItemSets(workingSet.size());
+			mineFrequentItemSets(workingSet, attributes, positiveIndices, items, mandatory, sets, currentMinTotalSupport, maxItems);
+
 			currentSupport *= 0.9;
 			retryCount++;
 		}
@@ -280,40 +220,6 @@ public class FPGrowth extends Operator {
 		frequentSetsOutput.deliver(sets);
 	}
 
-	/**
-	 * Recursivly increases the frequencies of the next recursion level for
-	 * <code>startingNode</code> and all its descendants.
-	 * 
-	 * This is necessary for the constrained search of frequent item sets, where
-	 * only some branches of the fptree are mined, e.g. when searching for
-	 * itemsets which must contain a user-defined set of items.
-	 * 
-	 * Usually, the subtrees are reached via the sibling link of the header
-	 * items when mining the other branches of the tree. When they are filtered
-	 * away, this has to be done explicitly when adding matching items.
-	 * 
-	 * For more information see: Mining Frequent Patterns without Candidate
-	 * Generation: A Frequent-Pattern Tree Approach by Han, Pei, Yin and Mao
-	 * 2001.
-	 * 
-	 * For the note on constrained sets, see section 6.2.1: FP-tree mining with
-	 * constraints.
-	 * 
-	 * @param tree
-	 * @param startingNode
-	 * @param currentDepth
-	 */
-	private void recursivelyIncreaseFrequencyOfNextDepth(Map<Item, Header> headerTable, FPTreeNode startingNode, int currentDepth) {
-		int frequency = startingNode.getFrequency(currentDepth);
-		if (frequency > 0) {
-			startingNode.increaseFrequency(currentDepth + 1, frequency);
-			headerTable.get(startingNode.getNodeItem()).getFrequencies().increaseFrequency(currentDepth + 1, frequency);
-			for (FPTreeNode childNode : startingNode.getChildren().values()) {
-				recursivelyIncreaseFrequencyOfNextDepth(headerTable, childNode, currentDepth);
-			}
-		}
-	}
-
 	private ExampleSet preprocessExampleSet(ExampleSet exampleSet) {
 		// precomputing data properties
 		ExampleSet workingSet = (ExampleSet) exampleSet.clone();
@@ -336,74 +242,6 @@ public class FPGrowth extends Operator {
 		return workingSet;
 	}
 
-	private void mineTree(FPTree tree, FrequentItemSets sets, int recursionDepth, int minTotalSupport, int maxItems) throws ProcessStoppedException {
-		mineTree(tree, sets, recursionDepth, new FrequentItemSet(), minTotalSupport, maxItems);
-	}
-
-	private void mineTree(FPTree tree, FrequentItemSets sets, int recursionDepth, FrequentItemSet conditionalItems, int minTotalSupport, int maxItems)
-			throws ProcessStoppedException {
-		checkForStop();
-		if (!(treeIsEmpty(tree, recursionDepth))) {
-			if (maxItems > 0) {
-				if (recursionDepth >= maxItems) {
-					return;
-				}
-			}
-			// recursively mine tree
-			Map<Item, Header> headerTable = tree.getHeaderTable();
-			Iterator<Map.Entry<Item, Header>> headerIterator = headerTable.entrySet().iterator();
-			while (headerIterator.hasNext()) {
-				Map.Entry<Item, Header> headerEntry = headerIterator.next();
-				Item item = headerEntry.getKey();
-				Header itemHeader = headerEntry.getValue();
-				// check for minSupport
-				int itemSupport = itemHeader.getFrequencies().getFrequency(recursionDepth);
-				if (itemSupport >= minTotalSupport && !conditionalItems.getItems().contains(item)) {
-					// run over sibling chain
-					for (FPTreeNode node : itemHeader.getSiblingChain()) {
-						// and propagate frequency to root
-						int frequency = node.getFrequency(recursionDepth);
-						// if frequency is positive
-						if (frequency > 0) {
-							FPTreeNode currentNode = node.getFather();
-							while (currentNode != tree) {
-								// increase node frequency
-								currentNode.increaseFrequency(recursionDepth + 1, frequency);
-								// increase item frequency in headerTable
-								headerTable.get(currentNode.getNodeItem()).getFrequencies().increaseFrequency(recursionDepth + 1, frequency);
-								// go up in tree
-								currentNode = currentNode.getFather();
-							}
-						}
-					}
-					FrequentItemSet recursivConditionalItems = (FrequentItemSet) conditionalItems.clone();
-					// add item to conditional items
-					recursivConditionalItems.addItem(item, itemSupport);
-					// add this conditional items to frequentSets
-					sets.addFrequentSet(recursivConditionalItems);
-					// recursively mine new tree
-					mineTree(tree, sets, recursionDepth + 1, recursivConditionalItems, minTotalSupport, maxItems);
-					// run over sibling chain for popping frequency stack
-					for (FPTreeNode node : itemHeader.getSiblingChain()) {
-						// and remove propagation of frequency
-						FPTreeNode currentNode = node.getFather();
-						while (currentNode != tree) {
-							// pop frequency
-							currentNode.popFrequency(recursionDepth + 1);
-							// go up in tree
-							currentNode = currentNode.getFather();
-						}
-					}
-					// pop frequencies of every header table on current
-					// recursion depth
-					for (Header currentItemHeader : headerTable.values()) {
-						currentItemHeader.getFrequencies().popFrequency(recursionDepth + 1);
-					}
-				}
-			}
-		}
-	}
-
 	/**
 	 * Removes every non boolean attribute.
 	 * 
@@ -444,20 +282,18 @@ public class FPGrowth extends Operator {
 	 * 
 	 * @param exampleSet
 	 *            the exampleSet to be scaned
-	 * @param mapping
-	 *            the mapping of attributes to items
+	 * @param items
+	 *            the items of the attributes
 	 */
-	private void getItemFrequency(ExampleSet exampleSet, Attribute[] attributes, double[] positiveIndices, Map<Attribute, Item> mapping) {
+	private void getItemFrequency(ExampleSet exampleSet, Attribute[] attributes, double[] positiveIndices, Item[] items) {
 		// iterate over exampleSet, counting item frequency
 		for (Example currentExample : exampleSet) {
-			int i = 0;
-			for (Attribute attribute : attributes) {
+			for (int i = 0; i < attributes.length; i++) {
 				// if attribute is boolean and if attribute is the positive one
 				// --> increase frequency of item
-				if (currentExample.getValue(attribute) == positiveIndices[i]) {
-					mapping.get(attribute).increaseFrequency();
+				if (currentExample.getValue(attributes[i]) == positiveIndices[i]) {
+					items[i].increaseFrequency();
 				}
-				i++;
 			}
 		}
 	}
@@ -477,39 +313,213 @@ public class FPGrowth extends Operator {
 	}
 
 	/**
-	 * Returns a new FPTree, representing the complete ExampleSet.
-	 * 
-	 * @param exampleSet
-	 *            is the exampleSet, which shall be represented
-	 * @param mapping
-	 *            is the mapping of attributes of the exampleSet to items
+	 * Builds a {@link CompactFPTree} of the transactions and adds all frequent item sets mined from
+	 * it to the given sets. If mandatory items are given, the tree only contains the transactions
+	 * containing all of them and only item sets containing these items are delivered. The
+	 * conditional trees of the items on the first level are mined concurrently. The item sets are
+	 * added in the same order as they were delivered by mining the object based {@link FPTree}.
 	 */
-	private FPTree getFPTree(ExampleSet exampleSet, Attribute[] attributes, double[] positiveIndices, Map<Attribute, Item> mapping) {
-		FPTree tree = new FPTree();
-		for (Example currentExample : exampleSet) {
-			List<Item> itemSet = new ArrayList<Item>();
-			int i = 0;
-			for (Attribute currentAttribute : attributes) {
-				if (currentExample.getValue(currentAttribute) == positiveIndices[i]) {
-					itemSet.add(mapping.get(currentAttribute));
+	private void mineFrequentItemSets(ExampleSet exampleSet, Attribute[] attributes, double[] positiveIndices, final Item[] items, boolean[] mandatory, FrequentItemSets sets,
+			final int minTotalSupport, final int maxItems) throws OperatorException {
+		// ordering the occurring items by decreasing frequency
+		List<Integer> occurringAttributes = new ArrayList<Integer>();
+		for (int i = 0; i < items.length; i++) {
+			if (items[i].getFrequency() > 0) {
+				occurringAttributes.add(i);
+			}
+		}
+		Collections.sort(occurringAttributes, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer attribute1, Integer attribute2) {
+				return items[attribute1].compareTo(items[attribute2]);
+			}
+		});
+		final int numberOfItems = occurringAttributes.size();
+		final Item[] sortedItems = new Item[numberOfItems];
+		int[] itemOfAttribute = new int[attributes.length];
+		for (int item = 0; item < numberOfItems; item++) {
+			sortedItems[item] = items[occurringAttributes.get(item)];
+			itemOfAttribute[occurringAttributes.get(item)] = item;
+		}
+		// frequent items are the first ones
+		int numberOfFrequentItems = 0;
+		while (numberOfFrequentItems < numberOfItems && sortedItems[numberOfFrequentItems].getFrequency() >= minTotalSupport) {
+			numberOfFrequentItems++;
+		}
+		int numberOfMandatoryItems = 0;
+		for (boolean isMandatory : mandatory) {
+			if (isMandatory) {
+				numberOfMandatoryItems++;
+			}
+		}
+
+		// building tree of frequent items, mandatory items are only used for selecting transactions
+		CompactFPTree tree = new CompactFPTree(numberOfFrequentItems);
+		final int[] firstTransaction = new int[numberOfItems];
+		Arrays.fill(firstTransaction, -1);
+		int[] transaction = new int[numberOfItems];
+		int transactionIndex = 0;
+		int mandatorySupport = 0;
+		for (Example example : exampleSet) {
+			int length = 0;
+			int containedMandatoryItems = 0;
+			for (int i = 0; i < attributes.length; i++) {
+				if (example.getValue(attributes[i]) == positiveIndices[i]) {
+					int item = itemOfAttribute[i];
+					if (firstTransaction[item] < 0) {
+						firstTransaction[item] = transactionIndex;
+					}
+					if (mandatory[i]) {
+						containedMandatoryItems++;
+					} else if (item < numberOfFrequentItems) {
+						transaction[length++] = item;
+					}
 				}
-				i++;
 			}
-			Collections.sort(itemSet);
-			tree.addItemSet(itemSet, 1);
+			if (containedMandatoryItems == numberOfMandatoryItems) {
+				mandatorySupport++;
+				Arrays.sort(transaction, 0, length);
+				tree.addItemSet(transaction, length, 1);
+			}
+			transactionIndex++;
+		}
+		tree.finishConstruction();
+		checkForStop();
+
+		// the object based tree mined the items in the order of its header table, a hash map into
+		// which the items were inserted when they occurred the first time
+		Integer[] insertionOrder = new Integer[numberOfItems];
+		for (int item = 0; item < numberOfItems; item++) {
+			insertionOrder[item] = item;
+		}
+		Arrays.sort(insertionOrder, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer item1, Integer item2) {
+				int result = Integer.valueOf(firstTransaction[item1]).compareTo(firstTransaction[item2]);
+				return result != 0 ? result : item1.compareTo(item2);
+			}
+		});
+		Map<Item, Integer> headerTable = new HashMap<Item, Integer>();
+		for (Integer item : insertionOrder) {
+			headerTable.put(sortedItems[item], item);
+		}
+		final int[] miningOrder = new int[numberOfFrequentItems];
+		final int[] miningPosition = new int[numberOfFrequentItems];
+		int position = 0;
+		for (int item : headerTable.values()) {
+			if (item < numberOfFrequentItems) {
+				miningPosition[item] = position;
+				miningOrder[position++] = item;
+			}
+		}
+
+		// adding mandatory items
+		final FrequentItemSet conditionalItems = new FrequentItemSet();
+		final boolean[] excludedItems = new boolean[numberOfFrequentItems];
+		boolean isEmpty = tree.isEmpty();
+		if (numberOfMandatoryItems > 0) {
+			if (mandatorySupport < minTotalSupport) {
+				return;
+			}
+			for (int i = 0; i < attributes.length; i++) {
+				if (mandatory[i]) {
+					conditionalItems.addItem(items[i], mandatorySupport);
+					if (items[i].getFrequency() > 0 && itemOfAttribute[i] < numberOfFrequentItems) {
+						excludedItems[itemOfAttribute[i]] = true;
+					}
+				}
+			}
+			sets.addFrequentSet(conditionalItems);
+			isEmpty = mandatorySupport == 0;
+		}
+
+		// mining conditional trees of first level concurrently
+		final int depth = conditionalItems.getNumberOfItems();
+		if (isEmpty || (maxItems > 0 && depth >= maxItems)) {
+			return;
+		}
+		final CompactFPTree finalTree = tree;
+		final Item[] frequentItems = Arrays.copyOf(sortedItems, numberOfFrequentItems);
+		List<Callable<List<FrequentItemSet>>> tasks = new ArrayList<Callable<List<FrequentItemSet>>>();
+		for (final int item : getItemsToMine(tree, miningOrder, miningPosition, excludedItems, minTotalSupport)) {
+			tasks.add(new Callable<List<FrequentItemSet>>() {
+
+				@Override
+				public List<FrequentItemSet> call() throws ProcessStoppedException {
+					List<FrequentItemSet> result = new ArrayList<FrequentItemSet>();
+					mineItem(finalTree, item, conditionalItems, depth, excludedItems.clone(), frequentItems, miningOrder, miningPosition, minTotalSupport, maxItems, result);
+					return result;
+				}
+			});
+		}
+		for (List<FrequentItemSet> result : ParallelExecutionService.invokeAll(tasks)) {
+			for (FrequentItemSet set : result) {
+				sets.addFrequentSet(set);
+			}
+		}
+	}
+
+	/**
+	 * Adds the set of the conditional items and the given item of the tree to the result and
+	 * recursively mines its conditional tree.
+	 */
+	private void mineItem(CompactFPTree tree, int item, FrequentItemSet conditionalItems, int depth, boolean[] excludedItems, Item[] frequentItems, int[] miningOrder,
+			int[] miningPosition, int minTotalSupport, int maxItems, List<FrequentItemSet> result) throws ProcessStoppedException {
+		int itemSupport = item < 0 ? 0 : tree.getSupport(item);
+		int originalItem = item < 0 ? -item - 1 : tree.getItem(item);
+		FrequentItemSet recursivConditionalItems = (FrequentItemSet) conditionalItems.clone();
+		recursivConditionalItems.addItem(frequentItems[originalItem], itemSupport);
+		result.add(recursivConditionalItems);
+		if (itemSupport > 0) {
+			CompactFPTree conditionalTree = tree.createConditionalTree(item, Math.max(1, minTotalSupport));
+			if (!conditionalTree.isEmpty() && (maxItems <= 0 || depth + 1 < maxItems)) {
+				checkForStopConcurrently();
+				excludedItems[originalItem] = true;
+				for (int conditionalItem : getItemsToMine(conditionalTree, miningOrder, miningPosition, excludedItems, minTotalSupport)) {
+					mineItem(conditionalTree, conditionalItem, recursivConditionalItems, depth + 1, excludedItems, frequentItems, miningOrder, miningPosition, minTotalSupport, maxItems, result);
+				}
+				excludedItems[originalItem] = false;
+			}
 		}
-		return tree;
 	}
 
-	private boolean treeIsEmpty(FPTree tree, int recursionDepth) {
-		// tree is empty if every child of rootnode has frequency of 0 on top of
-		// stack
-		for (FPTreeNode node : tree.getChildren().values()) {
-			if (node.getFrequency(recursionDepth) > 0) {
-				return false;
+	/**
+	 * Returns the items of the tree whose support is at least minTotalSupport in mining order. If
+	 * minTotalSupport is 0, all items which are not excluded are returned and items not contained
+	 * in the tree are encoded as -(original item + 1).
+	 */
+	private int[] getItemsToMine(CompactFPTree tree, int[] miningOrder, int[] miningPosition, boolean[] excludedItems, int minTotalSupport) {
+		if (minTotalSupport <= 0) {
+			int[] itemsOfOriginalItems = new int[miningOrder.length];
+			Arrays.fill(itemsOfOriginalItems, -1);
+			for (int item = 0; item < tree.getNumberOfItems(); item++) {
+				itemsOfOriginalItems[tree.getItem(item)] = item;
 			}
+			int[] itemsToMine = new int[miningOrder.length];
+			int numberOfItemsToMine = 0;
+			for (int originalItem : miningOrder) {
+				if (!excludedItems[originalItem]) {
+					int item = itemsOfOriginalItems[originalItem];
+					itemsToMine[numberOfItemsToMine++] = item >= 0 ? item : -originalItem - 1;
+				}
+			}
+			return Arrays.copyOf(itemsToMine, numberOfItemsToMine);
+		}
+		long[] positions = new long[tree.getNumberOfItems()];
+		int numberOfItemsToMine = 0;
+		for (int item = 0; item < tree.getNumberOfItems(); item++) {
+			if (tree.getSupport(item) >= minTotalSupport) {
+				positions[numberOfItemsToMine++] = ((long) miningPosition[tree.getItem(item)] << 32) | item;
+			}
+		}
+		Arrays.sort(positions, 0, numberOfItemsToMine);
+		int[] itemsToMine = new int[numberOfItemsToMine];
+		for (int i = 0; i < numberOfItemsToMine; i++) {
+			itemsToMine[i] = (int) positions[i];
 		}
-		return true;
+		return itemsToMine;
 	}
 
 	@Override
@@ -26,7 +26,7 @@ import java.io.Serializable;
 
 import com.rapidminer.operator.learner.functions.kernel.jmysvm.examples.SVMExample;
 import com.rapidminer.operator.learner.functions.kernel.jmysvm.examples.SVMExamples;
-import com.rapidminer.operator.learner.functions.kernel.jmysvm.util.Cache;
+import com.rapidminer.tools.math.kernels.KernelRowCache;
 
 
 /**
@@ -51,10 +51,10 @@ public abstract class Kernel implements Serializable {
 	/**
 	 * Kernel cache
 	 */
-	protected transient Cache kernel_cache;
+	protected transient KernelRowCache kernel_cache;
 
 	/**
-	 * Number of elements in cache
+	 * Number of rows in cache
 	 */
 	protected int kernel_cache_size;
 
@@ -164,42 +164,50 @@ public abstract class Kernel implements Serializable {
 	};
 
 	/**
-	 * Gets a kernel row
+	 * Gets a kernel row as a new array
 	 */
 	public double[] get_row(int i) {
-		double[] result = null;
-		result = ((double[]) kernel_cache.get_element(i));
-		if (result == null) {
-			// get last cache element, don't assign new memory
-			result = (double[]) kernel_cache.get_lru_element();
-			if (result == null) {
-				result = new double[examples_total];
-			};
-			calculate_K_row(result, i);
-			kernel_cache.put_element(i, result);
-		};
-		return result;
+		return kernel_cache.getRow(i);
 	};
 
 	/**
-	 * Inits the kernel cache.
+	 * Gets a kernel row. The row is copied into the given array which is returned, a new
+	 * array is returned if row is null or too short.
+	 */
+	public double[] get_row(int i, double[] row) {
+		return kernel_cache.getRow(i, row);
+	};
+
+	/**
+	 * Inits the kernel cache. Rows are stored with single precision if
+	 * {@link com.rapidminer.RapidMiner#PROPERTY_RAPIDMINER_GENERAL_KERNEL_CACHE_SINGLE_PRECISION} is set.
 	 * 
 	 * @param size
 	 *            of the cache in MB
 	 */
 	public void init_kernel_cache(int size) {
 		cache_MB = size;
-		// array of train_size doubles
-		kernel_cache_size = size * 1048576 / 4 / examples_total;
-		if (kernel_cache_size < 1) {
-			kernel_cache_size = 1;
-		};
-		if (kernel_cache_size > the_examples.count_examples()) {
-			kernel_cache_size = the_examples.count_examples();
-		};
-		kernel_cache = new Cache(kernel_cache_size, examples_total);
+		kernel_cache = new KernelRowCache(the_examples.count_examples(), examples_total, size * 1048576L, KernelRowCache.isSinglePrecisionDefault(), new KernelRowCache.RowCalculator() {
+
+			@Override
+			public void calculateRow(int row, double[] values, int from, int to) {
+				int[] x_index = the_examples.index[row];
+				double[] x_att = the_examples.atts[row];
+				for (int k = from; k < to; k++) {
+					values[k] = calculate_K(x_index, x_att, the_examples.index[k], the_examples.atts[k]);
+				}
+			}
+		});
+		kernel_cache_size = kernel_cache.getCapacity();
 	};
 
+	/**
+	 * Returns the kernel cache, e.g. for logging its hit rate.
+	 */
+	public KernelRowCache getKernelCache() {
+		return kernel_cache;
+	}
+
 	public int getCacheSize() {
 		return cache_MB;
 	}
@@ -208,24 +216,9 @@ public abstract class Kernel implements Serializable {
 	 * Sets the number of examples to new value
 	 */
 	public void set_examples_size(int new_examples_total) {
-		// number of rows that fit into cache:
-		int new_kernel_cache_size = cache_MB * 1048576 / 4 / new_examples_total;
-		if (new_kernel_cache_size < 1) {
-			new_kernel_cache_size = 1;
-		};
-		if (new_kernel_cache_size > new_examples_total) {
-			new_kernel_cache_size = new_examples_total;
-		};
-
-		// kernel_cache = new Cache(kernel_cache_size);
-
-		if (new_examples_total < examples_total) {
-			// keep cache
-			kernel_cache.shrink(new_kernel_cache_size, new_examples_total);
-		} else if (new_examples_total > examples_total) {
-			kernel_cache.init(new_kernel_cache_size);
-		};
-		kernel_cache_size = new_kernel_cache_size;
+		// shorter rows keep their cached values, longer ones have to be recalculated
+		kernel_cache.setRowLength(new_examples_total);
+		kernel_cache_size = kernel_cache.getCapacity();
 		examples_total = new_examples_total;
 	};
 
@@ -52,6 +52,9 @@ public abstract class SVM implements SVMInterface {
 
 	protected Kernel the_kernel;
 
+	/** Receives the kernel rows, reused to avoid allocating a row per request */
+	private double[] kernel_row_buffer;
+
 	protected SVMExamples the_examples;
 
 	double[] alphas;
@@ -351,6 +354,7 @@ public abstract class SVM implements SVMInterface {
 
 		// if(verbosity>= 2){
 		logln(2, "Done training: " + iteration + " iterations.");
+		logln(2, "Kernel cache: " + the_kernel.getKernelCache());
 		// if(verbosity >= 2){
 		double now_target = 0;
 		double now_target_dummy = 0;
@@ -625,7 +629,7 @@ public abstract class SVM implements SVMInterface {
 		for (i = 0; i < examples_total; i++) {
 			alpha = alphas[i];
 			if (alpha != 0) {
-				kernel_row = the_kernel.get_row(i);
+				kernel_row = kernel_row_buffer = the_kernel.get_row(i, kernel_row_buffer);
 				for (j = old_ex_tot; j < examples_total; j++) {
 					sum[j] += alpha * kernel_row[j];
 				}
@@ -927,7 +931,7 @@ public abstract class SVM implements SVMInterface {
 			i = working_set[pos_i];
 
 			// put row sort_i in hessian
-			kernel_row = the_kernel.get_row(i);
+			kernel_row = kernel_row_buffer = the_kernel.get_row(i, kernel_row_buffer);
 
 			sum_WS = 0;
 			// for(pos_j=0;pos_j<working_set_size;pos_j++){
@@ -1071,7 +1075,7 @@ public abstract class SVM implements SVMInterface {
 
 			if (alpha_diff != 0) {
 				// update sum ( => nabla)
-				kernel_row = the_kernel.get_row(i);
+				kernel_row = kernel_row_buffer = the_kernel.get_row(i, kernel_row_buffer);
 				for (j = examples_total - 1; j >= 0; j--) {
 					my_sum[j] += alpha_diff * kernel_row[j];
 				}
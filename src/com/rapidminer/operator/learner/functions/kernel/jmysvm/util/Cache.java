@@ -26,7 +26,9 @@ package com.rapidminer.operator.learner.functions.kernel.jmysvm.util;
  * Implements a last recently used cache
  * 
  * @author Stefan Rueping
+ * @deprecated The kernels use the shared {@link com.rapidminer.tools.math.kernels.KernelRowCache} now.
  */
+@Deprecated
 public class Cache {
 
 	/**
@@ -40,6 +40,11 @@ public class KLR implements SVMInterface {
 
 	protected Kernel kernel;
 
+	/** Receive the two kernel rows of a step, reused to avoid allocating rows per step */
+	private double[] kernel_row_buffer_i;
+
+	private double[] kernel_row_buffer_j;
+
 	protected SVMExamples examples;
 
 	int n; // #examples
@@ -156,8 +161,8 @@ public class KLR implements SVMInterface {
 	};
 
 	protected boolean takeStep(int i, int j) {
-		double[] kernel_row_i = kernel.get_row(i);
-		double[] kernel_row_j = kernel.get_row(j);
+		double[] kernel_row_i = kernel_row_buffer_i = kernel.get_row(i, kernel_row_buffer_i);
+		double[] kernel_row_j = kernel_row_buffer_j = kernel.get_row(j, kernel_row_buffer_j);
 		double aio = alphas[i];
 		double ajo = alphas[j];
 		double yi = target[i];
@@ -408,7 +413,7 @@ public class KLR implements SVMInterface {
 		for (i = 0; i < n; i++) {
 			sum_pos_K = 0.0;
 			sum_neg_K = 0.0;
-			kernel_row = kernel.get_row(i);
+			kernel_row = kernel_row_buffer_i = kernel.get_row(i, kernel_row_buffer_i);
 			for (j = 0; j < n; j++) {
 				if (target[j] > 0) {
 					sum_pos_K += kernel_row[j];
@@ -24,6 +24,8 @@ package com.rapidminer.operator.learner.lazy;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
@@ -31,12 +33,15 @@ import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.learner.UpdateablePredictionModel;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.Tools;
 import com.rapidminer.tools.container.Tupel;
 import com.rapidminer.tools.math.container.GeometricDataCollection;
 
 /**
- * An implementation of a knn model.
+ * An implementation of a knn model. Large example sets are predicted concurrently in blocks
+ * of examples, using the number of threads defined in the preferences, if the example set can be read
+ * concurrently.
  * 
  * @author Sebastian Land
  * 
@@ -45,6 +50,9 @@ public class KNNClassificationModel extends UpdateablePredictionModel {
 
 	private static final long serialVersionUID = -6292869962412072573L;
 
+	/** The minimal number of examples predicted by one thread. */
+	private static final int MINIMAL_BLOCK_SIZE = 100;
+
 	private int k;
 
 	private int size;
@@ -71,77 +79,106 @@ public class KNNClassificationModel extends UpdateablePredictionModel {
 	}
 
 	@Override
-	public ExampleSet performPrediction(ExampleSet exampleSet, Attribute predictedLabel) throws OperatorException {
+	public ExampleSet performPrediction(final ExampleSet exampleSet, final Attribute predictedLabel) throws OperatorException {
 		// building attribute order from trainingset
-		ArrayList<Attribute> sampleAttributes = new ArrayList<Attribute>(sampleAttributeNames.size());
+		final ArrayList<Attribute> sampleAttributes = new ArrayList<Attribute>(sampleAttributeNames.size());
 		Attributes attributes = exampleSet.getAttributes();
 		for (String attributeName : sampleAttributeNames) {
 			sampleAttributes.add(attributes.get(attributeName));
 		}
 
-		double[] values = new double[sampleAttributes.size()];
-		for (Example example : exampleSet) {
-			// reading values
-			int i = 0;
-			for (Attribute attribute : sampleAttributes) {
-				values[i] = example.getValue(attribute);
-				i++;
+		int numberOfBlocks = 1;
+		if (com.rapidminer.example.Tools.isConcurrentlyReadable(exampleSet)) {
+			numberOfBlocks = ParallelExecutionService.getNumberOfBlocks(exampleSet.size(), MINIMAL_BLOCK_SIZE);
+		}
+		if (numberOfBlocks > 1) {
+			final int[] boundaries = ParallelExecutionService.getBlockBoundaries(exampleSet.size(), numberOfBlocks);
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numberOfBlocks);
+			for (int block = 0; block < numberOfBlocks; block++) {
+				final int from = boundaries[block];
+				final int to = boundaries[block + 1];
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						double[] values = new double[sampleAttributes.size()];
+						for (int index = from; index < to; index++) {
+							predict(exampleSet.getExample(index), sampleAttributes, values, predictedLabel);
+						}
+						return null;
+					}
+				});
+			}
+			ParallelExecutionService.invokeAll(tasks);
+		} else {
+			double[] values = new double[sampleAttributes.size()];
+			for (Example example : exampleSet) {
+				predict(example, sampleAttributes, values, predictedLabel);
 			}
+		}
+		return exampleSet;
+	}
 
-			// counting frequency of labels
-			double[] counter = new double[predictedLabel.getMapping().size()];
-			double totalDistance = 0;
-			if (!weightByDistance || k == 1) {
-				// finding next k neighbours
-				Collection<Integer> neighbourLabels = samples.getNearestValues(k, values);
-				// distance is 1 for complete neighbourhood
-				totalDistance = k;
-
-				// counting frequency of labels
-				for (int index : neighbourLabels) {
-					counter[index] += 1 / totalDistance;
-				}
-			} else {
-				// finding next k neighbours and their distances
-				Collection<Tupel<Double, Integer>> neighbours = samples.getNearestValueDistances(k, values);
-				for (Tupel<Double, Integer> tupel : neighbours) {
-					totalDistance += tupel.getFirst();
-				}
+	/** Predicts the given example using the given array as buffer for its values. */
+	private void predict(Example example, List<Attribute> sampleAttributes, double[] values, Attribute predictedLabel) {
+		// reading values
+		int i = 0;
+		for (Attribute attribute : sampleAttributes) {
+			values[i] = example.getValue(attribute);
+			i++;
+		}
 
-				double totalSimilarity = 0.0d;
-				if (totalDistance == 0) {
-					totalDistance = 1;
-					totalSimilarity = k;
-				} else {
-					totalSimilarity = Math.max(k - 1, 1);
-				}
+		// counting frequency of labels
+		double[] counter = new double[predictedLabel.getMapping().size()];
+		double totalDistance = 0;
+		if (!weightByDistance || k == 1) {
+			// finding next k neighbours
+			Collection<Integer> neighbourLabels = samples.getNearestValues(k, values);
+			// distance is 1 for complete neighbourhood
+			totalDistance = k;
 
-				// counting frequency of labels
-				for (Tupel<Double, Integer> tupel : neighbours) {
-					counter[tupel.getSecond()] += (1d - tupel.getFirst() / totalDistance) / totalSimilarity;
-				}
+			// counting frequency of labels
+			for (int index : neighbourLabels) {
+				counter[index] += 1 / totalDistance;
 			}
-			// finding most frequent class
-			int mostFrequentIndex = Integer.MIN_VALUE;
-			double mostFrequentFrequency = Double.NEGATIVE_INFINITY;
-			for (int index = 0; index < counter.length; index++) {
-				if (mostFrequentFrequency < counter[index]) {
-					mostFrequentFrequency = counter[index];
-					mostFrequentIndex = index;
-				}
+		} else {
+			// finding next k neighbours and their distances
+			Collection<Tupel<Double, Integer>> neighbours = samples.getNearestValueDistances(k, values);
+			for (Tupel<Double, Integer> tupel : neighbours) {
+				totalDistance += tupel.getFirst();
+			}
+
+			double totalSimilarity = 0.0d;
+			if (totalDistance == 0) {
+				totalDistance = 1;
+				totalSimilarity = k;
+			} else {
+				totalSimilarity = Math.max(k - 1, 1);
 			}
-			// setting prediction
-			if (mostFrequentIndex == Integer.MIN_VALUE)
-				example.setValue(predictedLabel, Double.NaN);
-			else
-				example.setValue(predictedLabel, mostFrequentIndex);
-
-			// setting confidence
-			for (int index = 0; index < counter.length; index++) {
-				example.setConfidence(predictedLabel.getMapping().mapIndex(index), counter[index]);
+
+			// counting frequency of labels
+			for (Tupel<Double, Integer> tupel : neighbours) {
+				counter[tupel.getSecond()] += (1d - tupel.getFirst() / totalDistance) / totalSimilarity;
 			}
 		}
-		return exampleSet;
+		// finding most frequent class
+		int mostFrequentIndex = Integer.MIN_VALUE;
+		double mostFrequentFrequency = Double.NEGATIVE_INFINITY;
+		for (int index = 0; index < counter.length; index++) {
+			if (mostFrequentFrequency < counter[index]) {
+				mostFrequentFrequency = counter[index];
+				mostFrequentIndex = index;
+			}
+		}
+		// setting prediction
+		if (mostFrequentIndex == Integer.MIN_VALUE)
+			example.setValue(predictedLabel, Double.NaN);
+		else
+			example.setValue(predictedLabel, mostFrequentIndex);
+
+		// setting confidence
+		for (int index = 0; index < counter.length; index++) {
+			example.setConfidence(predictedLabel.getMapping().mapIndex(index), counter[index]);
+		}
 	}
 
 	@Override
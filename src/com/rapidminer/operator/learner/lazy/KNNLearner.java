@@ -22,6 +22,8 @@
  */
 package com.rapidminer.operator.learner.lazy;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.rapidminer.example.Attribute;
@@ -38,18 +40,31 @@ import com.rapidminer.operator.learner.PredictionModel;
 import com.rapidminer.operator.ports.metadata.DistanceMeasurePrecondition;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.tools.OperatorResourceConsumptionHandler;
+import com.rapidminer.tools.math.container.BallTree;
 import com.rapidminer.tools.math.container.GeometricDataCollection;
+import com.rapidminer.tools.math.container.KDTree;
 import com.rapidminer.tools.math.container.LinearList;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasureHelper;
 import com.rapidminer.tools.math.similarity.DistanceMeasures;
+import com.rapidminer.tools.math.similarity.numerical.ChebychevNumericalDistance;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
 
 
 /**
  * A k nearest neighbor implementation.
  * 
+ * The training examples are stored in a {@link GeometricDataCollection}. Besides the linear search
+ * a kd-tree or a ball tree may be used for finding the neighbours, which is much faster for large data
+ * sets with few dimensions. Both trees are only usable for the euclidean, manhattan and chebychev
+ * distance and training data without missing values. In automatic mode the kd-tree is used whenever 
+ * it is applicable and the number of examples is large compared to the number of dimensions.
+ * 
  * @author Sebastian Land
  * 
  */
@@ -62,6 +77,25 @@ public class KNNLearner extends AbstractLearner {
 	/** The parameter name for &quot;Indicates if the votes should be weighted by similarity.&quot; */
 	public static final String PARAMETER_WEIGHTED_VOTE = "weighted_vote";
 
+	/** The parameter name for &quot;The data structure used for searching the nearest neighbors.&quot; */
+	public static final String PARAMETER_SEARCH_STRUCTURE = "search_structure";
+
+	public static final String[] SEARCH_STRUCTURES = new String[] { "automatic", "linear search", "kd-tree", "ball tree" };
+
+	public static final int SEARCH_STRUCTURE_AUTOMATIC = 0;
+
+	public static final int SEARCH_STRUCTURE_LINEAR = 1;
+
+	public static final int SEARCH_STRUCTURE_KD_TREE = 2;
+
+	public static final int SEARCH_STRUCTURE_BALL_TREE = 3;
+
+	/** The maximal number of dimensions for which the kd-tree is chosen automatically. */
+	private static final int MAXIMAL_AUTOMATIC_KD_TREE_DIMENSIONS = 12;
+
+	/** The minimal number of examples for which a tree is chosen automatically. */
+	private static final int MINIMAL_AUTOMATIC_TREE_SIZE = 1000;
+
 	private DistanceMeasureHelper measureHelper = new DistanceMeasureHelper(this);
 
 	public KNNLearner(OperatorDescription description) {
@@ -73,46 +107,87 @@ public class KNNLearner extends AbstractLearner {
 	public Model learn(ExampleSet exampleSet) throws OperatorException {		
 		DistanceMeasure measure = measureHelper.getInitializedMeasure(exampleSet);
 		Attribute label = exampleSet.getAttributes().getLabel();
+		Attributes attributes = exampleSet.getAttributes();
+		int valuesSize = attributes.size();
+
+		// reading training points
+		List<double[]> points = new ArrayList<double[]>(exampleSet.size());
+		List<Double> labelValues = new ArrayList<Double>(exampleSet.size());
+		boolean missingValues = false;
+		for (Example example: exampleSet) {
+			double[] values = new double[valuesSize];
+			int i = 0;
+			for (Attribute attribute: attributes) {
+				values[i] = example.getValue(attribute);
+				missingValues |= Double.isNaN(values[i]);
+				i++;
+			}
+			points.add(values);
+			labelValues.add(example.getValue(label));
+			checkForStop();
+		}
+
+		int searchStructure = getSearchStructure(measure, valuesSize, points.size(), missingValues);
 		if (label.isNominal()) {
 			// classification
-			GeometricDataCollection<Integer> samples = new LinearList<Integer>(measure);
-
-			Attributes attributes = exampleSet.getAttributes();
-
-			int valuesSize = attributes.size();
-			for(Example example: exampleSet) {
-				double[] values = new double[valuesSize];
-				int i = 0;
-				for (Attribute attribute: attributes) {
-					values[i] = example.getValue(attribute);
-					i++;
-				}
-				int labelValue = (int) example.getValue(label);
-				samples.add(values, labelValue);
-				checkForStop();
+			List<Integer> labelIndices = new ArrayList<Integer>(labelValues.size());
+			for (double labelValue: labelValues) {
+				labelIndices.add((int) labelValue);
 			}
+			GeometricDataCollection<Integer> samples = createSamples(searchStructure, measure, valuesSize, points, labelIndices);
 			return new KNNClassificationModel(exampleSet, samples, getParameterAsInt(PARAMETER_K), getParameterAsBoolean(PARAMETER_WEIGHTED_VOTE));
 		} else {
 			// regression
-			GeometricDataCollection<Double> samples = new LinearList<Double>(measure);
-			Attributes attributes = exampleSet.getAttributes();
-
-			int valuesSize = attributes.size();
-			for (Example example: exampleSet) {
-				double[] values = new double[valuesSize];
-				int i = 0;
-				for (Attribute attribute: attributes) {
-					values[i] = example.getValue(attribute);
-					i++;
-				}
-				double labelValue = example.getValue(label);
-				samples.add(values, labelValue);
-				checkForStop();
-			}
+			GeometricDataCollection<Double> samples = createSamples(searchStructure, measure, valuesSize, points, labelValues);
 			return new KNNRegressionModel(exampleSet, samples, getParameterAsInt(PARAMETER_K), getParameterAsBoolean(PARAMETER_WEIGHTED_VOTE));
 		}
 	}
 
+	/**
+	 * Returns the search structure which is actually used. Trees are only used if the measure is a
+	 * metric bounded by the coordinate differences and there are no missing values.
+	 */
+	private int getSearchStructure(DistanceMeasure measure, int numberOfDimensions, int numberOfExamples, boolean missingValues) throws UndefinedParameterError {
+		int searchStructure = getParameterAsInt(PARAMETER_SEARCH_STRUCTURE);
+		boolean treeApplicable = !missingValues && numberOfDimensions > 0 && 
+			(measure instanceof EuclideanDistance || measure instanceof ManhattanDistance || measure instanceof ChebychevNumericalDistance);
+		switch (searchStructure) {
+		case SEARCH_STRUCTURE_AUTOMATIC:
+			if (treeApplicable && numberOfDimensions <= MAXIMAL_AUTOMATIC_KD_TREE_DIMENSIONS && 
+					numberOfExamples >= Math.max(MINIMAL_AUTOMATIC_TREE_SIZE, 1 << (numberOfDimensions + 3))) {
+				return SEARCH_STRUCTURE_KD_TREE;
+			}
+			return SEARCH_STRUCTURE_LINEAR;
+		case SEARCH_STRUCTURE_KD_TREE:
+		case SEARCH_STRUCTURE_BALL_TREE:
+			if (!treeApplicable) {
+				logWarning("The " + SEARCH_STRUCTURES[searchStructure] + " is only applicable for the euclidean, manhattan or chebychev distance on data without missing values. Using linear search instead.");
+				return SEARCH_STRUCTURE_LINEAR;
+			}
+			return searchStructure;
+		default:
+			return SEARCH_STRUCTURE_LINEAR;
+		}
+	}
+
+	private <T extends Serializable> GeometricDataCollection<T> createSamples(int searchStructure, DistanceMeasure measure, int numberOfDimensions, List<double[]> points, List<T> labels) throws OperatorException {
+		GeometricDataCollection<T> samples;
+		switch (searchStructure) {
+		case SEARCH_STRUCTURE_KD_TREE:
+			return new KDTree<T>(points, labels, numberOfDimensions, measure);
+		case SEARCH_STRUCTURE_BALL_TREE:
+			samples = new BallTree<T>(measure);
+			break;
+		default:
+			samples = new LinearList<T>(measure);
+		}
+		for (int i = 0; i < points.size(); i++) {
+			samples.add(points.get(i), labels.get(i));
+			checkForStop();
+		}
+		return samples;
+	}
+
 	@Override
 	public Class<? extends PredictionModel> getModelClass() {
 		//TODO: Needs to unify models in order to return common class
@@ -157,6 +232,8 @@ public class KNNLearner extends AbstractLearner {
 		types.add(new ParameterTypeBoolean(PARAMETER_WEIGHTED_VOTE, "Indicates if the votes should be weighted by similarity.", false, false));
 
 		types.addAll(DistanceMeasures.getParameterTypes(this));
+
+		types.add(new ParameterTypeCategory(PARAMETER_SEARCH_STRUCTURE, "The data structure used for searching the nearest neighbors. Trees are only used for the euclidean, manhattan or chebychev distance on data without missing values.", SEARCH_STRUCTURES, SEARCH_STRUCTURE_AUTOMATIC, true));
 		return types;
 	}
 	
@@ -24,6 +24,8 @@ package com.rapidminer.operator.learner.lazy;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
@@ -31,13 +33,16 @@ import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.learner.UpdateablePredictionModel;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.Tools;
 import com.rapidminer.tools.container.Tupel;
 import com.rapidminer.tools.math.container.GeometricDataCollection;
 
 
 /**
- * An implementation of a knn model used for regression
+ * An implementation of a knn model used for regression. Large example sets are predicted 
+ * concurrently in blocks of examples, using the number of threads defined in the preferences, if the
+ * example set can be read concurrently.
  * 
  * @author Sebastian Land
  * 
@@ -46,6 +51,9 @@ public class KNNRegressionModel extends UpdateablePredictionModel {
 
 	private static final long serialVersionUID = -6292869962412072573L;
 
+	/** The minimal number of examples predicted by one thread. */
+	private static final int MINIMAL_BLOCK_SIZE = 100;
+
 	private int k;
 
 	private int size;
@@ -72,62 +80,90 @@ public class KNNRegressionModel extends UpdateablePredictionModel {
 	}
 
 	@Override
-	public ExampleSet performPrediction(ExampleSet exampleSet, Attribute predictedLabel) throws OperatorException {
+	public ExampleSet performPrediction(final ExampleSet exampleSet, final Attribute predictedLabel) throws OperatorException {
 		// building attribute order from trainingset
-		ArrayList<Attribute> sampleAttributes = new ArrayList<Attribute>(sampleAttributeNames.size());
+		final ArrayList<Attribute> sampleAttributes = new ArrayList<Attribute>(sampleAttributeNames.size());
 		Attributes attributes = exampleSet.getAttributes();
 		for (String attributeName: sampleAttributeNames) {
 			sampleAttributes.add(attributes.get(attributeName));
 		}
 
-		double[] values = new double[sampleAttributes.size()];
-		for (Example example: exampleSet) {
-			// reading values
-			int i = 0;
-			for(Attribute attribute: sampleAttributes) {
-				values[i] = example.getValue(attribute);
-				i++;
+		int numberOfBlocks = 1;
+		if (com.rapidminer.example.Tools.isConcurrentlyReadable(exampleSet)) {
+			numberOfBlocks = ParallelExecutionService.getNumberOfBlocks(exampleSet.size(), MINIMAL_BLOCK_SIZE);
+		}
+		if (numberOfBlocks > 1) {
+			final int[] boundaries = ParallelExecutionService.getBlockBoundaries(exampleSet.size(), numberOfBlocks);
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numberOfBlocks);
+			for (int block = 0; block < numberOfBlocks; block++) {
+				final int from = boundaries[block];
+				final int to = boundaries[block + 1];
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						double[] values = new double[sampleAttributes.size()];
+						for (int index = from; index < to; index++) {
+							predict(exampleSet.getExample(index), sampleAttributes, values, predictedLabel);
+						}
+						return null;
+					}
+				});
+			}
+			ParallelExecutionService.invokeAll(tasks);
+		} else {
+			double[] values = new double[sampleAttributes.size()];
+			for (Example example: exampleSet) {
+				predict(example, sampleAttributes, values, predictedLabel);
 			}
+		}
+		return exampleSet;
+	}
 
-			double result = 0;
-			if (!weightByDistance) {
-				// finding next k neighbours
-				Collection<Double> neighbourLabels = samples.getNearestValues(k, values);
+	/** Predicts the given example using the given array as buffer for its values. */
+	private void predict(Example example, List<Attribute> sampleAttributes, double[] values, Attribute predictedLabel) {
+		// reading values
+		int i = 0;
+		for(Attribute attribute: sampleAttributes) {
+			values[i] = example.getValue(attribute);
+			i++;
+		}
 
-				// building mean
-				for (double label: neighbourLabels) {
-					result += label;
-				}
-				result /= k;
-			} else {
-				// finding next k neighbours and their distances
-				Collection<Tupel<Double, Double>> neighbourTupels = samples.getNearestValueDistances(k, values);
-				// finding total distance
-				double totalDistance = 0;
-				for (Tupel<Double, Double> tupel: neighbourTupels) {
-					totalDistance += tupel.getFirst();
-				}
+		double result = 0;
+		if (!weightByDistance) {
+			// finding next k neighbours
+			Collection<Double> neighbourLabels = samples.getNearestValues(k, values);
 
-				double totalSimilarity = 0.0d;
-				if (totalDistance == 0) {
-					totalDistance = 1;
-					totalSimilarity = k;
-				} else {
-					totalSimilarity = Math.max(k - 1, 1);
-				}
-
-				// building weighted mean
-				for (Tupel<Double, Double> tupel: neighbourTupels) {
-					result += tupel.getSecond() * (1d - tupel.getFirst() / totalDistance) / totalSimilarity;
-				}
+			// building mean
+			for (double label: neighbourLabels) {
+				result += label;
+			}
+			result /= k;
+		} else {
+			// finding next k neighbours and their distances
+			Collection<Tupel<Double, Double>> neighbourTupels = samples.getNearestValueDistances(k, values);
+			// finding total distance
+			double totalDistance = 0;
+			for (Tupel<Double, Double> tupel: neighbourTupels) {
+				totalDistance += tupel.getFirst();
 			}
-			// setting prediction 
-			example.setValue(predictedLabel, result);
-		}
 
+			double totalSimilarity = 0.0d;
+			if (totalDistance == 0) {
+				totalDistance = 1;
+				totalSimilarity = k;
+			} else {
+				totalSimilarity = Math.max(k - 1, 1);
+			}
 
-		return exampleSet;
+			// building weighted mean
+			for (Tupel<Double, Double> tupel: neighbourTupels) {
+				result += tupel.getSecond() * (1d - tupel.getFirst() / totalDistance) / totalSimilarity;
+			}
+		}
+		// setting prediction 
+		example.setValue(predictedLabel, result);
 	}
+
 	@Override
 	public void update(ExampleSet updateSet) throws OperatorException {
 		Attribute label = updateSet.getAttributes().getLabel();
@@ -25,9 +25,6 @@ package com.rapidminer.operator.learner.meta;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
@@ -72,42 +69,15 @@ public class SimpleVoteModel extends SimplePredictionModel implements MetaModel
 	@Override
 	public double predict(Example example) throws OperatorException {
 		if (labelIsNominal) {
-			Map<Double, AtomicInteger> classVotes = new TreeMap<Double, AtomicInteger>();
+			int[] classVotes = new int[getLabel().getMapping().size()];
 			Iterator<? extends SimplePredictionModel> iterator = baseModels.iterator();
 			while (iterator.hasNext()) {
 				double prediction = iterator.next().predict(example);
-				AtomicInteger counter = classVotes.get(prediction);
-				if (counter == null) {
-					classVotes.put(prediction, new AtomicInteger(1));
-				} else {
-					counter.incrementAndGet();
+				if (prediction >= 0 && prediction < classVotes.length) {
+					classVotes[(int) prediction]++;
 				}
 			}
-
-			List<Double> bestClasses = new LinkedList<Double>();
-			int bestClassesVotes = -1;
-			for (double currentClass : labelIndices) {
-				AtomicInteger votes = classVotes.get(currentClass);
-				if (votes != null) {
-					int currentVotes = votes.intValue();
-					if (currentVotes > bestClassesVotes) {
-						bestClasses.clear();
-						bestClasses.add(currentClass);
-						bestClassesVotes = currentVotes;
-					}
-					if (currentVotes == bestClassesVotes) {
-						bestClasses.add(currentClass);
-					}
-					example.setConfidence(getLabel().getMapping().mapIndex((int) currentClass), ((double) currentVotes) / (double) baseModels.size());
-				} else {
-					example.setConfidence(getLabel().getMapping().mapIndex((int) currentClass), 0.00);
-				}
-			}
-			if (bestClasses.size() == 1) {
-				return bestClasses.get(0);
-			} else {
-				return bestClasses.get(RandomGenerator.getGlobalRandomGenerator().nextInt(bestClasses.size()));
-			}
+			return getVotedPrediction(example, classVotes);
 		} else {
 			double sum = 0.0d;
 			Iterator<? extends SimplePredictionModel> iterator = baseModels.iterator();
@@ -118,6 +88,34 @@ public class SimpleVoteModel extends SimplePredictionModel implements MetaModel
 		}
 	}
 
+	/** Sets the confidences of the given example according to the given number of votes
+	 *  per label index and returns the class with the most votes. Ties are broken randomly. */
+	protected double getVotedPrediction(Example example, int[] classVotes) {
+		List<Double> bestClasses = new LinkedList<Double>();
+		int bestClassesVotes = -1;
+		for (double currentClass : labelIndices) {
+			int currentVotes = classVotes[(int) currentClass];
+			if (currentVotes > 0) {
+				if (currentVotes > bestClassesVotes) {
+					bestClasses.clear();
+					bestClasses.add(currentClass);
+					bestClassesVotes = currentVotes;
+				}
+				if (currentVotes == bestClassesVotes) {
+					bestClasses.add(currentClass);
+				}
+				example.setConfidence(getLabel().getMapping().mapIndex((int) currentClass), ((double) currentVotes) / (double) baseModels.size());
+			} else {
+				example.setConfidence(getLabel().getMapping().mapIndex((int) currentClass), 0.00);
+			}
+		}
+		if (bestClasses.size() == 1) {
+			return bestClasses.get(0);
+		} else {
+			return bestClasses.get(RandomGenerator.getGlobalRandomGenerator().nextInt(bestClasses.size()));
+		}
+	}
+
 	@Override
 	public String toString() {
 		StringBuffer buffer = new StringBuffer();
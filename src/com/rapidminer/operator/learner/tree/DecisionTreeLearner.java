@@ -110,15 +110,23 @@ public class DecisionTreeLearner extends AbstractTreeLearner {
 
     @Override
     protected TreeBuilder getTreeBuilder(ExampleSet exampleSet) throws OperatorException {
-        return new TreeBuilder(createCriterion(getParameterAsDouble(PARAMETER_MINIMAL_GAIN)),
+        return getTreeBuilder(exampleSet, getSplitPreprocessing());
+    }
+
+    /** Returns a tree builder using the given split preprocessing instead of the one
+     *  delivered by {@link #getSplitPreprocessing()}. */
+    protected TreeBuilder getTreeBuilder(ExampleSet exampleSet, SplitPreprocessing preprocessing) throws OperatorException {
+        TreeBuilder builder = new TreeBuilder(createCriterion(getParameterAsDouble(PARAMETER_MINIMAL_GAIN)),
                 getTerminationCriteria(exampleSet),
                 getPruner(),
-                getSplitPreprocessing(),
+                preprocessing,
                 new DecisionTreeLeafCreator(),
                 getParameterAsBoolean(PARAMETER_NO_PRE_PRUNING),
                 getParameterAsInt(PARAMETER_NUMBER_OF_PREPRUNING_ALTERNATIVES),
                 getParameterAsInt(PARAMETER_MINIMAL_SIZE_FOR_SPLIT),
                 getParameterAsInt(PARAMETER_MINIMAL_LEAF_SIZE));
+        builder.setUsePresortedIndex(true);
+        return builder;
     }
 
     @Override
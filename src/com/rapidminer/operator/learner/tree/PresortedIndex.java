@@ -0,0 +1,269 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.learner.tree;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.SplittedExampleSet;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.learner.tree.criterions.AbstractCriterion;
+import com.rapidminer.tools.ParallelExecutionService;
+import com.rapidminer.tools.Tools;
+
+/**
+ * Keeps the values of the numerical regular attributes, the labels and the weights of a 
+ * training set in arrays. The examples are sorted once by each numerical attribute. The index
+ * of a tree node is partitioned into the indices of its children, keeping the order, so that 
+ * the search for numerical splits does not need to sort the examples of each node again. 
+ * The results equal the ones of the {@link NumericalSplitter}.
+ * 
+ * Rows are the positions of the examples in the example set the root index was created for.
+ * 
+ * @author agent
+ */
+public class PresortedIndex {
+
+	/** The number of rows below which sorting is done by insertion sort. */
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	private final Data data;
+
+	/** The rows of this node in the order of the node's example set. */
+	private final int[] rows;
+
+	/** The rows of this node sorted by each numerical column. */
+	private final int[][] sortedRows;
+
+	private PresortedIndex(Data data, int[] rows, int[][] sortedRows) {
+		this.data = data;
+		this.rows = rows;
+		this.sortedRows = sortedRows;
+	}
+
+	/** Creates the index for the root of a tree learned on the given example set. */
+	public static PresortedIndex create(ExampleSet exampleSet) throws OperatorException {
+		final Data data = new Data(exampleSet);
+		int size = exampleSet.size();
+		int[] rows = new int[size];
+		for (int row = 0; row < size; row++) {
+			rows[row] = row;
+		}
+
+		final int[][] sortedRows = new int[data.values.length][];
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(data.values.length);
+		for (int column = 0; column < data.values.length; column++) {
+			final int currentColumn = column;
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() {
+					sortedRows[currentColumn] = sort(data.values[currentColumn]);
+					return null;
+				}
+			});
+		}
+		ParallelExecutionService.invokeAll(tasks);
+		return new PresortedIndex(data, rows, sortedRows);
+	}
+
+	/** Returns true if the given attribute is a numerical column of this index. */
+	public boolean isIndexed(Attribute attribute) {
+		return data.columns.containsKey(attribute.getName());
+	}
+
+	/**
+	 * Returns the best split value for the given numerical attribute or NaN if there is none.
+	 * The incremental calculation of the given criterion is used, so it must not be shared between threads.
+	 */
+	public double getBestSplit(Attribute attribute, AbstractCriterion criterion) {
+		int column = data.columns.get(attribute.getName());
+		double[] values = data.values[column];
+		int[] labels = data.labels;
+		double[] weights = data.weights;
+
+		double[] labelWeights = new double[data.numberOfLabels];
+		for (int row : rows) {
+			labelWeights[labels[row]] += (weights == null) ? 1.0d : weights[row];
+		}
+		criterion.startIncrementalCalculation(labelWeights);
+
+		double bestSplit = Double.NaN;
+		double lastValue = Double.NaN;
+		double bestSplitBenefit = Double.NEGATIVE_INFINITY;
+		int lastRow = -1;
+		for (int row : sortedRows[column]) {
+			double currentValue = values[row];
+			if (lastRow >= 0) {
+				criterion.swapWeight(labels[lastRow], (weights == null) ? 1.0d : weights[lastRow]);
+			}
+			lastRow = row;
+			if (!Tools.isEqual(currentValue, lastValue)) {
+				double benefit = criterion.getIncrementalBenefit();
+				if (benefit > bestSplitBenefit) {
+					bestSplitBenefit = benefit;
+					bestSplit = (lastValue + currentValue) / 2.0d;
+				}
+			}
+			lastValue = currentValue;
+		}
+		return bestSplit;
+	}
+
+	/**
+	 * Partitions this index according to the subsets of the given example set, which must
+	 * be a split of the example set of this node. The i-th returned index belongs to the i-th subset.
+	 * The subset selection of the given example set is changed.
+	 */
+	public PresortedIndex[] split(SplittedExampleSet splitted) {
+		int numberOfSubsets = splitted.getNumberOfSubsets();
+		int[] subsetOfRow = data.subsetOfRow;
+		int[][] childRows = new int[numberOfSubsets][];
+		for (int subset = 0; subset < numberOfSubsets; subset++) {
+			splitted.selectSingleSubset(subset);
+			int size = splitted.size();
+			childRows[subset] = new int[size];
+			for (int i = 0; i < size; i++) {
+				subsetOfRow[rows[splitted.getActualParentIndex(i)]] = subset;
+			}
+		}
+
+		// keeping the order of the rows and of all sorted columns
+		int[] counters = new int[numberOfSubsets];
+		for (int row : rows) {
+			int subset = subsetOfRow[row];
+			childRows[subset][counters[subset]++] = row;
+		}
+		int[][][] childSortedRows = new int[numberOfSubsets][sortedRows.length][];
+		for (int column = 0; column < sortedRows.length; column++) {
+			for (int subset = 0; subset < numberOfSubsets; subset++) {
+				childSortedRows[subset][column] = new int[childRows[subset].length];
+				counters[subset] = 0;
+			}
+			for (int row : sortedRows[column]) {
+				int subset = subsetOfRow[row];
+				childSortedRows[subset][column][counters[subset]++] = row;
+			}
+		}
+
+		PresortedIndex[] children = new PresortedIndex[numberOfSubsets];
+		for (int subset = 0; subset < numberOfSubsets; subset++) {
+			children[subset] = new PresortedIndex(data, childRows[subset], childSortedRows[subset]);
+		}
+		return children;
+	}
+
+	/** Returns all rows sorted increasingly by the given values, equal values ordered by row. */
+	private static int[] sort(double[] values) {
+		int[] sorted = new int[values.length];
+		for (int row = 0; row < sorted.length; row++) {
+			sorted[row] = row;
+		}
+		mergeSort(sorted, new int[sorted.length], 0, sorted.length, values);
+		return sorted;
+	}
+
+	private static void mergeSort(int[] rows, int[] buffer, int from, int to, double[] values) {
+		if (to - from <= INSERTION_SORT_THRESHOLD) {
+			for (int i = from + 1; i < to; i++) {
+				int row = rows[i];
+				int j = i - 1;
+				while (j >= from && Double.compare(values[rows[j]], values[row]) > 0) {
+					rows[j + 1] = rows[j];
+					j--;
+				}
+				rows[j + 1] = row;
+			}
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSort(rows, buffer, from, middle, values);
+		mergeSort(rows, buffer, middle, to, values);
+		if (Double.compare(values[rows[middle - 1]], values[rows[middle]]) <= 0) {
+			return;
+		}
+		System.arraycopy(rows, from, buffer, from, to - from);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right >= to || (left < middle && Double.compare(values[buffer[left]], values[buffer[right]]) <= 0)) {
+				rows[i] = buffer[left++];
+			} else {
+				rows[i] = buffer[right++];
+			}
+		}
+	}
+
+	/** The data shared by the indices of all nodes of a tree. */
+	private static class Data {
+
+		private final Map<String, Integer> columns = new HashMap<String, Integer>();
+
+		private final double[][] values;
+
+		private final int[] labels;
+
+		private final double[] weights;
+
+		private final int numberOfLabels;
+
+		/** Used while splitting, holds the subset of each row. */
+		private final int[] subsetOfRow;
+
+		private Data(ExampleSet exampleSet) {
+			List<Attribute> numericalAttributes = new ArrayList<Attribute>();
+			for (Attribute attribute : exampleSet.getAttributes()) {
+				if (attribute.isNumerical()) {
+					columns.put(attribute.getName(), numericalAttributes.size());
+					numericalAttributes.add(attribute);
+				}
+			}
+			Attribute label = exampleSet.getAttributes().getLabel();
+			Attribute weight = exampleSet.getAttributes().getWeight();
+			int size = exampleSet.size();
+			values = new double[numericalAttributes.size()][size];
+			labels = new int[size];
+			weights = (weight == null) ? null : new double[size];
+			numberOfLabels = label.getMapping().size();
+			subsetOfRow = new int[size];
+
+			int row = 0;
+			for (Example example : exampleSet) {
+				for (int column = 0; column < values.length; column++) {
+					values[column][row] = example.getValue(numericalAttributes.get(column));
+				}
+				labels[row] = (int) example.getValue(label);
+				if (weights != null) {
+					weights[row] = example.getValue(weight);
+				}
+				row++;
+			}
+		}
+	}
+}
@@ -22,24 +22,31 @@
  */
 package com.rapidminer.operator.learner.tree;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.MappedExampleSet;
 import com.rapidminer.operator.Model;
 import com.rapidminer.operator.OperatorCapability;
-import com.rapidminer.operator.OperatorCreationException;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.learner.PredictionModel;
-import com.rapidminer.operator.preprocessing.sampling.BootstrappingOperator;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeInt;
-import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParallelExecutionService;
+import com.rapidminer.tools.RandomGenerator;
 
 /**
  * This operators learns a random forest. The resulting forest model contains several 
  * single random tree models.
+ * 
+ * The trees are learned concurrently using the number of threads defined in the preferences.
+ * Each tree draws its bootstrap sample and its attribute subsets from an own random generator,
+ * whose seed is derived in advance from the random generator of this operator. Hence the
+ * resulting forest does not depend on the number of threads.
  *
  * @author Ingo Mierswa, Sebastian Land
  */
@@ -58,26 +65,32 @@ public class RandomForestLearner extends RandomTreeLearner {
 	}
 
 	@Override
-	public Model learn(ExampleSet exampleSet) throws OperatorException {
-		BootstrappingOperator bootstrapping = null;
-		try {
-			bootstrapping = OperatorService.createOperator(BootstrappingOperator.class);
-			bootstrapping.setParameter(BootstrappingOperator.PARAMETER_USE_WEIGHTS, "false");
-			bootstrapping.setParameter(BootstrappingOperator.PARAMETER_SAMPLE_RATIO, "1.0");
-		} catch (OperatorCreationException e) {
-			throw new OperatorException(getName() + ": cannot construct random tree learner: " + e.getMessage());
-		}
-
-		// learn base models
-		List<TreeModel> baseModels = new LinkedList<TreeModel>();
+	public Model learn(final ExampleSet exampleSet) throws OperatorException {
+		RandomGenerator random = RandomGenerator.getRandomGenerator(getParameterAsBoolean(RandomGenerator.PARAMETER_USE_LOCAL_RANDOM_SEED), getParameterAsInt(RandomGenerator.PARAMETER_LOCAL_RANDOM_SEED));
 		int numberOfTrees = getParameterAsInt(PARAMETER_NUMBER_OF_TREES);
-		
+
+		// builders are created in advance since parameters must not be accessed concurrently
+		List<Callable<TreeModel>> tasks = new ArrayList<Callable<TreeModel>>(numberOfTrees);
 		for (int i = 0; i < numberOfTrees; i++) {
-			TreeModel model = (TreeModel)super.learn(bootstrapping.apply(exampleSet));
-			model.setSource(getName());
-			baseModels.add(model);
+			final RandomGenerator treeRandom = new RandomGenerator(random.nextLong());
+			final TreeBuilder builder = getTreeBuilder(exampleSet, getSplitPreprocessing(treeRandom));
+			tasks.add(new Callable<TreeModel>() {
+
+				@Override
+				public TreeModel call() throws Exception {
+					checkForStopConcurrently();
+					ExampleSet bootstrappedSet = new MappedExampleSet(exampleSet, MappedExampleSet.createBootstrappingMapping(exampleSet, exampleSet.size(), treeRandom), true);
+					TreeModel model = new TreeModel(bootstrappedSet, builder.learnTree(bootstrappedSet));
+					model.setSource(getName());
+					return model;
+				}
+			});
 		}
 
+		// learn base models
+		List<TreeModel> baseModels = ParallelExecutionService.invokeAll(tasks);
+		checkForStop();
+
 		// create and return model
 		return new RandomForestModel(exampleSet, baseModels);
 	}
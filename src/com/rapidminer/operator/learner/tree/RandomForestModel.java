@@ -22,26 +22,139 @@
  */
 package com.rapidminer.operator.learner.tree;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.Tools;
+import com.rapidminer.operator.Model;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.learner.SimplePredictionModel;
 import com.rapidminer.operator.learner.meta.SimpleVoteModel;
+import com.rapidminer.tools.ParallelExecutionService;
 
 /**
  * 
  * This model simply extends the SimpleVoteModel
  * to avoid naming problems. The functionality remains unchanged.
  * 
+ * The prediction is performed concurrently in blocks of examples. If there are less blocks than
+ * threads, the trees are additionally split into groups whose votes are counted concurrently. 
+ * The votes are buffered for a bounded chunk of examples at a time and the final vote is made 
+ * in the calling thread, so that the result equals the sequential one. Example sets which cannot be 
+ * read concurrently, e.g. those backed by a database, are predicted sequentially.
+ * 
  * @author Sebastian Land
  */
 public class RandomForestModel extends SimpleVoteModel {
 
 	private static final long serialVersionUID = 1L;
+
+	/** The minimal number of examples predicted by one thread. */
+	private static final int MINIMAL_BLOCK_SIZE = 100;
+
+	/** The maximal number of votes buffered per group of trees before the examples are voted. */
+	private static final int MAXIMAL_BUFFERED_VOTES = 1 << 22;
 	
 	public RandomForestModel(ExampleSet exampleSet, List<TreeModel> baseModels) {
 		super(exampleSet, baseModels);
 	}
 
+	@Override
+	public ExampleSet performPrediction(final ExampleSet exampleSet, final Attribute predictedLabel) throws OperatorException {
+		final List<SimplePredictionModel> trees = new ArrayList<SimplePredictionModel>();
+		for (Model model : getModels()) {
+			trees.add((SimplePredictionModel) model);
+		}
+		final boolean nominal = getLabel().isNominal();
+		int size = exampleSet.size();
+		int numberOfBlocks = ParallelExecutionService.getNumberOfBlocks(size, MINIMAL_BLOCK_SIZE);
+		int numberOfGroups = nominal ? Math.max(1, Math.min(trees.size(), ParallelExecutionService.getNumberOfThreads() / numberOfBlocks)) : 1;
+		if (size == 0 || numberOfBlocks * numberOfGroups <= 1 || !Tools.isConcurrentlyReadable(exampleSet)) {
+			return super.performPrediction(exampleSet, predictedLabel);
+		}
+
+		// the votes are counted for chunks of examples so that the buffered votes do not depend on the number of examples
+		final int numberOfClasses = nominal ? getLabel().getMapping().size() : 0;
+		int chunkSize = nominal ? Math.max(1, MAXIMAL_BUFFERED_VOTES / Math.max(1, numberOfClasses)) : size;
+		int[][] votes = new int[numberOfGroups][nominal ? Math.min(size, chunkSize) * numberOfClasses : 0];
+		for (int chunkStart = 0; chunkStart < size; chunkStart += chunkSize) {
+			int chunkEnd = (int) Math.min((long) chunkStart + chunkSize, size);
+			predictChunk(exampleSet, predictedLabel, trees, chunkStart, chunkEnd, votes);
+		}
+		return exampleSet;
+	}
+
+	/** 
+	 * Predicts the examples from the given start to the given end concurrently. The votes of each group of trees are
+	 * counted in the given arrays, one per group, which must be large enough to hold the votes of all examples of the chunk.
+	 */
+	private void predictChunk(final ExampleSet exampleSet, final Attribute predictedLabel, List<SimplePredictionModel> trees, final int chunkStart, int chunkEnd, int[][] votes) throws OperatorException {
+		final boolean nominal = getLabel().isNominal();
+		final int numberOfClasses = nominal ? getLabel().getMapping().size() : 0;
+		int length = chunkEnd - chunkStart;
+		final int[] boundaries = ParallelExecutionService.getBlockBoundaries(length, ParallelExecutionService.getNumberOfBlocks(length, MINIMAL_BLOCK_SIZE));
+		int numberOfBlocks = boundaries.length - 1;
+		int numberOfGroups = nominal ? Math.max(1, Math.min(votes.length, ParallelExecutionService.getNumberOfThreads() / numberOfBlocks)) : 1;
+		final int[] groupBoundaries = ParallelExecutionService.getBlockBoundaries(trees.size(), numberOfGroups);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int block = 0; block < numberOfBlocks; block++) {
+			final int from = boundaries[block];
+			final int to = boundaries[block + 1];
+			for (int group = 0; group < numberOfGroups; group++) {
+				final int[] groupVotes = votes[group];
+				final List<SimplePredictionModel> groupTrees = trees.subList(groupBoundaries[group], groupBoundaries[group + 1]);
+				tasks.add(new Callable<Void>() {
+
+					@Override
+					public Void call() throws Exception {
+						for (int index = from; index < to; index++) {
+							Example example = exampleSet.getExample(chunkStart + index);
+							if (nominal) {
+								int offset = index * numberOfClasses;
+								Arrays.fill(groupVotes, offset, offset + numberOfClasses, 0);
+								for (SimplePredictionModel tree : groupTrees) {
+									double prediction = tree.predict(example);
+									if (prediction >= 0 && prediction < numberOfClasses) {
+										groupVotes[offset + (int) prediction]++;
+									}
+								}
+							} else {
+								double sum = 0.0d;
+								for (SimplePredictionModel tree : groupTrees) {
+									sum += tree.predict(example);
+								}
+								example.setValue(predictedLabel, sum / groupTrees.size());
+							}
+						}
+						return null;
+					}
+				});
+			}
+		}
+		ParallelExecutionService.invokeAll(tasks);
+
+		// voting sequentially since ties are broken by the global random generator
+		if (nominal) {
+			int[] classVotes = new int[numberOfClasses];
+			for (int index = 0; index < length; index++) {
+				int offset = index * numberOfClasses;
+				for (int i = 0; i < numberOfClasses; i++) {
+					classVotes[i] = 0;
+					for (int group = 0; group < numberOfGroups; group++) {
+						classVotes[i] += votes[group][offset + i];
+					}
+				}
+				Example example = exampleSet.getExample(chunkStart + index);
+				example.setValue(predictedLabel, getVotedPrediction(example, classVotes));
+			}
+		}
+	}
+
 	@Override
 	public String getName() {
 		return "Random Forest Model";
@@ -22,18 +22,27 @@
  */
 package com.rapidminer.operator.learner.tree;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.set.SplittedExampleSet;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.learner.tree.criterions.AbstractCriterion;
 import com.rapidminer.operator.learner.tree.criterions.Criterion;
+import com.rapidminer.tools.ParallelExecutionService;
 
 /**
  * Build a tree from an example set.
+ * 
+ * If the usage of a {@link PresortedIndex} is enabled, the examples are sorted only once
+ * for the numerical split search and the benefits of the attributes of large nodes are
+ * calculated concurrently. This requires the criterion to be thread safe except for the
+ * incremental calculation of {@link AbstractCriterion}s, which is performed on copies.
  *
  * @author Ingo Mierswa
  */
@@ -58,6 +67,11 @@ public class TreeBuilder {
 	protected int numberOfPrepruningAlternatives = 0;
 	
 	protected boolean usePrePruning = true;
+
+	/** The minimal number of values of a node for which benefits are calculated concurrently. */
+	private static final int MINIMAL_PARALLEL_VALUES = 100000;
+
+	private boolean usePresortedIndex = false;
 	
 	
 	public TreeBuilder(Criterion criterion, 
@@ -84,12 +98,18 @@ public class TreeBuilder {
 		this.preprocessing = preprocessing;
 	}
 
+	/** Sets whether a {@link PresortedIndex} is used for the split search. */
+	public void setUsePresortedIndex(boolean usePresortedIndex) {
+		this.usePresortedIndex = usePresortedIndex;
+	}
 	
 	public Tree learnTree(ExampleSet exampleSet) throws OperatorException {
 		// grow tree
 		Tree root = new Tree((ExampleSet)exampleSet.clone());
 		if (shouldStop(exampleSet, 0)) {
 			leafCreator.changeTreeToLeaf(root, exampleSet);
+		} else if (usePresortedIndex) {
+			buildTree(root, exampleSet, 1, PresortedIndex.create(exampleSet));
 		} else {
 			buildTree(root, exampleSet, 1);
 		}
@@ -140,7 +160,74 @@ public class TreeBuilder {
 		return benefits;
 	}
 	
+	/** Calculates the benefits using the given index, which might be null. */
+	protected Vector<Benefit> calculateAllBenefits(final ExampleSet trainingSet, final PresortedIndex index) throws OperatorException {
+		if (index == null) {
+			return calculateAllBenefits(trainingSet);
+		}
+		List<Attribute> attributes = new ArrayList<Attribute>(trainingSet.getAttributes().size());
+		for (Attribute attribute : trainingSet.getAttributes()) {
+			attributes.add(attribute);
+		}
+		Benefit[] results = new Benefit[attributes.size()];
+		// only criteria explicitly supporting it are used concurrently
+		boolean concurrent = (criterion instanceof AbstractCriterion) && ((AbstractCriterion) criterion).supportsConcurrentCalculation();
+		if (concurrent && attributes.size() > 1 && (long) trainingSet.size() * attributes.size() >= MINIMAL_PARALLEL_VALUES) {
+			List<Callable<Benefit>> tasks = new ArrayList<Callable<Benefit>>(attributes.size());
+			List<Integer> taskAttributes = new ArrayList<Integer>(attributes.size());
+			for (int i = 0; i < attributes.size(); i++) {
+				final Attribute attribute = attributes.get(i);
+				if (attribute.isNominal() || index.isIndexed(attribute)) {
+					tasks.add(new Callable<Benefit>() {
+
+						@Override
+						public Benefit call() throws Exception {
+							return calculateBenefit(trainingSet, attribute, index);
+						}
+					});
+					taskAttributes.add(i);
+				} else {
+					// the splitter for attributes without index uses the shared criterion
+					results[i] = calculateBenefit(trainingSet, attribute, index);
+				}
+			}
+			List<Benefit> taskResults = ParallelExecutionService.invokeAll(tasks);
+			for (int i = 0; i < taskResults.size(); i++) {
+				results[taskAttributes.get(i)] = taskResults.get(i);
+			}
+		} else {
+			for (int i = 0; i < attributes.size(); i++) {
+				results[i] = calculateBenefit(trainingSet, attributes.get(i), index);
+			}
+		}
+
+		Vector<Benefit> benefits = new Vector<Benefit>();
+		for (Benefit benefit : results) {
+			if (benefit != null) {
+				benefits.add(benefit);
+			}
+		}
+		return benefits;
+	}
+
+	/** Calculates the benefit of the given attribute. Numerical splits are searched with the given index. */
+	protected Benefit calculateBenefit(ExampleSet trainingSet, Attribute attribute, PresortedIndex index) throws OperatorException {
+		if (attribute.isNominal() || !index.isIndexed(attribute) || !(criterion instanceof AbstractCriterion) || !criterion.supportsIncrementalCalculation()) {
+			return calculateBenefit(trainingSet, attribute);
+		}
+		double splitValue = index.getBestSplit(attribute, ((AbstractCriterion) criterion).copy());
+		if (!Double.isNaN(splitValue))
+			return new Benefit(criterion.getNumericalBenefit(trainingSet, attribute, splitValue), attribute, splitValue);
+		else
+			return null;
+	}
+	
 	protected void buildTree(Tree current, ExampleSet exampleSet, int depth) throws OperatorException {
+		buildTree(current, exampleSet, depth, null);
+	}
+
+	/** Builds the tree. The given index belongs to the given example set and might be null. */
+	protected void buildTree(Tree current, ExampleSet exampleSet, int depth, PresortedIndex index) throws OperatorException {
 		// terminate (beginning of recursive method!)
 		if (shouldStop(exampleSet, depth)) {
 			leafCreator.changeTreeToLeaf(current, exampleSet);
@@ -155,7 +242,7 @@ public class TreeBuilder {
 		ExampleSet trainingSet = (ExampleSet)exampleSet.clone();
 		
 		// calculate all benefits
-		Vector<Benefit> benefits = calculateAllBenefits(exampleSet);
+		Vector<Benefit> benefits = calculateAllBenefits(exampleSet, index);
 
 		// sort all benefits
 		Collections.sort(benefits);
@@ -202,6 +289,12 @@ public class TreeBuilder {
 				if (bestAttribute.isNominal()) {
 					splitted.getAttributes().remove(bestAttribute);
 				}
+				PresortedIndex[] childIndices = null;
+				if (index != null) {
+					childIndices = index.split(splitted);
+					// allows to free the memory of this node's index
+					index = null;
+				}
 				for (int i = 0; i < splitted.getNumberOfSubsets(); i++) {
 					splitted.selectSingleSubset(i);
 					if (splitted.size() > 0) {
@@ -217,7 +310,13 @@ public class TreeBuilder {
 							}
 						}
 						current.addChild(child, condition);
-						buildTree(child, splitted, depth + 1);
+						if (childIndices != null) {
+							PresortedIndex childIndex = childIndices[i];
+							childIndices[i] = null;
+							buildTree(child, splitted, depth + 1, childIndex);
+						} else {
+							buildTree(child, splitted, depth + 1);
+						}
 					}
 				}
 				
@@ -36,10 +36,12 @@ import com.rapidminer.parameter.ParameterHandler;
 import com.rapidminer.tools.Tools;
 /**
  * This criterion class can be used for the incremental calculation of benefits.
+ * Besides examples, the incremental calculation can be fed with label indices and
+ * weights directly, which is used by the {@link com.rapidminer.operator.learner.tree.PresortedIndex}.
  * 
  * @author Sebastian Land
  */
-public abstract class AbstractCriterion implements Criterion {
+public abstract class AbstractCriterion implements Criterion, Cloneable {
 	
 
     // data for incremental calculation
@@ -71,12 +73,28 @@ public abstract class AbstractCriterion implements Criterion {
 		weightAttribute = exampleSet.getAttributes().getWeight();
 	}
 
+	/** Starts the incremental calculation with all weight on the right side. The given array
+	 *  contains the weight sum of each label and is used for the right side. */
+	public void startIncrementalCalculation(double[] labelWeights) {
+		rightLabelWeights = labelWeights;
+		leftLabelWeights = new double[rightLabelWeights.length];
+		totalLabelWeights = new double[rightLabelWeights.length];
+		System.arraycopy(rightLabelWeights, 0, totalLabelWeights, 0, rightLabelWeights.length);
+		leftWeight = 0;
+		rightWeight = new FrequencyCalculator().getTotalWeight(totalLabelWeights);
+		totalWeight = rightWeight;
+	}
+
 	public void swapExample(Example example) {
 		double weight = 1;
 		if (weightAttribute != null) {
 			weight = example.getValue(weightAttribute);
 		}
-		int label = (int)example.getValue(labelAttribute);
+		swapWeight((int)example.getValue(labelAttribute), weight);
+	}
+
+	/** Moves the given weight of the given label from the right to the left side. */
+	public void swapWeight(int label, double weight) {
 		leftWeight += weight;
 		rightWeight -= weight;
 		leftLabelWeights[label] += weight;
@@ -86,6 +104,23 @@ public abstract class AbstractCriterion implements Criterion {
 	public double getIncrementalBenefit() {
 		return 0;
 	}
+
+	/** Returns a copy of this criterion, which can be used for an independent incremental calculation. */
+	public AbstractCriterion copy() {
+		try {
+			return (AbstractCriterion) clone();
+		} catch (CloneNotSupportedException e) {
+			throw new RuntimeException("Cannot copy criterion: " + e, e);
+		}
+	}
+
+	/** 
+	 * Returns true if the benefits of different attributes may be calculated concurrently, using a {@link #copy()}
+	 * of this criterion for each incremental calculation. Subclasses must explicitly enable this.
+	 */
+	public boolean supportsConcurrentCalculation() {
+		return false;
+	}
 	
 	
 	/**
@@ -68,6 +68,11 @@ public class AccuracyCriterion extends AbstractCriterion {
 	public boolean supportsIncrementalCalculation() {
     	return true;
     }
+
+    @Override
+	public boolean supportsConcurrentCalculation() {
+    	return true;
+    }
     
  	@Override
 	public double getIncrementalBenefit() {
@@ -107,6 +107,11 @@ public class GainRatioCriterion extends InfoGainCriterion {
 		return true;
 	}
 
+	@Override
+	public boolean supportsConcurrentCalculation() {
+		return true;
+	}
+
 	@Override
 	public double getIncrementalBenefit() {
 		double gain = getEntropy(totalLabelWeights, totalWeight);
@@ -80,6 +80,11 @@ public class GiniIndexCriterion extends AbstractCriterion {
 	public boolean supportsIncrementalCalculation() {
     	return true;
     }
+
+    @Override
+	public boolean supportsConcurrentCalculation() {
+    	return true;
+    }
     
 	@Override
 	public double getIncrementalBenefit() {
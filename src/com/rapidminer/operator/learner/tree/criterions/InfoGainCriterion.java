@@ -139,6 +139,11 @@ public class InfoGainCriterion extends AbstractCriterion implements MinimalGainH
 	public boolean supportsIncrementalCalculation() {
     	return true;
     }
+
+    @Override
+	public boolean supportsConcurrentCalculation() {
+    	return true;
+    }
     
 	@Override
 	public double getIncrementalBenefit() {
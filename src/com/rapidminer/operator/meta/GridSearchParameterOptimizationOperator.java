@@ -22,6 +22,7 @@
  */
 package com.rapidminer.operator.meta;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -152,6 +153,13 @@ public class GridSearchParameterOptimizationOperator extends ParameterOptimizati
         if (numberOfCombinations <= 1)
             throw new UserError(this, 922);
         
+        int parallelEvaluations = getNumberOfParallelEvaluations();
+        if (parallelEvaluations > 1) {
+        	optimizeInParallel(parallelEvaluations);
+        	deliver(best);
+        	return;
+        }
+
         int counter = 1;
 		best = null;
 		while (true) {
@@ -187,4 +195,56 @@ public class GridSearchParameterOptimizationOperator extends ParameterOptimizati
 
 		deliver(best);
 	}
+
+	/**
+	 * Evaluates blocks of the given number of parameter combinations concurrently. The results
+	 * are compared in the same order as in the sequential optimization, so the same parameter set
+	 * is selected in case of ties.
+	 */
+	private void optimizeInParallel(int parallelEvaluations) throws OperatorException {
+		int counter = 1;
+		best = null;
+		boolean ok = true;
+		while (ok) {
+			List<ParameterSet> sets = new ArrayList<ParameterSet>(parallelEvaluations);
+			List<String[]> setValues = new ArrayList<String[]>(parallelEvaluations);
+			while (ok && sets.size() < parallelEvaluations) {
+				String[] currentValues = new String[parameters.length];
+				for (int j = 0; j < parameters.length; j++) {
+					currentValues[j] = values[j][currentIndex[j]];
+				}
+				sets.add(new ParameterSet(operators, parameters, currentValues, null));
+				setValues.add(currentValues);
+
+				// next parameter values
+				int k = 0;
+				while (!(++currentIndex[k] < values[k].length)) {
+					currentIndex[k] = 0;
+					k++;
+					if (k >= currentIndex.length) {
+						ok = false;
+						break;
+					}
+				}
+			}
+
+			List<ParallelEvaluationResult> results = evaluateInParallel(sets);
+			for (int i = 0; i < sets.size(); i++) {
+				getLogger().fine("Evaluated parameter set " + counter + " / " + numberOfCombinations + ": " + sets.get(i));
+				ParallelEvaluationResult result = results.get(i);
+				PerformanceVector performance = result.getPerformance();
+				if ((best == null) || ((performance != null) && (performance.compareTo(best.getPerformance()) > 0))) {
+					best = new ParameterSet(operators, parameters, setValues.get(i), performance);
+					getInnerSinkExtender().passDataThrough(result.getInnerResults());
+				}
+				inApplyLoop();
+				counter++;
+			}
+		}
+	}
+
+	@Override
+	protected boolean supportsParallelEvaluation() {
+		return true;
+	}
 }
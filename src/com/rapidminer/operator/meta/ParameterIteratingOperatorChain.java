@@ -22,12 +22,22 @@
  */
 package com.rapidminer.operator.meta;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
 import com.rapidminer.RapidMiner;
+import com.rapidminer.example.ExampleSet;
 import com.rapidminer.gui.properties.ConfigureParameterOptimizationDialogCreator;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Operator;
@@ -44,18 +54,24 @@ import com.rapidminer.operator.ports.metadata.MetaData;
 import com.rapidminer.operator.ports.metadata.SimplePrecondition;
 import com.rapidminer.operator.ports.metadata.SubprocessTransformRule;
 import com.rapidminer.operator.ports.quickfix.ParameterSettingQuickFix;
+import com.rapidminer.operator.preprocessing.MaterializeDataInMemory;
+import com.rapidminer.operator.visualization.ProcessLogOperator;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeConfiguration;
 import com.rapidminer.parameter.ParameterTypeInnerOperator;
+import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.ParameterTypeList;
 import com.rapidminer.parameter.ParameterTypeParameterValue;
 import com.rapidminer.parameter.ParameterTypeString;
 import com.rapidminer.parameter.ParameterTypeTupel;
 import com.rapidminer.parameter.UndefinedParameterError;
+import com.rapidminer.parameter.conditions.BooleanParameterCondition;
 import com.rapidminer.parameter.value.ParameterValueGrid;
 import com.rapidminer.parameter.value.ParameterValueList;
 import com.rapidminer.parameter.value.ParameterValueRange;
 import com.rapidminer.parameter.value.ParameterValues;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.ParameterService;
 
 
@@ -85,6 +101,12 @@ public abstract class ParameterIteratingOperatorChain extends OperatorChain {
 
     private static final int PARAMETER_VALUES_ARRAY_LENGTH_SCALED_GRID = 4;
 
+    /** The parameter name for &quot;Indicates if several parameter combinations should be evaluated concurrently on copies of the subprocess.&quot; */
+    public static final String PARAMETER_PARALLELIZE_EVALUATION = "parallelize_evaluation";
+
+    /** The parameter name for &quot;The maximal number of parameter combinations evaluated at the same time (0: number of threads of the process).&quot; */
+    public static final String PARAMETER_NUMBER_OF_PARALLEL_EVALUATIONS = "number_of_parallel_evaluations";
+
     private static final String PARAMETER_OPERATOR_PARAMETER_PAIR = "operator_parameter_pair";
 
     private static final String PARAMETER_OPERATOR = "operator_name";
@@ -240,8 +262,13 @@ public abstract class ParameterIteratingOperatorChain extends OperatorChain {
     }
 
     protected PerformanceVector getPerformance(boolean cloneInput) {
+        inputExtender.passDataThrough();
+        return executeAndGetPerformance();
+    }
+
+    /** Executes the subprocess on the data already passed to it and returns its performance or null if it fails. */
+    private PerformanceVector executeAndGetPerformance() {
         try {
-            inputExtender.passDataThrough();
             executeSubprocess();
             if (isPerformanceRequired()) {
                 return getPerformanceInnerSink().getData(PerformanceVector.class);
@@ -253,14 +280,140 @@ public abstract class ParameterIteratingOperatorChain extends OperatorChain {
         	builder.append(this.getName());
         	builder.append(": Cannot evaluate performance for current parameter combination because of an error in one of the inner operators: ");
         	builder.append(e.getMessage());
-        	getLogger().severe(builder.toString());
 //            getLogger().severe("Cannot evaluate performance for current parameter combination: " + e.getMessage());
-            if (Boolean.parseBoolean(ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_DEBUGMODE)))
-                e.printStackTrace();
+            if (Boolean.parseBoolean(ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_DEBUGMODE))) {
+                getLogger().log(Level.SEVERE, builder.toString(), e);
+            } else {
+                getLogger().severe(builder.toString());
+            }
             return null;
         }
     }
 
+    /**
+     * Subclasses evaluating the parameter combinations independently of each other should return true
+     * and use {@link #evaluateInParallel(List)} if {@link #getNumberOfParallelEvaluations()} is greater than one.
+     * Only then the parameters for the parallel evaluation are offered.
+     */
+    protected boolean supportsParallelEvaluation() {
+        return false;
+    }
+
+    /** Returns the number of parameter combinations which should be evaluated concurrently. Returns 1 if the
+     *  parallel evaluation is not supported or not enabled. */
+    protected int getNumberOfParallelEvaluations() throws UndefinedParameterError {
+        if (!supportsParallelEvaluation() || !getParameterAsBoolean(PARAMETER_PARALLELIZE_EVALUATION)) {
+            return 1;
+        }
+        int number = getParameterAsInt(PARAMETER_NUMBER_OF_PARALLEL_EVALUATIONS);
+        if (number <= 0) {
+            number = ParallelExecutionService.getNumberOfThreads();
+        }
+        return number;
+    }
+
+    /** The performance and the inner results of the evaluation of a parameter set by a copy of this operator. */
+    protected static class ParallelEvaluationResult {
+
+        private final PerformanceVector performance;
+
+        private final List<IOObject> innerResults;
+
+        private ParallelEvaluationResult(PerformanceVector performance, List<IOObject> innerResults) {
+            this.performance = performance;
+            this.innerResults = innerResults;
+        }
+
+        /** Returns the performance or null if the subprocess failed or did not deliver a performance. */
+        public PerformanceVector getPerformance() {
+            return performance;
+        }
+
+        /** Returns the data delivered to the inner sinks in the order of the inner sink extender. */
+        public List<IOObject> getInnerResults() {
+            return innerResults;
+        }
+    }
+
+    /**
+     * Evaluates the given parameter sets concurrently and returns the results in the order of the given
+     * sets. At most {@link #getNumberOfParallelEvaluations()} sets are evaluated at the same time, each by
+     * a copy of this operator whose subprocess receives copies of the input of this operator. Example sets 
+     * are materialized since inner operators might write into the underlying example table, the copies keep
+     * their data management and use their own nominal mappings. Like the subprocess of this operator in the
+     * sequential case, each copy evaluates several sets one after another on the same input. The parameters of 
+     * the parameter sets are applied to the operators of the copy having the same names. The original subprocess
+     * is not executed at all. As in {@link #getPerformance()}, errors in the subprocess are logged and result 
+     * in a null performance. Rows of inner {@link ProcessLogOperator}s are logged in the order of the given sets.
+     */
+    protected List<ParallelEvaluationResult> evaluateInParallel(final List<ParameterSet> parameterSets) throws OperatorException {
+        final ParallelEvaluationResult[] results = new ParallelEvaluationResult[parameterSets.size()];
+        final List<Map<ProcessLogOperator, List<Object[]>>> loggedValues = new ArrayList<Map<ProcessLogOperator, List<Object[]>>>(Collections.nCopies(parameterSets.size(), (Map<ProcessLogOperator, List<Object[]>>) null));
+        final AtomicInteger nextSet = new AtomicInteger();
+
+        List<IOObject> input = inputExtender.getInputDataOrNull();
+        int numberOfCopies = Math.min(getNumberOfParallelEvaluations(), parameterSets.size());
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numberOfCopies);
+        for (int i = 0; i < numberOfCopies; i++) {
+            // the copies are created in the operator thread since the input might not be readable concurrently
+            final ParameterIteratingOperatorChain copy = (ParameterIteratingOperatorChain) cloneForParallelExecution();
+            final List<IOObject> copiedInput = new ArrayList<IOObject>(input.size());
+            for (IOObject object : input) {
+                if (object instanceof ExampleSet) {
+                    copiedInput.add(MaterializeDataInMemory.materializeIndependentCopy((ExampleSet) object));
+                } else {
+                    copiedInput.add(object == null ? null : object.copy());
+                }
+            }
+            final Map<String, Operator> innerOperators = new HashMap<String, Operator>();
+            final List<ProcessLogOperator> copiedLogOperators = new LinkedList<ProcessLogOperator>();
+            for (Operator operator : copy.getAllInnerOperators()) {
+                innerOperators.put(operator.getName(), operator);
+                if (operator instanceof ProcessLogOperator) {
+                    ((ProcessLogOperator) operator).bufferValues();
+                    copiedLogOperators.add((ProcessLogOperator) operator);
+                }
+            }
+
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws OperatorException {
+                    for (int set = nextSet.getAndIncrement(); set < parameterSets.size(); set = nextSet.getAndIncrement()) {
+                        checkForStopConcurrently();
+                        Iterator<ParameterValue> values = parameterSets.get(set).getParameterValues();
+                        while (values.hasNext()) {
+                            ParameterValue value = values.next();
+                            Operator operator = innerOperators.get(value.getOperator());
+                            if (operator == null) {
+                                throw new UserError(ParameterIteratingOperatorChain.this, 109, value.getOperator());
+                            }
+                            operator.getParameters().setParameter(value.getParameterKey(), value.getParameterValue());
+                        }
+
+                        copy.inputExtender.passDataThrough(copiedInput);
+                        PerformanceVector performance = copy.executeAndGetPerformance();
+                        results[set] = new ParallelEvaluationResult(performance, copy.innerSinkExtender.getInputDataOrNull());
+
+                        Map<ProcessLogOperator, List<Object[]>> setValues = new LinkedHashMap<ProcessLogOperator, List<Object[]>>();
+                        for (ProcessLogOperator logOperator : copiedLogOperators) {
+                            setValues.put(logOperator, logOperator.takeBufferedValues());
+                        }
+                        loggedValues.set(set, setValues);
+                    }
+                    return null;
+                }
+            });
+        }
+        ParallelExecutionService.invokeAll(tasks);
+
+        for (Map<ProcessLogOperator, List<Object[]>> setValues : loggedValues) {
+            for (Map.Entry<ProcessLogOperator, List<Object[]>> entry : setValues.entrySet()) {
+                entry.getKey().logBufferedValues(entry.getValue());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
     /** Returns the results at the inner sink port extender. Does not include
      *  a possible performance vector at the respective input. {@link #executeSubprocess()}
      *  or {@link #getPerformance()} must have been called earlier.
@@ -287,6 +440,12 @@ public abstract class ParameterIteratingOperatorChain extends OperatorChain {
                         new ParameterTypeParameterValue(PARAMETER_VALUES, "The value specifications for the parameters."));
         type.setHidden(true);
         types.add(type);
+        if (supportsParallelEvaluation()) {
+            types.add(new ParameterTypeBoolean(PARAMETER_PARALLELIZE_EVALUATION, "Indicates if several parameter combinations should be evaluated concurrently on copies of the subprocess.", false, true));
+            type = new ParameterTypeInt(PARAMETER_NUMBER_OF_PARALLEL_EVALUATIONS, "The maximal number of parameter combinations evaluated at the same time (0: number of threads of the process).", 0, Integer.MAX_VALUE, 0, true);
+            type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_PARALLELIZE_EVALUATION, true, true));
+            types.add(type);
+        }
         return types;
     }
 
@@ -22,6 +22,7 @@
  */
 package com.rapidminer.operator.meta;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Level;
@@ -168,6 +169,8 @@ public class ParameterIteration extends ParameterIteratingOperatorChain {
 			throw new UserError(this, 958);
 	
 		// iterate parameter combinations
+		int parallelEvaluations = getNumberOfParallelEvaluations();
+		List<ParameterSet> pendingSets = new ArrayList<ParameterSet>(parallelEvaluations);
 		this.iteration = 0;
 		while (true) {
 			checkForStop();
@@ -179,9 +182,16 @@ public class ParameterIteration extends ParameterIteratingOperatorChain {
 			}
 			ParameterSet set = new ParameterSet(operators, parameters, currentValues, null);
 
-			evaluateParameterSet(set);
-
-			this.iteration++;
+			if (parallelEvaluations > 1) {
+				pendingSets.add(set);
+				if (pendingSets.size() >= parallelEvaluations) {
+					evaluateParameterSetsInParallel(pendingSets);
+					pendingSets.clear();
+				}
+			} else {
+				evaluateParameterSet(set);
+				this.iteration++;
+			}
 			
 			boolean ok = true;
 			if (!isSynchronized) { 
@@ -209,7 +219,12 @@ public class ParameterIteration extends ParameterIteratingOperatorChain {
 				break;
 			}				
 
-			inApplyLoop();			
+			if (parallelEvaluations <= 1) {
+				inApplyLoop();
+			}
+		}
+		if (!pendingSets.isEmpty()) {
+			evaluateParameterSetsInParallel(pendingSets);
 		}
 	}
 
@@ -225,6 +240,29 @@ public class ParameterIteration extends ParameterIteratingOperatorChain {
 		}
 	}
 		
+	/** Evaluates the given parameter sets concurrently and collects the results in the order of the sets. */
+	private void evaluateParameterSetsInParallel(List<ParameterSet> sets) throws OperatorException {
+		List<ParallelEvaluationResult> results = evaluateInParallel(sets);
+		for (int i = 0; i < sets.size(); i++) {
+			if (getLogger().isLoggable(Level.FINE)) {
+				getLogger().fine("Evaluated parameter set: " + sets.get(i).toString());
+			}
+			ParallelEvaluationResult result = results.get(i);
+			this.performance = result.getPerformance();
+			((CollectingPortPairExtender)getInnerSinkExtender()).collect(result.getInnerResults());
+			if (performance == null) {
+				getLogger().info("Inner operators of " + getName() + " do not provide performance vectors. Performance cannot be plotted.");
+			}
+			this.iteration++;
+			inApplyLoop();
+		}
+	}
+
+	@Override
+	protected boolean supportsParallelEvaluation() {
+		return true;
+	}
+
 	@Override
 	protected PortPairExtender makeInnerSinkExtender() {
 		return new CollectingPortPairExtender("result", getSubprocess(0).getInnerSinks(), getOutputPorts());
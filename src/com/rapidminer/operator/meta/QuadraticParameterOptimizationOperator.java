@@ -81,6 +81,12 @@ public class QuadraticParameterOptimizationOperator extends GridSearchParameterO
         }
     }
 
+	/** The quadratic interpolation does not use the parallel evaluation of the grid search. */
+	@Override
+	protected boolean supportsParallelEvaluation() {
+		return false;
+	}
+
 	@Override
 	public void doWork() throws OperatorException {
 		getParametersToOptimize();
@@ -28,10 +28,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.gui.tools.dialogs.wizards.dataimport.csv.LineReader;
 import com.rapidminer.operator.Operator;
@@ -42,10 +44,13 @@ import com.rapidminer.tools.CSVParseException;
 import com.rapidminer.tools.LineParser;
 import com.rapidminer.tools.LogService;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.ProgressListener;
 import com.rapidminer.tools.WebServiceTools;
 
 /**
+ * A {@link DataResultSet} for CSV files. The lines are read in batches, which are split into
+ * their values concurrently. Rows are delivered in the order of the lines nevertheless.
  * 
  * @author Simon Fischer
  * 
@@ -53,6 +58,12 @@ import com.rapidminer.tools.WebServiceTools;
 public class CSVResultSet implements DataResultSet {
 
     private static final int MAX_LOG_COUNT = 100;
+
+    /** The number of lines that are read and parsed at once. */
+    private static final int BATCH_SIZE = 8192;
+
+    private static final int MINIMAL_BLOCK_SIZE = 1024;
+
 	private CSVResultSetConfiguration configuration;
     private LineReader reader;
     private LineParser parser;
@@ -67,6 +78,13 @@ public class CSVResultSet implements DataResultSet {
     private final List<ParsingError> errors = new LinkedList<ParsingError>();
 	private int logCount = 0;
 
+    /** The lines of the current batch, their values or the exception thrown while parsing them. */
+    private String[] batchLines;
+    private String[][] batchValues;
+    private CSVParseException[] batchExceptions;
+    private int batchSize;
+    private int batchPosition;
+
     public CSVResultSet(CSVResultSetConfiguration configuration, Operator operator) throws OperatorException {
         this.configuration = configuration;
         this.operator = operator;
@@ -97,6 +115,11 @@ public class CSVResultSet implements DataResultSet {
 
         reader = new LineReader(in, configuration.getEncoding());
         parser = new LineParser(configuration);
+        batchLines = new String[BATCH_SIZE];
+        batchValues = new String[BATCH_SIZE][];
+        batchExceptions = new CSVParseException[BATCH_SIZE];
+        batchSize = 0;
+        batchPosition = 0;
         try {
             readNext();
         } catch (IOException e) {
@@ -144,19 +167,21 @@ public class CSVResultSet implements DataResultSet {
         }
     }
 
-    private void readNext() throws IOException {
+    private void readNext() throws IOException, OperatorException {
         do {
-            String line = reader.readLine();
-            if (line == null) {
+            if (batchPosition == batchSize && !readBatch()) {
                 next = null;
                 return;
             }
-            try {
-                next = parser.parse(line);
+            String line = batchLines[batchPosition];
+            CSVParseException e = batchExceptions[batchPosition];
+            next = batchValues[batchPosition];
+            batchPosition++;
+            if (e == null) {
                 if (next != null) { // no comment read
                     break;
                 }
-            } catch (CSVParseException e) {
+            } else {
             	ParsingError parsingError = new ParsingError(currentRow, -1, ErrorCode.FILE_SYNTAX_ERROR, line, e);
                 getErrors().add(parsingError);
                 String warning = "Could not parse line " + currentRow + " in input: " + e.toString();
@@ -182,6 +207,57 @@ public class CSVResultSet implements DataResultSet {
         numColumns = Math.max(numColumns, next.length);
     }
 
+    /**
+     * Reads the next batch of lines and splits them into their values. If there are enough lines,
+     * this is done in several blocks in parallel. Returns false if no line is left.
+     */
+    private boolean readBatch() throws IOException, OperatorException {
+        batchSize = 0;
+        batchPosition = 0;
+        String line;
+        while (batchSize < BATCH_SIZE && (line = reader.readLine()) != null) {
+            batchLines[batchSize++] = line;
+        }
+        if (batchSize == 0) {
+            return false;
+        }
+
+        int numberOfBlocks = ParallelExecutionService.getNumberOfBlocks(batchSize, MINIMAL_BLOCK_SIZE);
+        if (numberOfBlocks == 1) {
+            parseLines(0, batchSize);
+        } else {
+            int[] boundaries = ParallelExecutionService.getBlockBoundaries(batchSize, numberOfBlocks);
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(boundaries.length - 1);
+            for (int i = 0; i < boundaries.length - 1; i++) {
+                final int start = boundaries[i];
+                final int end = boundaries[i + 1];
+                tasks.add(new Callable<Void>() {
+
+                    @Override
+                    public Void call() {
+                        parseLines(start, end);
+                        return null;
+                    }
+                });
+            }
+            ParallelExecutionService.invokeAll(tasks);
+        }
+        return true;
+    }
+
+    /** Parses the lines of the current batch in the given range. */
+    private void parseLines(int start, int end) {
+        for (int i = start; i < end; i++) {
+            try {
+                batchValues[i] = parser.parse(batchLines[i]);
+                batchExceptions[i] = null;
+            } catch (CSVParseException e) {
+                batchValues[i] = null;
+                batchExceptions[i] = e;
+            }
+        }
+    }
+
     @Override
     public boolean hasNext() {
         return next != null;
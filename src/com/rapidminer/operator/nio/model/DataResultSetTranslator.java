@@ -32,6 +32,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.RapidMiner;
 import com.rapidminer.example.Attribute;
@@ -49,6 +50,7 @@ import com.rapidminer.operator.nio.ImportWizardUtils;
 import com.rapidminer.operator.nio.model.DataResultSet.ValueType;
 import com.rapidminer.operator.nio.model.ParsingError.ErrorCode;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.ParameterService;
 import com.rapidminer.tools.ProgressListener;
 import com.rapidminer.tools.container.Pair;
@@ -61,6 +63,11 @@ import com.rapidminer.tools.container.Pair;
  */
 public class DataResultSetTranslator {
 
+    /** The number of rows of a {@link CSVResultSet} that are converted at once. */
+    private static final int BATCH_SIZE = 10000;
+
+    private static final int MINIMAL_BLOCK_SIZE = 1000;
+
     private static class NominalValueSet {
         private String first = null;
         private String second = null;
@@ -141,10 +148,18 @@ public class DataResultSetTranslator {
         dataResultSet.reset(listener);
         DataRowFactory factory = new DataRowFactory(configuration.getDataManagementType(), '.');
         int maxAnnotatedRow = configuration.getLastAnnotatedRowIndex();
+        // csv files only deliver strings, hence their values might be converted in parallel
+        boolean convertInBatches = maxRows < 0 && dataResultSet instanceof CSVResultSet && ParallelExecutionService.getNumberOfThreads() > 1;
         while (dataResultSet.hasNext() && !shouldStop && (currentRow < maxRows || maxRows < 0)) {
             if (cancelLoadingRequested) {
                 break;
             }
+            if (convertInBatches && currentRow > maxAnnotatedRow) {
+                int numberOfRows = readBatch(dataResultSet, configuration, attributes, attributeColumns, exampleTable, factory, exampleIndex, isFaultTolerant, listener);
+                exampleIndex += numberOfRows;
+                currentRow += numberOfRows;
+                continue;
+            }
             dataResultSet.next(listener);
             // checking for annotation
             String currentAnnotation;
@@ -275,6 +290,152 @@ public class DataResultSetTranslator {
         return exampleSet;
     }
 
+    /**
+     * Reads up to {@link #BATCH_SIZE} rows of the given data result set, which must deliver all
+     * values as strings, and adds them to the example table. Numerical and date values are parsed
+     * in parallel, while the nominal values are mapped and the errors are reported in the order of
+     * the rows. Returns the number of rows read.
+     */
+    private int readBatch(DataResultSet dataResultSet, DataResultSetTranslationConfiguration configuration, Attribute[] attributes, final int[] attributeColumns, MemoryExampleTable exampleTable, DataRowFactory factory, int firstExampleIndex, boolean isFaultTolerant, ProgressListener listener) throws OperatorException {
+        final int[] valueTypes = new int[attributes.length];
+        boolean containsDates = false;
+        for (int i = 0; i < attributes.length; i++) {
+            valueTypes[i] = attributes[i].getValueType();
+            containsDates |= isDateType(valueTypes[i]);
+        }
+
+        // collecting the strings, null denotes missing values
+        final String[][] values = new String[BATCH_SIZE][];
+        final int[] resultSetRows = new int[BATCH_SIZE];
+        int numberOfRows = 0;
+        while (numberOfRows < BATCH_SIZE && dataResultSet.hasNext() && !shouldStop && !cancelLoadingRequested) {
+            dataResultSet.next(listener);
+            String[] rowValues = new String[attributes.length];
+            for (int i = 0; i < attributes.length; i++) {
+                if (!dataResultSet.isMissing(attributeColumns[i])) {
+                    rowValues[i] = getString(dataResultSet, firstExampleIndex + numberOfRows, attributeColumns[i], isFaultTolerant);
+                }
+            }
+            values[numberOfRows] = rowValues;
+            resultSetRows[numberOfRows] = dataResultSet.getCurrentRow();
+            numberOfRows++;
+        }
+
+        // parsing numbers and dates, formats are not thread safe and hence copied for each block
+        final double[][] parsedValues = new double[numberOfRows][];
+        final ParsingError[][] parsingErrors = new ParsingError[numberOfRows][];
+        final NumberFormat numberFormat = configuration.getNumberFormat();
+        final DateFormat dateFormat = containsDates ? configuration.getDateFormat() : null;
+        int numberOfBlocks = ParallelExecutionService.getNumberOfBlocks(numberOfRows, MINIMAL_BLOCK_SIZE);
+        if (numberOfBlocks == 1) {
+            parseValues(values, resultSetRows, 0, numberOfRows, valueTypes, attributeColumns, numberFormat, dateFormat, parsedValues, parsingErrors);
+        } else {
+            int[] boundaries = ParallelExecutionService.getBlockBoundaries(numberOfRows, numberOfBlocks);
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(boundaries.length - 1);
+            for (int i = 0; i < boundaries.length - 1; i++) {
+                final int start = boundaries[i];
+                final int end = boundaries[i + 1];
+                tasks.add(new Callable<Void>() {
+
+                    @Override
+                    public Void call() {
+                        parseValues(values, resultSetRows, start, end, valueTypes, attributeColumns, numberFormat == null ? null : (NumberFormat) numberFormat.clone(), dateFormat == null ? null : (DateFormat) dateFormat.clone(), parsedValues, parsingErrors);
+                        return null;
+                    }
+                });
+            }
+            ParallelExecutionService.invokeAll(tasks);
+        }
+
+        // creating data rows in order
+        for (int rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            DataRow row = factory.create(attributes.length);
+            exampleTable.addDataRow(row);
+            String[] rowValues = values[rowIndex];
+            for (int i = 0; i < attributes.length; i++) {
+                Attribute attribute = attributes[i];
+                String value = rowValues[i];
+                if (value == null) {
+                    row.set(attribute, Double.NaN);
+                } else if (isNumericalType(valueTypes[i]) || isDateType(valueTypes[i])) {
+                    if (parsingErrors[rowIndex] != null && parsingErrors[rowIndex][i] != null) {
+                        addOrThrow(isFaultTolerant, parsingErrors[rowIndex][i], firstExampleIndex + rowIndex);
+                        row.set(attribute, Double.NaN);
+                    } else {
+                        row.set(attribute, parsedValues[rowIndex][i]);
+                    }
+                } else {
+                    try {
+                        row.set(attribute, attribute.getMapping().mapString(value));
+                    } catch (AttributeTypeException e) {
+                        ParsingError error = new ParsingError(resultSetRows[rowIndex], attributeColumns[i], ErrorCode.MORE_THAN_TWO_VALUES, value, e);
+                        addOrThrow(isFaultTolerant, error, firstExampleIndex + rowIndex);
+                        row.set(attribute, Double.NaN);
+                    }
+                }
+            }
+        }
+        return numberOfRows;
+    }
+
+    /**
+     * Parses the numerical and date values of the given range of rows. Values which cannot be
+     * parsed are stored as NaN together with the corresponding error.
+     */
+    private static void parseValues(String[][] values, int[] resultSetRows, int start, int end, int[] valueTypes, int[] attributeColumns, NumberFormat numberFormat, DateFormat dateFormat, double[][] parsedValues, ParsingError[][] parsingErrors) {
+        for (int rowIndex = start; rowIndex < end; rowIndex++) {
+            String[] rowValues = values[rowIndex];
+            double[] rowResults = new double[valueTypes.length];
+            for (int i = 0; i < valueTypes.length; i++) {
+                String value = rowValues[i];
+                if (value == null) {
+                    continue;
+                }
+                ParsingError error = null;
+                if (isNumericalType(valueTypes[i])) {
+                    if (numberFormat != null) {
+                        try {
+                            Number parsedValue = numberFormat.parse(value);
+                            rowResults[i] = parsedValue == null ? Double.NaN : parsedValue.doubleValue();
+                        } catch (ParseException e) {
+                            error = new ParsingError(resultSetRows[rowIndex], attributeColumns[i], ErrorCode.UNPARSEABLE_REAL, value, e);
+                        }
+                    } else {
+                        try {
+                            rowResults[i] = Double.parseDouble(value);
+                        } catch (NumberFormatException e) {
+                            error = new ParsingError(resultSetRows[rowIndex], attributeColumns[i], ErrorCode.UNPARSEABLE_REAL, value, e);
+                        }
+                    }
+                } else if (isDateType(valueTypes[i])) {
+                    try {
+                        rowResults[i] = dateFormat.parse(value).getTime();
+                    } catch (ParseException e) {
+                        error = new ParsingError(resultSetRows[rowIndex], attributeColumns[i], ErrorCode.UNPARSEABLE_DATE, value, e);
+                    }
+                }
+                if (error != null) {
+                    rowResults[i] = Double.NaN;
+                    if (parsingErrors[rowIndex] == null) {
+                        parsingErrors[rowIndex] = new ParsingError[valueTypes.length];
+                    }
+                    parsingErrors[rowIndex][i] = error;
+                }
+            }
+            parsedValues[rowIndex] = rowResults;
+        }
+    }
+
+    /** Returns true for the value types which {@link #read} parses as numbers. */
+    private static boolean isNumericalType(int valueType) {
+        return valueType == Ontology.INTEGER || valueType == Ontology.NUMERICAL || valueType == Ontology.REAL;
+    }
+
+    /** Returns true for the value types which {@link #read} parses as dates. */
+    private static boolean isDateType(int valueType) {
+        return valueType == Ontology.DATE_TIME || valueType == Ontology.TIME || valueType == Ontology.DATE;
+    }
+
     /** If native type is date, returns the date. Otherwise, uses string and parses.
      */
     private double getOrParseDate(DataResultSetTranslationConfiguration config, DataResultSet dataResultSet, int row, int column, boolean isFaultTolerant) throws OperatorException {
@@ -22,6 +22,8 @@
  */
 package com.rapidminer.operator.ports;
 
+import java.util.List;
+
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.IOObjectCollection;
 import com.rapidminer.operator.ports.metadata.CollectionMetaData;
@@ -62,11 +64,19 @@ public class CollectingPortPairExtender extends PortPairExtender {
 
 	/** For all input ports that have data, this data is added to the collection currently assigned
 	 *  to the output port. */
-	@SuppressWarnings("unchecked")
 	public void collect() {
+		collect(getInputDataOrNull());
+	}
+
+	/** Adds the given data to the collections currently assigned to the output ports, the list
+	 *  must contain one entry per managed pair. Null entries are ignored. */
+	@SuppressWarnings("unchecked")
+	public void collect(List<IOObject> inputData) {
 		synchronized (this) {
+			int i = 0;
 			for (PortPair pair : getManagedPairs()) {
-				IOObject data = pair.getInputPort().getAnyDataOrNull();
+				IOObject data = i < inputData.size() ? inputData.get(i) : null;
+				i++;
 				if (data != null) {
 					IOObject output = pair.getOutputPort().getAnyDataOrNull();
 					if (output == null) { // first iteration
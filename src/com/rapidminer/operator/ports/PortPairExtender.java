@@ -22,6 +22,7 @@
  */
 package com.rapidminer.operator.ports;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -222,6 +223,27 @@ public class PortPairExtender implements PortExtender {
 		}
 	}
 
+	/** Returns the data at the input ports in the order of the managed pairs. Entries are null 
+	 *  for input ports without data. */
+	public List<IOObject> getInputDataOrNull() {
+		List<IOObject> data = new ArrayList<IOObject>(managedPairs.size());
+		for (PortPair pair : managedPairs) {
+			data.add(pair.inputPort.getAnyDataOrNull());
+		}
+		return data;
+	}
+
+	/** Delivers the given data to the output ports in the order of the managed pairs. The list
+	 *  is usually obtained by {@link #getInputDataOrNull()} from an extender with the same ports,
+	 *  e.g. of a copy of the owning operator used for parallel execution. */
+	public void passDataThrough(List<IOObject> data) {
+		int i = 0;
+		for (PortPair pair : managedPairs) {
+			pair.outputPort.deliver(i < data.size() ? data.get(i) : null);
+			i++;
+		}
+	}
+
 	/** Does the same as {@link #passDataThrough()} but copies the IOObjects. */
 	public void passCloneThrough() {
 		for (PortPair pair : managedPairs) {
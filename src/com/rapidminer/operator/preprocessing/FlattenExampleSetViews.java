@@ -0,0 +1,52 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing;
+
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.ExampleSetFlattener;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+
+/**
+ * Collapses stacked row views like filtered, sampled, sorted or splitted example sets into
+ * a single view on the underlying data. In contrast to {@link MaterializeDataInMemory} no data
+ * is copied. See {@link ExampleSetFlattener} for details.
+ * 
+ * @author agent
+ */
+public class FlattenExampleSetViews extends AbstractDataProcessing {
+
+	public FlattenExampleSetViews(OperatorDescription description) {
+		super(description);
+	}
+
+	@Override
+	public ExampleSet apply(ExampleSet exampleSet) throws OperatorException {
+		return ExampleSetFlattener.flatten(exampleSet);
+	}
+
+	@Override
+	public boolean writesIntoExistingData() {
+		return false;
+	}
+}
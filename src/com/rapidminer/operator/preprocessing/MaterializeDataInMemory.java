@@ -33,15 +33,20 @@ import com.rapidminer.example.AttributeRole;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.ColumnarExampleTable;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.DataRowReader;
+import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.NominalMapping;
 import com.rapidminer.operator.MemoryCleanUp;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.annotation.ResourceConsumptionEstimator;
 import com.rapidminer.operator.io.ExampleSource;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.tools.OperatorResourceConsumptionHandler;
@@ -56,13 +61,16 @@ import com.rapidminer.tools.OperatorResourceConsumptionHandler;
  */
 public class MaterializeDataInMemory extends AbstractDataProcessing {
 
+	/** The parameter name for &quot;Indicates if the data should be stored column-wise in one primitive array per attribute.&quot; */
+	public static final String PARAMETER_COLUMN_ORIENTED = "column_oriented";
+
 	public MaterializeDataInMemory(OperatorDescription description) {
 		super(description);
 	}
 
 	@Override
 	public ExampleSet apply(ExampleSet exampleSet) throws OperatorException {		
-		ExampleSet createdSet = materializeExampleSet(exampleSet, getParameterAsInt(ExampleSource.PARAMETER_DATAMANAGEMENT));
+		ExampleSet createdSet = materializeExampleSet(exampleSet, getParameterAsInt(ExampleSource.PARAMETER_DATAMANAGEMENT), getParameterAsBoolean(PARAMETER_COLUMN_ORIENTED));
 		return createdSet;		
 	}
 
@@ -70,6 +78,7 @@ public class MaterializeDataInMemory extends AbstractDataProcessing {
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
 		types.add(new ParameterTypeCategory(ExampleSource.PARAMETER_DATAMANAGEMENT, "Determines, how the data is represented internally.", DataRowFactory.TYPE_NAMES, DataRowFactory.TYPE_DOUBLE_ARRAY, false));
+		types.add(new ParameterTypeBoolean(PARAMETER_COLUMN_ORIENTED, "Indicates if the data should be stored column-wise in one primitive array per attribute. Numerical columns use float precision if the data management is float_array.", false, true));
 		return types;
 	}
 	
@@ -82,6 +91,47 @@ public class MaterializeDataInMemory extends AbstractDataProcessing {
 	 * This method will return a completely materialized copy of the example set
 	 */
 	public static ExampleSet materializeExampleSet(ExampleSet exampleSet, int dataManagement) throws UndefinedParameterError {
+		return materializeExampleSet(exampleSet, dataManagement, false);
+	}
+
+	/**
+	 * This method will return a completely materialized copy of the example set. If columnOriented is true,
+	 * the data will be stored in a {@link ColumnarExampleTable} which uses float precision for numerical
+	 * values if the data management is one of the float types.
+	 */
+	public static ExampleSet materializeExampleSet(ExampleSet exampleSet, int dataManagement, boolean columnOriented) throws UndefinedParameterError {
+		return materializeExampleSet(exampleSet, dataManagement, columnOriented, false);
+	}
+
+	/**
+	 * This method will return a completely materialized copy of the example set which keeps the data
+	 * management of the underlying example table, i.e. the type of its data rows or its column orientation.
+	 * The nominal attributes of the copy use copies of the original nominal mappings, hence the copy can be
+	 * changed independently of the original example set, e.g. by concurrently executed operators.
+	 */
+	public static ExampleSet materializeIndependentCopy(ExampleSet exampleSet) throws UndefinedParameterError {
+		int type = DataRowFactory.TYPE_DOUBLE_ARRAY;
+		boolean columnOriented = false;
+		ExampleTable table = exampleSet.getExampleTable();
+		if (table instanceof ColumnarExampleTable) {
+			columnOriented = true;
+			if (((ColumnarExampleTable) table).isFloatPrecision()) {
+				type = DataRowFactory.TYPE_FLOAT_ARRAY;
+			}
+		} else if (table instanceof MemoryExampleTable) {
+			DataRowReader dataRowReader = table.getDataRowReader();
+			if (dataRowReader.hasNext()) {
+				type = dataRowReader.next().getType();
+			}
+		}
+		// types which cannot be created by the factory are copied into double arrays
+		if (type < 0) {
+			type = DataRowFactory.TYPE_DOUBLE_ARRAY;
+		}
+		return materializeExampleSet(exampleSet, type, columnOriented, true);
+	}
+
+	private static ExampleSet materializeExampleSet(ExampleSet exampleSet, int dataManagement, boolean columnOriented, boolean copyMappings) throws UndefinedParameterError {
 		// create new attributes and table
 		List<Attribute> attributes = new ArrayList<Attribute>();
 		Map<Attribute,String> specialAttributes = new HashMap<Attribute, String>();
@@ -95,7 +145,7 @@ public class MaterializeDataInMemory extends AbstractDataProcessing {
 			attributes.add(newAttribute);
 
 			if (attribute.isNominal()) {
-				newAttribute.setMapping(attribute.getMapping());
+				newAttribute.setMapping(copyMappings ? (NominalMapping) attribute.getMapping().clone() : attribute.getMapping());
 			}
 
 			if (role.isSpecial()) {
@@ -106,12 +156,23 @@ public class MaterializeDataInMemory extends AbstractDataProcessing {
 		}
 
 		// fill table with data
-		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		ExampleTable table;
+		MemoryExampleTable memoryTable = null;
+		ColumnarExampleTable columnarTable = null;
 		DataRowFactory factory = new DataRowFactory(dataManagement, '.');
+		if (columnOriented) {
+			boolean floatPrecision = dataManagement == DataRowFactory.TYPE_FLOAT_ARRAY || dataManagement == DataRowFactory.TYPE_FLOAT_SPARSE_ARRAY;
+			columnarTable = new ColumnarExampleTable(attributes, exampleSet.size(), floatPrecision);
+			table = columnarTable;
+		} else {
+			memoryTable = new MemoryExampleTable(attributes);
+			table = memoryTable;
+		}
+		int rowIndex = 0;
 		for (Example example : exampleSet) {
 			Iterator<Attribute> i = exampleSet.getAttributes().allAttributes();
 			int attributeCounter = 0;
-			DataRow row = factory.create(attributes.size());
+			DataRow row = columnOriented ? columnarTable.getDataRow(rowIndex++) : factory.create(attributes.size());
 			while (i.hasNext()) {
 				Attribute attribute = i.next();
 				double value = example.getValue(attribute);
@@ -125,7 +186,9 @@ public class MaterializeDataInMemory extends AbstractDataProcessing {
 				row.set(newAttribute, value);
 				attributeCounter++;
 			}
-			table.addDataRow(row);
+			if (!columnOriented) {
+				memoryTable.addDataRow(row);
+			}
 		}
 
 		// create and return result
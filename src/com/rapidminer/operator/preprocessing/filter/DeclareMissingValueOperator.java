@@ -23,7 +23,6 @@
 package com.rapidminer.operator.preprocessing.filter;
 
 import java.util.List;
-import java.util.Map;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.AttributeTypeException;
@@ -54,6 +53,7 @@ import com.rapidminer.tools.Ontology;
 import com.rapidminer.tools.OperatorResourceConsumptionHandler;
 import com.rapidminer.tools.expression.parser.AbstractExpressionParser;
 import com.rapidminer.tools.expression.parser.AbstractExpressionParser.ExpressionParserException;
+import com.rapidminer.tools.expression.parser.ExampleVariableBinding;
 import com.rapidminer.tools.expression.parser.ExpressionParserFactory;
 
 /**
@@ -182,11 +182,11 @@ public class DeclareMissingValueOperator extends AbstractExampleSetProcessing {
 			}
 			
 			// let the parser know the attributes
-	        Map<String, Attribute> name2attributes = expParser.deriveVariablesFromExampleSet(exampleSet);
+	        ExampleVariableBinding binding = expParser.bindVariables(expParser.deriveVariablesFromExampleSet(exampleSet));
 	        
 	        for (Example example : subset) {
 	        	// assign values to the variables
-	        	expParser.assignVariableValuesFromExample(example, name2attributes);
+	        	binding.assignValues(example);
 
 	        	for (Attribute attribute : attributes) {
 
@@ -23,14 +23,14 @@
 package com.rapidminer.operator.preprocessing.filter;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.Tools;
 import com.rapidminer.example.set.Partition;
 import com.rapidminer.example.set.SplittedExampleSet;
 import com.rapidminer.operator.OperatorDescription;
@@ -45,11 +45,18 @@ import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.tools.OperatorResourceConsumptionHandler;
+import com.rapidminer.tools.ParallelExecutionService;
 
 /**
  * This operator removed duplicate examples from an example set by comparing all examples
  * with each other on basis of the specified attributes.
  * 
+ * A 64 bit hash value is computed for each example over the compared attributes, optionally
+ * in parallel blocks of examples. The first example of each distinct row is stored in a primitive
+ * open addressing table and the values of two examples are only compared if their hash values are
+ * equal. Examples with missing values can never be duplicates unless missing values are treated
+ * as duplicates and are therefore not stored at all.
+ * 
  * @author Ingo Mierswa, Sebastian Land, Zoltan Prekopcsak
  */
 public class RemoveDuplicates extends AbstractDataProcessing {
@@ -57,6 +64,15 @@ public class RemoveDuplicates extends AbstractDataProcessing {
 	/** parameter to define the handling of missing values */
 	private static final String PARAMETER_TREAT_MISSING_VALUES_AS_DUPLICATES = "treat_missing_values_as_duplicates";
 
+	/** The parameter name for &quot;Indicates if the hash values of the examples should be computed in parallel blocks.&quot; */
+	public static final String PARAMETER_PARALLELIZE_HASHING = "parallelize_hashing";
+
+	/** The minimal number of examples hashed by one thread. */
+	private static final int MINIMAL_HASHING_BLOCK_SIZE = 50000;
+
+	/** Marks examples in the partition which contain missing values and therefore have no duplicates. */
+	private static final int MISSING_VALUE = -1;
+
 	private AttributeSubsetSelector subsetSelector = new AttributeSubsetSelector(this, getExampleSetInputPort());
 
 	public RemoveDuplicates(OperatorDescription description) {
@@ -70,57 +86,71 @@ public class RemoveDuplicates extends AbstractDataProcessing {
 	}
 
 	@Override
-	public ExampleSet apply(ExampleSet exampleSet) throws OperatorException {		 		
+	public ExampleSet apply(final ExampleSet exampleSet) throws OperatorException {		 		
 		// partition: 0 select, 1 deselect
-		int[] partition = new int[exampleSet.size()];
-		Set<Attribute> compareAttributes = subsetSelector.getAttributeSubset(exampleSet, false);
+		final int[] partition = new int[exampleSet.size()];
+		Set<Attribute> compareAttributeSet = subsetSelector.getAttributeSubset(exampleSet, false);
 
 		// if set is empty: Nothing can be done!
-		if (compareAttributes.isEmpty())
+		if (compareAttributeSet.isEmpty())
 			throw new UserError(this, 153, 1, 0);
 
-		// Creating hash buckets and check in case of collision if the example is equal to any other in the bucket
-		HashMap<Integer, List<Integer>> buckets = new HashMap<Integer, List<Integer>>();
-		for (int i = 0; i < exampleSet.size(); i++) {
-			Example example = exampleSet.getExample(i);
-			int hash = 0;
-			for (Attribute attribute : compareAttributes) {
-				long bits = Double.doubleToLongBits(example.getValue(attribute));
-				hash = hash * 31 + (int)(bits ^ (bits >>> 32));
+		final Attribute[] compareAttributes = compareAttributeSet.toArray(new Attribute[compareAttributeSet.size()]);
+		final boolean treatMissingsAsDuplicates = getParameterAsBoolean(PARAMETER_TREAT_MISSING_VALUES_AS_DUPLICATES);
+
+		// computing hash values, examples with missing values are marked if they cannot have duplicates
+		final long[] hashes = new long[exampleSet.size()];
+		int numberOfBlocks = 1;
+		if (getParameterAsBoolean(PARAMETER_PARALLELIZE_HASHING) && Tools.isConcurrentlyReadable(exampleSet)) {
+			numberOfBlocks = ParallelExecutionService.getNumberOfBlocks(exampleSet.size(), MINIMAL_HASHING_BLOCK_SIZE);
+		}
+		if (numberOfBlocks > 1) {
+			final int[] boundaries = ParallelExecutionService.getBlockBoundaries(exampleSet.size(), numberOfBlocks);
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(boundaries.length - 1);
+			for (int b = 0; b < boundaries.length - 1; b++) {
+				final int blockStart = boundaries[b];
+				final int blockEnd = boundaries[b + 1];
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() throws OperatorException {
+						checkForStopConcurrently();
+						computeHashes(exampleSet, compareAttributes, treatMissingsAsDuplicates, blockStart, blockEnd, hashes, partition);
+						return null;
+					}
+				});
 			}
-			if (! buckets.containsKey(hash)) {
-				buckets.put(hash, Collections.singletonList(Integer.valueOf(i)));
-			} else {
-				List<Integer> bucketExampleIndicesList = buckets.get(hash);
-				for (Integer exampleIndex: bucketExampleIndicesList) {
-					boolean equal = true;
-					Example compExample = exampleSet.getExample(exampleIndex);
-					for (Attribute attribute : compareAttributes) {
-							if (getParameterAsBoolean(PARAMETER_TREAT_MISSING_VALUES_AS_DUPLICATES)) {
-								if (Double.isNaN(example.getValue(attribute)) && Double.isNaN(compExample.getValue(attribute))) {
-									continue;
-								}
-							}
-							if (example.getValue(attribute) != compExample.getValue(attribute)) {
-								equal = false;
-								break;
-							}
+			ParallelExecutionService.invokeAll(tasks);
+		} else {
+			computeHashes(exampleSet, compareAttributes, treatMissingsAsDuplicates, 0, exampleSet.size(), hashes, partition);
+		}
+
+		// inserting examples in their order, only the first of equal examples is kept
+		int capacity = Integer.highestOneBit(Math.max(16, exampleSet.size() + exampleSet.size() / 2)) << 1;
+		int[] table = new int[capacity]; // stores example index + 1, 0 marks empty slots
+		int mask = capacity - 1;
+		for (int i = 0; i < partition.length; i++) {
+			if (partition[i] == MISSING_VALUE) {
+				partition[i] = 0;
+				continue;
+			}
+			long hash = hashes[i];
+			int slot = (int) (hash ^ (hash >>> 32)) & mask;
+			Example example = null;
+			while (table[slot] != 0) {
+				int candidate = table[slot] - 1;
+				if (hashes[candidate] == hash) {
+					if (example == null) {
+						example = exampleSet.getExample(i);
 					}
-					if (equal) {
+					if (isEqual(example, exampleSet.getExample(candidate), compareAttributes, treatMissingsAsDuplicates)) {
 						partition[i] = 1;
+						break;
 					}
 				}
-				if (partition[i] == 0) { // then it is unequal with same hash value
-					if (bucketExampleIndicesList.size() == 1) {
-						// in case of a collision we have to replace the singeltonList by an extendable collection.
-						List<Integer> newList = new ArrayList<Integer>(bucketExampleIndicesList);
-						newList.add(Integer.valueOf(i));
-						buckets.put(hash, newList);
-					} else {
-						// in this case we already have put in an ArrayList, because we had to store a second example on a previous collision
-						bucketExampleIndicesList.add(i);
-					}
-				}
+				slot = (slot + 1) & mask;
+			}
+			if (partition[i] == 0) {
+				table[slot] = i + 1;
 			}
 		}
 
@@ -130,6 +160,47 @@ public class RemoveDuplicates extends AbstractDataProcessing {
 		return result;
 	}
 
+	/**
+	 * Computes the hash values of the examples with indices from start (inclusive) to end (exclusive).
+	 * Examples with missing values are marked with {@link #MISSING_VALUE} in the partition unless 
+	 * missing values are treated as duplicates.
+	 */
+	private static void computeHashes(ExampleSet exampleSet, Attribute[] compareAttributes, boolean treatMissingsAsDuplicates, int start, int end, long[] hashes, int[] partition) {
+		for (int i = start; i < end; i++) {
+			Example example = exampleSet.getExample(i);
+			long hash = 1;
+			for (Attribute attribute : compareAttributes) {
+				double value = example.getValue(attribute);
+				if (!treatMissingsAsDuplicates && Double.isNaN(value)) {
+					partition[i] = MISSING_VALUE;
+					break;
+				}
+				hash = hash * 31 + Double.doubleToLongBits(value);
+			}
+			// spreading the bits, since the lower bits are used for the table slots
+			hash ^= hash >>> 33;
+			hash *= 0xff51afd7ed558ccdL;
+			hash ^= hash >>> 33;
+			hash *= 0xc4ceb9fe1a85ec53L;
+			hash ^= hash >>> 33;
+			hashes[i] = hash;
+		}
+	}
+
+	private static boolean isEqual(Example example, Example compExample, Attribute[] compareAttributes, boolean treatMissingsAsDuplicates) {
+		for (Attribute attribute : compareAttributes) {
+			double value = example.getValue(attribute);
+			double compValue = compExample.getValue(attribute);
+			if (treatMissingsAsDuplicates && Double.isNaN(value) && Double.isNaN(compValue)) {
+				continue;
+			}
+			if (value != compValue) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
@@ -138,6 +209,7 @@ public class RemoveDuplicates extends AbstractDataProcessing {
 		ParameterType type = new ParameterTypeBoolean(PARAMETER_TREAT_MISSING_VALUES_AS_DUPLICATES, "If set to true, treats missing values as duplicates", false);
 		type.setExpert(false);
 		types.add(type);
+		types.add(new ParameterTypeBoolean(PARAMETER_PARALLELIZE_HASHING, "Indicates if the hash values of the examples should be computed in parallel blocks.", false, true));
 
 		return types;
 	}
@@ -35,7 +35,7 @@ import com.rapidminer.example.Attribute;
 import com.rapidminer.example.AttributeRole;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.ExampleSet;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
@@ -137,7 +137,7 @@ public abstract class AbstractExampleSetJoin extends Operator {
 		return joinOutput;
 	}
 
-    protected abstract MemoryExampleTable joinData(ExampleSet es1, ExampleSet es2, List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList) throws OperatorException;
+    protected abstract ExampleTable joinData(ExampleSet es1, ExampleSet es2, List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList) throws OperatorException;
 
     protected abstract boolean isIdNeeded();
     
@@ -265,7 +265,7 @@ public abstract class AbstractExampleSetJoin extends Operator {
         }
 
         // join data
-        MemoryExampleTable unionTable = joinData(es1, es2, originalAttributeSources, unionAttributeList);
+        ExampleTable unionTable = joinData(es1, es2, originalAttributeSources, unionAttributeList);
 
         // create new example set
         ExampleSet result = unionTable.createExampleSet(unionSpecialAttributes);
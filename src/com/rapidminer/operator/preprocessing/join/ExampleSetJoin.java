@@ -22,26 +22,25 @@
  */
 package com.rapidminer.operator.preprocessing.join;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
-import com.rapidminer.example.table.DoubleArrayDataRow;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.table.ColumnarExampleTable;
+import com.rapidminer.example.table.NominalMapping;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.SimpleProcessSetupError;
 import com.rapidminer.operator.ProcessSetupError.Severity;
-import com.rapidminer.operator.ProcessStoppedException;
 import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.annotation.ResourceConsumptionEstimator;
 import com.rapidminer.operator.ports.metadata.AttributeMetaData;
@@ -57,6 +56,7 @@ import com.rapidminer.parameter.ParameterTypeList;
 import com.rapidminer.parameter.conditions.BooleanParameterCondition;
 import com.rapidminer.tools.Ontology;
 import com.rapidminer.tools.OperatorResourceConsumptionHandler;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.container.Pair;
 
 /**
@@ -118,6 +118,11 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 
 	public static final int JOIN_TYPE_OUTER = 3;
 
+	/** The number of examples whose keys are looked up at once. */
+	private static final int BATCH_SIZE = 100000;
+
+	private static final int MINIMAL_BLOCK_SIZE = 5000;
+
 	public ExampleSetJoin(OperatorDescription description) {
 		super(description);
 
@@ -191,29 +196,85 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 		
 
 	@Override
-	protected MemoryExampleTable joinData(ExampleSet leftExampleSet, ExampleSet rightExampleSet, List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList)
+	protected ColumnarExampleTable joinData(ExampleSet leftExampleSet, ExampleSet rightExampleSet, List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList)
 			throws OperatorException {
 		int joinType = getParameterAsInt(PARAMETER_JOIN_TYPE);
-		leftExampleSet.remapIds();
-		rightExampleSet.remapIds();
+		boolean useId = getParameterAsBoolean(PARAMETER_USE_ID);
 
 		// the attributes that are used in the left and the right table as key attributes:
-
 		Pair<Attribute[], Attribute[]> keyAttributes = getKeyAttributes(leftExampleSet, rightExampleSet);
+		Attribute[] leftKeyAttributes = keyAttributes.getFirst();
+		Attribute[] rightKeyAttributes = keyAttributes.getSecond();
+
+		// a right join searches the matching left examples of each right example, all other joins vice versa
+		boolean rightJoin = joinType == JOIN_TYPE_RIGHT;
+		ExampleSet indexedExampleSet = rightJoin ? leftExampleSet : rightExampleSet;
+		ExampleSet probeExampleSet = rightJoin ? rightExampleSet : leftExampleSet;
+		Attribute[] indexedKeyAttributes = rightJoin ? leftKeyAttributes : rightKeyAttributes;
+		Attribute[] probeKeyAttributes = rightJoin ? rightKeyAttributes : leftKeyAttributes;
+		JoinKeyIndex index = createKeyIndex(indexedExampleSet, indexedKeyAttributes, probeKeyAttributes, useId);
+		boolean[] matchedRightExamples = joinType == JOIN_TYPE_OUTER ? new boolean[rightExampleSet.size()] : null;
+
+		ColumnarExampleTable unionTable = new ColumnarExampleTable(unionAttributeList);
+		int keyLength = probeKeyAttributes.length;
+		Example[] probeExamples = new Example[Math.min(BATCH_SIZE, probeExampleSet.size())];
+		double[] probeKeys = new double[probeExamples.length * keyLength];
+		Iterator<Example> probeIterator = probeExampleSet.iterator();
+		while (probeIterator.hasNext()) {
+			// fetching the examples and keys of the next batch
+			int batchSize = 0;
+			while (batchSize < probeExamples.length && probeIterator.hasNext()) {
+				Example probeExample = probeIterator.next();
+				probeExamples[batchSize] = probeExample;
+				for (int i = 0; i < keyLength; i++) {
+					double value = probeExample.getValue(probeKeyAttributes[i]);
+					if (useId && probeKeyAttributes[i].isNominal()) {
+						value = indexedKeyAttributes[i].getMapping().getIndex(probeKeyAttributes[i].getMapping().mapIndex((int) value));
+					}
+					probeKeys[batchSize * keyLength + i] = value;
+				}
+				batchSize++;
+			}
+
+			int[][] matchingRows = getMatchingRows(index, probeKeys, keyLength, batchSize);
 
-		switch (joinType) {
-			case JOIN_TYPE_INNER:
-				return performInnerJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList, keyAttributes);
-			case JOIN_TYPE_LEFT:
-				return performLeftJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList, keyAttributes, null);
-			case JOIN_TYPE_RIGHT:
-				return performRightJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList, keyAttributes);
-			case JOIN_TYPE_OUTER:
-				return performOuterJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList, keyAttributes);
-			default:
-				assert (false);	// illegal join type
-				return null;
+			// adding the joined examples in the order of the probed examples
+			for (int i = 0; i < batchSize; i++) {
+				Example probeExample = probeExamples[i];
+				if (matchingRows[i] != null) {
+					for (int row : matchingRows[i]) {
+						Example matchingExample = indexedExampleSet.getExample(row);
+						if (rightJoin) {
+							addCombinedOccurence(originalAttributeSources, unionAttributeList, unionTable, matchingExample, probeExample);
+						} else {
+							addCombinedOccurence(originalAttributeSources, unionAttributeList, unionTable, probeExample, matchingExample);
+						}
+						if (matchedRightExamples != null) {
+							matchedRightExamples[row] = true;
+						}
+					}
+				} else if (joinType == JOIN_TYPE_LEFT || joinType == JOIN_TYPE_OUTER) {
+					// no rows with this key in right table: insert this row with null values for the right table
+					addLeftOnlyOccurence(originalAttributeSources, unionAttributeList, unionTable, probeExample);
+				} else if (rightJoin) {
+					addRightOnlyOccurence(originalAttributeSources, unionAttributeList, unionTable, probeExample, leftKeyAttributes, rightKeyAttributes);
+				}
+			}
+			checkForStop();
 		}
+
+		if (matchedRightExamples != null) {
+			// an outer join is the union of a left join and a right join: adding the right examples not matched above
+			int row = 0;
+			for (Example rightExample : rightExampleSet) {
+				if (!matchedRightExamples[row++]) {
+					addRightOnlyOccurence(originalAttributeSources, unionAttributeList, unionTable, rightExample, leftKeyAttributes, rightKeyAttributes);
+				}
+			}
+			checkForStop();
+		}
+		unionTable.trim();
+		return unionTable;
 	}
 
 	/**
@@ -265,140 +326,86 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 	}
 
 	/**
-	 * Performs an inner join, i.e. the result table contains all examples from the source example
-	 * sets whose key attributes match.
-	 */
-	private MemoryExampleTable performInnerJoin(ExampleSet leftExampleSet, ExampleSet rightExampleSet, List<AttributeSource> originalAttributeSources,
-			List<Attribute> unionAttributeList, Pair<Attribute[], Attribute[]> keyAttributes) throws ProcessStoppedException {
-		MemoryExampleTable unionTable = new MemoryExampleTable(unionAttributeList);
-
-		Attribute[] leftKeyAttributes = null;
-		Attribute[] rightKeyAttributes = null;
-		Map<DoubleArrayWrapper, List<Example>> rightKeyMapping = null;
-		boolean useId = getParameterAsBoolean(PARAMETER_USE_ID);
-
-		if (!useId) {
-			// create key mapping for right example set
-			leftKeyAttributes = keyAttributes.getFirst();
-			rightKeyAttributes = keyAttributes.getSecond();
-			rightKeyMapping = createKeyMapping(rightExampleSet, rightKeyAttributes, leftKeyAttributes);
-		}
-
-		// iterate over all example from left table and search for matching examples in right table:
-		for (Example leftExample : leftExampleSet) {
-			List<Example> matchingRightExamples = getMatchingExamples(leftExampleSet, rightExampleSet, leftKeyAttributes, rightKeyMapping, useId, leftExample);
-			if (matchingRightExamples != null) {
-				for (Example rightExample : matchingRightExamples) {
-					addCombinedOccurence(originalAttributeSources, unionAttributeList, unionTable, leftExample, rightExample);
-				}
-			}
-		}
-		return unionTable;
-	}
-
-	/**
-	 * Performs a left join. 
+	 * Creates an index of the key values of the given example set. Examples with missing key
+	 * values are not indexed. Unless the id attributes are used, the values of nominal key
+	 * attributes are mapped to the mapping of the corresponding matchKeyAttributes, so that the
+	 * index can be probed with the values of the other example set.
 	 */
-	private MemoryExampleTable performLeftJoin(ExampleSet leftExampleSet, ExampleSet rightExampleSet, List<AttributeSource> originalAttributeSources,
-			List<Attribute> unionAttributeList, Pair<Attribute[], Attribute[]> keyAttributes, Set<DoubleArrayWrapper> matchedExamplesInRightTable) throws ProcessStoppedException {
-		MemoryExampleTable unionTable = new MemoryExampleTable(unionAttributeList);
-
-		Attribute[] leftKeyAttributes = null;
-		Attribute[] rightKeyAttributes = null;
-		Map<DoubleArrayWrapper, List<Example>> rightKeyMapping = null;
-		boolean useId = getParameterAsBoolean(PARAMETER_USE_ID);
+	private JoinKeyIndex createKeyIndex(ExampleSet exampleSet, Attribute[] keyAttributes, Attribute[] matchKeyAttributes, boolean useId) {
+		assert (keyAttributes.length == matchKeyAttributes.length);
+		int keyLength = keyAttributes.length;
 
-		leftKeyAttributes = keyAttributes.getFirst();
-		rightKeyAttributes = keyAttributes.getSecond();
+		// create mapping from nominal values of keyAttributes to matchKeyAttributes
+		int[][] valueMapping = new int[keyLength][];
 		if (!useId) {
-			// create key mapping for right example set
-			rightKeyMapping = createKeyMapping(rightExampleSet, rightKeyAttributes, leftKeyAttributes);
-		}
-		// iterate over all example from left table and search for matching examples in right table:
-		for (Example leftExample : leftExampleSet) {
-			List<Example> matchingRightExamples = getMatchingExamples(leftExampleSet, rightExampleSet, leftKeyAttributes, rightKeyMapping, useId, leftExample);
-			if (matchingRightExamples != null) {
-				// add combination of left example and all matching right examples 
-				for (Example rightExample : matchingRightExamples) {
-					addCombinedOccurence(originalAttributeSources, unionAttributeList, unionTable, leftExample, rightExample);
-					if (matchedExamplesInRightTable != null) {
-						matchedExamplesInRightTable.add(new DoubleArrayWrapper(getKeyValues(rightExample, rightKeyAttributes)));
+			for (int attributeNumber = 0; attributeNumber < keyLength; ++attributeNumber) {
+				if (keyAttributes[attributeNumber].isNominal()) {
+					NominalMapping mapping = keyAttributes[attributeNumber].getMapping();
+					NominalMapping matchMapping = matchKeyAttributes[attributeNumber].getMapping();
+					int[] indexMapping = new int[mapping.size()];
+					for (String value : mapping.getValues()) {
+						if (value != null) {
+							// values unknown to the other mapping cannot match and are mapped to -1
+							int index = mapping.getIndex(value);
+							if (index >= indexMapping.length) {
+								indexMapping = Arrays.copyOf(indexMapping, index + 1);
+							}
+							indexMapping[index] = matchMapping.getIndex(value);
+						}
 					}
+					valueMapping[attributeNumber] = indexMapping;
 				}
-			} else { // no rows with this key in right table
-				// insert this row with null values for the right table
-				addLeftOnlyOccurence(originalAttributeSources, unionAttributeList, unionTable, leftExample);
 			}
-			checkForStop();
-		}
-		return unionTable;
-	}
-
-	/**
-	 * Performs a right join.
-	 */
-	private MemoryExampleTable performRightJoin(ExampleSet leftExampleSet, ExampleSet rightExampleSet, List<AttributeSource> originalAttributeSources,
-			List<Attribute> unionAttributeList, Pair<Attribute[], Attribute[]> keyAttributes) throws ProcessStoppedException {
-		MemoryExampleTable unionTable = new MemoryExampleTable(unionAttributeList);
-
-		Attribute[] leftKeyAttributes = null;
-		Attribute[] rightKeyAttributes = null;
-		Map<DoubleArrayWrapper, List<Example>> leftKeyMapping = null;
-		boolean useId = getParameterAsBoolean(PARAMETER_USE_ID);
-
-		Attribute leftIdAttribute = null;
-		Attribute rightIdAttribute = null;
-		if (useId) {
-			// needed for getting the right id when adding examples which occur only in right table 
-			leftIdAttribute = leftExampleSet.getAttributes().getId();
-			rightIdAttribute = rightExampleSet.getAttributes().getId();
-			leftKeyAttributes = new Attribute[] { leftIdAttribute };
-			rightKeyAttributes = new Attribute[] { rightIdAttribute };
-		} else {
-			// create key mapping for right example set
-			leftKeyAttributes = keyAttributes.getFirst();
-			rightKeyAttributes = keyAttributes.getSecond();
-			leftKeyMapping = createKeyMapping(leftExampleSet, leftKeyAttributes, rightKeyAttributes);
 		}
 
-		// iterate over all example from left table and search for matching examples in right table:
-		for (Example rightExample : rightExampleSet) {
-			List<Example> matchingLeftExamples = getMatchingExamples(rightExampleSet, leftExampleSet, rightKeyAttributes, leftKeyMapping, useId, rightExample);
-			if (matchingLeftExamples != null) {
-				// add combination of left example and all matching right examples 
-				for (Example leftExample : matchingLeftExamples) {
-					addCombinedOccurence(originalAttributeSources, unionAttributeList, unionTable, leftExample, rightExample);
+		double[] keys = new double[exampleSet.size() * keyLength];
+		int offset = 0;
+		for (Example example : exampleSet) {
+			for (int i = 0; i < keyLength; i++) {
+				double value = example.getValue(keyAttributes[i]);
+				if (valueMapping[i] != null && !Double.isNaN(value)) {
+					value = valueMapping[i][(int) value];
 				}
-			} else {
-				addRightOnlyOccurence(originalAttributeSources, unionAttributeList, unionTable, rightExample, leftKeyAttributes, rightKeyAttributes);
+				keys[offset++] = value;
 			}
-			checkForStop();
 		}
-		return unionTable;
+		return new JoinKeyIndex(keys, keyLength, exampleSet.size());
 	}
 
 	/**
-	 * Performs an outer join (not to be confused with a full outer join).
+	 * Returns the rows of the indexed example set matching each of the given probe keys, or null
+	 * for a key without any match. The keys are looked up concurrently.
 	 */
-	private MemoryExampleTable performOuterJoin(ExampleSet leftExampleSet, ExampleSet rightExampleSet, List<AttributeSource> originalAttributeSources,
-			List<Attribute> unionAttributeList, Pair<Attribute[], Attribute[]> keyAttributes) throws ProcessStoppedException {
-		MemoryExampleTable unionTable = new MemoryExampleTable(unionAttributeList);
-
-		Attribute[] leftKeyAttributes = keyAttributes.getFirst();
-		Attribute[] rightKeyAttributes = keyAttributes.getSecond();
-
-		// perform left join (an outer join is the union of a left join and a right join on the same tables)
-		Set<DoubleArrayWrapper> mappedRightExamples = new HashSet<DoubleArrayWrapper>();
-		unionTable = performLeftJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList, keyAttributes, mappedRightExamples);
-
-		for (Example rightExample : rightExampleSet) {
-			// perform right join, but add example only if it has not been matched during left join above
-			if (!mappedRightExamples.contains(new DoubleArrayWrapper(getKeyValues(rightExample, rightKeyAttributes)))) {
-				addRightOnlyOccurence(originalAttributeSources, unionAttributeList, unionTable, rightExample, leftKeyAttributes, rightKeyAttributes);
-			}
-			checkForStop();
+	private int[][] getMatchingRows(final JoinKeyIndex index, final double[] probeKeys, final int keyLength, int size) throws OperatorException {
+		final int[][] matchingRows = new int[size][];
+		final int[] boundaries = ParallelExecutionService.getBlockBoundaries(size, ParallelExecutionService.getNumberOfBlocks(size, MINIMAL_BLOCK_SIZE));
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(boundaries.length - 1);
+		for (int block = 0; block < boundaries.length - 1; block++) {
+			final int from = boundaries[block];
+			final int to = boundaries[block + 1];
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() {
+					int[] rows = new int[16];
+					for (int i = from; i < to; i++) {
+						int matches = 0;
+						for (int position = index.getFirstMatch(probeKeys, i * keyLength); position != JoinKeyIndex.NO_MATCH; position = index.getNextMatch(position)) {
+							if (matches == rows.length) {
+								rows = Arrays.copyOf(rows, rows.length * 2);
+							}
+							rows[matches++] = index.getRow(position);
+						}
+						if (matches > 0) {
+							matchingRows[i] = Arrays.copyOf(rows, matches);
+						}
+					}
+					return null;
+				}
+			});
 		}
-		return unionTable;
+		ParallelExecutionService.invokeAll(tasks);
+		return matchingRows;
 	}
 
 	/**
@@ -406,19 +413,18 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 	 * Only those attributes are added, which are present in originalAttributeSources.
 	 * The newly constructed example is added to unionTable.
 	 */
-	private void addCombinedOccurence(List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList, MemoryExampleTable unionTable, Example leftExample,
+	private void addCombinedOccurence(List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList, ColumnarExampleTable unionTable, Example leftExample,
 			Example rightExample) {
-		double[] unionDataRow = new double[unionAttributeList.size()];
+		int row = unionTable.addEmptyRow();
 		int attributeIndex = 0;
 		for (AttributeSource attributeSource : originalAttributeSources) {
 			if (attributeSource.getSource() == AttributeSource.FIRST_SOURCE) {
-				unionDataRow[attributeIndex] = leftExample.getValue(attributeSource.getAttribute());
+				unionTable.setValue(row, attributeIndex, leftExample.getValue(attributeSource.getAttribute()));
 			} else if (attributeSource.getSource() == AttributeSource.SECOND_SOURCE) {
-				unionDataRow[attributeIndex] = rightExample.getValue(attributeSource.getAttribute());
+				unionTable.setValue(row, attributeIndex, rightExample.getValue(attributeSource.getAttribute()));
 			}
 			attributeIndex++;
 		}
-		unionTable.addDataRow(new DoubleArrayDataRow(unionDataRow));
 	}
 
 	/**
@@ -426,18 +432,17 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 	 * The example contains all attributes from leftExample, which are also in originalAttributeSources,
 	 * and NaN for all attributes which should normally be taken from a right example.   
 	 */
-	private void addLeftOnlyOccurence(List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList, MemoryExampleTable unionTable, Example leftExample) {
-		double[] unionDataRow = new double[unionAttributeList.size()];
+	private void addLeftOnlyOccurence(List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList, ColumnarExampleTable unionTable, Example leftExample) {
+		int row = unionTable.addEmptyRow();
 		int attributeIndex = 0;
 		for (AttributeSource attributeSource : originalAttributeSources) {
 			if (attributeSource.getSource() == AttributeSource.FIRST_SOURCE) {
-				unionDataRow[attributeIndex] = leftExample.getValue(attributeSource.getAttribute());
+				unionTable.setValue(row, attributeIndex, leftExample.getValue(attributeSource.getAttribute()));
 			} else if (attributeSource.getSource() == AttributeSource.SECOND_SOURCE) {
-				unionDataRow[attributeIndex] = Double.NaN;
+				unionTable.setValue(row, attributeIndex, Double.NaN);
 			}
 			attributeIndex++;
 		}
-		unionTable.addDataRow(new DoubleArrayDataRow(unionDataRow));
 	}
 
 	/**
@@ -447,9 +452,9 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 	 * Exception: if key attributes would be taken from left example and only one id attribute is kept,
 	 * instead of NaN the value of the corresponding attribute in rightExample is taken.   
 	 */
-	private void addRightOnlyOccurence(List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList, MemoryExampleTable unionTable, Example rightExample,
+	private void addRightOnlyOccurence(List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList, ColumnarExampleTable unionTable, Example rightExample,
 			Attribute[] leftKeyAttributes, Attribute[] rightKeyAttributes) {
-		double[] unionDataRow = new double[unionAttributeList.size()];
+		int row = unionTable.addEmptyRow();
 		int attributeIndex = 0;
 		for (AttributeSource attributeSource : originalAttributeSources) {
 			if (attributeSource.getSource() == AttributeSource.FIRST_SOURCE) {
@@ -471,7 +476,7 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 					boolean sameName = leftKeyAttributes[id].getName().equals(rightKeyAttributes[id].getName());
 					boolean removeDoubleAttributes = getParameterAsBoolean(PARAMETER_REMOVE_DOUBLE_ATTRIBUTES);
 					if (keepBoth && !(removeDoubleAttributes && sameName)) {
-						unionDataRow[attributeIndex] = Double.NaN;
+						unionTable.setValue(row, attributeIndex, Double.NaN);
 					} else {
 						if (leftKeyAttributes[id].isNominal()) {
 							// consider different mapping in left and right attribute
@@ -480,136 +485,19 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 							int rightIndex = (int) rightExample.getValue(rightAttribute);
 							String valueAsString = rightAttribute.getMapping().mapIndex(rightIndex);
 							int leftIndex = leftAttribute.getMapping().mapString(valueAsString);
-							unionDataRow[attributeIndex] = leftIndex;
+							unionTable.setValue(row, attributeIndex, leftIndex);
 						} else {
-							unionDataRow[attributeIndex] = rightExample.getValue(rightKeyAttributes[id]);
+							unionTable.setValue(row, attributeIndex, rightExample.getValue(rightKeyAttributes[id]));
 						}
 					}
 				} else {
-					unionDataRow[attributeIndex] = Double.NaN;
+					unionTable.setValue(row, attributeIndex, Double.NaN);
 				}
 			} else if (attributeSource.getSource() == AttributeSource.SECOND_SOURCE) {
-				unionDataRow[attributeIndex] = rightExample.getValue(attributeSource.getAttribute());
+				unionTable.setValue(row, attributeIndex, rightExample.getValue(attributeSource.getAttribute()));
 			}
 			attributeIndex++;
 		}
-		unionTable.addDataRow(new DoubleArrayDataRow(unionDataRow));
-	}
-
-	/**
-	 * Maps all values of the keyAttributes which occur in exampleSet to a list of matching examples.
-	 * @param exampleSet The example set for whose key attributes the mapping is created 
-	 * @param keyAttributes the attributes which resemble the key attributes
-	 * @param matchKeyAttributes if not null, the values of nominal keyAttributes are mapped to match the mapping of these attributes prior to adding them to the map 
-	 * @return
-	 */
-	private Map<DoubleArrayWrapper, List<Example>> createKeyMapping(ExampleSet exampleSet, Attribute[] keyAttributes, Attribute[] matchKeyAttributes) {
-		Map<DoubleArrayWrapper, List<Example>> keyMapping = new HashMap<DoubleArrayWrapper, List<Example>>();
-
-		assert (keyAttributes.length == matchKeyAttributes.length);
-
-		// create mapping from nominal values of keyAttributes to matchKeyAttributes
-		Map<Attribute, Map<Double, Double>> valueMapping = null;
-		if (matchKeyAttributes != null) {
-			valueMapping = new HashMap<Attribute, Map<Double, Double>>();
-			for (int attributeNumber = 0; attributeNumber < keyAttributes.length; ++attributeNumber) {
-				if (keyAttributes[attributeNumber].isNominal()) {
-					Map<Double, Double> valueMap = new HashMap<Double, Double>();
-					// TODO: iterate over getMappint().values() rather than relying on the assumption that values appear in increasing order
-					for (int valueNumber = 0; valueNumber < keyAttributes[attributeNumber].getMapping().size(); ++valueNumber) {
-						String valueString = keyAttributes[attributeNumber].getMapping().mapIndex(valueNumber);
-						valueMap.put((double) valueNumber, (double) matchKeyAttributes[attributeNumber].getMapping().mapString(valueString));
-					}
-					valueMapping.put(keyAttributes[attributeNumber], valueMap);
-				}
-			}
-		}
-
-		double[] keyValues;
-		
-		for (Example example : exampleSet) {
-			boolean continueIteration = false;
-			// fetch key values from example
-			keyValues = getKeyValues(example, keyAttributes);
-			if (valueMapping != null) {
-				// remap keyValues to match values of other attributes:
-				for (int i = 0; i < keyValues.length; ++i) {
-					if(Double.isNaN(keyValues[i])) {
-						continueIteration = true;
-						break;
-					}
-					if (keyAttributes[i].isNominal()) {
-						keyValues[i] = valueMapping.get(keyAttributes[i]).get(keyValues[i]);
-					} 
-				}
-				if (continueIteration) {
-					continue;
-				}
-				
-			}
-
-			// check if this key is in keyMapping. If not, add:
-			List<Example> keyExamples = keyMapping.get(new DoubleArrayWrapper(keyValues));
-			if (keyExamples != null) {
-				// add current example:
-				keyExamples.add(example);
-			} else {
-				// create set and add to keyMapping:
-				keyExamples = new LinkedList<Example>();
-				keyExamples.add(example);
-				keyMapping.put(new DoubleArrayWrapper(keyValues), keyExamples);
-			}
-		};
-		return keyMapping;
-	}
-
-	/**
-	 * Gets examples from secondExampleSet which match the values of the 
-	 * keyAttributes from firstExample.
-	 * If PARAMETER_USE_ID_FOR_JOIN is true, the standard id-mapping of example sets is used.
-	 * If not, secondKeyMapping is used (@see createKeyMapping())   
-	 */
-	private List<Example> getMatchingExamples(ExampleSet firstExampleSet, ExampleSet secondExampleSet, Attribute[] firstKeyAttributes,
-			Map<DoubleArrayWrapper, List<Example>> secondKeyMapping, boolean useId, Example referenceExample) {
-		// find right examples matching current left example:
-		List<Example> matchingExamples = null;
-		if (useId) {
-			// use existent id mapping of right example set
-			Attribute firstIdAttribute = firstExampleSet.getAttributes().getId();
-			Attribute secondIdAttribute = secondExampleSet.getAttributes().getId();
-			double firstIdValue = referenceExample.getValue(firstIdAttribute);
-			int[] matchingExampleIndices = null;
-			if (firstIdAttribute.isNominal()) {
-				matchingExampleIndices = secondExampleSet.getExampleIndicesFromId(secondIdAttribute.getMapping().getIndex(
-						firstIdAttribute.getMapping().mapIndex((int) firstIdValue)));
-			} else {
-				matchingExampleIndices = secondExampleSet.getExampleIndicesFromId(firstIdValue);
-			}
-			if (matchingExampleIndices != null) {
-				matchingExamples = new LinkedList<Example>();
-				for (int secondExampleIndex : matchingExampleIndices) {
-					Example matchingExample = secondExampleSet.getExample(secondExampleIndex);
-					matchingExamples.add(matchingExample);
-				}
-			}
-		} else {
-			// use previously created mapping
-			double[] leftKeyValues = getKeyValues(referenceExample, firstKeyAttributes);
-			matchingExamples = secondKeyMapping.get(new DoubleArrayWrapper(leftKeyValues));
-		}
-		return matchingExamples;
-	}
-
-	/**
-	 * Returns an array of doubles, which contains the values of the keyAttributes of example.
-	 */
-	private double[] getKeyValues(Example example, Attribute[] keyAttributes) {
-		int numKeys = keyAttributes.length;
-		double[] keyValues = new double[numKeys];
-		for (int i = 0; i < numKeys; ++i) {
-			keyValues[i] = example.getValue(keyAttributes[i]);
-		}
-		return keyValues;
 	}
 
 	/**
@@ -0,0 +1,208 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.join;
+
+import java.util.Arrays;
+
+/**
+ * An index of the key values of the rows of one input of a join. The keys are stored in a single
+ * primitive array, rows containing a missing key value are not indexed and hence never match.
+ * If the indexed rows are already sorted by their keys, the rows are searched by binary search
+ * and no hash table is built at all. Otherwise an open addressing hash table maps each distinct
+ * key to its first row and the remaining rows of the key are chained. In both cases the matching
+ * rows of a key are delivered in ascending order. After construction the index is only read and
+ * hence might be probed by several threads.
+ * 
+ * Keys are compared exactly like {@link Arrays#equals(double[], double[])} does.
+ * 
+ * @author agent
+ */
+public class JoinKeyIndex {
+
+	/** Returned if no (further) row matches. */
+	public static final int NO_MATCH = -1;
+
+	private final int keyLength;
+
+	private final double[] keys;
+
+	/** The indexed rows in ascending key order or null if a hash table is used. */
+	private final int[] sortedRows;
+
+	/** The first row of the key stored in each slot. */
+	private final int[] table;
+
+	/** The next row with the same key. */
+	private final int[] nextRows;
+
+	private final int mask;
+
+	/**
+	 * Creates an index of the given keys. The keys of row i are stored at the positions
+	 * i * keyLength to (i + 1) * keyLength - 1.
+	 */
+	public JoinKeyIndex(double[] keys, int keyLength, int numberOfRows) {
+		this.keys = keys;
+		this.keyLength = keyLength;
+
+		int[] validRows = new int[numberOfRows];
+		int numberOfValidRows = 0;
+		boolean sorted = true;
+		for (int row = 0; row < numberOfRows; row++) {
+			if (!containsMissing(row)) {
+				if (sorted && numberOfValidRows > 0 && compare(validRows[numberOfValidRows - 1], row) > 0) {
+					sorted = false;
+				}
+				validRows[numberOfValidRows++] = row;
+			}
+		}
+
+		if (sorted) {
+			sortedRows = numberOfValidRows == numberOfRows ? validRows : Arrays.copyOf(validRows, numberOfValidRows);
+			table = null;
+			nextRows = null;
+			mask = 0;
+		} else {
+			sortedRows = null;
+			int capacity = Integer.highestOneBit(Math.max(2, numberOfValidRows) * 2 - 1) << 1;
+			mask = capacity - 1;
+			table = new int[capacity];
+			Arrays.fill(table, NO_MATCH);
+			nextRows = new int[numberOfRows];
+			Arrays.fill(nextRows, NO_MATCH);
+			// inserting backwards keeps the rows of each key in ascending order
+			for (int i = numberOfValidRows - 1; i >= 0; i--) {
+				int row = validRows[i];
+				int slot = hash(keys, row * keyLength) & mask;
+				while (table[slot] != NO_MATCH && !equals(keys, row * keyLength, table[slot])) {
+					slot = (slot + 1) & mask;
+				}
+				nextRows[row] = table[slot];
+				table[slot] = row;
+			}
+		}
+	}
+
+	/** Returns true if the indexed rows were already sorted and no hash table was built. */
+	public boolean isSorted() {
+		return sortedRows != null;
+	}
+
+	/**
+	 * Returns the first match position of the given key starting at offset or {@link #NO_MATCH}.
+	 * The matching row is returned by {@link #getRow(int)}, further matches are found by
+	 * {@link #getNextMatch(int)}.
+	 */
+	public int getFirstMatch(double[] probeKeys, int offset) {
+		if (sortedRows != null) {
+			int low = 0;
+			int high = sortedRows.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (compare(probeKeys, offset, sortedRows[middle]) > 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			if (low < sortedRows.length && compare(probeKeys, offset, sortedRows[low]) == 0) {
+				return low;
+			}
+			return NO_MATCH;
+		} else {
+			int slot = hash(probeKeys, offset) & mask;
+			while (table[slot] != NO_MATCH) {
+				if (equals(probeKeys, offset, table[slot])) {
+					return table[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+			return NO_MATCH;
+		}
+	}
+
+	/** Returns the match position following the given one or {@link #NO_MATCH}. */
+	public int getNextMatch(int position) {
+		if (sortedRows != null) {
+			int next = position + 1;
+			if (next < sortedRows.length && compare(sortedRows[position], sortedRows[next]) == 0) {
+				return next;
+			}
+			return NO_MATCH;
+		} else {
+			return nextRows[position];
+		}
+	}
+
+	/** Returns the row of the given match position. */
+	public int getRow(int position) {
+		return sortedRows != null ? sortedRows[position] : position;
+	}
+
+	private boolean containsMissing(int row) {
+		int offset = row * keyLength;
+		for (int i = 0; i < keyLength; i++) {
+			if (Double.isNaN(keys[offset + i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int compare(int firstRow, int secondRow) {
+		return compare(keys, firstRow * keyLength, secondRow);
+	}
+
+	private int compare(double[] probeKeys, int offset, int row) {
+		int rowOffset = row * keyLength;
+		for (int i = 0; i < keyLength; i++) {
+			int result = Double.compare(probeKeys[offset + i], keys[rowOffset + i]);
+			if (result != 0) {
+				return result;
+			}
+		}
+		return 0;
+	}
+
+	private boolean equals(double[] probeKeys, int offset, int row) {
+		int rowOffset = row * keyLength;
+		for (int i = 0; i < keyLength; i++) {
+			if (Double.doubleToLongBits(probeKeys[offset + i]) != Double.doubleToLongBits(keys[rowOffset + i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int hash(double[] values, int offset) {
+		long hash = 1;
+		for (int i = 0; i < keyLength; i++) {
+			hash = hash * 31 + Double.doubleToLongBits(values[offset + i]);
+		}
+		// mixing the high bits into the low ones, which are often zero for integral values
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		return (int) hash;
+	}
+}
@@ -23,7 +23,6 @@
 package com.rapidminer.operator.preprocessing.outlier;
 
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -52,10 +51,9 @@ import com.rapidminer.tools.OperatorResourceConsumptionHandler;
  * 
  * <p>Currently, the operator supports cosine, sine or squared distances in addition
  * to the usual euclidian distance which can be specified by the corresponding parameter.
- * The operator takes two other real-valued parameters p and D. Depending on these 
- * parameters, search objects will be created from the examples in the ExampleSet 
- * passed to the operator. These search objects will be added to a search space which 
- * will perform the outlier search according to the DB(p,D) scheme.</p>
+ * The operator takes two other real-valued parameters p and D. The objects within 
+ * distance D are counted for all examples concurrently by a {@link NearestNeighbourSearch},
+ * which uses a kd-tree for the euclidian and squared distance.</p>
  * 
  * <p>The Outlier status (boolean in its nature) is written to a new special attribute
  * &quot;Outlier&quot; and is passed on with the example set.</p>
@@ -96,31 +94,13 @@ public class DBOutlierOperator extends AbstractOutlierDetection {
 		double p = this.getParameterAsDouble(PARAMETER_PROPORTION);
 		int kindOfDistance = this.getParameterAsInt(PARAMETER_DISTANCE_FUNCTION);
 
-		// create a new SearchSpace for the DB(p,D)-Outlier search
-		Iterator<Example> reader = eSet.iterator();
-		int searchSpaceDimension = eSet.getAttributes().size();
-		SearchSpace sr = new SearchSpace(searchSpaceDimension);
+		double[][] points = NearestNeighbourSearch.getPoints(eSet);
+		log("Searching d=" + eSet.getAttributes().size() + " dimensions with D=" + d + " distance and p=" + p + " .");
 
-		// now read through the Examples of the ExampleSet
-		int counter = 0;
-		while (reader.hasNext()) {
-			Example example = reader.next();
-			SearchObject so = new SearchObject(searchSpaceDimension, "object" + counter);
-			counter++;
-			int i = 0;
-			for (Attribute attribute : eSet.getAttributes()) {
-				so.setVektor(i++, example.getValue(attribute));
-			}
-			sr.addObject(so);
-		}
-
-		log("Searching d=" + sr.getDimensions() + " dimensions with D=" + d + " distance and p=" + p + " .");
-
-		// set all Outlier Status to ZERO to be sure
-		sr.resetOutlierStatus(); 
-
-		// perform the DB(p,d)-Outlier search 
-		sr.allRadiusSearch(d, p, kindOfDistance); 
+		// perform the DB(p,d)-Outlier search: an object is an outlier if at most M = N(1-p) objects are within d
+		long m = Math.round(points.length * (1 - p));
+		NearestNeighbourSearch search = new NearestNeighbourSearch(points, kindOfDistance, this);
+		int[] counts = search.countNeighbours(d, (int) Math.min(m, Integer.MAX_VALUE - 1));
 
 		// create a new special attribute for the exampleSet
 		Attribute outlierAttribute = AttributeFactory.createAttribute(Attributes.OUTLIER_NAME, Ontology.BINOMINAL);
@@ -129,11 +109,9 @@ public class DBOutlierOperator extends AbstractOutlierDetection {
 		eSet.getExampleTable().addAttribute(outlierAttribute);
 		eSet.getAttributes().setOutlier(outlierAttribute);
 
-		counter = 0; // reset counter to zero
-		Iterator<Example> reader2 = eSet.iterator();
-		while (reader2.hasNext()) {
-			Example example = reader2.next(); 
-			if (sr.getSearchObjectOutlierStatus(counter) == true) {
+		int counter = 0;
+		for (Example example : eSet) {
+			if (counts[counter] <= m) {
 				example.setValue(outlierAttribute, outlierAttribute.getMapping().mapString("true"));
 			} else {
 				example.setValue(outlierAttribute, outlierAttribute.getMapping().mapString("false"));
@@ -22,8 +22,8 @@
  */
 package com.rapidminer.operator.preprocessing.outlier;
 
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -62,6 +62,9 @@ import com.rapidminer.tools.OperatorResourceConsumptionHandler;
  * and passes it on with an boolean top-n D^k outlier status in a new boolean-valued
  * special outlier attribute indicating true (outlier) and false (no outlier).</p>
  * 
+ * <p>The k-th nearest neighbours are found by a {@link NearestNeighbourSearch}, which uses 
+ * a kd-tree for the euclidian and squared distance and processes all objects concurrently.</p>
+ * 
  * @author Stephan Deutsch, Ingo Mierswa
  */
 public class DKNOutlierOperator extends AbstractOutlierDetection {
@@ -101,32 +104,12 @@ public class DKNOutlierOperator extends AbstractOutlierDetection {
 		n = n - 2; // this has to do with the internal indexing in the SearchSpace's methods
 		int kindOfDistance = this.getParameterAsInt(PARAMETER_DISTANCE_FUNCTION);
 
-		// create a new SearchSpace for the DKN(p,D)-Outlier search		
-		Iterator<Example> reader = eSet.iterator();
-		int searchSpaceDimension = eSet.getAttributes().size();
-		SearchSpace sr = new SearchSpace(searchSpaceDimension, k, k);
-
-		// now read through the Examples of the ExampleSet
-		int counter = 0;
-		while (reader.hasNext()) {
-			Example example = reader.next(); // read the next example & create a search object
-			SearchObject so = new SearchObject(searchSpaceDimension, "object" + counter, k, k + 1); // for now, give so an id like label
-			counter++;
-			int i = 0;
-			for (Attribute attribute : eSet.getAttributes()) {
-				so.setVektor(i++, example.getValue(attribute)); // get the attributes for the so from example and pass it on
-			}
-			sr.addObject(so); // finally add the search object to the search room
-		}
-
-		// set all Outlier Status to ZERO to be sure
-		sr.resetOutlierStatus(); 
-
-		// find all Containers for the DKN first
-		sr.findAllKdContainers(kindOfDistance); 
+		// find the k nearest neighbours first
+		NearestNeighbourSearch search = new NearestNeighbourSearch(NearestNeighbourSearch.getPoints(eSet), kindOfDistance, this);
+		search.computeNeighbours(k);
 
 		// perform the outlier search 
-		sr.computeDKN(k, n);
+		boolean[] outlierStatus = computeDKN(search, k, n);
 
 		// create a new special attribute for the exampleSet
 		Attribute outlierAttribute = AttributeFactory.createAttribute(Attributes.OUTLIER_NAME, Ontology.BINOMINAL);
@@ -135,11 +118,9 @@ public class DKNOutlierOperator extends AbstractOutlierDetection {
 		eSet.getExampleTable().addAttribute(outlierAttribute);
 		eSet.getAttributes().setOutlier(outlierAttribute);
 
-		counter = 0; // reset counter to zero
-		Iterator<Example> reader2 = eSet.iterator();
-		while (reader2.hasNext()) {
-			Example example = reader2.next(); 
-			if (sr.getSearchObjectOutlierStatus(counter) == true) {
+		int counter = 0;
+		for (Example example : eSet) {
+			if (outlierStatus[counter]) {
 				example.setValue(outlierAttribute, outlierAttribute.getMapping().mapString("true"));
 			} else {
 				example.setValue(outlierAttribute, outlierAttribute.getMapping().mapString("false"));
@@ -150,6 +131,39 @@ public class DKNOutlierOperator extends AbstractOutlierDetection {
 		return eSet;
 	}
 
+	/**
+	 * Selects the top-n D^k-Outliers exactly like {@link SearchSpace#computeDKN(int, int)}: the objects with the 
+	 * maximum distance to their k-th nearest neighbour.
+	 */
+	private boolean[] computeDKN(NearestNeighbourSearch search, int dk, int n) {
+		List<Integer> candidates = new ArrayList<Integer>();
+		int minDKNdistindex = 0;
+		double minDistInList = 0; // the smallest distance in the candidates list
+		for (int i = 0; i < search.getNumberOfPoints(); i++) {
+			if (candidates.size() <= n + 1) {
+				candidates.add(i);
+			} else if (search.getKDistance(i, dk) > minDistInList) {
+				// if the list is already full and only if the new candidate has more distance
+				candidates.remove(minDKNdistindex);
+				candidates.add(i);
+			}
+
+			// find the actual smallest distance and the respective index
+			for (int j = 0; j < candidates.size(); j++) {
+				double minD = search.getKDistance(candidates.get(j), dk);
+				if (j == 0 || minDistInList > minD) {
+					minDistInList = minD;
+					minDKNdistindex = j;
+				}
+			}
+		}
+		boolean[] outlierStatus = new boolean[search.getNumberOfPoints()];
+		for (int candidate : candidates) {
+			outlierStatus[candidate] = true;
+		}
+		return outlierStatus;
+	}
+
 	@Override
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
@@ -28,6 +28,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
@@ -46,6 +47,7 @@ import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.tools.Ontology;
 import com.rapidminer.tools.OperatorResourceConsumptionHandler;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasures;
 
@@ -85,6 +87,11 @@ import com.rapidminer.tools.math.similarity.DistanceMeasures;
  * outlier), and another special attribute "COF Factor" which measures the degree of being Class Outlier for an object.
  * </p>
  * 
+ * <p>
+ * Since the deviation needs the distances to all instances of the same class, no search structure is used, but the
+ * instances are processed concurrently.
+ * </p>
+ * 
  * @author Motaz K. Saad, Marius Helf
  */
 public class EcodbOperator extends AbstractOutlierDetection {
@@ -99,6 +106,9 @@ public class EcodbOperator extends AbstractOutlierDetection {
 
 	private static final String COF_FACTOR_NAME = "COF Factor";
 
+	/** The minimal number of examples processed by one thread. */
+	private static final int MINIMAL_BLOCK_SIZE = 100;
+
 	public EcodbOperator(OperatorDescription description) {
 		super(description);
 	}
@@ -202,10 +212,30 @@ public class EcodbOperator extends AbstractOutlierDetection {
 		maxDev = Double.NEGATIVE_INFINITY;
 		minDev = Double.POSITIVE_INFINITY;
 
-		// phase 1: compute cof value for all examples based on PCL
-		for (COFObject cofobject : cofobjectList) {
-			cofobject.computeCOF(cofobjectList, k, measure);
+		// phase 1: compute cof value for all examples based on PCL, concurrently for blocks of examples
+		final ArrayList<COFObject> objects = cofobjectList;
+		final int numberOfNeighbors = k;
+		final DistanceMeasure distanceMeasure = measure;
+		int[] boundaries = ParallelExecutionService.getBlockBoundaries(objects.size(), ParallelExecutionService.getNumberOfBlocks(objects.size(), MINIMAL_BLOCK_SIZE));
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(boundaries.length - 1);
+		for (int block = 0; block < boundaries.length - 1; block++) {
+			final int from = boundaries[block];
+			final int to = boundaries[block + 1];
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() throws OperatorException {
+					for (int i = from; i < to; i++) {
+						checkForStopConcurrently();
+						objects.get(i).computeCOF(objects, numberOfNeighbors, distanceMeasure);
+					}
+					return null;
+				}
+			});
+		}
+		ParallelExecutionService.invokeAll(tasks);
 
+		for (COFObject cofobject : cofobjectList) {
 			// specify max and min for dev and Kdist
 			double tempKdist = cofobject.getKDist();
 			if (tempKdist > maxkDist)
@@ -23,7 +23,6 @@
 package com.rapidminer.operator.preprocessing.outlier;
 
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -85,6 +84,9 @@ import com.rapidminer.tools.math.container.Range;
  * <p>Afterwards LOFs are added as values for a special real-valued outlier attribute 
  * in the example set which the operator will return.</p> 
  * 
+ * <p>The containers are derived from the nearest neighbours found by a {@link NearestNeighbourSearch},
+ * which uses a kd-tree for the euclidian and squared distance and processes all objects concurrently.</p>
+ * 
  * @author Stephan Deutsch, Ingo Mierswa
  */
 public class LOFOutlierOperator extends AbstractOutlierDetection {
@@ -135,49 +137,109 @@ public class LOFOutlierOperator extends AbstractOutlierDetection {
 			minPtsUpperBound = minPtsLB;
 		}
 
-		// create a new SearchSpace for the LOF-Outlier search
-		Iterator<Example> reader = eSet.iterator();
-		int searchSpaceDimension = eSet.getAttributes().size();
-		SearchSpace sr = new SearchSpace(searchSpaceDimension, minPtsLowerBound, minPtsUpperBound + 1);
-
-		// now read through the Examples of the ExampleSet
-		int counter = 0;
-		while (reader.hasNext()) {
-			Example example = reader.next(); // read the next example & create a search object
-			SearchObject so = new SearchObject(searchSpaceDimension, "object" + counter, minPtsLowerBound, minPtsUpperBound);
-			// for now, give so an id like label and add the MinPts ranges, so that arrays are initialized
-			counter++;
-			int i = 0;
-			for (Attribute attribute : eSet.getAttributes()) {
-				so.setVektor(i++, example.getValue(attribute));
-			}
-			sr.addObject(so); // finally add the search object to the search room
-		}
-		// set all Outlier Factors to ZERO to be sure
-		sr.resetOutlierStatus();
-
-		// find all Containers for the LOF first
-		sr.findAllKdContainers(kindOfDistance); 
+		// find the neighbours up to MinPtsUB first
+		final NearestNeighbourSearch search = new NearestNeighbourSearch(NearestNeighbourSearch.getPoints(eSet), kindOfDistance, this);
+		search.computeNeighbours(minPtsUpperBound);
 
 		// perform the LOF-Outlier search 
-		sr.computeLOF(minPtsLowerBound, minPtsUpperBound); 
+		double[] outlierFactors = computeLOF(search, minPtsLowerBound, minPtsUpperBound);
 
 		Attribute outlierAttribute = AttributeFactory.createAttribute(Attributes.OUTLIER_NAME, Ontology.REAL);
 		eSet.getExampleTable().addAttribute(outlierAttribute);
 		eSet.getAttributes().setOutlier(outlierAttribute);
 
-		counter = 0; // reset counter to zero
-		Iterator<Example> reader2 = eSet.iterator();
-		while (reader2.hasNext()) {
-			Example example = reader2.next(); // read the next example
-			SearchObject sobj = sr.getSearchObjects().elementAt(counter);
-			example.setValue(outlierAttribute, sobj.getOutlierFactor());
+		int counter = 0;
+		for (Example example : eSet) {
+			example.setValue(outlierAttribute, outlierFactors[counter]);
 			counter++;
 		}
 
 		return eSet;
 	}
 
+	/**
+	 * Computes the LOFs for all objects up to MinPtsUB = kMax exactly like {@link SearchSpace#computeLOF(int, int)}, 
+	 * where each k-distance container corresponds to a group of neighbours with equal distance. Returns the maximal 
+	 * LOF of each object for all k from kMin on.
+	 */
+	private double[] computeLOF(final NearestNeighbourSearch search, final int kMin, final int kMax) throws OperatorException {
+		final double[][] lrds = new double[search.getNumberOfPoints()][kMax + 1];
+		final double[] outlierFactors = new double[search.getNumberOfPoints()];
+
+		// the k-lrd of each object, which needs the k-distances of its neighbours
+		search.processConcurrently(new NearestNeighbourSearch.PointProcessor() {
+
+			@Override
+			public void process(int index) {
+				double[] distances = search.getNeighbourDistances(index);
+				int[] neighbours = search.getNeighbours(index);
+				double[] lrd = lrds[index];
+				double sumDistance = 0;
+				int k = 1;
+				int start = 0;
+				while (start < distances.length && k <= kMax) {
+					int end = getContainerEnd(distances, start);
+					// the cardinality of the k-neighbourhood is the number of objects in all containers so far
+					int sumCardinality = end;
+					for (int i = start; i < end; i++) {
+						sumDistance = sumDistance + Math.max(distances[start], search.getKDistance(neighbours[i], k));
+					}
+					double containerLRD = 1 / (sumDistance / sumCardinality);
+					while (k <= sumCardinality && k <= kMax) {
+						lrd[k] = containerLRD;
+						k++;
+					}
+					start = end;
+				}
+			}
+		});
+
+		// the k-LOF of each object, which needs the k-lrds of its neighbours
+		search.processConcurrently(new NearestNeighbourSearch.PointProcessor() {
+
+			@Override
+			public void process(int index) {
+				double[] distances = search.getNeighbourDistances(index);
+				int[] neighbours = search.getNeighbours(index);
+				double[] lrd = lrds[index];
+				double[] sumLRDRatio = new double[kMax + 1];
+				double outlierFactor = 0;
+				int k = 1;
+				int start = 0;
+				while (start < distances.length && k <= kMax) {
+					int end = getContainerEnd(distances, start);
+					int sumCardinality = end;
+					for (int i = start; i < end; i++) {
+						double[] neighbourLRD = lrds[neighbours[i]];
+						for (int j = 1; j <= kMax; j++) {
+							sumLRDRatio[j] = sumLRDRatio[j] + neighbourLRD[j] / lrd[j];
+						}
+					}
+					double lof = sumLRDRatio[k] / sumCardinality;
+					while (k <= sumCardinality && k <= kMax) {
+						// only LOFs from kMin on are taken into account
+						if (k >= kMin && outlierFactor <= lof) {
+							outlierFactor = lof;
+						}
+						k++;
+					}
+					start = end;
+				}
+				outlierFactors[index] = outlierFactor;
+			}
+		});
+		return outlierFactors;
+	}
+
+	/** Returns the end of the group of neighbours with the same distance as the neighbour at the given start. */
+	private static int getContainerEnd(double[] distances, int start) {
+		int end = start + 1;
+		while (end < distances.length && distances[end] == distances[start]) {
+			end++;
+		}
+		return end;
+	}
+
 	@Override
 	protected MetaData modifyMetaData(ExampleSetMetaData metaData) {
 		AttributeMetaData amd = new AttributeMetaData(Attributes.OUTLIER_NAME, Ontology.REAL, Attributes.OUTLIER_NAME);
@@ -0,0 +1,398 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.outlier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.ParallelExecutionService;
+import com.rapidminer.tools.container.Tupel;
+import com.rapidminer.tools.math.container.KDTree;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+
+/**
+ * Finds the nearest neighbours of all points for the outlier detection operators. The 
+ * distances are computed as by {@link SearchObject#getDistance(double[], double[], int)}.
+ * 
+ * For the euclidean and squared distance on data without missing values, a kd-tree is used to find
+ * the candidates, otherwise all points are scanned. The neighbour lists are computed once for the 
+ * largest k needed and stored in primitive arrays. Each list is sorted by ascending distance and 
+ * contains all points with a distance not greater than the k-th distance. A point itself is not 
+ * part of its list, but all its duplicates are. Unknown distances are sorted last. All points are 
+ * processed concurrently.
+ * 
+ * @author agent
+ */
+public class NearestNeighbourSearch {
+
+	/** A kd-tree is only used up to this number of dimensions. */
+	public static final int MAXIMAL_KD_TREE_DIMENSIONS = 16;
+
+	/** Since the tree works on euclidean distances, its search radius is enlarged by this factor before checking the exact distances. */
+	private static final double RADIUS_TOLERANCE = 1.0E-6;
+
+	/** The minimal number of points processed by one thread. */
+	private static final int MINIMAL_BLOCK_SIZE = 100;
+
+	/** The task performed for every single point by {@link NearestNeighbourSearch#processConcurrently(PointProcessor)}. */
+	public static interface PointProcessor {
+
+		public void process(int index);
+	}
+
+	private final double[][] points;
+
+	private final int kindOfDistance;
+
+	private final Operator operator;
+
+	private final KDTree<Integer> tree;
+
+	private int[][] neighbours;
+
+	private double[][] distances;
+
+	public NearestNeighbourSearch(double[][] points, int kindOfDistance, Operator operator) {
+		this.points = points;
+		this.kindOfDistance = kindOfDistance;
+		this.operator = operator;
+		this.tree = createTree();
+	}
+
+	/** Returns the values of the regular attributes of all examples. */
+	public static double[][] getPoints(ExampleSet exampleSet) {
+		Attribute[] attributes = exampleSet.getAttributes().createRegularAttributeArray();
+		double[][] points = new double[exampleSet.size()][];
+		int i = 0;
+		for (Example example : exampleSet) {
+			double[] values = new double[attributes.length];
+			for (int j = 0; j < attributes.length; j++) {
+				values[j] = example.getValue(attributes[j]);
+			}
+			points[i++] = values;
+		}
+		return points;
+	}
+
+	private KDTree<Integer> createTree() {
+		if (kindOfDistance != 0 && kindOfDistance != 1) {
+			return null;
+		}
+		int numberOfDimensions = points.length > 0 ? points[0].length : 0;
+		if (numberOfDimensions == 0 || numberOfDimensions > MAXIMAL_KD_TREE_DIMENSIONS) {
+			return null;
+		}
+		for (double[] point : points) {
+			for (double value : point) {
+				if (Double.isNaN(value) || Double.isInfinite(value)) {
+					return null;
+				}
+			}
+		}
+		List<Integer> indices = new ArrayList<Integer>(points.length);
+		for (int i = 0; i < points.length; i++) {
+			indices.add(i);
+		}
+		return new KDTree<Integer>(Arrays.asList(points), indices, numberOfDimensions, new EuclideanDistance());
+	}
+
+	/** Returns the distance between the points with the given indices. */
+	public double getDistance(int first, int second) {
+		return SearchObject.getDistance(points[first], points[second], kindOfDistance);
+	}
+
+	public int getNumberOfPoints() {
+		return points.length;
+	}
+
+	/**
+	 * Computes the neighbour lists of all points for the given k. Afterwards the lists 
+	 * are available by {@link #getNeighbours(int)} and {@link #getNeighbourDistances(int)}.
+	 */
+	public void computeNeighbours(final int k) throws OperatorException {
+		neighbours = new int[points.length][];
+		distances = new double[points.length][];
+		if (k <= 0) {
+			for (int i = 0; i < points.length; i++) {
+				neighbours[i] = new int[0];
+				distances[i] = new double[0];
+			}
+			return;
+		}
+		processConcurrently(new PointProcessor() {
+
+			private final ThreadLocal<double[]> buffer = new ThreadLocal<double[]>() {
+
+				@Override
+				protected double[] initialValue() {
+					return new double[points.length];
+				}
+			};
+
+			@Override
+			public void process(int index) {
+				if (tree != null) {
+					computeNeighboursByTree(index, k);
+				} else {
+					computeNeighboursByScan(index, k, buffer.get());
+				}
+			}
+		});
+	}
+
+	/** Returns the indices of the neighbours of the given point ordered by ascending distance. */
+	public int[] getNeighbours(int index) {
+		return neighbours[index];
+	}
+
+	/** Returns the distances to the neighbours of the given point in the same order as {@link #getNeighbours(int)}. */
+	public double[] getNeighbourDistances(int index) {
+		return distances[index];
+	}
+
+	/** Returns the k-th distance of the given point or 0 if there are less than k other points. */
+	public double getKDistance(int index, int k) {
+		return k <= distances[index].length ? distances[index][k - 1] : 0;
+	}
+
+	/**
+	 * Returns the number of points (including the point itself) whose distance to each point is smaller 
+	 * than the given distance. Counting stops as soon as the limit is exceeded.
+	 */
+	public int[] countNeighbours(final double distance, final int limit) throws OperatorException {
+		final int[] counts = new int[points.length];
+		processConcurrently(new PointProcessor() {
+
+			@Override
+			public void process(int index) {
+				int count = 0;
+				if (tree != null) {
+					List<Integer> candidates = new ArrayList<Integer>();
+					double radius = kindOfDistance == 1 ? Math.sqrt(distance) : distance;
+					tree.getValuesWithinDistance(radius * (1 + RADIUS_TOLERANCE) + Double.MIN_VALUE, points[index], candidates);
+					for (Integer candidate : candidates) {
+						if (getDistance(index, candidate) < distance) {
+							count++;
+						}
+					}
+				} else {
+					for (int i = 0; i < points.length && count <= limit; i++) {
+						if (getDistance(index, i) < distance) {
+							count++;
+						}
+					}
+				}
+				counts[index] = count;
+			}
+		});
+		return counts;
+	}
+
+	/** Processes all points concurrently in blocks. The processor must only write data belonging to the given point. */
+	public void processConcurrently(final PointProcessor processor) throws OperatorException {
+		int[] boundaries = ParallelExecutionService.getBlockBoundaries(points.length, ParallelExecutionService.getNumberOfBlocks(points.length, MINIMAL_BLOCK_SIZE));
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(boundaries.length - 1);
+		for (int block = 0; block < boundaries.length - 1; block++) {
+			final int from = boundaries[block];
+			final int to = boundaries[block + 1];
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() throws OperatorException {
+					for (int index = from; index < to; index++) {
+						if ((index - from) % MINIMAL_BLOCK_SIZE == 0) {
+							operator.checkForStopConcurrently();
+						}
+						processor.process(index);
+					}
+					return null;
+				}
+			});
+		}
+		ParallelExecutionService.invokeAll(tasks);
+	}
+
+	private void computeNeighboursByTree(int index, int k) {
+		// the k+1 nearest points, which usually include the point itself, bound the k-th distance
+		double radius = 0;
+		for (Tupel<Double, Integer> tupel : tree.getNearestValueDistances(k + 1, points[index])) {
+			radius = Math.max(radius, tupel.getFirst());
+		}
+		List<Integer> candidates = new ArrayList<Integer>();
+		tree.getValuesWithinDistance(radius * (1 + RADIUS_TOLERANCE) + Double.MIN_VALUE, points[index], candidates);
+		int[] candidateIndices = new int[candidates.size()];
+		double[] candidateDistances = new double[candidates.size()];
+		int size = 0;
+		for (Integer candidate : candidates) {
+			if (candidate != index) {
+				candidateIndices[size++] = candidate;
+			}
+		}
+		Arrays.sort(candidateIndices, 0, size);
+		for (int i = 0; i < size; i++) {
+			candidateDistances[i] = getDistance(index, candidateIndices[i]);
+		}
+		setNeighbours(index, k, candidateIndices, candidateDistances, size);
+	}
+
+	private void computeNeighboursByScan(int index, int k, double[] allDistances) {
+		// finding the k-th smallest distance with a bounded heap of positions, the largest on top
+		int[] heap = new int[k];
+		int heapSize = 0;
+		for (int i = 0; i < points.length; i++) {
+			if (i == index) {
+				allDistances[i] = Double.NaN;
+				continue;
+			}
+			allDistances[i] = getDistance(index, i);
+			if (heapSize < k) {
+				heap[heapSize] = i;
+				siftUp(heap, heapSize++, allDistances);
+			} else if (compare(i, heap[0], allDistances) < 0) {
+				heap[0] = i;
+				siftDown(heap, heapSize, allDistances);
+			}
+		}
+		int[] candidateIndices = new int[heapSize];
+		double[] candidateDistances = new double[heapSize];
+		int size = 0;
+		if (heapSize > 0) {
+			int last = heap[0];
+			for (int i = 0; i < points.length; i++) {
+				if (i != index && (compare(i, last, allDistances) <= 0 || allDistances[i] == allDistances[last])) {
+					if (size == candidateIndices.length) {
+						candidateIndices = Arrays.copyOf(candidateIndices, size * 2);
+						candidateDistances = Arrays.copyOf(candidateDistances, size * 2);
+					}
+					candidateIndices[size] = i;
+					candidateDistances[size] = allDistances[i];
+					size++;
+				}
+			}
+		}
+		setNeighbours(index, k, candidateIndices, candidateDistances, size);
+	}
+
+	/** Sorts the candidates, which are given in ascending index order, and keeps the k nearest and all points tied with the k-th. */
+	private void setNeighbours(int index, int k, int[] candidateIndices, double[] candidateDistances, int size) {
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		mergeSort(order, new int[size], 0, size, candidateDistances);
+		int length = Math.min(k, size);
+		while (length > 0 && length < size && candidateDistances[order[length]] == candidateDistances[order[length - 1]]) {
+			length++;
+		}
+		int[] pointNeighbours = new int[length];
+		double[] pointDistances = new double[length];
+		for (int i = 0; i < length; i++) {
+			pointNeighbours[i] = candidateIndices[order[i]];
+			pointDistances[i] = candidateDistances[order[i]];
+		}
+		neighbours[index] = pointNeighbours;
+		distances[index] = pointDistances;
+	}
+
+	/** Stable sort of the given positions by ascending distance, unknown distances last. */
+	private static void mergeSort(int[] order, int[] buffer, int from, int to, double[] distances) {
+		if (to - from < 2) {
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSort(order, buffer, from, middle, distances);
+		mergeSort(order, buffer, middle, to, distances);
+		int left = from;
+		int right = middle;
+		int target = from;
+		while (left < middle && right < to) {
+			if (compareDistances(distances[order[right]], distances[order[left]]) < 0) {
+				buffer[target++] = order[right++];
+			} else {
+				buffer[target++] = order[left++];
+			}
+		}
+		while (left < middle) {
+			buffer[target++] = order[left++];
+		}
+		while (right < to) {
+			buffer[target++] = order[right++];
+		}
+		System.arraycopy(buffer, from, order, from, to - from);
+	}
+
+	private static int compareDistances(double first, double second) {
+		if (Double.isNaN(first)) {
+			return Double.isNaN(second) ? 0 : 1;
+		} else if (Double.isNaN(second)) {
+			return -1;
+		}
+		return first < second ? -1 : (first > second ? 1 : 0);
+	}
+
+	/** Compares two points by distance and index. */
+	private static int compare(int first, int second, double[] distances) {
+		int result = compareDistances(distances[first], distances[second]);
+		return result != 0 ? result : (first < second ? -1 : (first == second ? 0 : 1));
+	}
+
+	private static void siftUp(int[] heap, int position, double[] distances) {
+		int element = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (compare(element, heap[parent], distances) <= 0) {
+				break;
+			}
+			heap[position] = heap[parent];
+			position = parent;
+		}
+		heap[position] = element;
+	}
+
+	private static void siftDown(int[] heap, int size, double[] distances) {
+		int element = heap[0];
+		int position = 0;
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && compare(heap[child + 1], heap[child], distances) > 0) {
+				child++;
+			}
+			if (compare(heap[child], element, distances) <= 0) {
+				break;
+			}
+			heap[position] = heap[child];
+			position = child;
+		}
+		heap[position] = element;
+	}
+}
@@ -374,6 +374,14 @@ public class SearchObject {
 	 * @param kindOfDistance
 	 */
 	public double getDistance(SearchObject toObject, int kindOfDistance) {
+		return getDistance(this.vector, toObject.vector, kindOfDistance);
+	}
+
+	/**
+	 * Returns the distance between the two given vectors according to the given kind of distance
+	 * as defined in {@link #getDistance(SearchObject, int)}.
+	 */
+	public static double getDistance(double[] vector, double[] toVector, int kindOfDistance) {
 		double distance = 0;
 		int SQUARED = 1; // squared value of the euclidian distance will be used
 		int EUCLIDIAN = 0; // euclidian (metric) distance will be used
@@ -389,14 +397,12 @@ public class SearchObject {
 		}
 
 		// check, if the dimensions of the objects are ok (the same) and computation can go ahead, else fix this first
-		int dim_of_toObject = toObject.getDimensions();
-		int minimumDimensions = 0;
-		minimumDimensions = Math.min(this.dimensions, dim_of_toObject); // if both are equal, we can take the equal min
+		int minimumDimensions = Math.min(vector.length, toVector.length); // if both are equal, we can take the equal min
 
 		// if the euclidian distance is sought for, compute and return
 		if (kindOfDistance == EUCLIDIAN || kindOfDistance == SQUARED) {
 			for (int i = 0; i < minimumDimensions; i++) {
-				distance = distance + Math.pow((this.getVektor(i) - toObject.getVektor(i)), 2);
+				distance = distance + Math.pow((vector[i] - toVector[i]), 2);
 			}
 			// if distance is squared, simply return the distance value, else for euclidian return the square-root value
 			return (kindOfDistance == SQUARED ? distance : Math.sqrt(distance));
@@ -410,9 +416,9 @@ public class SearchObject {
 		double sumyisquared = 0;
 
 		for (int i = 0; i < minimumDimensions; i++) {
-			sumOfProductsxiyi = sumOfProductsxiyi + (this.getVektor(i) * toObject.getVektor(i));
-			sumxisquared = sumxisquared + Math.pow(this.getVektor(i), 2);
-			sumyisquared = sumyisquared + Math.pow(toObject.getVektor(i), 2);
+			sumOfProductsxiyi = sumOfProductsxiyi + (vector[i] * toVector[i]);
+			sumxisquared = sumxisquared + Math.pow(vector[i], 2);
+			sumyisquared = sumyisquared + Math.pow(toVector[i], 2);
 		}
 
 		distance = sumOfProductsxiyi / (Math.sqrt(sumxisquared) * Math.sqrt(sumyisquared));
@@ -33,6 +33,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -40,6 +41,7 @@ import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.Tools;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRowFactory;
 import com.rapidminer.example.table.DoubleArrayDataRow;
@@ -48,6 +50,7 @@ import com.rapidminer.operator.OperatorCreationException;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.OperatorVersion;
+import com.rapidminer.operator.ProcessStoppedException;
 import com.rapidminer.operator.ProcessSetupError.Severity;
 import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.annotation.ResourceConsumptionEstimator;
@@ -74,6 +77,7 @@ import com.rapidminer.parameter.conditions.BooleanParameterCondition;
 import com.rapidminer.tools.Ontology;
 import com.rapidminer.tools.OperatorResourceConsumptionHandler;
 import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParallelExecutionService;
 
 /**
  * <p>
@@ -154,6 +158,40 @@ public class AggregationOperator extends AbstractDataProcessing {
 				return leafMap.keySet();
 			return Collections.emptyList();
 		}
+
+		/**
+		 * This merges the groups of the given tree into this one. Groups only present in the given tree are
+		 * taken over, the aggregators of groups present in both trees are merged. This requires all aggregators
+		 * to be {@link MergeableAggregator}s. The given tree must not be used afterwards.
+		 */
+		public void merge(AggregationTreeNode other) {
+			if (other.childrenMap != null) {
+				if (childrenMap == null) {
+					childrenMap = new TreeMap<Object, AggregationTreeNode>();
+				}
+				for (Entry<Object, AggregationTreeNode> entry : other.childrenMap.entrySet()) {
+					AggregationTreeNode childNode = childrenMap.get(entry.getKey());
+					if (childNode == null) {
+						childrenMap.put(entry.getKey(), entry.getValue());
+					} else {
+						childNode.merge(entry.getValue());
+					}
+				}
+			}
+			if (other.leafMap != null) {
+				if (leafMap == null) {
+					leafMap = new TreeMap<Object, LeafAggregationTreeNode>();
+				}
+				for (Entry<Object, LeafAggregationTreeNode> entry : other.leafMap.entrySet()) {
+					LeafAggregationTreeNode leafNode = leafMap.get(entry.getKey());
+					if (leafNode == null) {
+						leafMap.put(entry.getKey(), entry.getValue());
+					} else {
+						leafNode.merge(entry.getValue());
+					}
+				}
+			}
+		}
 	}
 
 	public static class LeafAggregationTreeNode {
@@ -199,6 +237,18 @@ public class AggregationOperator extends AbstractDataProcessing {
 		public List<Aggregator> getAggregators() {
 			return aggregators;
 		}
+
+		/**
+		 * This merges the aggregators of the given node, which must have been created for the same
+		 * {@link AggregationFunction}s, into the aggregators of this node. All aggregators have
+		 * to be {@link MergeableAggregator}s.
+		 */
+		public void merge(LeafAggregationTreeNode other) {
+			Iterator<Aggregator> otherIterator = other.aggregators.iterator();
+			for (Aggregator aggregator : aggregators) {
+				((MergeableAggregator) aggregator).merge(otherIterator.next());
+			}
+		}
 	}
 
 	public static final String PARAMETER_USE_DEFAULT_AGGREGATION = "use_default_aggregation";
@@ -209,6 +259,10 @@ public class AggregationOperator extends AbstractDataProcessing {
 	public static final String PARAMETER_ONLY_DISTINCT = "only_distinct";
 	public static final String PARAMETER_IGNORE_MISSINGS = "ignore_missings";
 	public static final String PARAMETER_ALL_COMBINATIONS = "count_all_combinations";
+	public static final String PARAMETER_PARALLELIZE_AGGREGATION = "parallelize_aggregation";
+
+	/** The minimal number of examples aggregated by one thread. */
+	private static final int MINIMAL_BLOCK_SIZE = 10000;
 
 	/* These two only remain for compatibility */
 	public static final String GENERIC_GROUP_NAME = "group";
@@ -303,7 +357,6 @@ public class AggregationOperator extends AbstractDataProcessing {
 		// getting attributes that define groups and weights
 		Attribute[] groupAttributes = getMatchingAttributes(exampleSet.getAttributes(), getParameterAsString(PARAMETER_GROUP_BY_ATTRIBUTES));
 		Attribute weightAttribute = exampleSet.getAttributes().getWeight();
-		boolean useWeights = weightAttribute != null;
 
 		// running over exampleSet and aggregate data of each example
 		AggregationTreeNode rootNode = new AggregationTreeNode();
@@ -312,32 +365,13 @@ public class AggregationOperator extends AbstractDataProcessing {
 			// if no grouping, we will directly insert into leaf node
 			leafNode = new LeafAggregationTreeNode(aggregationFunctions);
 		}
-		for (Example example : exampleSet) {
-			if (groupAttributes.length > 0) {
-				AggregationTreeNode currentNode = rootNode;
-				// now traversing aggregation tree for m-1 group attributes
-				for (int i = 0; i < groupAttributes.length - 1; i++) {
-					Attribute currentAttribute = groupAttributes[i];
-					if (currentAttribute.isNominal()) {
-						currentNode = currentNode.getOrCreateChild(example.getValueAsString(currentAttribute));
-					} else {
-						currentNode = currentNode.getOrCreateChild(example.getValue(currentAttribute));
-					}
-				}
-
-				// now we have to get the leaf node containing the aggregators
-				Attribute currentAttribute = groupAttributes[groupAttributes.length - 1];
-				if (currentAttribute.isNominal()) {
-					leafNode = currentNode.getOrCreateLeaf(example.getValueAsString(currentAttribute), aggregationFunctions);
-				} else {
-					leafNode = currentNode.getOrCreateLeaf(example.getValue(currentAttribute), aggregationFunctions);
-				}
+		int numberOfBlocks = ParallelExecutionService.getNumberOfBlocks(exampleSet.size(), MINIMAL_BLOCK_SIZE);
+		if (getParameterAsBoolean(PARAMETER_PARALLELIZE_AGGREGATION) && numberOfBlocks > 1 && isMergeable(aggregationFunctions) && Tools.isConcurrentlyReadable(exampleSet)) {
+			countInParallel(exampleSet, numberOfBlocks, rootNode, leafNode, groupAttributes, weightAttribute, aggregationFunctions);
+		} else {
+			for (Example example : exampleSet) {
+				count(example, rootNode, leafNode, groupAttributes, weightAttribute, aggregationFunctions);
 			}
-			// now count current example
-			if (!useWeights)
-				leafNode.count(example);
-			else
-				leafNode.count(example, example.getValue(weightAttribute));
 		}
 
 		// now derive new example set from aggregated values
@@ -446,6 +480,93 @@ public class AggregationOperator extends AbstractDataProcessing {
 		return resultSet;
 	}
 
+	/**
+	 * Counts the given example for all aggregators of its group, which are created if necessary. If there are
+	 * no group attributes, the example is counted by the given leaf node.
+	 */
+	private void count(Example example, AggregationTreeNode rootNode, LeafAggregationTreeNode leafNode, Attribute[] groupAttributes, Attribute weightAttribute, List<AggregationFunction> aggregationFunctions) {
+		if (groupAttributes.length > 0) {
+			AggregationTreeNode currentNode = rootNode;
+			// now traversing aggregation tree for m-1 group attributes
+			for (int i = 0; i < groupAttributes.length - 1; i++) {
+				Attribute currentAttribute = groupAttributes[i];
+				if (currentAttribute.isNominal()) {
+					currentNode = currentNode.getOrCreateChild(example.getValueAsString(currentAttribute));
+				} else {
+					currentNode = currentNode.getOrCreateChild(example.getValue(currentAttribute));
+				}
+			}
+
+			// now we have to get the leaf node containing the aggregators
+			Attribute currentAttribute = groupAttributes[groupAttributes.length - 1];
+			if (currentAttribute.isNominal()) {
+				leafNode = currentNode.getOrCreateLeaf(example.getValueAsString(currentAttribute), aggregationFunctions);
+			} else {
+				leafNode = currentNode.getOrCreateLeaf(example.getValue(currentAttribute), aggregationFunctions);
+			}
+		}
+		// now count current example
+		if (weightAttribute == null)
+			leafNode.count(example);
+		else
+			leafNode.count(example, example.getValue(weightAttribute));
+	}
+
+	/**
+	 * Counts consecutive blocks of the example set concurrently into separate aggregation trees, which are
+	 * merged in the order of the blocks into the given root node or leaf node afterwards.
+	 */
+	private void countInParallel(final ExampleSet exampleSet, int numberOfBlocks, AggregationTreeNode rootNode, LeafAggregationTreeNode leafNode, final Attribute[] groupAttributes, final Attribute weightAttribute,
+			final List<AggregationFunction> aggregationFunctions) throws OperatorException {
+		final int[] boundaries = ParallelExecutionService.getBlockBoundaries(exampleSet.size(), numberOfBlocks);
+		List<Callable<LeafAggregationTreeNode>> tasks = new ArrayList<Callable<LeafAggregationTreeNode>>(boundaries.length - 1);
+		final AggregationTreeNode[] blockRootNodes = new AggregationTreeNode[boundaries.length - 1];
+		for (int block = 0; block < boundaries.length - 1; block++) {
+			final int from = boundaries[block];
+			final int to = boundaries[block + 1];
+			final AggregationTreeNode blockRootNode = new AggregationTreeNode();
+			blockRootNodes[block] = blockRootNode;
+			tasks.add(new Callable<LeafAggregationTreeNode>() {
+
+				@Override
+				public LeafAggregationTreeNode call() throws ProcessStoppedException {
+					LeafAggregationTreeNode blockLeafNode = null;
+					if (groupAttributes.length == 0) {
+						blockLeafNode = new LeafAggregationTreeNode(aggregationFunctions);
+					}
+					for (int i = from; i < to; i++) {
+						if ((i - from) % MINIMAL_BLOCK_SIZE == 0) {
+							checkForStopConcurrently();
+						}
+						count(exampleSet.getExample(i), blockRootNode, blockLeafNode, groupAttributes, weightAttribute, aggregationFunctions);
+					}
+					return blockLeafNode;
+				}
+			});
+		}
+		List<LeafAggregationTreeNode> blockLeafNodes = ParallelExecutionService.invokeAll(tasks);
+		for (int block = 0; block < blockRootNodes.length; block++) {
+			if (leafNode != null) {
+				leafNode.merge(blockLeafNodes.get(block));
+			} else {
+				rootNode.merge(blockRootNodes[block]);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the aggregators of all given functions can be merged, so that disjoint parts of the
+	 * example set might be counted separately.
+	 */
+	private boolean isMergeable(List<AggregationFunction> aggregationFunctions) {
+		for (AggregationFunction function : aggregationFunctions) {
+			if (function.isCountingOnlyDistinct() || !(function.createAggregator() instanceof MergeableAggregator)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private void parseLeaf(LeafAggregationTreeNode node, double[] dataOfUpperLevels, List<double[]> allGroupCombinations, List<List<Aggregator>> allAggregators, DataRowFactory factory, Attribute[] newAttributes, List<AggregationFunction> aggregationFunctions) {
 		// first copying data from groups
 		double[] newGroupCombination = new double[dataOfUpperLevels.length];
@@ -607,6 +728,7 @@ public class AggregationOperator extends AbstractDataProcessing {
 		type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_ALL_COMBINATIONS, false, false));
 		types.add(type);
 		types.add(new ParameterTypeBoolean(PARAMETER_IGNORE_MISSINGS, "Indicates if missings should be ignored and aggregation should be based only on existing values or not. In the latter case the aggregated value will be missing in the presence of missing values.", true));
+		types.add(new ParameterTypeBoolean(PARAMETER_PARALLELIZE_AGGREGATION, "Indicates if parts of the example set should be aggregated in parallel and merged afterwards. Sums might differ in the last digits from a sequential aggregation. Not applied if only distinct values are counted.", false, true));
 		return types;
 	}
 
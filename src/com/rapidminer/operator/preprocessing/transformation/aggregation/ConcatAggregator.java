@@ -30,7 +30,7 @@ import com.rapidminer.example.table.DataRow;
  * @author Marius Helf 
  *
  */
-public class ConcatAggregator implements Aggregator {
+public class ConcatAggregator implements MergeableAggregator {
 
 	private ConcatAggregationFunction function;
 	boolean first = true;
@@ -67,4 +67,16 @@ public class ConcatAggregator implements Aggregator {
 		attribute.setValue(row, idx);
 	}
 
+	@Override
+	public void merge(Aggregator aggregator) {
+		ConcatAggregator other = (ConcatAggregator) aggregator;
+		if (!other.first) {
+			if (first) {
+				first = false;
+			} else {
+				concatenation.append(function.getSeparator());
+			}
+			concatenation.append(other.concatenation);
+		}
+	}
 }
@@ -34,7 +34,7 @@ import com.rapidminer.example.table.DataRow;
  * 
  * @author Sebastian Land
  */
-public class CountAggregator implements Aggregator {
+public class CountAggregator implements MergeableAggregator {
 
     private Attribute sourceAttribute;
     private double count = 0;
@@ -84,4 +84,9 @@ public class CountAggregator implements Aggregator {
     public void setCount(double count) {
     	this.count = count;
     }
+
+    @Override
+    public void merge(Aggregator aggregator) {
+        count += ((CountAggregator) aggregator).count;
+    }
 }
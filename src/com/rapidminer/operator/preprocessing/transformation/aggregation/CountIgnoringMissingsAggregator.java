@@ -34,7 +34,7 @@ import com.rapidminer.example.table.DataRow;
  * 
  * @author Sebastian Land
  */
-public class CountIgnoringMissingsAggregator implements Aggregator {
+public class CountIgnoringMissingsAggregator implements MergeableAggregator {
 
     private Attribute sourceAttribute;
     private double count = 0;
@@ -72,4 +72,9 @@ public class CountIgnoringMissingsAggregator implements Aggregator {
     public void set(Attribute attribute, DataRow row) {
         row.set(attribute, count);
     }
+
+    @Override
+    public void merge(Aggregator aggregator) {
+        count += ((CountIgnoringMissingsAggregator) aggregator).count;
+    }
 }
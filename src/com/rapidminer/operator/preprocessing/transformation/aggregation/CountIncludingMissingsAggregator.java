@@ -34,7 +34,7 @@ import com.rapidminer.example.table.DataRow;
  * 
  * @author Sebastian Land
  */
-public class CountIncludingMissingsAggregator implements Aggregator {
+public class CountIncludingMissingsAggregator implements MergeableAggregator {
 
     private Attribute sourceAttribute;
     private double count = 0;
@@ -88,5 +88,10 @@ public class CountIncludingMissingsAggregator implements Aggregator {
 
     public void setCount(double count) {
     	this.count = count;
-    }    
+    }
+
+    @Override
+    public void merge(Aggregator aggregator) {
+        count += ((CountIncludingMissingsAggregator) aggregator).count;
+    }
 }
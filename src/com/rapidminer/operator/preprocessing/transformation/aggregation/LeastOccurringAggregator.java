@@ -32,7 +32,7 @@ import com.rapidminer.example.table.DataRow;
  * 
  * @author Sebastian Land
  */
-public class LeastOccurringAggregator implements Aggregator {
+public class LeastOccurringAggregator implements MergeableAggregator {
 
     private Attribute sourceAttribute;
     private double[] frequencies;
@@ -70,4 +70,12 @@ public class LeastOccurringAggregator implements Aggregator {
         else
             row.set(attribute, Double.NaN);
     }
+
+    @Override
+    public void merge(Aggregator aggregator) {
+        double[] otherFrequencies = ((LeastOccurringAggregator) aggregator).frequencies;
+        for (int i = 0; i < frequencies.length; i++) {
+            frequencies[i] += otherFrequencies[i];
+        }
+    }
 }
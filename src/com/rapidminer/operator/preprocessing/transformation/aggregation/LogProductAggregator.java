@@ -28,7 +28,7 @@ package com.rapidminer.operator.preprocessing.transformation.aggregation;
  * 
  * @author Sebastian Land
  */
-public class LogProductAggregator extends NumericalAggregator {
+public class LogProductAggregator extends NumericalAggregator implements MergeableAggregator {
 
     private double logSum = 0;
 
@@ -55,4 +55,12 @@ public class LogProductAggregator extends NumericalAggregator {
 	public void setValue(double value) {
 		this.logSum = value;
 	}
+
+    @Override
+    public void merge(Aggregator aggregator) {
+        LogProductAggregator other = (LogProductAggregator) aggregator;
+        if (mergeMissing(other)) {
+            logSum += other.logSum;
+        }
+    }
 }
@@ -28,7 +28,7 @@ package com.rapidminer.operator.preprocessing.transformation.aggregation;
  * 
  * @author Sebastian Land
  */
-public class MaxAggregator extends NumericalAggregator {
+public class MaxAggregator extends NumericalAggregator implements MergeableAggregator {
 
     private double max = Double.NEGATIVE_INFINITY;
     private boolean hasValue = false;
@@ -65,4 +65,15 @@ public class MaxAggregator extends NumericalAggregator {
 	public void setValue(double value) {
 		this.max = value;
 	}
+
+    @Override
+    public void merge(Aggregator aggregator) {
+        MaxAggregator other = (MaxAggregator) aggregator;
+        if (mergeMissing(other) && other.hasValue) {
+            hasValue = true;
+            if (max < other.max) {
+                max = other.max;
+            }
+        }
+    }
 }
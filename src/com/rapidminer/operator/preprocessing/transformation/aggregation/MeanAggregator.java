@@ -28,7 +28,7 @@ package com.rapidminer.operator.preprocessing.transformation.aggregation;
  * 
  * @author Sebastian Land
  */
-public class MeanAggregator extends NumericalAggregator {
+public class MeanAggregator extends NumericalAggregator implements MergeableAggregator {
 
     private double sum = 0;
     private double totalWeight = 0;
@@ -59,4 +59,12 @@ public class MeanAggregator extends NumericalAggregator {
 		this.sum = value;
 	}
 
+    @Override
+    public void merge(Aggregator aggregator) {
+        MeanAggregator other = (MeanAggregator) aggregator;
+        if (mergeMissing(other)) {
+            sum += other.sum;
+            totalWeight += other.totalWeight;
+        }
+    }
 }
@@ -22,118 +22,72 @@
  */
 package com.rapidminer.operator.preprocessing.transformation.aggregation;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * This is an {@link Aggregator} for the {@link MeanAggregationFunction}
  * It uses a linear time algorithm for computing the median, but also the memory consumption
- * will grow (double) linearly with the size of the dataset.
+ * will grow (double) linearly with the size of the dataset. The buffers start small and grow
+ * with the number of values, so that many small groups remain cheap.
  * 
  * 
  * @author Sebastian Land
  */
-public class MedianAggregator extends NumericalAggregator {
+public class MedianAggregator extends NumericalAggregator implements MergeableAggregator {
 
-	private static final int BUFFER_SIZE = 65536;
+	private static final int INITIAL_BUFFER_SIZE = 16;
 
-	private static class MedianListElement {
-
-		private double[] elements = new double[BUFFER_SIZE];
-	}
-
-	private static class WeightedMedianListElement {
-
-		private double[] elements = new double[BUFFER_SIZE];
-		private double[] weights = new double[BUFFER_SIZE];
-	}
-
-	private List<MedianListElement> elements = null;
-	private List<WeightedMedianListElement> weightedElements = null;
-	private int currentIndex = 0;
+	private double[] values = null;
+	private double[] weights = null;
 	private int count = 0;
-	private MedianListElement currentElement = null;
-	private WeightedMedianListElement currentWeightedElement = null;
 
 	public MedianAggregator(AggregationFunction function) {
 		super(function);
 	}
 
-	private List<WeightedMedianListElement> getWeightedElements() {
-		if (weightedElements == null) {
-			weightedElements = new ArrayList<WeightedMedianListElement>();
+	private void ensureCapacity(int capacity, boolean useWeights) {
+		if (values == null) {
+			values = new double[Math.max(INITIAL_BUFFER_SIZE, capacity)];
+			if (useWeights) {
+				weights = new double[values.length];
+			}
+		} else if (values.length < capacity) {
+			int newLength = Math.max(capacity, values.length + (values.length >> 1));
+			values = Arrays.copyOf(values, newLength);
+			if (weights != null) {
+				weights = Arrays.copyOf(weights, newLength);
+			}
 		}
-		return weightedElements;
 	}
 
 	@Override
 	public void count(double value) {
-		currentIndex = count % BUFFER_SIZE;
-		if (currentIndex == 0) {
-			if (elements == null) {
-				elements = new ArrayList<MedianListElement>();
-			}
-
-			currentElement = new MedianListElement();
-			elements.add(currentElement);
-		}
-
-		currentElement.elements[currentIndex] = value;
-
+		ensureCapacity(count + 1, false);
+		values[count] = value;
 		count++;
 	}
 
 	@Override
 	public void count(double value, double weight) {
-		currentIndex = count % BUFFER_SIZE;
-		if (currentIndex == 0) {
-			currentWeightedElement = new WeightedMedianListElement();
-			getWeightedElements().add(currentWeightedElement);
-		}
-
-		currentWeightedElement.elements[currentIndex] = value;
-		currentWeightedElement.weights[currentIndex] = weight;
-
+		ensureCapacity(count + 1, true);
+		values[count] = value;
+		weights[count] = weight;
 		count++;
 	}
 
 	@Override
 	public double getValue() {
-		// first derive full copy of all values into one single array
-		double[] allValues = new double[count];
-		double[] allWeights = null;
-		boolean useWeights = false;
-
 		// median of counting is NaN
 		if(count == 0) {
 			return Double.NaN;
 		}
 
-		if (elements != null) {
-			// Copy all full elements
-			for (int i = 0; i < elements.size() - 1; i++) {
-				System.arraycopy(elements.get(i).elements, 0, allValues, i * BUFFER_SIZE, BUFFER_SIZE);
-			}
-
-			// for the last only copy the filled values
-			int numberOfValues = count % BUFFER_SIZE;
-			System.arraycopy(elements.get(elements.size() - 1).elements, 0, allValues, (elements.size() - 1) * BUFFER_SIZE, numberOfValues);
-		} else {
-			useWeights = true;
-			allWeights = new double[count];
-
-			List<WeightedMedianListElement> weightedElements = getWeightedElements();
-
-			// Copy all full elements including weights
-			for (int i = 0; i < weightedElements.size() - 1; i++) {
-				System.arraycopy(weightedElements.get(i).elements, 0, allValues, i * BUFFER_SIZE, BUFFER_SIZE);
-				System.arraycopy(weightedElements.get(i).weights, 0, allWeights, i * BUFFER_SIZE, BUFFER_SIZE);
-			}
-
-			// for the last only copy the filled values
-			int numberOfValues = count % BUFFER_SIZE;
-			System.arraycopy(weightedElements.get(weightedElements.size() - 1).elements, 0, allValues, (weightedElements.size() - 1) * BUFFER_SIZE, numberOfValues);
-			System.arraycopy(weightedElements.get(weightedElements.size() - 1).weights, 0, allWeights, (weightedElements.size() - 1) * BUFFER_SIZE, numberOfValues);
+		// first derive full copy of all values into one single array
+		double[] allValues = Arrays.copyOf(values, count);
+		double[] allWeights = null;
+		boolean useWeights = weights != null;
+		if (useWeights) {
+			allWeights = Arrays.copyOf(weights, count);
 		}
 
 		// now going through
@@ -219,4 +173,18 @@ public class MedianAggregator extends NumericalAggregator {
 
 		return pivotValue;
 	}
+
+	@Override
+	public void merge(Aggregator aggregator) {
+		MedianAggregator other = (MedianAggregator) aggregator;
+		if (mergeMissing(other) && other.count > 0) {
+			// appending the values of the other aggregator in their original order
+			ensureCapacity(count + other.count, other.weights != null);
+			System.arraycopy(other.values, 0, values, count, other.count);
+			if (weights != null) {
+				System.arraycopy(other.weights, 0, weights, count, other.count);
+			}
+			count += other.count;
+		}
+	}
 }
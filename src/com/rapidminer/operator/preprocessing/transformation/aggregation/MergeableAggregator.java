@@ -0,0 +1,44 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+/**
+ * An {@link Aggregator} that can take over the counts of another {@link Aggregator} of the same
+ * type. This allows to count disjoint parts of an example set independently, for example in
+ * parallel, and to combine the partial aggregates of each group afterwards.
+ * 
+ * Please note that aggregators counting only distinct values cannot be merged, since the
+ * distinct values of both parts are unknown.
+ * 
+ * @author agent
+ */
+public interface MergeableAggregator extends Aggregator {
+
+    /**
+     * This will add the counts of the given {@link Aggregator} to this one as if its examples
+     * were counted after the examples counted so far. The given aggregator must have been
+     * created by the same {@link AggregationFunction} and must not be used afterwards.
+     */
+    public void merge(Aggregator aggregator);
+
+}
@@ -28,7 +28,7 @@ package com.rapidminer.operator.preprocessing.transformation.aggregation;
  * 
  * @author Sebastian Land
  */
-public class MinAggregator extends NumericalAggregator {
+public class MinAggregator extends NumericalAggregator implements MergeableAggregator {
 
     private double min = Double.POSITIVE_INFINITY;
     private boolean hasValue = false;
@@ -65,4 +65,15 @@ public class MinAggregator extends NumericalAggregator {
 	public void setValue(double value) {
 		this.min = value;
 	}
+
+    @Override
+    public void merge(Aggregator aggregator) {
+        MinAggregator other = (MinAggregator) aggregator;
+        if (mergeMissing(other) && other.hasValue) {
+            hasValue = true;
+            if (min > other.min) {
+                min = other.min;
+            }
+        }
+    }
 }
@@ -35,7 +35,7 @@ import com.rapidminer.example.table.DataRow;
  * 
  * @author Sebastian Land
  */
-public class ModeAggregator implements Aggregator {
+public class ModeAggregator implements MergeableAggregator {
 
     private Attribute sourceAttribute;
     private double[] frequencies;
@@ -108,4 +108,22 @@ public class ModeAggregator implements Aggregator {
         else
             row.set(attribute, Double.NaN);
     }
+
+    @Override
+    public void merge(Aggregator aggregator) {
+        ModeAggregator other = (ModeAggregator) aggregator;
+        if (frequencies != null) {
+            for (int i = 0; i < frequencies.length; i++) {
+                frequencies[i] += other.frequencies[i];
+            }
+        } else {
+            for (Entry<Double, Double> entry: other.frequenciesMap.entrySet()) {
+                Double frequency = frequenciesMap.get(entry.getKey());
+                if (frequency == null)
+                    frequenciesMap.put(entry.getKey(), entry.getValue());
+                else
+                    frequenciesMap.put(entry.getKey(), frequency + entry.getValue());
+            }
+        }
+    }
 }
@@ -123,4 +123,17 @@ public abstract class NumericalAggregator implements Aggregator {
     protected void setValue(double value) {
     	// do nothing
     }
+
+    /**
+     * Takes over the missing state of the given aggregator, which is meant to be merged into this
+     * one by subclasses implementing {@link MergeableAggregator}. Returns false if the values of
+     * the given aggregator must not be merged anymore because the result is already missing.
+     */
+    protected final boolean mergeMissing(NumericalAggregator other) {
+        if (isMissing && !ignoreMissings)
+            return false;
+        if (other.isMissing)
+            isMissing = true;
+        return !isMissing || ignoreMissings;
+    }
 }
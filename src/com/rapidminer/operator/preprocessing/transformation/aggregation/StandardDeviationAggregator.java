@@ -28,7 +28,7 @@ package com.rapidminer.operator.preprocessing.transformation.aggregation;
  * 
  * @author Sebastian Land
  */
-public class StandardDeviationAggregator extends NumericalAggregator {
+public class StandardDeviationAggregator extends NumericalAggregator implements MergeableAggregator {
 
     private double valueSum = 0d;
     private double squaredValueSum = 0d;
@@ -65,4 +65,15 @@ public class StandardDeviationAggregator extends NumericalAggregator {
         } else
             return Double.NaN;
     }
+
+    @Override
+    public void merge(Aggregator aggregator) {
+        StandardDeviationAggregator other = (StandardDeviationAggregator) aggregator;
+        if (mergeMissing(other)) {
+            valueSum += other.valueSum;
+            squaredValueSum += other.squaredValueSum;
+            totalWeightSum += other.totalWeightSum;
+            count += other.count;
+        }
+    }
 }
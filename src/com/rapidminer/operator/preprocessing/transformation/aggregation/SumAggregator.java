@@ -27,7 +27,7 @@ package com.rapidminer.operator.preprocessing.transformation.aggregation;
  * 
  * @author Sebastian Land
  */
-public class SumAggregator extends NumericalAggregator {
+public class SumAggregator extends NumericalAggregator implements MergeableAggregator {
 
     private double sum = 0;
 
@@ -54,4 +54,12 @@ public class SumAggregator extends NumericalAggregator {
 	public void setValue(double value) {
 		this.sum = value;
 	}
+
+    @Override
+    public void merge(Aggregator aggregator) {
+        SumAggregator other = (SumAggregator) aggregator;
+        if (mergeMissing(other)) {
+            sum += other.sum;
+        }
+    }
 }
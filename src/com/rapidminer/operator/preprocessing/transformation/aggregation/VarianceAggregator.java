@@ -28,7 +28,7 @@ package com.rapidminer.operator.preprocessing.transformation.aggregation;
  * 
  * @author Sebastian Land
  */
-public class VarianceAggregator extends NumericalAggregator {
+public class VarianceAggregator extends NumericalAggregator implements MergeableAggregator {
 
     private double valueSum = 0d;
     private double squaredValueSum = 0d;
@@ -62,4 +62,15 @@ public class VarianceAggregator extends NumericalAggregator {
         else
             return Double.NaN;
     }
+
+    @Override
+    public void merge(Aggregator aggregator) {
+        VarianceAggregator other = (VarianceAggregator) aggregator;
+        if (mergeMissing(other)) {
+            valueSum += other.valueSum;
+            squaredValueSum += other.squaredValueSum;
+            totalWeightSum += other.totalWeightSum;
+            count += other.count;
+        }
+    }
 }
@@ -0,0 +1,239 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.AttributeRole;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.ColumnarExampleTable;
+import com.rapidminer.operator.Annotations;
+
+/**
+ * Stores example sets column by column as little endian doubles, so that the stored data can be
+ * used directly via memory mapped buffers (see {@link #map(File, long)}) instead of being read onto
+ * the heap. The body starts with a version number and the serialized attributes, roles and annotations, 
+ * followed by the number of rows and columns and the values of all columns.
+ * 
+ * Every column takes 8 bytes per example, including nominal columns which are stored as the double
+ * value of their mapping index. Stored nominal data is therefore up to eight times larger than the
+ * byte and int columns of a {@link ColumnarExampleTable} on the heap. In exchange, all mapped columns
+ * can be read without any conversion.
+ * 
+ * Reading the body from a stream creates a {@link ColumnarExampleTable} on the heap.
+ * 
+ * @author agent
+ */
+public class ColumnarExampleSetBodySerializer implements BodySerializer {
+
+	private static final int VERSION = 1;
+
+	/** The maximal number of values buffered while collecting the values of several columns in one pass. */
+	private static final int MAXIMAL_PASS_VALUES = 1 << 23;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	@Override
+	public void serialize(Object object, OutputStream out) throws IOException {
+		if (!(object instanceof ExampleSet)) {
+			throw new IOException("Serialization type " + SerializationType.COLUMNAR_EXAMPLE_SET + " only available for ExampleSets.");
+		}
+		ExampleSet exampleSet = (ExampleSet) object;
+
+		// creating attributes without transformations of views
+		ArrayList<Attribute> sourceAttributes = new ArrayList<Attribute>();
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>();
+		ArrayList<String> specialNames = new ArrayList<String>();
+		Iterator<AttributeRole> roles = exampleSet.getAttributes().allAttributeRoles();
+		while (roles.hasNext()) {
+			AttributeRole role = roles.next();
+			Attribute attribute = role.getAttribute();
+			Attribute newAttribute = AttributeFactory.createAttribute(attribute.getName(), attribute.getValueType());
+			if (attribute.isNominal()) {
+				newAttribute.setMapping(attribute.getMapping());
+			}
+			newAttribute.getAnnotations().addAll(attribute.getAnnotations());
+			sourceAttributes.add(attribute);
+			attributes.add(newAttribute);
+			specialNames.add(role.isSpecial() ? role.getSpecialName() : null);
+		}
+
+		ByteArrayOutputStream headerBuffer = new ByteArrayOutputStream();
+		ObjectOutputStream headerOut = new ObjectOutputStream(headerBuffer);
+		headerOut.writeObject(attributes);
+		headerOut.writeObject(specialNames);
+		headerOut.writeObject(new Annotations(exampleSet.getAnnotations()));
+		headerOut.close();
+		byte[] header = headerBuffer.toByteArray();
+
+		int size = exampleSet.size();
+		DataOutputStream dout = new DataOutputStream(out);
+		dout.writeInt(VERSION);
+		dout.writeInt(header.length);
+		dout.write(header);
+		dout.writeInt(size);
+		dout.writeInt(attributes.size());
+		dout.flush();
+
+		// collecting the values of as many columns as possible in one pass
+		int columnsPerPass = Math.max(1, MAXIMAL_PASS_VALUES / Math.max(1, size));
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		for (int first = 0; first < sourceAttributes.size(); first += columnsPerPass) {
+			int last = Math.min(sourceAttributes.size(), first + columnsPerPass);
+			double[][] values = new double[last - first][size];
+			int row = 0;
+			for (Example example : exampleSet) {
+				for (int column = first; column < last; column++) {
+					values[column - first][row] = example.getValue(sourceAttributes.get(column));
+				}
+				row++;
+			}
+			for (double[] columnValues : values) {
+				for (double value : columnValues) {
+					if (!buffer.hasRemaining()) {
+						out.write(buffer.array(), 0, buffer.position());
+						buffer.clear();
+					}
+					buffer.putDouble(value);
+				}
+			}
+		}
+		out.write(buffer.array(), 0, buffer.position());
+		out.flush();
+	}
+
+	@Override
+	public Object deserialize(InputStream in) throws IOException {
+		DataInputStream din = new DataInputStream(in);
+		Header header = readHeader(din);
+		ColumnarExampleTable table = new ColumnarExampleTable(header.attributes, header.size, false);
+		byte[] bytes = new byte[BUFFER_SIZE];
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		for (int column = 0; column < header.numberOfColumns; column++) {
+			int row = 0;
+			while (row < header.size) {
+				int length = Math.min(BUFFER_SIZE / 8, header.size - row) * 8;
+				din.readFully(bytes, 0, length);
+				buffer.clear();
+				for (int i = 0; i < length; i += 8) {
+					table.setValue(row++, column, buffer.getDouble());
+				}
+			}
+		}
+		return header.createExampleSet(table);
+	}
+
+	/**
+	 * Creates an example set from a file containing a body written by this serializer at the given
+	 * position. The data is not read but memory mapped.
+	 */
+	public static ExampleSet map(File file, long bodyOffset) throws IOException {
+		Header header;
+		long dataOffset;
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			in.seek(bodyOffset);
+			header = readHeader(in);
+			dataOffset = in.getFilePointer();
+			if (in.length() < dataOffset + (long) header.size * header.numberOfColumns * 8) {
+				throw new IOException("Incomplete data file, expected " + header.size + " rows of " + header.numberOfColumns + " columns.");
+			}
+		} finally {
+			in.close();
+		}
+		return header.createExampleSet(ColumnarExampleTable.createMappedTable(header.attributes, header.size, file, dataOffset));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Header readHeader(DataInput in) throws IOException {
+		int version = in.readInt();
+		if (version > VERSION) {
+			throw new IOException("Unsupported columnar example set version: " + version);
+		}
+		byte[] headerBytes = new byte[in.readInt()];
+		in.readFully(headerBytes);
+		Header header = new Header();
+		ObjectInputStream headerIn = new RMObjectInputStream(new ByteArrayInputStream(headerBytes));
+		try {
+			header.attributes = (List<Attribute>) headerIn.readObject();
+			header.specialNames = (List<String>) headerIn.readObject();
+			header.annotations = (Annotations) headerIn.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Deserialized unknown class: " + e, e);
+		} finally {
+			headerIn.close();
+		}
+		header.size = in.readInt();
+		header.numberOfColumns = in.readInt();
+		if (header.numberOfColumns != header.attributes.size()) {
+			throw new IOException("Number of columns does not match number of attributes.");
+		}
+		return header;
+	}
+
+	private static class Header {
+
+		private List<Attribute> attributes;
+
+		private List<String> specialNames;
+
+		private Annotations annotations;
+
+		private int size;
+
+		private int numberOfColumns;
+
+		private ExampleSet createExampleSet(ColumnarExampleTable table) {
+			Map<Attribute, String> specialAttributes = new HashMap<Attribute, String>();
+			for (int i = 0; i < attributes.size(); i++) {
+				if (specialNames.get(i) != null) {
+					specialAttributes.put(attributes.get(i), specialNames.get(i));
+				}
+			}
+			ExampleSet exampleSet = table.createExampleSet(specialAttributes);
+			exampleSet.getAnnotations().addAll(annotations);
+			return exampleSet;
+		}
+	}
+}
@@ -107,7 +107,10 @@ public enum SerializationType {
 	
 	STREAMED_EXAMPLE_SET_DENSE_2(new StreamedExampleSetBodySerializer(ExampleSetToStream.VERSION_2)),
 	
-	STREAMED_EXAMPLE_SET_DENSE_3(new StreamedExampleSetBodySerializer(ExampleSetToStream.VERSION_3));
+	STREAMED_EXAMPLE_SET_DENSE_3(new StreamedExampleSetBodySerializer(ExampleSetToStream.VERSION_3)),
+
+	/** Stores example sets column by column so that they can be memory mapped, see {@link ColumnarExampleSetBodySerializer}. */
+	COLUMNAR_EXAMPLE_SET(new ColumnarExampleSetBodySerializer());
 	
 	public static SerializationType STREAMED_EXAMPLE_SET_DENSE_CURRENT_VERSION = STREAMED_EXAMPLE_SET_DENSE_3; 
 	
@@ -22,6 +22,8 @@
  */
 package com.rapidminer.operator.validation;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -81,6 +83,33 @@ public abstract class AbstractBootstrappingValidation extends ValidationChain {
 
 		// start bootstrapping loop
 		RandomGenerator random = RandomGenerator.getRandomGenerator(this);
+		if (isParallelExecutionEnabled()) {
+			// the mappings are created in advance in order to keep the same random sequence
+			// and sorted here since they are shared by the concurrently created example sets
+			final List<int[]> mappings = new ArrayList<int[]>(number);
+			for (int i = 0; i < number; i++) {
+				int[] mapping = createMapping(inputSet, (int)Math.round(inputSet.size() * getParameterAsDouble(PARAMETER_SAMPLE_RATIO)), random);
+				Arrays.sort(mapping);
+				mappings.add(mapping);
+			}
+			performIterationsInParallel(inputSet, number, new IterationSets() {
+				@Override
+				public ExampleSet createTrainingSet(ExampleSet exampleSet, int index) {
+					return new MappedExampleSet(exampleSet, mappings.get(index), true, false);
+				}
+
+				@Override
+				public ExampleSet createTestSet(ExampleSet exampleSet, int index) {
+					return new MappedExampleSet(exampleSet, mappings.get(index), false, false);
+				}
+
+				@Override
+				public void iterationsFinished(int numberOfIterations) {
+					iteration = numberOfIterations;
+				}
+			});
+			return;
+		}
 		for (iteration = 0; iteration < number; iteration++) {
 			int[] mapping = createMapping(inputSet, (int)Math.round(inputSet.size() * getParameterAsDouble(PARAMETER_SAMPLE_RATIO)), random);
 			MappedExampleSet trainingSet = new MappedExampleSet((ExampleSet)inputSet.clone(), mapping, true);
@@ -93,6 +122,11 @@ public abstract class AbstractBootstrappingValidation extends ValidationChain {
 		// end loop
 	}
 
+	@Override
+	protected boolean supportsParallelIterations() {
+		return true;
+	}
+
 	@Override
 	protected MDInteger getTestSetSize(MDInteger originalSize) throws UndefinedParameterError {
 		return originalSize.multiply(1d - getParameterAsDouble(PARAMETER_SAMPLE_RATIO));
@@ -27,6 +27,7 @@ import java.util.List;
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.Partition;
 import com.rapidminer.example.set.SplittedExampleSet;
 import com.rapidminer.operator.OperatorCapability;
 import com.rapidminer.operator.OperatorDescription;
@@ -111,6 +112,31 @@ public class BatchXValidation extends ValidationChain {
         SplittedExampleSet splittedES = SplittedExampleSet.splitByAttribute(inputSet, batchAttribute);
 
         // start crossvalidation        
+        if (isParallelExecutionEnabled()) {
+            int number = splittedES.getNumberOfSubsets();
+            final Partition partition = splittedES.getPartition();
+            performIterationsInParallel(inputSet, number, new IterationSets() {
+                @Override
+                public ExampleSet createTrainingSet(ExampleSet exampleSet, int subset) {
+                    SplittedExampleSet trainingSet = new SplittedExampleSet(exampleSet, (Partition) partition.clone());
+                    trainingSet.selectAllSubsetsBut(subset);
+                    return trainingSet;
+                }
+
+                @Override
+                public ExampleSet createTestSet(ExampleSet exampleSet, int subset) {
+                    SplittedExampleSet testSet = new SplittedExampleSet(exampleSet, (Partition) partition.clone());
+                    testSet.selectSingleSubset(subset);
+                    return testSet;
+                }
+
+                @Override
+                public void iterationsFinished(int numberOfIterations) {
+                    iteration = numberOfIterations;
+                }
+            });
+            return;
+        }
         for (iteration = 0; iteration < splittedES.getNumberOfSubsets(); iteration++) {
 
             splittedES.selectAllSubsetsBut(iteration);
@@ -124,6 +150,11 @@ public class BatchXValidation extends ValidationChain {
         // end crossvalidation
     }
     
+	@Override
+	protected boolean supportsParallelIterations() {
+		return true;
+	}
+
 	@Override
 	protected MDInteger getTestSetSize(MDInteger originalSize) throws UndefinedParameterError {
 		return new MDInteger();
@@ -129,7 +129,12 @@ public class Tools {
 	 *  builds the average.
 	 *  Null inputs are ignored. */
 	public static void buildAverages(InputPort inputPort, OutputPort outputPort) throws OperatorException {
-		AverageVector performance = inputPort.getDataOrNull(AverageVector.class);
+		buildAverages(inputPort.getDataOrNull(AverageVector.class), outputPort);
+	}
+
+	/* Same as buildAverages(InputPort, OutputPort) for an average vector which
+	 *  was already retrieved, e.g. from a copy of the subprocess. */
+	public static void buildAverages(AverageVector performance, OutputPort outputPort) throws OperatorException {
 		if (performance == null) {
 			return;
 		}
@@ -22,7 +22,11 @@
  */
 package com.rapidminer.operator.validation;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
@@ -49,9 +53,11 @@ import com.rapidminer.operator.ports.metadata.Precondition;
 import com.rapidminer.operator.ports.metadata.SetRelation;
 import com.rapidminer.operator.ports.metadata.SimplePrecondition;
 import com.rapidminer.operator.ports.metadata.SubprocessTransformRule;
+import com.rapidminer.operator.preprocessing.MaterializeDataInMemory;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.UndefinedParameterError;
+import com.rapidminer.tools.ParallelExecutionService;
 import com.rapidminer.tools.math.AverageVector;
 
 
@@ -70,6 +76,9 @@ public abstract class ValidationChain extends OperatorChain implements Capabilit
     /** The parameter name for &quot;Indicates if a model of the complete data set should be additionally build after estimation.&quot; */
     public static final String PARAMETER_CREATE_COMPLETE_MODEL = "create_complete_model";
 
+    /** The parameter name for &quot;Indicates if the iterations should be executed in parallel on copies of the subprocesses.&quot; */
+    public static final String PARAMETER_PARALLELIZE_ITERATIONS = "parallelize_iterations";
+
     // input
     protected final InputPort trainingSetInput = getInputPorts().createPort("training", ExampleSet.class);
 
@@ -294,6 +303,96 @@ public abstract class ValidationChain extends OperatorChain implements Capabilit
         }
     }
 
+    /**
+     * Subclasses performing several independent iterations should return true and use 
+     * {@link #performIterationsInParallel(ExampleSet, int, IterationSets)} if {@link #isParallelExecutionEnabled()} 
+     * returns true. Only then the parameter {@link #PARAMETER_PARALLELIZE_ITERATIONS} is offered.
+     */
+    protected boolean supportsParallelIterations() {
+        return false;
+    }
+
+    /** Returns true if the user requested the parallel execution of the iterations and more than one thread may be used. */
+    protected final boolean isParallelExecutionEnabled() throws UndefinedParameterError {
+        return supportsParallelIterations() && getParameterAsBoolean(PARAMETER_PARALLELIZE_ITERATIONS) && ParallelExecutionService.getNumberOfThreads() > 1;
+    }
+
+    /**
+     * Creates the training and test sets of the single iterations for 
+     * {@link ValidationChain#performIterationsInParallel(ExampleSet, int, IterationSets)}. The methods
+     * are called concurrently for different iterations, each time with a materialized copy of the input 
+     * example set which is only used by the calling thread.
+     */
+    protected interface IterationSets {
+
+        /** Returns the training set of the given iteration as a view on the given example set. */
+        public ExampleSet createTrainingSet(ExampleSet exampleSet, int iteration) throws OperatorException;
+
+        /** Returns the test set of the given iteration as a view on the given example set. */
+        public ExampleSet createTestSet(ExampleSet exampleSet, int iteration) throws OperatorException;
+
+        /** Is called after the results of the first <code>numberOfIterations</code> iterations have been merged. */
+        public void iterationsFinished(int numberOfIterations);
+    }
+
+    /**
+     * Learns and evaluates one model for each iteration concurrently. Each thread uses its own copy of 
+     * this operator and one materialized copy of the input set, since the inner operators, e.g. the model 
+     * application, might write into the underlying example table. The copies keep the data management of the 
+     * input set and use their own nominal mappings. The training and test sets of the single iterations are 
+     * only views on these copies. The averagable results are merged in iteration order as soon as all 
+     * preceding iterations are finished, so the results are identical to a sequential execution as long as 
+     * the inner operators do not use the global random generator.
+     */
+    protected final void performIterationsInParallel(ExampleSet inputSet, final int numberOfIterations, final IterationSets iterationSets) throws OperatorException {
+        final AtomicInteger nextIteration = new AtomicInteger();
+        final List<PortPairExtender.PortPair> pairs = applyProcessPerformancePortExtender.getManagedPairs();
+        final List<List<AverageVector>> pendingResults = new ArrayList<List<AverageVector>>(Collections.nCopies(numberOfIterations, (List<AverageVector>) null));
+        final int[] numberOfMergedIterations = new int[1];
+
+        int numberOfCopies = Math.min(ParallelExecutionService.getNumberOfThreads(), numberOfIterations);
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numberOfCopies);
+        for (int i = 0; i < numberOfCopies; i++) {
+            // the copies are created in the operator thread since the input set might not be readable concurrently
+            final ValidationChain copy = (ValidationChain) cloneForParallelExecution();
+            final ExampleSet exampleSet = MaterializeDataInMemory.materializeIndependentCopy(inputSet);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws OperatorException {
+                    for (int iteration = nextIteration.getAndIncrement(); iteration < numberOfIterations; iteration = nextIteration.getAndIncrement()) {
+                        checkForStopConcurrently();
+                        copy.learn(iterationSets.createTrainingSet(exampleSet, iteration));
+
+                        ExampleSet testSet = iterationSets.createTestSet(exampleSet, iteration);
+                        Attribute predictedBefore = testSet.getAttributes().getPredictedLabel();
+                        copy.applyAndEvaluate(testSet);
+                        List<AverageVector> results = new ArrayList<AverageVector>();
+                        for (PortPairExtender.PortPair pair : copy.applyProcessPerformancePortExtender.getManagedPairs()) {
+                            results.add(pair.getInputPort().getDataOrNull(AverageVector.class));
+                        }
+                        removeNewPrediction(testSet, predictedBefore);
+
+                        // merging in iteration order
+                        synchronized (pendingResults) {
+                            pendingResults.set(iteration, results);
+                            while (numberOfMergedIterations[0] < numberOfIterations && pendingResults.get(numberOfMergedIterations[0]) != null) {
+                                List<AverageVector> iterationResults = pendingResults.get(numberOfMergedIterations[0]);
+                                for (int j = 0; j < pairs.size() && j < iterationResults.size(); j++) {
+                                    Tools.buildAverages(iterationResults.get(j), pairs.get(j).getOutputPort());
+                                }
+                                pendingResults.set(numberOfMergedIterations[0], Collections.<AverageVector>emptyList());
+                                numberOfMergedIterations[0]++;
+                                iterationSets.iterationsFinished(numberOfMergedIterations[0]);
+                            }
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        ParallelExecutionService.invokeAll(tasks);
+    }
+
     /** Applies the learner (= first encapsulated inner operator). for building the final model.*/
     protected void learnFinalModel(ExampleSet trainingSet) throws OperatorException {
         learn(trainingSet);
@@ -317,16 +416,24 @@ public abstract class ValidationChain extends OperatorChain implements Capabilit
     protected final void evaluate(ExampleSet testSet) throws OperatorException {
         Attribute predictedBefore = testSet.getAttributes().getPredictedLabel();
 
+        applyAndEvaluate(testSet);
+
+        Tools.buildAverages(applyProcessPerformancePortExtender);
+
+        removeNewPrediction(testSet, predictedBefore);
+    }
+
+    private void applyAndEvaluate(ExampleSet testSet) throws OperatorException {
         applyProcessExampleSetOutput.deliver(testSet);
         applyProcessModelOutput.deliver(trainingProcessModelInput.getData(IOObject.class));
         throughExtender.passDataThrough();
 
         executeEvaluator();
+    }
 
-        Tools.buildAverages(applyProcessPerformancePortExtender);
-
+    /** Removes the predicted label and confidence attributes if there is a new prediction which is not equal to an old one. */
+    private static void removeNewPrediction(ExampleSet testSet, Attribute predictedBefore) {
         Attribute predictedAfter = testSet.getAttributes().getPredictedLabel();
-        // remove predicted label and confidence attributes if there is a new prediction which is not equal to an old one
         if ((predictedAfter != null) && ((predictedBefore == null) ||
                 (predictedBefore.getTableIndex() != predictedAfter.getTableIndex()))) {
             PredictionModel.removePredictedLabel(testSet);
@@ -340,6 +447,9 @@ public abstract class ValidationChain extends OperatorChain implements Capabilit
         type.setDeprecated();
         type.setExpert(false);
         types.add(type);
+        if (supportsParallelIterations()) {
+            types.add(new ParameterTypeBoolean(PARAMETER_PARALLELIZE_ITERATIONS, "Indicates if the iterations should be executed in parallel on copies of the subprocesses.", false, true));
+        }
         return types;
     }
 }
@@ -25,6 +25,7 @@ package com.rapidminer.operator.validation;
 import java.util.List;
 
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.Partition;
 import com.rapidminer.example.set.SplittedExampleSet;
 import com.rapidminer.operator.OperatorCapability;
 import com.rapidminer.operator.OperatorDescription;
@@ -147,8 +148,32 @@ public class XValidation extends ValidationChain {
         SplittedExampleSet splittedES = new SplittedExampleSet(inputSet, number, samplingType, getParameterAsBoolean(RandomGenerator.PARAMETER_USE_LOCAL_RANDOM_SEED), getParameterAsInt(RandomGenerator.PARAMETER_LOCAL_RANDOM_SEED), getCompatibilityLevel().isAtMost(SplittedExampleSet.VERSION_SAMPLING_CHANGED));
 
         // start crossvalidation
-        for (iteration = 0; iteration < number; iteration++) {
-            performIteration(splittedES, iteration);
+        if (isParallelExecutionEnabled()) {
+            final Partition partition = splittedES.getPartition();
+            performIterationsInParallel(inputSet, number, new IterationSets() {
+                @Override
+                public ExampleSet createTrainingSet(ExampleSet exampleSet, int subset) {
+                    SplittedExampleSet trainingSet = new SplittedExampleSet(exampleSet, (Partition) partition.clone());
+                    trainingSet.selectAllSubsetsBut(subset);
+                    return trainingSet;
+                }
+
+                @Override
+                public ExampleSet createTestSet(ExampleSet exampleSet, int subset) {
+                    SplittedExampleSet testSet = new SplittedExampleSet(exampleSet, (Partition) partition.clone());
+                    testSet.selectSingleSubset(subset);
+                    return testSet;
+                }
+
+                @Override
+                public void iterationsFinished(int numberOfIterations) {
+                    iteration = numberOfIterations;
+                }
+            });
+        } else {
+            for (iteration = 0; iteration < number; iteration++) {
+                performIteration(splittedES, iteration);
+            }
         }
 
         // end crossvalidation
@@ -164,6 +189,11 @@ public class XValidation extends ValidationChain {
         inApplyLoop();
     }
 
+    @Override
+    protected boolean supportsParallelIterations() {
+        return true;
+    }
+
     @Override
     protected MDInteger getTestSetSize(MDInteger originalSize) throws UndefinedParameterError {
         if (getParameterAsBoolean(PARAMETER_LEAVE_ONE_OUT)) {
@@ -107,6 +107,9 @@ public class ProcessLogOperator extends Operator {
 
 	private PortPairExtender dummyPorts = new DummyPortPairExtender("through", getInputPorts(), getOutputPorts());
 
+	/** The values fetched while buffering or null if the values are logged immediately. */
+	private List<Object[]> bufferedValues = null;
+
 	public ProcessLogOperator(OperatorDescription description) {
 		super(description);
 
@@ -115,7 +118,8 @@ public class ProcessLogOperator extends Operator {
 		getTransformer().addRule(dummyPorts.makePassThroughRule());
 	}
 
-	private double fetchValue(OperatorValueSelection selection, int column) throws UndefinedParameterError {
+	/** Returns the value as Double or, for nominal values, as String. */
+	private Object fetchValue(OperatorValueSelection selection) throws UndefinedParameterError {
 		Operator operator = lookupOperator(selection.getOperator());
 		if (operator != null) {
 			if (selection.isValue()) {
@@ -127,14 +131,12 @@ public class ProcessLogOperator extends Operator {
 				if (value.isNominal()) {
 					Object actualValue = value.getValue();
 					if (actualValue != null) {
-						String valueString = value.getValue().toString();
-						SimpleDataTable table = (SimpleDataTable) getProcess().getDataTable(getName());
-						return table.mapString(column, valueString);
+						return actualValue.toString();
 					} else {
 						return Double.NaN;
 					}
 				} else {
-					return ((Double) value.getValue()).doubleValue();
+					return (Double) value.getValue();
 				}
 
 			} else {
@@ -145,14 +147,12 @@ public class ProcessLogOperator extends Operator {
 				} else {
 					if (parameterType.isNumerical()) { // numerical
 						try {
-							return Double.parseDouble(operator.getParameter(selection.getParameterName()).toString());
+							return Double.valueOf(operator.getParameter(selection.getParameterName()).toString());
 						} catch (NumberFormatException e) {
 							logWarning("Cannot parse parameter value of '" + selection + "'");
 						}
 					} else { // nominal
-						String value = parameterType.toString(operator.getParameter(selection.getParameterName()));
-						SimpleDataTable table = (SimpleDataTable) getProcess().getDataTable(getName());
-						return table.mapString(column, value);
+						return parameterType.toString(operator.getParameter(selection.getParameterName()));
 					}
 				}
 			}
@@ -186,25 +186,58 @@ public class ProcessLogOperator extends Operator {
 
 	@Override
 	public void doWork() throws OperatorException {
+		Object[] values = fetchAllValues();
+		if (bufferedValues != null) {
+			bufferedValues.add(values);
+		} else {
+			logValues(values, getApplyCount() == 1);
+		}
+
+		dummyPorts.passDataThrough();
+	}
+
+	/**
+	 * Lets this operator buffer the fetched values instead of logging them. This is used by copies of 
+	 * the process which are executed concurrently, so that their rows can be logged in a defined order
+	 * by {@link #logBufferedValues(List)}.
+	 */
+	public void bufferValues() {
+		bufferedValues = new LinkedList<Object[]>();
+	}
+
+	/** Returns the values buffered since the last call of this method or of {@link #bufferValues()}. */
+	public List<Object[]> takeBufferedValues() {
+		List<Object[]> values = bufferedValues;
+		bufferedValues = new LinkedList<Object[]>();
+		return values;
+	}
+
+	/** Logs values which were buffered by this operator or a copy of it. Must be called in the thread executing the process. */
+	public void logBufferedValues(List<Object[]> values) throws OperatorException {
+		for (Object[] rowValues : values) {
+			// the apply count of concurrently executed copies does not reflect the logging order
+			logValues(rowValues, getProcess().getDataTable(getName()) == null);
+		}
+	}
+
+	private void logValues(Object[] values, boolean overwrite) throws OperatorException {
 		SimpleDataTable dataTable = (SimpleDataTable) getProcess().getDataTable(getName());
 		if (dataTable == null) {
 			createDataTable();
 		}
 
-		DataTableRow row = fetchAllValues();
+		DataTableRow row = addRow(values);
 		if (getParameterAsInt(PARAMETER_SORTING_TYPE) == SORTING_TYPE_NONE && getParameterAsBoolean(PARAMETER_PERSISTENT)) {
-			writeOnline(row);
+			writeOnline(row, overwrite);
 		}
-
-		dummyPorts.passDataThrough();
 	}
 
-	private void writeOnline(DataTableRow row) throws UserError {
+	private void writeOnline(DataTableRow row, boolean overwrite) throws UserError {
 		DataTable table = getProcess().getDataTable(getName());
 		File outputFile = getParameterAsFile(PARAMETER_FILENAME, true);
 		try {
-			// writing header if file does not exist or applyCount is 1 and file exists and has to be overwritten
-			if (!outputFile.exists() || getApplyCount() == 1) {
+			// writing header if file does not exist or it exists and has to be overwritten
+			if (!outputFile.exists() || overwrite) {
 				PrintWriter out = new PrintWriter(new FileWriter(outputFile));
 				out.println("# Generated by " + getName() + "[" + getClass().getName() + "]");
 				for (int j = 0; j < table.getNumberOfColumns(); j++) {
@@ -225,16 +258,28 @@ public class ProcessLogOperator extends Operator {
 		}
 	}
 
-	private DataTableRow fetchAllValues() throws UndefinedParameterError {
+	private Object[] fetchAllValues() throws UndefinedParameterError {
 		Collection<OperatorValueSelection> valueDescriptions = getValueDescriptions();
-		double[] row = new double[valueDescriptions.size()];
+		Object[] values = new Object[valueDescriptions.size()];
 		int i = 0;
 		for (OperatorValueSelection selection: valueDescriptions) {
-			row[i] = fetchValue(selection, i);
+			values[i] = fetchValue(selection);
 			i++;
 		}
-		DataTableRow dataRow = new SimpleDataTableRow(row, null);
+		return values;
+	}
+
+	private DataTableRow addRow(Object[] values) throws UndefinedParameterError {
 		SimpleDataTable dataTable = (SimpleDataTable)getProcess().getDataTable(getName());
+		double[] row = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] instanceof String) {
+				row[i] = dataTable.mapString(i, (String) values[i]);
+			} else {
+				row[i] = (Double) values[i];
+			}
+		}
+		DataTableRow dataRow = new SimpleDataTableRow(row, null);
 
 		int sortingType = getParameterAsInt(PARAMETER_SORTING_TYPE); 
 		if ((sortingType == SORTING_TYPE_NONE) || (dataTable.getNumberOfRows() < getParameterAsInt(PARAMETER_SORTING_K))) {
@@ -32,23 +32,38 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.lang.ref.SoftReference;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.ColumnarExampleTable;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.ports.metadata.AttributeMetaData;
 import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
 import com.rapidminer.operator.ports.metadata.MetaData;
+import com.rapidminer.operator.tools.ColumnarExampleSetBodySerializer;
 import com.rapidminer.operator.tools.ExampleSetToStream;
 import com.rapidminer.operator.tools.IOObjectSerializer;
 import com.rapidminer.operator.tools.RMObjectInputStream;
+import com.rapidminer.operator.tools.SerializationType;
 import com.rapidminer.repository.Folder;
 import com.rapidminer.repository.IOObjectEntry;
 import com.rapidminer.repository.RepositoryException;
+import com.rapidminer.tools.ParameterService;
 import com.rapidminer.tools.ProgressListener;
 
 /** Stores IOObject in a file. Either as IOO serialized files using
  *  {@link ExampleSetToStream} where appropriate.
  *  
+ *  If {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_COLUMNAR_REPOSITORY_STORAGE} is set,
+ *  example sets are stored column wise by the {@link ColumnarExampleSetBodySerializer}. Such
+ *  entries are memory mapped when retrieved. Since the mapped data file may still be in use,
+ *  data files are never overwritten in place but atomically replaced by a completely written 
+ *  temporary file after the tables mapping the old file have been released.
+ *  
  * @author Simon Fischer
  *
  */
@@ -85,7 +100,13 @@ public class SimpleIOObjectEntry extends SimpleDataEntry implements IOObjectEntr
 			BufferedInputStream in = null;
 			try {
 				in = new BufferedInputStream(new FileInputStream(dataFile));
-				return (IOObject) IOObjectSerializer.getInstance().deserialize(in);
+				SerializationType type = IOObjectSerializer.getInstance().deserializeHeader(in);
+				if (type == SerializationType.COLUMNAR_EXAMPLE_SET) {
+					in.close();
+					in = null;
+					return ColumnarExampleSetBodySerializer.map(dataFile, IOObjectSerializer.MAGIC_NUMBER.length + 4);
+				}
+				return (IOObject) type.getBodySerializer().deserialize(in);
 			} catch (Exception e) {
 				throw new RepositoryException("Cannot load data from '" + dataFile + "': " + e, e);
 			} finally {
@@ -147,15 +168,36 @@ public class SimpleIOObjectEntry extends SimpleDataEntry implements IOObjectEntr
 		}
 		MetaData md = MetaData.forIOObject(data);
 		// Serialize Non-ExampleSets as IOO
+		File dataFile = getDataFile();
+		File tempFile = new File(dataFile.getParentFile(), dataFile.getName() + ".tmp");
 		OutputStream out = null;
 		try {
-			out = new BufferedOutputStream(new FileOutputStream(getDataFile()));
-			IOObjectSerializer.getInstance().serialize(out, data);
+			out = new BufferedOutputStream(new FileOutputStream(tempFile));
+			if ((data instanceof ExampleSet) && Boolean.parseBoolean(ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_COLUMNAR_REPOSITORY_STORAGE))) {
+				IOObjectSerializer.getInstance().serialize(out, data, SerializationType.COLUMNAR_EXAMPLE_SET);
+			} else {
+				IOObjectSerializer.getInstance().serialize(out, data);
+			}
+			out.close();
+			out = null;
+			// replacing instead of overwriting since the old file might still be mapped
+			boolean released = ColumnarExampleTable.releaseMappedTables(dataFile);
+			try {
+				replace(tempFile, dataFile);
+			} catch (IOException e) {
+				if (!released) {
+					throw e;
+				}
+				// some platforms refuse to replace mapped files until the released buffers are collected
+				System.gc();
+				replace(tempFile, dataFile);
+			}
 			if (l != null) {
 				l.setCompleted(75);
 			}
 		} catch (Exception e) {
-			throw new RepositoryException("Cannot store data at '" + getDataFile() + "': " + e, e);
+			tempFile.delete();
+			throw new RepositoryException("Cannot store data at '" + dataFile + "': " + e, e);
 		} finally {
 			if (out != null) {
 				try {
@@ -189,6 +231,15 @@ public class SimpleIOObjectEntry extends SimpleDataEntry implements IOObjectEntr
 		putProperty(PROPERTY_IOOBJECT_CLASS, data.getClass().getName());
 	}
 
+	/** Atomically replaces the target by the source if supported by the file system. */
+	private static void replace(File source, File target) throws IOException {
+		try {
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
 	@Override
 	public String getType() {
 		return IOObjectEntry.TYPE_NAME;
@@ -219,6 +270,7 @@ public class SimpleIOObjectEntry extends SimpleDataEntry implements IOObjectEntr
 
 	@Override
 	public void delete() throws RepositoryException {
+		ColumnarExampleTable.releaseMappedTables(getDataFile());
 		if (getDataFile().exists()) {
 			getDataFile().delete();
 		}
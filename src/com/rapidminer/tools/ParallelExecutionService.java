@@ -0,0 +1,247 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.rapidminer.RapidMiner;
+import com.rapidminer.operator.OperatorException;
+
+
+/**
+ * Provides the worker threads used by operators and executors for concurrent computations. 
+ * The number of threads which may be used by a process is defined by the property 
+ * {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS}. A value of 0 uses one 
+ * thread per available processor.
+ * 
+ * The calling thread always takes part in the computation: additional workers are only started
+ * if the global thread limit is not yet reached, otherwise the caller executes the tasks itself.
+ * Therefore nested parallel computations (e.g. a parallel learner inside a parallel validation) 
+ * never block each other and the total number of busy threads never exceeds the limit.
+ * 
+ * @author agent
+ */
+public class ParallelExecutionService {
+
+	/** The number of additional worker threads currently running. */
+	private static final AtomicInteger activeWorkers = new AtomicInteger(0);
+
+	private static final AtomicInteger threadCounter = new AtomicInteger(0);
+
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "RapidMiner-Worker-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * Returns the maximum number of threads a process may use, i.e. the value of the property
+	 * {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS} or the number of available
+	 * processors if the property is not set or 0.
+	 */
+	public static int getNumberOfThreads() {
+		String value = ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS);
+		int numberOfThreads = 0;
+		if (value != null) {
+			try {
+				numberOfThreads = Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				numberOfThreads = 0;
+			}
+		}
+		if (numberOfThreads <= 0) {
+			numberOfThreads = Runtime.getRuntime().availableProcessors();
+		}
+		return numberOfThreads;
+	}
+
+	/**
+	 * Executes the given task in a worker thread if the global thread limit is not yet reached.
+	 * Returns false if no worker was available. In this case the task was not started and the
+	 * caller should execute it itself.
+	 */
+	public static boolean executeIfWorkerAvailable(final Runnable task) {
+		int maxWorkers = getNumberOfThreads() - 1;
+		while (true) {
+			int current = activeWorkers.get();
+			if (current >= maxWorkers) {
+				return false;
+			}
+			if (activeWorkers.compareAndSet(current, current + 1)) {
+				break;
+			}
+		}
+		EXECUTOR.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					task.run();
+				} finally {
+					activeWorkers.decrementAndGet();
+				}
+			}
+		});
+		return true;
+	}
+
+	/** 
+	 * Invokes all tasks using at most {@link #getNumberOfThreads()} threads.
+	 * 
+	 * @see #invokeAll(List, int)
+	 */
+	public static <T> List<T> invokeAll(List<? extends Callable<T>> tasks) throws OperatorException {
+		return invokeAll(tasks, getNumberOfThreads());
+	}
+
+	/**
+	 * Invokes all tasks using at most maxParallelism threads including the calling one and returns 
+	 * their results in the order of the tasks, independent of the order in which they were actually 
+	 * computed. If one of the tasks fails, no further tasks are started and the exception of the 
+	 * failed task with the lowest index is thrown after all running tasks have finished. 
+	 */
+	public static <T> List<T> invokeAll(final List<? extends Callable<T>> tasks, int maxParallelism) throws OperatorException {
+		final int n = tasks.size();
+		final Object[] results = new Object[n];
+		final Throwable[] errors = new Throwable[n];
+		final AtomicInteger nextTask = new AtomicInteger(0);
+		final AtomicBoolean failed = new AtomicBoolean(false);
+
+		final Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				int index;
+				while (!failed.get() && (index = nextTask.getAndIncrement()) < n) {
+					try {
+						results[index] = tasks.get(index).call();
+					} catch (Throwable e) {
+						errors[index] = e;
+						failed.set(true);
+					}
+				}
+			}
+		};
+
+		int numberOfHelpers = Math.min(maxParallelism, n) - 1;
+		final CountDownLatch helpersFinished = new CountDownLatch(Math.max(0, numberOfHelpers));
+		int startedHelpers = 0;
+		for (int i = 0; i < numberOfHelpers; i++) {
+			boolean started = executeIfWorkerAvailable(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						worker.run();
+					} finally {
+						helpersFinished.countDown();
+					}
+				}
+			});
+			if (!started) {
+				break;
+			}
+			startedHelpers++;
+		}
+		for (int i = startedHelpers; i < numberOfHelpers; i++) {
+			helpersFinished.countDown();
+		}
+
+		// the calling thread works as well
+		worker.run();
+
+		boolean interrupted = false;
+		while (true) {
+			try {
+				helpersFinished.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		for (Throwable error : errors) {
+			if (error != null) {
+				rethrow(error);
+			}
+		}
+
+		List<T> resultList = new ArrayList<T>(n);
+		for (Object result : results) {
+			@SuppressWarnings("unchecked")
+			T typedResult = (T) result;
+			resultList.add(typedResult);
+		}
+		return resultList;
+	}
+
+	/** 
+	 * Throws the given throwable which was caught in a worker thread. Operator exceptions, runtime 
+	 * exceptions and errors are thrown unchanged, all others are wrapped into an operator exception. 
+	 */
+	public static void rethrow(Throwable error) throws OperatorException {
+		if (error instanceof OperatorException) {
+			throw (OperatorException) error;
+		} else if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		} else if (error instanceof Error) {
+			throw (Error) error;
+		} else {
+			throw new OperatorException("Error in parallel execution: " + error.getMessage(), error);
+		}
+	}
+
+	/**
+	 * Returns the number of blocks into which size items should be split for a concurrent computation,
+	 * so that each block contains at least minimalBlockSize items and no more blocks than threads are
+	 * used. Returns 1 if the computation should be performed sequentially.
+	 */
+	public static int getNumberOfBlocks(int size, int minimalBlockSize) {
+		return Math.max(1, Math.min(getNumberOfThreads(), size / Math.max(1, minimalBlockSize)));
+	}
+
+	/**
+	 * Splits the range [0, size) into at most numberOfBlocks consecutive blocks of nearly equal 
+	 * size and returns their start indices followed by size, i.e. the returned array has one
+	 * entry more than the number of blocks.
+	 */
+	public static int[] getBlockBoundaries(int size, int numberOfBlocks) {
+		int blocks = Math.max(1, Math.min(numberOfBlocks, size));
+		int[] boundaries = new int[blocks + 1];
+		for (int i = 0; i <= blocks; i++) {
+			boundaries[i] = (int) ((long) size * i / blocks);
+		}
+		return boundaries;
+	}
+}
@@ -438,7 +438,7 @@ abstract public class AbstractExpressionParser {
 	public Attribute addAttribute(ExampleSet exampleSet, String name, String expression) throws GenerationException {
 
 		Object result = null;
-		Map<String, Attribute> name2attributes = null;
+		ExampleVariableBinding binding = null;
 
 		// expression parse only need to be called if there a examples present
 		if (exampleSet.size() != 0) {
@@ -446,7 +446,7 @@ abstract public class AbstractExpressionParser {
 
 			try {
 				parseExpression(expression);
-				name2attributes = deriveVariablesFromExampleSet(exampleSet);
+				binding = bindVariables(deriveVariablesFromExampleSet(exampleSet));
 				result = getValueAsObject();
 			} catch (ExpressionParserException e) {
 				throw new GenerationException("Offending attribute: '" + name + "', Expression: '" + expression + "', Error: '" + getErrorInfo() + "'");
@@ -494,7 +494,7 @@ abstract public class AbstractExpressionParser {
 		for (Example example : exampleSet) {
 
 			// assign values to the variables
-			assignVariableValuesFromExample(example, name2attributes);
+			binding.assignValues(example);
 
 			// calculate result
 			try {
@@ -634,6 +634,30 @@ abstract public class AbstractExpressionParser {
 
 	public abstract void setVarValue(String variableName, Object value);
 
+	/**
+	 * Resolves the given attributes to the variables of the currently parsed expression once.
+	 * The returned binding assigns the values of each example much faster than
+	 * {@link #assignVariableValuesFromExample(Example, Map)}. The variables must have been added
+	 * before, e.g. by {@link #deriveVariablesFromExampleSet(ExampleSet)}.
+	 */
+	public ExampleVariableBinding bindVariables(Map<String, Attribute> name2attributes) {
+		return new ExampleVariableBinding(this, name2attributes);
+	}
+
+	/**
+	 * Returns a handle for the variable with the given name that can be passed to
+	 * {@link #setVariableValue(Object, Object)}. Subclasses should return the variable object
+	 * itself in order to avoid the lookup by name. The default implementation returns the name.
+	 */
+	protected Object getVariable(String variableName) {
+		return variableName;
+	}
+
+	/** Sets the value of a variable returned by {@link #getVariable(String)}. */
+	protected void setVariableValue(Object variable, Object value) {
+		setVarValue((String) variable, value);
+	}
+
 	public abstract void setImplicitMul(boolean b);
 
 	/**
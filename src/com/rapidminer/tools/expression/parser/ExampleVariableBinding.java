@@ -0,0 +1,110 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.tools.expression.parser;
+
+import java.util.Calendar;
+import java.util.Map;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.table.NumericalAttribute;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Binds the attributes referenced by a parsed expression to the variables of the parser once,
+ * so that the values of each example can be assigned without looking up the variables by name
+ * and without checking the value types of the attributes again. Date values are written into
+ * one {@link Calendar} per variable instead of creating a new one for every example, which is
+ * safe since the date functions of the parser never modify their arguments.
+ * 
+ * Instances must only be used together with the parser and the expression they were created for.
+ * 
+ * @author agent
+ */
+public class ExampleVariableBinding {
+
+	private static final int NUMERICAL = 0;
+	private static final int NOMINAL = 1;
+	private static final int DATE = 2;
+
+	private final AbstractExpressionParser parser;
+
+	private final Attribute[] attributes;
+
+	private final Object[] variables;
+
+	private final int[] types;
+
+	private final Calendar[] calendars;
+
+	ExampleVariableBinding(AbstractExpressionParser parser, Map<String, Attribute> name2attributes) {
+		this.parser = parser;
+		int size = name2attributes.size();
+		this.attributes = new Attribute[size];
+		this.variables = new Object[size];
+		this.types = new int[size];
+		this.calendars = new Calendar[size];
+
+		int i = 0;
+		for (Map.Entry<String, Attribute> entry : name2attributes.entrySet()) {
+			Attribute attribute = entry.getValue();
+			attributes[i] = attribute;
+			variables[i] = parser.getVariable(entry.getKey());
+			if (attribute.isNominal()) {
+				types[i] = NOMINAL;
+			} else if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(attribute.getValueType(), Ontology.DATE_TIME)) {
+				types[i] = DATE;
+				calendars[i] = Calendar.getInstance();
+			} else {
+				types[i] = NUMERICAL;
+			}
+			i++;
+		}
+	}
+
+	/** Makes the values of the given example available to the parser. */
+	public void assignValues(Example example) {
+		for (int i = 0; i < attributes.length; i++) {
+			double value = example.getValue(attributes[i]);
+			switch (types[i]) {
+				case NOMINAL:
+					if (Double.isNaN(value)) {
+						parser.setVariableValue(variables[i], UnknownValue.UNKNOWN_NOMINAL);
+					} else {
+						parser.setVariableValue(variables[i], attributes[i].getAsString(value, NumericalAttribute.UNLIMITED_NUMBER_OF_DIGITS, false));
+					}
+					break;
+				case DATE:
+					if (Double.isNaN(value)) {
+						parser.setVariableValue(variables[i], UnknownValue.UNKNOWN_DATE);
+					} else {
+						calendars[i].setTimeInMillis((long) value);
+						parser.setVariableValue(variables[i], calendars[i]);
+					}
+					break;
+				default:
+					parser.setVariableValue(variables[i], value);
+			}
+		}
+	}
+}
@@ -35,6 +35,7 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -182,8 +183,16 @@ public class DatabaseHandler {
 
 	public static final String PARAMETER_PREPARE_STATEMENT = "prepare_statement";
 
+	/** The parameter name for the number of rows which are fetched from the database at once. */
+	public static final String PARAMETER_FETCH_SIZE = "fetch_size";
+
+	public static final int DEFAULT_FETCH_SIZE = 10000;
+
 	private static final String[] SQL_TYPES = { "VARCHAR", "INTEGER", "REAL", "LONG" };
 
+	/** Marks SQL types for missing values which were not looked up yet. */
+	private static final int UNKNOWN_SQL_TYPE = Integer.MIN_VALUE;
+
 	//	private static class DHIdentifier {
 	//		private String url;
 	//		private String username;
@@ -553,49 +562,15 @@ public class DatabaseHandler {
 	 * @throws ProcessStoppedException 
 	 */
 	public void createTable(ExampleSet exampleSet, TableName tableName, int overwriteMode, boolean firstAttempt, int defaultVarcharLength, boolean addAutoGeneratedPrimaryKeys, String generatedPrimaryKeyAttributeName, int batchSize, Operator operator) throws SQLException, ProcessStoppedException {
-		// either drop the table or throw an exception (depending on the parameter 'overwrite')
-		Statement statement = createStatement(false);
-		boolean exists = existsTable(tableName);
-
-		// drop table?
-		if (exists) {
-			switch (overwriteMode) {
-				case OVERWRITE_MODE_NONE:
-					throw new SQLException("Table with name '" + tableName + "' already exists and overwriting mode is not activated." + Tools.getLineSeparator() +
-							"Please change table name or activate overwriting mode.");
-				case OVERWRITE_MODE_OVERWRITE:
-					statement.executeUpdate(statementCreator.makeDropStatement(tableName));
-					// create new table
-					exampleSet.recalculateAllAttributeStatistics(); // necessary for updating the possible nominal values
-					String createTableString = statementCreator.makeTableCreator(exampleSet.getAttributes(), tableName, defaultVarcharLength);
-					statement.executeUpdate(createTableString);
-					statement.close();
-					break;
-				case OVERWRITE_MODE_OVERWRITE_FIRST:
-					if (firstAttempt) {
-						statement.executeUpdate(statementCreator.makeDropStatement(tableName));
-						// create new table
-						exampleSet.recalculateAllAttributeStatistics(); // necessary for updating the possible nominal values
-						createTableString = statementCreator.makeTableCreator(exampleSet.getAttributes(), tableName, defaultVarcharLength);
-						statement.executeUpdate(createTableString);
-						statement.close();
-					}
-					break;
-				default:
-					break;
-			}
-		} else {
-			// create new table
-			exampleSet.recalculateAllAttributeStatistics(); // necessary for updating the possible nominal values
-			String createTableString = statementCreator.makeTableCreator(exampleSet.getAttributes(), tableName, defaultVarcharLength);
-			statement.executeUpdate(createTableString);
-			statement.close();
-		}
+		prepareTable(exampleSet, tableName, overwriteMode, firstAttempt, defaultVarcharLength);
 
 		// fill table
+		if (!addAutoGeneratedPrimaryKeys) {
+			insertExamples(exampleSet, 0, exampleSet.size(), tableName, batchSize, 1, 0, operator);
+			return;
+		}
 		Attribute genPrimaryKeyAttribute = null;
 		PreparedStatement batchSizeInsertStatement = null;
-
 		try {
 			batchSizeInsertStatement = getInsertIntoTableStatement(tableName, exampleSet, addAutoGeneratedPrimaryKeys);
 
@@ -612,12 +587,16 @@ public class DatabaseHandler {
 					exampleSet.getAttributes().addRegular(genPrimaryKeyAttribute);
 				}
 
+				Attribute[] attributes = getInsertedAttributes(exampleSet, genPrimaryKeyAttribute);
+				int[] nullTypes = new int[attributes.length];
+				Arrays.fill(nullTypes, UNKNOWN_SQL_TYPE);
 				int counter = 0;
 				int rowCounter = 0;
 				ArrayList<Integer> generatedKeysList = new ArrayList<Integer>();
 				boolean needToCommitBatch = false;
 				for (Example example : exampleSet) {
-					applyBatchInsertIntoTable(batchSizeInsertStatement, example, exampleSet.getAttributes().allAttributeRoles(), addAutoGeneratedPrimaryKeys, genPrimaryKeyAttribute);
+					setInsertValues(batchSizeInsertStatement, 0, example, attributes, nullTypes);
+					batchSizeInsertStatement.addBatch();
 					needToCommitBatch = true;
 					++rowCounter;
 					if ((rowCounter % batchSize) == 0) {
@@ -672,6 +651,136 @@ public class DatabaseHandler {
 		}
 	}
 
+	/**
+	 * Inserts the examples with indices from start (inclusive) to end (exclusive) into the given existing table using
+	 * the connection of this handler. The examples are sent to the database in batches of batchSize rows. If
+	 * rowsPerStatement is greater than 1, each statement inserts this number of rows by a list of multiple rows of
+	 * values, which must be supported by the database, see {@link StatementCreator#getMaximumRowsPerInsert(int)}. The
+	 * transaction is committed every commitInterval rows or once at the end if commitInterval is 0.
+	 * 
+	 * Since each handler uses its own connection, several handlers may insert disjoint ranges of the same example set
+	 * concurrently.
+	 */
+	public void insertExamples(ExampleSet exampleSet, int start, int end, TableName tableName, int batchSize, int rowsPerStatement, int commitInterval, Operator operator) throws SQLException, ProcessStoppedException {
+		if (connection == null) {
+			throw new SQLException("Could not create a prepared statement for '" + databaseURL + "': not connected.");
+		}
+		Attribute[] attributes = getInsertedAttributes(exampleSet, null);
+		int[] nullTypes = new int[attributes.length];
+		Arrays.fill(nullTypes, UNKNOWN_SQL_TYPE);
+
+		// the rows which do not fill a complete statement are inserted one by one
+		int multiRowEnd = start;
+		if (rowsPerStatement > 1) {
+			multiRowEnd = start + (end - start) / rowsPerStatement * rowsPerStatement;
+		}
+		PreparedStatement multiRowStatement = null;
+		PreparedStatement singleRowStatement = null;
+		boolean oldAutoCommitStatus = connection.getAutoCommit();
+		try {
+			/* set auto commit of the connection to false to speed up insert and to enter transaction mode */
+			connection.setAutoCommit(false);
+			if (multiRowEnd > start) {
+				multiRowStatement = connection.prepareStatement(statementCreator.makeInsertStatement(tableName, exampleSet, rowsPerStatement));
+			}
+			if (multiRowEnd < end) {
+				singleRowStatement = connection.prepareStatement(statementCreator.makeInsertStatement(tableName, exampleSet));
+			}
+
+			Iterator<Example> iterator = start == 0 ? exampleSet.iterator() : null;
+			int row = start;
+			int batchedRows = 0;
+			int uncommittedRows = 0;
+			int counter = 0;
+			while (row < end) {
+				boolean multiRow = row < multiRowEnd;
+				PreparedStatement statement = multiRow ? multiRowStatement : singleRowStatement;
+				int statementRows = multiRow ? rowsPerStatement : 1;
+				for (int i = 0; i < statementRows; i++) {
+					Example example = iterator != null ? iterator.next() : exampleSet.getExample(row + i);
+					setInsertValues(statement, i * attributes.length, example, attributes, nullTypes);
+				}
+				statement.addBatch();
+				row += statementRows;
+				batchedRows += statementRows;
+				uncommittedRows += statementRows;
+
+				boolean commit = commitInterval > 0 && uncommittedRows >= commitInterval;
+				if (batchedRows >= batchSize || commit || row == multiRowEnd || row == end) {
+					statement.executeBatch();
+					batchedRows = 0;
+				}
+				if (commit) {
+					connection.commit();
+					uncommittedRows = 0;
+				}
+				if (operator != null) {
+					counter += statementRows;
+					if (counter >= 100) {
+						operator.checkForStopConcurrently();
+						counter = 0;
+					}
+				}
+			}
+			connection.commit();
+			connection.setAutoCommit(oldAutoCommitStatus);
+		} finally {
+			if (multiRowStatement != null) {
+				multiRowStatement.close();
+			}
+			if (singleRowStatement != null) {
+				singleRowStatement.close();
+			}
+		}
+	}
+
+	/**
+	 * Creates the table for the example set if it does not exist yet. Existing tables are dropped and recreated or
+	 * cause an exception depending on the overwrite mode. The data is not inserted.
+	 * 
+	 * @throws SQLException if the table should not be overwritten but a table with this name already exists
+	 */
+	public void prepareTable(ExampleSet exampleSet, TableName tableName, int overwriteMode, boolean firstAttempt, int defaultVarcharLength) throws SQLException {
+		// either drop the table or throw an exception (depending on the parameter 'overwrite')
+		Statement statement = createStatement(false);
+		boolean exists = existsTable(tableName);
+
+		// drop table?
+		if (exists) {
+			switch (overwriteMode) {
+				case OVERWRITE_MODE_NONE:
+					throw new SQLException("Table with name '" + tableName + "' already exists and overwriting mode is not activated." + Tools.getLineSeparator() +
+							"Please change table name or activate overwriting mode.");
+				case OVERWRITE_MODE_OVERWRITE:
+					statement.executeUpdate(statementCreator.makeDropStatement(tableName));
+					// create new table
+					exampleSet.recalculateAllAttributeStatistics(); // necessary for updating the possible nominal values
+					String createTableString = statementCreator.makeTableCreator(exampleSet.getAttributes(), tableName, defaultVarcharLength);
+					statement.executeUpdate(createTableString);
+					statement.close();
+					break;
+				case OVERWRITE_MODE_OVERWRITE_FIRST:
+					if (firstAttempt) {
+						statement.executeUpdate(statementCreator.makeDropStatement(tableName));
+						// create new table
+						exampleSet.recalculateAllAttributeStatistics(); // necessary for updating the possible nominal values
+						createTableString = statementCreator.makeTableCreator(exampleSet.getAttributes(), tableName, defaultVarcharLength);
+						statement.executeUpdate(createTableString);
+						statement.close();
+					}
+					break;
+				default:
+					break;
+			}
+		} else {
+			// create new table
+			exampleSet.recalculateAllAttributeStatistics(); // necessary for updating the possible nominal values
+			String createTableString = statementCreator.makeTableCreator(exampleSet.getAttributes(), tableName, defaultVarcharLength);
+			statement.executeUpdate(createTableString);
+			statement.close();
+		}
+	}
+
 //    private PreparedStatement getInsertIntoTableStatement(TableName tableName, ExampleSet exampleSet, boolean addAutoGeneratedPrimaryKeys) throws SQLException {
 //    	return getInsertIntoTableStatement(tableName, exampleSet, addAutoGeneratedPrimaryKeys, 1);
 //    }
@@ -697,43 +806,50 @@ public class DatabaseHandler {
 //    	applyBatchInsertIntoTable(statement, wrapperList, attributes, addAutoGeneratedPrimaryKeys, genPrimaryKey);
 //    }
 
-	private void applyBatchInsertIntoTable(PreparedStatement statement, Example example, Iterator<AttributeRole> attributes, boolean addAutoGeneratedPrimaryKeys, Attribute genPrimaryKey) throws SQLException {
-		// create List of attributes from attributes iterator for reuse:
-		List<Attribute> attributeList = new LinkedList<Attribute>();
+	/** Returns the attributes of the example set in the order of the columns of the insert statements. */
+	private Attribute[] getInsertedAttributes(ExampleSet exampleSet, Attribute genPrimaryKey) {
+		List<Attribute> attributeList = new ArrayList<Attribute>(exampleSet.getAttributes().allSize());
+		Iterator<AttributeRole> attributes = exampleSet.getAttributes().allAttributeRoles();
 		while (attributes.hasNext()) {
-			attributeList.add(attributes.next().getAttribute());
+			Attribute attribute = attributes.next().getAttribute();
+			if (attribute != genPrimaryKey) {
+				attributeList.add(attribute);
+			}
 		}
+		return attributeList.toArray(new Attribute[attributeList.size()]);
+	}
 
-		int counter = 1;
-		for (Attribute attribute : attributeList) {
-			if (addAutoGeneratedPrimaryKeys && attribute == genPrimaryKey) {
-				continue;
-			}
+	/**
+	 * Sets the values of the example as parameters of the statement starting behind the given offset. The SQL types
+	 * used for missing values are looked up when they are needed first and stored in nullTypes.
+	 */
+	private void setInsertValues(PreparedStatement statement, int offset, Example example, Attribute[] attributes, int[] nullTypes) throws SQLException {
+		for (int i = 0; i < attributes.length; i++) {
+			Attribute attribute = attributes[i];
+			int parameterIndex = offset + i + 1;
 			double value = example.getValue(attribute);
 			if (Double.isNaN(value)) {
-				int sqlType = statementCreator.getSQLTypeForRMValueType(attribute.getValueType()).getDataType();
-				statement.setNull(counter, sqlType);
+				if (nullTypes[i] == UNKNOWN_SQL_TYPE) {
+					nullTypes[i] = statementCreator.getSQLTypeForRMValueType(attribute.getValueType()).getDataType();
+				}
+				statement.setNull(parameterIndex, nullTypes[i]);
 			} else {
 				if (attribute.isNominal()) {
 					String valueString = attribute.getMapping().mapIndex((int) value);
-					statement.setString(counter, valueString);
+					statement.setString(parameterIndex, valueString);
 				} else {
 					if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(attribute.getValueType(), Ontology.DATE_TIME)) {
 						if (Ontology.ATTRIBUTE_VALUE_TYPE.isA(attribute.getValueType(), Ontology.TIME)) {
-							statement.setTime(counter, new Time((long) value));
+							statement.setTime(parameterIndex, new Time((long) value));
 						} else {
-							statement.setTimestamp(counter, new Timestamp((long) value));
+							statement.setTimestamp(parameterIndex, new Timestamp((long) value));
 						}
 					} else {
-						statement.setDouble(counter, value);
+						statement.setDouble(parameterIndex, value);
 					}
 				}
 			}
-			counter++;
 		}
-
-		statement.addBatch();
-
 	}
 
 	//	private String getCreateTableString(ExampleSet exampleSet, String tableName, int defaultVarcharLength) {
@@ -1215,6 +1331,17 @@ public class DatabaseHandler {
 	 * @throws OperatorException
 	 */
 	public ResultSet executeStatement(String sql, boolean isQuery, Operator parameterHandler, Logger logger) throws SQLException, OperatorException {
+		return executeStatement(sql, isQuery, parameterHandler, logger, 0);
+	}
+
+	/** Executes a statement like {@link #executeStatement(String, boolean, Operator, Logger)}. If
+	 *  fetchSize is positive and isQuery is true, the driver is asked to fetch the given number of rows
+	 *  at once while the forward only result set is traversed instead of buffering the complete result.
+	 *  Please note that some drivers, e.g. the one for PostgreSQL, only use cursors if auto commit is disabled.
+	 * 
+	 * @param fetchSize The number of rows fetched at once or 0 for the default of the driver
+	 */
+	public ResultSet executeStatement(String sql, boolean isQuery, Operator parameterHandler, Logger logger, int fetchSize) throws SQLException, OperatorException {
 		ResultSet resultSet = null;
 		Statement statement;
 		if (parameterHandler.getParameterAsBoolean(DatabaseHandler.PARAMETER_PREPARE_STATEMENT)) {
@@ -1253,6 +1380,9 @@ public class DatabaseHandler {
 				}
 			}
 			if (isQuery) {
+				if (fetchSize > 0) {
+					prepared.setFetchSize(fetchSize);
+				}
 				resultSet = prepared.executeQuery();
 			} else {
 				prepared.execute();
@@ -1262,6 +1392,9 @@ public class DatabaseHandler {
 			logger.info("Executing query: '" + sql + "'");
 			statement = createStatement(false);
 			if (isQuery) {
+				if (fetchSize > 0) {
+					statement.setFetchSize(fetchSize);
+				}
 				resultSet = statement.executeQuery(sql);
 			} else {
 				statement.execute(sql);
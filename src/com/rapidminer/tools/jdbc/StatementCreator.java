@@ -48,6 +48,12 @@ import com.rapidminer.tools.Ontology;
  */
 public class StatementCreator {
 
+	/** The maximal number of rows of a single insert statement, which is the limit of Microsoft SQL Server. */
+	private static final int MAXIMUM_ROWS_PER_INSERT = 1000;
+
+	/** The maximal number of parameters of a single insert statement, which is below the limit of Microsoft SQL Server. */
+	private static final int MAXIMUM_PARAMETERS_PER_INSERT = 2000;
+
 	/**
 	 * Maps types as defined by {@link Ontology#ATTRIBUTE_VALUE_TYPE} to syntactical SQL information. Must be
 	 * linkedHashMap to ensure prefered types are taken first.
@@ -56,6 +62,9 @@ public class StatementCreator {
 	private String identifierQuote;
 	private long defaultVarCharLength = -1;
 
+	/** Indicates if the database is known to accept multiple rows of values in one insert statement. */
+	private boolean supportsMultiRowInserts = false;
+
 	public StatementCreator(Connection connection) throws SQLException {
 		this(connection, -1);
 	}
@@ -74,6 +83,7 @@ public class StatementCreator {
 	private void buildTypeMap(Connection con) throws SQLException {
 		DatabaseMetaData dbMetaData = con.getMetaData();
 		this.identifierQuote = dbMetaData.getIdentifierQuoteString();
+		this.supportsMultiRowInserts = supportsMultiRowInserts(dbMetaData);
 
 		//LogService.getRoot().fine("Identifier quote character is: " + this.identifierQuote);
 		LogService.getRoot().log(Level.FINE, "com.rapidminer.tools.jdbc.StatementCreator.initialization_of_quote_character", this.identifierQuote);
@@ -118,6 +128,25 @@ public class StatementCreator {
 																				// insertion code
 	}
 
+	/** Checks the database product for the support of inserting multiple rows by a single VALUES clause. */
+	private static boolean supportsMultiRowInserts(DatabaseMetaData dbMetaData) throws SQLException {
+		String productName = dbMetaData.getDatabaseProductName();
+		if (productName == null) {
+			return false;
+		}
+		productName = productName.toLowerCase();
+		if (productName.contains("mysql") || productName.contains("mariadb") || productName.contains("postgresql") || productName.equals("h2")) {
+			return true;
+		} else if (productName.contains("hsql")) {
+			return dbMetaData.getDatabaseMajorVersion() >= 2;
+		} else if (productName.contains("microsoft sql server")) {
+			// supported since SQL Server 2008
+			return dbMetaData.getDatabaseMajorVersion() >= 10;
+		} else {
+			return false;
+		}
+	}
+
 	private void registerSyntaxInfo(int attributeType, Map<Integer, DataTypeSyntaxInformation> dataTypeToMDMap, int... possibleDataTypes) throws SQLException {
 		for (int i : possibleDataTypes) {
 			DataTypeSyntaxInformation si = dataTypeToMDMap.get(i);
@@ -240,6 +269,18 @@ public class StatementCreator {
 		return makeInsertStatement(tableName, exampleSet, 1);
 	}
 	
+	/**
+	 * Returns the maximal number of rows which can be inserted by a single statement created by
+	 * {@link #makeInsertStatement(TableName, ExampleSet, int)} for a table with the given number of columns. Returns 1
+	 * if the database is not known to support lists of multiple rows of values.
+	 */
+	public int getMaximumRowsPerInsert(int numberOfColumns) {
+		if (!supportsMultiRowInserts) {
+			return 1;
+		}
+		return Math.max(1, Math.min(MAXIMUM_ROWS_PER_INSERT, MAXIMUM_PARAMETERS_PER_INSERT / Math.max(1, numberOfColumns)));
+	}
+
 	public String makeInsertStatement(TableName tableName, ExampleSet exampleSet, int batchSize) throws SQLException {
 		StringBuilder b = new StringBuilder("INSERT INTO ");
 		b.append(makeIdentifier(tableName));
@@ -181,12 +181,16 @@ public class BallTree<T extends Serializable> implements GeometricDataCollection
 	}
 	
 	private BoundedPriorityQueue<Tupel<Double, BallTreeNode<T>>> getNearestNodes(int k, double[] values) {
+		// creating data structure for finding k nearest values
+		BoundedPriorityQueue<Tupel<Double, BallTreeNode<T>>> priorityQueue = new BoundedPriorityQueue<Tupel<Double, BallTreeNode<T>>>(k);
+		if (root == null) {
+			return priorityQueue;
+		}
+
 		Stack<BallTreeNode<T>> nodeStack = new Stack<BallTreeNode<T>>();
 		Stack<Integer> sideStack = new Stack<Integer>();
 		// first doing initial search for nearest Node
 		traverseTree(nodeStack, sideStack, root, values);
-		// creating data structure for finding k nearest values
-		BoundedPriorityQueue<Tupel<Double, BallTreeNode<T>>> priorityQueue = new BoundedPriorityQueue<Tupel<Double, BallTreeNode<T>>>(k);
 		
 		// now work on stack
 		while (!nodeStack.isEmpty()) {
@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Stack;
 
 import com.rapidminer.tools.container.Tupel;
@@ -37,6 +38,12 @@ import com.rapidminer.tools.math.similarity.DistanceMeasure;
  * in a fashion supporting the search for nearest neighbours. This is only working well in 
  * low dimensions. 
  * 
+ * The search assumes that the distance between two points is at least the absolute difference
+ * of their coordinates in each single dimension, which holds for the euclidean, the manhattan
+ * and the chebychev distance. If all points are known in advance, the tree should be built
+ * using {@link #KDTree(List, List, int, DistanceMeasure)}, which results in a balanced tree,
+ * independent of the order of the points.
+ * 
  * @author Sebastian Land
  * 
  * @param <T> This is the type of value with is stored with the points and retrieved on nearest
@@ -56,6 +63,86 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 		this.distance = distance;
 	}
 
+	/**
+	 * Builds a balanced tree containing the given points by splitting at the median of the
+	 * respective dimension. The i-th point is stored with the i-th store value. 
+	 */
+	public KDTree(List<double[]> points, List<T> storeValues, int numberOfDimensions, DistanceMeasure distance) {
+		this(numberOfDimensions, distance);
+		this.values.addAll(storeValues);
+		this.size = points.size();
+		int[] indices = new int[points.size()];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = i;
+		}
+		this.root = buildBalancedTree(points, storeValues, indices, new int[indices.length], 0, indices.length, 0);
+	}
+
+	private KDTreeNode<T> buildBalancedTree(List<double[]> points, List<T> storeValues, int[] indices, int[] buffer, int from, int to, int depth) {
+		if (from >= to) {
+			return null;
+		}
+		int dimension = depth % k;
+		double median = points.get(indices[selectMedian(points, indices, from, to, dimension)])[dimension];
+
+		// partition into lesser points, the points equal to the median and the greater ones:
+		// the first equal point becomes the node, all others belong to the greater subtree 
+		int lesserEnd = from;
+		int equalCount = 0;
+		int greaterCount = 0;
+		for (int i = from; i < to; i++) {
+			double value = points.get(indices[i])[dimension];
+			if (value < median) {
+				indices[lesserEnd++] = indices[i];
+			} else if (value == median) {
+				buffer[from + equalCount++] = indices[i];
+			} else {
+				buffer[to - 1 - greaterCount++] = indices[i];
+			}
+		}
+		System.arraycopy(buffer, from, indices, lesserEnd, equalCount);
+		for (int i = 0; i < greaterCount; i++) {
+			indices[lesserEnd + equalCount + i] = buffer[to - 1 - i];
+		}
+
+		int nodeIndex = indices[lesserEnd];
+		KDTreeNode<T> node = new KDTreeNode<T>(points.get(nodeIndex), storeValues.get(nodeIndex), dimension);
+		node.setLesserChild(buildBalancedTree(points, storeValues, indices, buffer, from, lesserEnd, depth + 1));
+		node.setGreaterChild(buildBalancedTree(points, storeValues, indices, buffer, lesserEnd + 1, to, depth + 1));
+		return node;
+	}
+
+	/** Reorders the indices in the given range so that the median position holds the median of the given dimension and returns this position. */
+	private int selectMedian(List<double[]> points, int[] indices, int from, int to, int dimension) {
+		int target = (from + to) >>> 1;
+		int left = from;
+		int right = to - 1;
+		while (left < right) {
+			double pivot = points.get(indices[(left + right) >>> 1])[dimension];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (points.get(indices[i])[dimension] < pivot) i++;
+				while (points.get(indices[j])[dimension] > pivot) j--;
+				if (i <= j) {
+					int swap = indices[i];
+					indices[i] = indices[j];
+					indices[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			if (target <= j) {
+				right = j;
+			} else if (target >= i) {
+				left = i;
+			} else {
+				break;
+			}
+		}
+		return target;
+	}
+
 	public void add(double[] values, T storeValue) {
 		this.size++;
 		this.values.add(storeValue);
@@ -74,9 +161,9 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 				} else {
 					currentNode = childNode;
 					depth++;
-					currentDimension = depth % k;
 				}
 			}
+			currentDimension = (depth + 1) % k;
 			currentNode.setChild(new KDTreeNode<T>(values, storeValue, currentDimension));
 		}
 	}
@@ -100,12 +187,15 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 	}
 	
 	private BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>> getNearestNodes(int k, double[] values) {
+		// creating data structure for finding k nearest values
+		BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>> priorityQueue = new BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>>(k);
+		if (root == null) {
+			return priorityQueue;
+		}
+
 		Stack<KDTreeNode<T>> nodeStack = new Stack<KDTreeNode<T>>();
 		// first doing initial search for nearest Node
 		nodeStack = traverseTree(nodeStack, root, values);
-
-		// creating data structure for finding k nearest values
-		BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>> priorityQueue = new BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>>(k);
 		
 		// now work on stack
 		while (!nodeStack.isEmpty()) {
@@ -114,8 +204,11 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 			Tupel<Double, KDTreeNode<T>> currentTupel = new Tupel<Double, KDTreeNode<T>>(distance.calculateDistance(currentNode.getValues(), values), currentNode);
 			priorityQueue.add(currentTupel);
 			// now check if far children has to be regarded
-			if (!priorityQueue.isFilled() || 
-					priorityQueue.peek().getFirst().doubleValue() > currentNode.getCompareValue() - values[currentNode.getCompareDimension()]) {
+			// the distance to all points on the other side is at least the distance to the splitting plane,
+			// unknown query values do not allow to skip the other side at all
+			double planeDistance = Math.abs(currentNode.getCompareValue() - values[currentNode.getCompareDimension()]);
+			if (!priorityQueue.isFilled() || Double.isNaN(planeDistance) ||
+					priorityQueue.peek().getFirst().doubleValue() > planeDistance) {
 				// if needs to be checked, traverse tree to nearest leaf
 				if (currentNode.hasFarChild(values))
 					traverseTree(nodeStack, currentNode.getFarChild(values), values);
@@ -136,6 +229,32 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 		return stack;
 	}
 	
+	/**
+	 * Adds the store values of all points with a distance smaller than the given one to the given collection.
+	 * Subtrees are skipped if the query point is at least withinDistance away from their splitting plane. 
+	 */
+	public void getValuesWithinDistance(double withinDistance, double[] values, Collection<T> result) {
+		if (root == null) {
+			return;
+		}
+		Stack<KDTreeNode<T>> nodeStack = new Stack<KDTreeNode<T>>();
+		nodeStack.push(root);
+		while (!nodeStack.isEmpty()) {
+			KDTreeNode<T> currentNode = nodeStack.pop();
+			if (distance.calculateDistance(currentNode.getValues(), values) < withinDistance) {
+				result.add(currentNode.getStoreValue());
+			}
+			// negated comparisons, since unknown query values do not allow to skip any side
+			double planeDifference = values[currentNode.getCompareDimension()] - currentNode.getCompareValue();
+			if (currentNode.getLesserChild() != null && !(planeDifference >= withinDistance)) {
+				nodeStack.push(currentNode.getLesserChild());
+			}
+			if (currentNode.getGreaterChild() != null && !(-planeDifference >= withinDistance)) {
+				nodeStack.push(currentNode.getGreaterChild());
+			}
+		}
+	}
+
 	public Collection<Tupel<Double, T>> getNearestValueDistances(double withinDistance, double[] values) {
 		throw new RuntimeException("Not supported method");
 	}
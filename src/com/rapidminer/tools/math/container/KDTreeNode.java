@@ -56,7 +56,7 @@ public class KDTreeNode<T> implements Serializable {
 	}
 
 	public KDTreeNode<T> getFarChild(double[] compare) {
-		if (compare[comparationDimension] >= values[comparationDimension])
+		if (!(compare[comparationDimension] < values[comparationDimension]))
 			return lesserChild;
 		else
 			return greaterChild;
@@ -70,7 +70,7 @@ public class KDTreeNode<T> implements Serializable {
 	}
 
 	public boolean hasFarChild(double[] compare) {
-		if (compare[comparationDimension] >= values[comparationDimension])
+		if (!(compare[comparationDimension] < values[comparationDimension]))
 			return lesserChild != null;
 		else
 			return greaterChild != null;
@@ -87,7 +87,7 @@ public class KDTreeNode<T> implements Serializable {
 		return storeValue;
 	}
 
-	public KDTreeNode getLesserChild() {
+	public KDTreeNode<T> getLesserChild() {
 		return lesserChild;
 	}
 
@@ -31,7 +31,9 @@ import com.rapidminer.example.ExampleSet;
 /** Stores all distances in a matrix (attention: should only be used for smaller data sets).
  * 
  *  @author Ingo Mierswa
+ *  @deprecated The kernels use the shared {@link KernelRowCache} now.
  */
+@Deprecated
 public class FullCache implements KernelCache {
 
 	private double[][] distances;
@@ -109,8 +109,8 @@ public abstract class Kernel implements Serializable {
 	/** Indicates a multiquadric kernel. */
 	public static final int KERNEL_MULTIQUADRIC = 7;
 
-	/** The complete distance matrix for this kernel and a given example set. */
-	private transient KernelCache cache;
+	/** The cached rows of the distance matrix for this kernel and a given example set. */
+	private transient KernelRowCache cache;
 
 	private ExampleSet exampleSet;
 
@@ -129,27 +129,51 @@ public abstract class Kernel implements Serializable {
 
 
 	/**
-	 * Calculates all distances and store them in a matrix to speed up
-	 * optimization.
+	 * Initializes the cache for the distance matrix to speed up optimization.
+	 * Size and precision of the cache are defined by the properties
+	 * {@link com.rapidminer.RapidMiner#PROPERTY_RAPIDMINER_GENERAL_KERNEL_CACHE_SIZE} and
+	 * {@link com.rapidminer.RapidMiner#PROPERTY_RAPIDMINER_GENERAL_KERNEL_CACHE_SINGLE_PRECISION}.
 	 */
 	public void init(ExampleSet exampleSet) {
+		init(exampleSet, KernelRowCache.getDefaultCacheSize(), KernelRowCache.isSinglePrecisionDefault());
+	}
+
+	/**
+	 * Initializes a cache for the distance matrix which uses at most cacheSizeMB megabytes.
+	 * The rows of the matrix are calculated on demand.
+	 */
+	public void init(ExampleSet exampleSet, int cacheSizeMB, boolean singlePrecision) {
 		this.exampleSet = exampleSet;
 		int exampleSetSize = exampleSet.size();
-		if (exampleSetSize < 8000) {
-			this.cache = new FullCache(exampleSet, this);	
-		} else {
-			this.cache = new MapBasedCache(exampleSetSize);
+		final double[][] values = new double[exampleSetSize][];
+		int i = 0;
+		for (Example example : exampleSet) {
+			double[] exampleValues = new double[exampleSet.getAttributes().size()];
+			int x = 0;
+			for (Attribute attribute : exampleSet.getAttributes())
+				exampleValues[x++] = example.getValue(attribute);
+			values[i++] = exampleValues;
 		}
+		this.cache = new KernelRowCache(exampleSetSize, exampleSetSize, cacheSizeMB * 1048576L, singlePrecision, new KernelRowCache.RowCalculator() {
+
+			@Override
+			public void calculateRow(int row, double[] result, int from, int to) {
+				double[] x = values[row];
+				for (int j = from; j < to; j++) {
+					result[j] = calculateDistance(x, values[j]);
+				}
+			}
+		});
 	}
 
 	/** Returns the distance between the examples with the given indices. */
 	public double getDistance(int x1, int x2) {
-		double result = cache.get(x1, x2);
-		if (Double.isNaN(result)) {
-			result = calculateDistance(getAttributeValues(x1), getAttributeValues(x2));
-			cache.store(x1, x2, result);
-		}
-		return result;
+		return cache.getValue(x1, x2);
+	}
+
+	/** Returns the cache used for the distance matrix or null if this kernel was not initialized. */
+	public KernelRowCache getCache() {
+		return cache;
 	}
 
 	public double[] getAttributeValues(int i) {
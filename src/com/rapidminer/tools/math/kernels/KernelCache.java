@@ -26,7 +26,9 @@ package com.rapidminer.tools.math.kernels;
  * This is the interface describing the kernel cache.
  * 
  * @author Ingo Mierswa
+ * @deprecated The kernels use the shared {@link KernelRowCache} now.
  */
+@Deprecated
 public interface KernelCache {
 
 	/** Stores the value. Should only be invoked if the value was not known. This method might
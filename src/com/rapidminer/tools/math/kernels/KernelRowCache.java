@@ -0,0 +1,401 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.tools.math.kernels;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.rapidminer.RapidMiner;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.ParallelExecutionService;
+import com.rapidminer.tools.ParameterService;
+import com.rapidminer.tools.Tools;
+
+/**
+ * A cache for complete rows of a symmetric kernel matrix which is shared by the kernel based
+ * learners. The memory used by the cached rows is bounded by a byte budget. Rows are stored either
+ * with double or with single precision and the least recently used row is replaced if the budget
+ * is exhausted. Missing rows are calculated by a {@link RowCalculator}, long rows are split into
+ * blocks which are calculated concurrently. The numbers of cache hits and misses are counted for
+ * tuning the cache size.
+ * 
+ * All methods are synchronized and rows are copied to arrays owned by the caller, so the cache
+ * might be used by several threads and a row stays valid if other rows are requested later on.
+ * 
+ * @author agent
+ */
+public class KernelRowCache {
+
+	/**
+	 * Calculates the values of a kernel matrix row. Implementations must be thread safe since
+	 * different parts of the same row are calculated concurrently.
+	 */
+	public static interface RowCalculator {
+
+		/** Stores the kernel values K(row, column) for all columns in [from, to) in values[column]. */
+		public void calculateRow(int row, double[] values, int from, int to);
+	}
+
+	/** The default size of the cache in MB if the property is not set. */
+	public static final int DEFAULT_CACHE_SIZE = 512;
+
+	/** The minimal number of kernel values calculated by one thread. */
+	private static final int MINIMAL_BLOCK_SIZE = 2000;
+
+	private static final int NONE = -1;
+
+	private final RowCalculator calculator;
+
+	private final long byteBudget;
+
+	private final boolean singlePrecision;
+
+	/** The slot holding the row with the given index or NONE. */
+	private final int[] slotOfRow;
+
+	private int rowLength;
+
+	private int capacity;
+
+	private int usedSlots = 0;
+
+	private int[] rowOfSlot;
+
+	private double[][] doubleRows;
+
+	private float[][] floatRows;
+
+	/** The used slots are linked from the most recently used (head) to the least recently used one (tail). */
+	private int[] previous;
+
+	private int[] next;
+
+	private int head = NONE;
+
+	private int tail = NONE;
+
+	private long hits = 0;
+
+	private long misses = 0;
+
+	/**
+	 * Creates a cache for numberOfRows rows with rowLength entries each which uses at most
+	 * byteBudget bytes for the cached rows. At least one row is always cached.
+	 */
+	public KernelRowCache(int numberOfRows, int rowLength, long byteBudget, boolean singlePrecision, RowCalculator calculator) {
+		this.calculator = calculator;
+		this.byteBudget = byteBudget;
+		this.singlePrecision = singlePrecision;
+		this.slotOfRow = new int[numberOfRows];
+		this.rowLength = rowLength;
+		allocateSlots();
+	}
+
+	/** Returns the cache size in MB defined by {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_KERNEL_CACHE_SIZE}. */
+	public static int getDefaultCacheSize() {
+		String value = ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_KERNEL_CACHE_SIZE);
+		if (value != null) {
+			try {
+				return Math.max(0, Integer.parseInt(value.trim()));
+			} catch (NumberFormatException e) {
+				// use default
+			}
+		}
+		return DEFAULT_CACHE_SIZE;
+	}
+
+	/** Returns whether rows should be stored with single precision as defined by {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_KERNEL_CACHE_SINGLE_PRECISION}. */
+	public static boolean isSinglePrecisionDefault() {
+		return Boolean.parseBoolean(ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_KERNEL_CACHE_SINGLE_PRECISION));
+	}
+
+	/** Returns a new array holding the given row. The row is calculated if it is not cached. */
+	public double[] getRow(int row) {
+		return getRow(row, null);
+	}
+
+	/**
+	 * Copies the given row to the first entries of destination and returns it. If destination is
+	 * null or shorter than the rows, a new array is returned instead. The row is calculated if it
+	 * is not cached.
+	 */
+	public synchronized double[] getRow(int row, double[] destination) {
+		if (destination == null || destination.length < rowLength) {
+			destination = new double[rowLength];
+		}
+		int slot = slotOfRow[row];
+		if (slot != NONE) {
+			hits++;
+			moveToFront(slot);
+			if (singlePrecision) {
+				float[] values = floatRows[slot];
+				for (int j = 0; j < rowLength; j++) {
+					destination[j] = values[j];
+				}
+			} else {
+				System.arraycopy(doubleRows[slot], 0, destination, 0, rowLength);
+			}
+			return destination;
+		}
+
+		misses++;
+		slot = occupySlot(row);
+		if (singlePrecision) {
+			calculateRow(row, destination);
+			float[] values = floatRows[slot];
+			for (int j = 0; j < rowLength; j++) {
+				values[j] = (float) destination[j];
+				destination[j] = values[j];
+			}
+		} else {
+			calculateRow(row, doubleRows[slot]);
+			System.arraycopy(doubleRows[slot], 0, destination, 0, rowLength);
+		}
+		return destination;
+	}
+
+	/**
+	 * Returns the kernel value K(row, column). Since the kernel matrix is symmetric, the value is
+	 * taken from the row with index column if only this one is cached. Otherwise the row is calculated.
+	 */
+	public synchronized double getValue(int row, int column) {
+		int slot = slotOfRow[row];
+		int entry = column;
+		if (slot == NONE && column < slotOfRow.length && row < rowLength) {
+			slot = slotOfRow[column];
+			entry = row;
+		}
+		if (slot != NONE) {
+			hits++;
+			moveToFront(slot);
+			return singlePrecision ? floatRows[slot][entry] : doubleRows[slot][entry];
+		}
+		return getRow(row)[column];
+	}
+
+	/**
+	 * Exchanges the rows and the columns i and j, e.g. if the corresponding examples were swapped.
+	 */
+	public synchronized void swap(int i, int j) {
+		int slotI = slotOfRow[i];
+		int slotJ = slotOfRow[j];
+		slotOfRow[i] = slotJ;
+		slotOfRow[j] = slotI;
+		if (slotI != NONE) {
+			rowOfSlot[slotI] = j;
+		}
+		if (slotJ != NONE) {
+			rowOfSlot[slotJ] = i;
+		}
+		if (i < rowLength && j < rowLength) {
+			for (int slot = 0; slot < usedSlots; slot++) {
+				if (singlePrecision) {
+					float[] values = floatRows[slot];
+					float dummy = values[i];
+					values[i] = values[j];
+					values[j] = dummy;
+				} else {
+					double[] values = doubleRows[slot];
+					double dummy = values[i];
+					values[i] = values[j];
+					values[j] = dummy;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Changes the number of entries of the rows. If the rows become shorter, the first entries of
+	 * the cached rows are kept and more rows might be cached now. Otherwise all rows are removed.
+	 */
+	public synchronized void setRowLength(int newRowLength) {
+		if (newRowLength == rowLength) {
+			return;
+		}
+		if (newRowLength > rowLength) {
+			rowLength = newRowLength;
+			allocateSlots();
+			return;
+		}
+		rowLength = newRowLength;
+		for (int slot = 0; slot < usedSlots; slot++) {
+			if (singlePrecision) {
+				floatRows[slot] = Arrays.copyOf(floatRows[slot], rowLength);
+			} else {
+				doubleRows[slot] = Arrays.copyOf(doubleRows[slot], rowLength);
+			}
+		}
+		capacity = getCapacity(rowLength);
+		rowOfSlot = Arrays.copyOf(rowOfSlot, capacity);
+		previous = Arrays.copyOf(previous, capacity);
+		next = Arrays.copyOf(next, capacity);
+		if (singlePrecision) {
+			floatRows = Arrays.copyOf(floatRows, capacity);
+		} else {
+			doubleRows = Arrays.copyOf(doubleRows, capacity);
+		}
+	}
+
+	/** Removes all cached rows and resets the statistics. */
+	public synchronized void clear() {
+		allocateSlots();
+		hits = 0;
+		misses = 0;
+	}
+
+	/** Returns the maximal number of rows which are cached. */
+	public synchronized int getCapacity() {
+		return capacity;
+	}
+
+	/** Returns the number of currently cached rows. */
+	public synchronized int getNumberOfCachedRows() {
+		return usedSlots;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/** Returns the fraction of requests which could be answered without calculating a row. */
+	public synchronized double getHitRate() {
+		long requests = hits + misses;
+		return requests == 0 ? 0.0d : (double) hits / requests;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return usedSlots + " of " + capacity + " rows cached" + (singlePrecision ? " (single precision)" : "") + ", " + hits + " hits, " + misses + " misses, hit rate: " + Tools.formatPercent(getHitRate());
+	}
+
+	private int getCapacity(int length) {
+		long bytesPerRow = Math.max(1, (long) length * (singlePrecision ? 4 : 8));
+		return (int) Math.max(1, Math.min(slotOfRow.length, byteBudget / bytesPerRow));
+	}
+
+	private void allocateSlots() {
+		capacity = getCapacity(rowLength);
+		usedSlots = 0;
+		head = NONE;
+		tail = NONE;
+		Arrays.fill(slotOfRow, NONE);
+		rowOfSlot = new int[capacity];
+		previous = new int[capacity];
+		next = new int[capacity];
+		if (singlePrecision) {
+			floatRows = new float[capacity][];
+			doubleRows = null;
+		} else {
+			doubleRows = new double[capacity][];
+			floatRows = null;
+		}
+	}
+
+	/** Assigns a slot to the given row, either an unused one or the one of the least recently used row. */
+	private int occupySlot(int row) {
+		int slot;
+		if (usedSlots < capacity) {
+			slot = usedSlots++;
+			if (singlePrecision) {
+				floatRows[slot] = new float[rowLength];
+			} else {
+				doubleRows[slot] = new double[rowLength];
+			}
+		} else {
+			slot = tail;
+			slotOfRow[rowOfSlot[slot]] = NONE;
+			unlink(slot);
+		}
+		rowOfSlot[slot] = row;
+		slotOfRow[row] = slot;
+		linkFirst(slot);
+		return slot;
+	}
+
+	private void moveToFront(int slot) {
+		if (slot != head) {
+			unlink(slot);
+			linkFirst(slot);
+		}
+	}
+
+	private void unlink(int slot) {
+		int before = previous[slot];
+		int after = next[slot];
+		if (before == NONE) {
+			head = after;
+		} else {
+			next[before] = after;
+		}
+		if (after == NONE) {
+			tail = before;
+		} else {
+			previous[after] = before;
+		}
+	}
+
+	private void linkFirst(int slot) {
+		previous[slot] = NONE;
+		next[slot] = head;
+		if (head == NONE) {
+			tail = slot;
+		} else {
+			previous[head] = slot;
+		}
+		head = slot;
+	}
+
+	private void calculateRow(final int row, final double[] values) {
+		int numberOfBlocks = ParallelExecutionService.getNumberOfBlocks(rowLength, MINIMAL_BLOCK_SIZE);
+		if (numberOfBlocks == 1) {
+			calculator.calculateRow(row, values, 0, rowLength);
+			return;
+		}
+		final int[] boundaries = ParallelExecutionService.getBlockBoundaries(rowLength, numberOfBlocks);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(boundaries.length - 1);
+		for (int block = 0; block < boundaries.length - 1; block++) {
+			final int from = boundaries[block];
+			final int to = boundaries[block + 1];
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() {
+					calculator.calculateRow(row, values, from, to);
+					return null;
+				}
+			});
+		}
+		try {
+			ParallelExecutionService.invokeAll(tasks);
+		} catch (OperatorException e) {
+			// cannot happen since the calculation does not throw checked exceptions
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -31,7 +31,9 @@ import java.util.Map;
  *  entries for this map (default: 10,000,000, enough for about 3000 examples).
  * 
  *  @author Ingo Mierswa
+ *  @deprecated The kernels use the shared {@link KernelRowCache} now.
  */
+@Deprecated
 public class MapBasedCache implements KernelCache {
 
 	private int maxSize = 10000000;
@@ -467,6 +467,16 @@ public class ExpressionParser extends AbstractExpressionParser {
 
 	}
 
+	@Override
+	protected Object getVariable(String variableName) {
+		return getParser().getVar(variableName);
+	}
+
+	@Override
+	protected void setVariableValue(Object variable, Object value) {
+		((Variable) variable).setValue(value);
+	}
+
 	@Override
 	public void setImplicitMul(boolean b) {
 		getParser().setImplicitMul(b);
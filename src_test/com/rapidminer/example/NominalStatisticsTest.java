@@ -0,0 +1,80 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Tests that the mode of the {@link NominalStatistics} does not depend on the order in which
+ * the values are counted and merged.
+ *
+ * @author agent
+ */
+public class NominalStatisticsTest {
+
+	/** Values 2 and 0 occur most often, value 2 reaches the maximal count first. */
+	private static final double[] VALUES = { 2, 1, 2, 0, 1, 0, Double.NaN, 3 };
+
+	@Test
+	public void testTiesAreBrokenByLowestIndex() {
+		Attribute attribute = createAttribute();
+		assertEquals(0.0d, count(attribute, 0, VALUES.length).getStatistics(attribute, Statistics.MODE, null), 0.0d);
+	}
+
+	@Test
+	public void testMergedModeEqualsSequential() {
+		Attribute attribute = createAttribute();
+		double expected = count(attribute, 0, VALUES.length).getStatistics(attribute, Statistics.MODE, null);
+		for (int splitPoint = 0; splitPoint <= VALUES.length; splitPoint++) {
+			NominalStatistics first = count(attribute, 0, splitPoint);
+			first.merge(count(attribute, splitPoint, VALUES.length));
+			assertEquals("split at " + splitPoint, expected, first.getStatistics(attribute, Statistics.MODE, null), 0.0d);
+
+			NominalStatistics second = count(attribute, splitPoint, VALUES.length);
+			second.merge(count(attribute, 0, splitPoint));
+			assertEquals("reversed split at " + splitPoint, expected, second.getStatistics(attribute, Statistics.MODE, null), 0.0d);
+		}
+	}
+
+	private static Attribute createAttribute() {
+		Attribute attribute = AttributeFactory.createAttribute("nominal", Ontology.NOMINAL);
+		for (int i = 0; i < 4; i++) {
+			attribute.getMapping().mapString("value" + i);
+		}
+		return attribute;
+	}
+
+	private static NominalStatistics count(Attribute attribute, int from, int to) {
+		NominalStatistics statistics = new NominalStatistics();
+		statistics.startCounting(attribute);
+		for (int i = from; i < to; i++) {
+			statistics.count(VALUES[i], 1.0d);
+		}
+		return statistics;
+	}
+}
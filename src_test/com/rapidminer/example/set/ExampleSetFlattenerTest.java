@@ -0,0 +1,225 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.Annotations;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Tests that flattened chains of row views deliver the same examples as the stacked views.
+ * The expected examples are derived from plain lists of ids.
+ *
+ * @author agent
+ */
+public class ExampleSetFlattenerTest {
+
+	private static final int SIZE = 100;
+
+	private ExampleSet base;
+
+	private Attribute id;
+
+	private Attribute value;
+
+	/** The values of the base examples by id. */
+	private double[] values;
+
+	@Before
+	public void createExampleSet() {
+		id = AttributeFactory.createAttribute("id", Ontology.INTEGER);
+		value = AttributeFactory.createAttribute("value", Ontology.REAL);
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(id);
+		attributes.add(value);
+		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		// distinct values, so that the sorting order is unique
+		List<Integer> permutation = new ArrayList<Integer>();
+		for (int i = 0; i < SIZE; i++) {
+			permutation.add(i);
+		}
+		Collections.shuffle(permutation, new Random(1));
+		values = new double[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			values[i] = permutation.get(i);
+			table.addDataRow(new DoubleArrayDataRow(new double[] { i, values[i] }));
+		}
+		base = table.createExampleSet();
+	}
+
+	@Test
+	public void testStackedViewsAreFlattened() throws Exception {
+		List<Integer> expected = getIds(base);
+		ExampleSet view = base;
+		for (int step = 0; step < 10; step++) {
+			switch (step % 4) {
+				case 0:
+					view = new SortedExampleSet(view, value, step % 8 == 0 ? SortedExampleSet.INCREASING : SortedExampleSet.DECREASING);
+					sortByValue(expected, step % 8 != 0);
+					break;
+				case 1:
+					view = new ConditionedExampleSet(view, new IdCondition(id, step));
+					for (int i = expected.size() - 1; i >= 0; i--) {
+						if (expected.get(i) % 7 == step % 7) {
+							expected.remove(i);
+						}
+					}
+					break;
+				case 2:
+					int[] elements = new int[view.size()];
+					for (int i = 0; i < elements.length; i++) {
+						elements[i] = i % 3 == 0 ? 1 : 0;
+					}
+					SplittedExampleSet splittedSet = new SplittedExampleSet(view, new Partition(elements, 2));
+					splittedSet.selectSingleSubset(0);
+					view = splittedSet;
+					List<Integer> selected = new ArrayList<Integer>();
+					for (int i = 0; i < expected.size(); i++) {
+						if (i % 3 != 0) {
+							selected.add(expected.get(i));
+						}
+					}
+					expected = selected;
+					break;
+				default:
+					// a bootstrapping like mapping with duplicates
+					Random random = new Random(step);
+					int[] mapping = new int[view.size()];
+					List<Integer> mapped = new ArrayList<Integer>();
+					for (int i = 0; i < mapping.length; i++) {
+						mapping[i] = random.nextInt(mapping.length);
+						mapped.add(expected.get(mapping[i]));
+					}
+					view = new MappedExampleSet(view, mapping, true, false);
+					expected = mapped;
+			}
+			assertEquals("step " + step, expected, getIds(view));
+			assertTrue("step " + step, ExampleSetFlattener.getViewDepth(view) <= ExampleSetFlattener.MAXIMAL_VIEW_DEPTH);
+
+			ExampleSet flattened = ExampleSetFlattener.flatten(view);
+			assertEquals("step " + step, expected, getIds(flattened));
+			assertTrue("step " + step, ExampleSetFlattener.getViewDepth(flattened) <= 1);
+			for (int i = 0; i < flattened.size(); i++) {
+				assertEquals(expected.get(i).doubleValue(), flattened.getExample(i).getValue(id), 0.0d);
+				assertEquals(values[expected.get(i)], flattened.getExample(i).getValue(value), 0.0d);
+			}
+		}
+	}
+
+	@Test
+	public void testFlattenedViewRefersToBase() {
+		ExampleSet view = new SortedExampleSet(base, value, SortedExampleSet.INCREASING);
+		view = new MappedExampleSet(view, new int[] { 3, 1, 1, 0 }, true, false);
+		assertEquals(2, ExampleSetFlattener.getViewDepth(view));
+		ExampleSet flattened = ExampleSetFlattener.flatten(view);
+		assertEquals(getIds(view), getIds(flattened));
+		assertSame(MappedExampleSet.class, flattened.getClass());
+		assertSame(base.getExampleTable(), flattened.getExampleTable());
+		assertEquals(0, ExampleSetFlattener.getViewDepth(((MappedExampleSet) flattened).getParent()));
+	}
+
+	@Test
+	public void testShallowViewsAreOnlyCloned() {
+		ExampleSet view = new SortedExampleSet(base, value, SortedExampleSet.DECREASING);
+		ExampleSet flattened = ExampleSetFlattener.flatten(view);
+		assertSame(SortedExampleSet.class, flattened.getClass());
+		assertEquals(getIds(view), getIds(flattened));
+	}
+
+	@Test
+	public void testAnnotationsOfViewsAreKept() throws Exception {
+		SplittedExampleSet splittedSet = new SplittedExampleSet(new SortedExampleSet(base, value, SortedExampleSet.INCREASING), 0.5d, SplittedExampleSet.LINEAR_SAMPLING, false, 0);
+		splittedSet.selectSingleSubset(0);
+		splittedSet.getAnnotations().setAnnotation(Annotations.KEY_COMMENT, "split");
+		ExampleSet view = new ConditionedExampleSet(splittedSet, new IdCondition(id, 1));
+		assertEquals("split", ExampleSetFlattener.flatten(view).getAnnotations().getAnnotation(Annotations.KEY_COMMENT));
+
+		// the chain is flattened automatically when further views are created
+		view = new MappedExampleSet(view, new int[] { 2, 0, 1 }, true, false);
+		view = new SortedExampleSet(view, value, SortedExampleSet.DECREASING);
+		assertTrue(ExampleSetFlattener.getViewDepth(view) < 4);
+		assertEquals("split", view.getAnnotations().getAnnotation(Annotations.KEY_COMMENT));
+	}
+
+	private void sortByValue(List<Integer> ids, final boolean decreasing) {
+		Collections.sort(ids, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer first, Integer second) {
+				int result = Double.compare(values[first], values[second]);
+				return decreasing ? -result : result;
+			}
+		});
+	}
+
+	private List<Integer> getIds(ExampleSet exampleSet) {
+		List<Integer> ids = new ArrayList<Integer>(exampleSet.size());
+		for (Example example : exampleSet) {
+			ids.add((int) example.getValue(id));
+		}
+		return ids;
+	}
+
+	/** Removes the examples whose id is congruent to the given number modulo 7. */
+	private static class IdCondition implements Condition {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Attribute id;
+
+		private final int number;
+
+		private IdCondition(Attribute id, int number) {
+			this.id = id;
+			this.number = number;
+		}
+
+		@Override
+		public boolean conditionOk(Example example) {
+			return (int) example.getValue(id) % 7 != number % 7;
+		}
+
+		@Override
+		public Condition duplicate() {
+			return this;
+		}
+	}
+}
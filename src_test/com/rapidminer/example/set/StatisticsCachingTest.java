@@ -0,0 +1,71 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.set;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.Statistics;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Tests that cached attribute statistics are calculated again if the data they depend on changes.
+ *
+ * @author agent
+ */
+public class StatisticsCachingTest {
+
+	@Test
+	public void testWeightChangesAreNoticed() {
+		Attribute value = AttributeFactory.createAttribute("value", Ontology.REAL);
+		Attribute weight = AttributeFactory.createAttribute("weight", Ontology.REAL);
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(value);
+		attributes.add(weight);
+		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		table.addDataRow(new DoubleArrayDataRow(new double[] { 1, 1 }));
+		table.addDataRow(new DoubleArrayDataRow(new double[] { 3, 3 }));
+		ExampleSet exampleSet = table.createExampleSet();
+
+		exampleSet.recalculateAllAttributeStatistics();
+		assertEquals(2.0d, exampleSet.getStatistics(value, Statistics.AVERAGE_WEIGHTED), 1e-12);
+
+		exampleSet.getAttributes().setWeight(weight);
+		exampleSet.recalculateAllAttributeStatistics();
+		assertEquals(2.5d, exampleSet.getStatistics(value, Statistics.AVERAGE_WEIGHTED), 1e-12);
+
+		exampleSet.getAttributes().setWeight(null);
+		exampleSet.getAttributes().addRegular(weight);
+		exampleSet.recalculateAllAttributeStatistics();
+		assertEquals(2.0d, exampleSet.getStatistics(value, Statistics.AVERAGE_WEIGHTED), 1e-12);
+	}
+}
@@ -0,0 +1,221 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Tests the serialization of the {@link PolynominalMapping} and the sharing of its data by clones.
+ *
+ * @author agent
+ */
+public class PolynominalMappingTest {
+
+	private static final int NUMBER_OF_VALUES = 1000;
+
+	/** A mapping of the values first, second and third serialized by the former implementation based on a hash map. */
+	private static final String FORMER_SERIALIZED_FORM =
+		"aced00057372002f636f6d2e72617069646d696e65722e6578616d706c652e7461626c652e506f6c796e6f6d696e616c" +
+		"4d617070696e6745b071d679a9751b0200024c0010696e646578546f53796d626f6c4d61707400104c6a6176612f7574" +
+		"696c2f4c6973743b4c001073796d626f6c546f496e6465784d617074000f4c6a6176612f7574696c2f4d61703b787073" +
+		"7200136a6176612e7574696c2e41727261794c6973747881d21d99c7619d03000149000473697a657870000000037704" +
+		"0000000374000566697273747400067365636f6e64740005746869726478737200116a6176612e7574696c2e48617368" +
+		"4d61700507dac1c31660d103000246000a6c6f6164466163746f724900097468726573686f6c6478703f400000000000" +
+		"0c7708000000100000000371007e0008737200116a6176612e6c616e672e496e746567657212e2a0a4f7818738020001" +
+		"49000576616c7565787200106a6176612e6c616e672e4e756d62657286ac951d0b94e08b02000078700000000271007e" +
+		"00067371007e000b0000000071007e00077371007e000b0000000178";
+
+	@Test
+	public void testSerializedFormIsUnchanged() {
+		ObjectStreamClass streamClass = ObjectStreamClass.lookup(PolynominalMapping.class);
+		assertEquals(5021638750496191771L, streamClass.getSerialVersionUID());
+		assertEquals(2, streamClass.getFields().length);
+		assertEquals(Map.class, streamClass.getField("symbolToIndexMap").getType());
+		assertEquals(List.class, streamClass.getField("indexToSymbolMap").getType());
+	}
+
+	@Test
+	public void testReadFormerSerializedForm() throws Exception {
+		byte[] bytes = new byte[FORMER_SERIALIZED_FORM.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(FORMER_SERIALIZED_FORM.substring(2 * i, 2 * i + 2), 16);
+		}
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+		PolynominalMapping mapping = (PolynominalMapping) in.readObject();
+		in.close();
+		assertEquals(3, mapping.size());
+		assertEquals(Arrays.asList("first", "second", "third"), mapping.getValues());
+		assertEquals(1, mapping.getIndex("second"));
+		assertEquals(3, mapping.mapString("fourth"));
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		PolynominalMapping mapping = createMapping();
+		PolynominalMapping copy = (PolynominalMapping) roundTrip(mapping)[0];
+		assertEqualMappings(mapping, copy);
+		assertEquals(NUMBER_OF_VALUES, copy.mapString("new value"));
+		assertEquals(NUMBER_OF_VALUES, copy.getIndex("new value"));
+	}
+
+	@Test
+	public void testRoundTripWithGaps() throws Exception {
+		Map<Integer, String> values = new HashMap<Integer, String>();
+		values.put(0, "first");
+		values.put(3, "fourth");
+		PolynominalMapping mapping = new PolynominalMapping(values);
+		PolynominalMapping copy = (PolynominalMapping) roundTrip(mapping)[0];
+		assertEquals(4, copy.size());
+		assertEquals("first", copy.mapIndex(0));
+		assertNull(copy.mapIndex(1));
+		assertEquals("fourth", copy.mapIndex(3));
+		assertEquals(3, copy.getIndex("fourth"));
+		assertEquals(-1, copy.getIndex("second"));
+	}
+
+	@Test
+	public void testSharedClonesAreIndependentAfterReading() throws Exception {
+		PolynominalMapping mapping = createMapping();
+		PolynominalMapping clone = (PolynominalMapping) mapping.clone();
+		Object[] copies = roundTrip(mapping, clone);
+		PolynominalMapping mappingCopy = (PolynominalMapping) copies[0];
+		PolynominalMapping cloneCopy = (PolynominalMapping) copies[1];
+		assertEqualMappings(mapping, mappingCopy);
+		assertEqualMappings(mapping, cloneCopy);
+
+		cloneCopy.mapString("only in clone");
+		assertEquals(NUMBER_OF_VALUES, mappingCopy.size());
+		assertEquals(-1, mappingCopy.getIndex("only in clone"));
+		assertEquals(NUMBER_OF_VALUES, cloneCopy.getIndex("only in clone"));
+
+		// the original mappings stay independent as well
+		clone.mapString("only in original clone");
+		assertEquals(-1, mapping.getIndex("only in original clone"));
+	}
+
+	@Test
+	public void testValueListIsNotSharedWithClones() {
+		PolynominalMapping mapping = createMapping();
+		List<String> values = mapping.getValues();
+		PolynominalMapping clone = (PolynominalMapping) mapping.clone();
+
+		values.set(0, "changed");
+		values.add("added");
+		assertEquals("changed", mapping.mapIndex(0));
+		assertEquals(NUMBER_OF_VALUES + 1, mapping.size());
+		assertEquals("value0", clone.mapIndex(0));
+		assertEquals(NUMBER_OF_VALUES, clone.size());
+		assertEquals(0, clone.getIndex("value0"));
+
+		clone.getValues().clear();
+		assertEquals(0, clone.size());
+		assertEquals(NUMBER_OF_VALUES + 1, mapping.size());
+	}
+
+	@Test
+	public void testConcurrentReadingAndCloning() throws Exception {
+		final PolynominalMapping mapping = createMapping();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int task = 0; task < 8; task++) {
+				final int number = task;
+				futures.add(executor.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() {
+						for (int i = 0; i < 100; i++) {
+							PolynominalMapping clone = (PolynominalMapping) mapping.clone();
+							assertEqualMappings(mapping, clone);
+							assertEquals(NUMBER_OF_VALUES, mapping.getValues().size());
+							clone.mapString("task" + number);
+							assertEquals(NUMBER_OF_VALUES, clone.getIndex("task" + number));
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(NUMBER_OF_VALUES, mapping.size());
+		assertEquals(-1, mapping.getIndex("task0"));
+	}
+
+	private static PolynominalMapping createMapping() {
+		PolynominalMapping mapping = new PolynominalMapping();
+		for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+			assertEquals(i, mapping.mapString("value" + i));
+		}
+		return mapping;
+	}
+
+	private static void assertEqualMappings(NominalMapping expected, NominalMapping actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.getValues(), actual.getValues());
+		for (int i = 0; i < expected.size(); i++) {
+			String value = expected.mapIndex(i);
+			assertEquals(value, actual.mapIndex(i));
+			assertEquals(i, actual.getIndex(value));
+		}
+	}
+
+	/** Writes the given objects into one stream and reads them again. */
+	private static Object[] roundTrip(Object... objects) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(buffer);
+		for (Object object : objects) {
+			out.writeObject(object);
+		}
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+		Object[] result = new Object[objects.length];
+		for (int i = 0; i < objects.length; i++) {
+			result[i] = in.readObject();
+		}
+		in.close();
+		return result;
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.test.TestContext;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParallelExecutionService;
+import com.rapidminer.tools.ParameterService;
+
+/**
+ * Tests that {@link RemoveDuplicates} keeps the first example of each distinct row, with and
+ * without computing the hash values in parallel.
+ *
+ * @author agent
+ */
+public class RemoveDuplicatesTest {
+
+	/** Large enough for at least two hashing blocks. */
+	private static final int SIZE = 120000;
+
+	private static String numberOfThreads;
+
+	private static ExampleSet exampleSet;
+
+	@BeforeClass
+	public static void setUp() {
+		TestContext.get().initRapidMiner();
+		numberOfThreads = ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS);
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+
+		Attribute id = AttributeFactory.createAttribute("id", Ontology.INTEGER);
+		Attribute numerical = AttributeFactory.createAttribute("numerical", Ontology.REAL);
+		Attribute nominal = AttributeFactory.createAttribute("nominal", Ontology.NOMINAL);
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(id);
+		attributes.add(numerical);
+		attributes.add(nominal);
+		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		Random random = new Random(1);
+		for (int i = 0; i < SIZE; i++) {
+			double[] values = new double[3];
+			values[0] = i;
+			values[1] = random.nextInt(100) == 0 ? Double.NaN : random.nextInt(300) / 4.0d;
+			values[2] = random.nextInt(100) == 0 ? Double.NaN : nominal.getMapping().mapString("value" + random.nextInt(50));
+			table.addDataRow(new DoubleArrayDataRow(values));
+		}
+		exampleSet = table.createExampleSet(null, null, id);
+		assertTrue(ParallelExecutionService.getNumberOfBlocks(SIZE, 50000) > 1);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, numberOfThreads);
+	}
+
+	@Test
+	public void testMissingValuesAreNoDuplicates() throws OperatorException {
+		List<Integer> expected = getFirstOccurrences(false);
+		assertEquals(expected, getIds(removeDuplicates(false, false)));
+		assertEquals(expected, getIds(removeDuplicates(false, true)));
+	}
+
+	@Test
+	public void testMissingValuesAsDuplicates() throws OperatorException {
+		List<Integer> expected = getFirstOccurrences(true);
+		assertEquals(expected, getIds(removeDuplicates(true, false)));
+		assertEquals(expected, getIds(removeDuplicates(true, true)));
+	}
+
+	private static ExampleSet removeDuplicates(boolean treatMissingsAsDuplicates, boolean parallelizeHashing) throws OperatorException {
+		RemoveDuplicates operator;
+		try {
+			operator = OperatorService.createOperator(RemoveDuplicates.class);
+		} catch (Exception e) {
+			throw new RuntimeException("Cannot create operator", e);
+		}
+		operator.setParameter("treat_missing_values_as_duplicates", Boolean.toString(treatMissingsAsDuplicates));
+		operator.setParameter(RemoveDuplicates.PARAMETER_PARALLELIZE_HASHING, Boolean.toString(parallelizeHashing));
+		return operator.apply((ExampleSet) exampleSet.clone());
+	}
+
+	/** Returns the ids of the first example of each distinct row, computed by comparing the values. */
+	private static List<Integer> getFirstOccurrences(boolean treatMissingsAsDuplicates) {
+		Attribute[] attributes = new Attribute[] { exampleSet.getAttributes().get("numerical"), exampleSet.getAttributes().get("nominal") };
+		Set<List<Double>> rows = new HashSet<List<Double>>();
+		List<Integer> ids = new ArrayList<Integer>();
+		for (Example example : exampleSet) {
+			Double[] values = new Double[attributes.length];
+			boolean missing = false;
+			for (int i = 0; i < attributes.length; i++) {
+				values[i] = example.getValue(attributes[i]);
+				missing |= Double.isNaN(values[i]);
+			}
+			// Double.equals treats missing values as equal
+			if ((missing && !treatMissingsAsDuplicates) || rows.add(Arrays.asList(values))) {
+				ids.add((int) example.getId());
+			}
+		}
+		return ids;
+	}
+
+	private static List<Integer> getIds(ExampleSet exampleSet) {
+		List<Integer> ids = new ArrayList<Integer>(exampleSet.size());
+		for (Example example : exampleSet) {
+			ids.add((int) example.getId());
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2014 by RapidMiner and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapidminer.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Tests that each {@link MergeableAggregator} delivers the same result for two merged parts of an
+ * example set as for counting the complete set at once.
+ *
+ * @author agent
+ */
+public class MergeableAggregatorTest {
+
+	private static final int SIZE = 200;
+
+	private static final int[] SPLIT_POINTS = { 0, 1, 57, SIZE - 1, SIZE };
+
+	private static ExampleSet exampleSet;
+
+	private static List<Example> examples;
+
+	private static Attribute weight;
+
+	@BeforeClass
+	public static void createExampleSet() {
+		Attribute numerical = AttributeFactory.createAttribute("numerical", Ontology.REAL);
+		Attribute nominal = AttributeFactory.createAttribute("nominal", Ontology.NOMINAL);
+		weight = AttributeFactory.createAttribute("weight", Ontology.REAL);
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(numerical);
+		attributes.add(nominal);
+		attributes.add(weight);
+		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		Random random = new Random(1);
+		for (int i = 0; i < SIZE; i++) {
+			double[] values = new double[3];
+			// few distinct values for ties in mode, median and least
+			values[0] = random.nextInt(20) == 0 ? Double.NaN : random.nextInt(10) - 3;
+			values[1] = random.nextInt(20) == 0 ? Double.NaN : nominal.getMapping().mapString("value" + random.nextInt(5));
+			values[2] = 0.5d + random.nextInt(4);
+			table.addDataRow(new DoubleArrayDataRow(values));
+		}
+		exampleSet = table.createExampleSet();
+		examples = new ArrayList<Example>(SIZE);
+		for (Example example : exampleSet) {
+			examples.add(example);
+		}
+	}
+
+	@Test
+	public void testMergedEqualsSequential() throws OperatorException {
+		int testedFunctions = 0;
+		for (String name : AggregationFunction.getAvailableAggregationFunctionNames()) {
+			for (Attribute attribute : new Attribute[] { exampleSet.getAttributes().get("numerical"), exampleSet.getAttributes().get("nominal") }) {
+				for (boolean ignoreMissings : new boolean[] { true, false }) {
+					AggregationFunction function = AggregationFunction.createAggregationFunction(name, attribute, ignoreMissings, false);
+					if (!function.isCompatible() || !(function.createAggregator() instanceof MergeableAggregator)) {
+						continue;
+					}
+					testedFunctions++;
+					for (boolean weighted : new boolean[] { false, true }) {
+						String description = name + "(" + attribute.getName() + "), ignore missings: " + ignoreMissings + ", weighted: " + weighted;
+						String expected = getResult(function, count(function, 0, SIZE, weighted));
+						for (int splitPoint : SPLIT_POINTS) {
+							MergeableAggregator first = count(function, 0, splitPoint, weighted);
+							first.merge(count(function, splitPoint, SIZE, weighted));
+							assertResult(description + ", split at " + splitPoint, expected, getResult(function, first));
+						}
+					}
+				}
+			}
+		}
+		assertTrue("No mergeable aggregation function found", testedFunctions > 0);
+	}
+
+	private static MergeableAggregator count(AggregationFunction function, int from, int to, boolean weighted) {
+		MergeableAggregator aggregator = (MergeableAggregator) function.createAggregator();
+		for (int i = from; i < to; i++) {
+			Example example = examples.get(i);
+			if (weighted) {
+				aggregator.count(example, example.getValue(weight));
+			} else {
+				aggregator.count(example);
+			}
+		}
+		return aggregator;
+	}
+
+	/** Returns the result of the aggregator, nominal results are returned as their value. */
+	private static String getResult(AggregationFunction function, Aggregator aggregator) {
+		Attribute target = function.getTargetAttribute();
+		target.setTableIndex(0);
+		DoubleArrayDataRow row = new DoubleArrayDataRow(new double[1]);
+		aggregator.set(target, row);
+		double value = row.get(target);
+		if (target.isNominal() && !Double.isNaN(value)) {
+			return target.getMapping().mapIndex((int) value);
+		}
+		return Double.toString(value);
+	}
+
+	private static void assertResult(String message, String expected, String actual) {
+		try {
+			double expectedValue = Double.parseDouble(expected);
+			double actualValue = Double.parseDouble(actual);
+			// the summation order differs for merged aggregators
+			assertEquals(message, expectedValue, actualValue, 1e-9 * Math.max(1, Math.abs(expectedValue)));
+		} catch (NumberFormatException e) {
+			assertEquals(message, expected, actual);
+		}
+	}
+}